@@ -0,0 +1,91 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    AssociatorBenchmark.java
+ *    Copyright (C) 2026 lendle
+ *
+ */
+
+package weka.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import weka.associations.FPGrowth;
+import weka.core.Instances;
+
+/**
+ * Benchmarks building FPGrowth on binary data.
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class AssociatorBenchmark {
+
+  /** the number of instances */
+  @Param({ "10000", "100000" })
+  public int numInstances;
+
+  /** the number of rules to find */
+  @Param({ "10", "100" })
+  public int numRules;
+
+  /** the data */
+  protected Instances m_Data;
+
+  /**
+   * Generates the data.
+   *
+   * @throws Exception if generating fails
+   */
+  @Setup
+  public void setUp() throws Exception {
+
+    m_Data = BenchmarkData.transactions(numInstances, 20);
+  }
+
+  /**
+   * Builds FPGrowth on the data.
+   *
+   * @return the associator
+   * @throws Exception if building fails
+   */
+  @Benchmark
+  public FPGrowth fpGrowth() throws Exception {
+
+    FPGrowth result = new FPGrowth();
+    result.setNumRulesToFind(numRules);
+    result.buildAssociations(m_Data);
+    return result;
+  }
+}
@@ -0,0 +1,266 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    BaselineReport.java
+ *    Copyright (C) 2026 lendle
+ *
+ */
+
+package weka.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import weka.core.Utils;
+
+/**
+ * Compares the JSON results of two JMH runs, e.g., before and after an
+ * optimization, and lists the change of each benchmark's score and
+ * allocation per operation. Changes for the worse beyond a threshold are
+ * marked as regressions. <br/>
+ * <br/>
+ * Usage:
+ *
+ * <pre>
+ * java weka.benchmark.BaselineReport -baseline before.json -result after.json [-threshold 10]
+ * </pre>
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+public class BaselineReport {
+
+  /** the name of the allocation rate metric of JMH's GC profiler */
+  public static final String ALLOCATION_METRIC = "\u00b7gc.alloc.rate.norm";
+
+  /** the scores of the baseline, by benchmark and parameters */
+  protected Map<String, Score> m_Baseline;
+
+  /** the scores of the result, by benchmark and parameters */
+  protected Map<String, Score> m_Result;
+
+  /** the change in percent above which a benchmark counts as regressed */
+  protected double m_Threshold;
+
+  /**
+   * The score of a benchmark with given parameters.
+   */
+  protected static class Score {
+
+    /** the primary score */
+    public double value;
+
+    /** the error of the primary score */
+    public double error;
+
+    /** the unit of the primary score */
+    public String unit;
+
+    /** whether lower scores are better, i.e., not a throughput */
+    public boolean lowerIsBetter;
+
+    /** the bytes allocated per operation, NaN if not measured */
+    public double allocation = Double.NaN;
+  }
+
+  /**
+   * Creates a report from two JMH result files in JSON format.
+   *
+   * @param baseline the results to compare against
+   * @param result the new results
+   * @param threshold the change in percent above which a benchmark counts as
+   *          regressed
+   * @throws Exception if a file can't be read
+   */
+  public BaselineReport(File baseline, File result, double threshold)
+    throws Exception {
+
+    m_Baseline = read(baseline);
+    m_Result = read(result);
+    m_Threshold = threshold;
+  }
+
+  /**
+   * Reads the scores from a JMH result file in JSON format.
+   *
+   * @param file the file
+   * @return the scores by benchmark and parameters
+   * @throws Exception if the file can't be read
+   */
+  protected static Map<String, Score> read(File file) throws Exception {
+
+    Map<String, Score> result = new LinkedHashMap<String, Score>();
+    Reader reader =
+      new InputStreamReader(new FileInputStream(file), "UTF-8");
+    try {
+      JsonArray runs = new JsonParser().parse(reader).getAsJsonArray();
+      for (JsonElement element : runs) {
+        JsonObject run = element.getAsJsonObject();
+        JsonObject primary = run.getAsJsonObject("primaryMetric");
+        Score score = new Score();
+        score.value = primary.get("score").getAsDouble();
+        score.error = primary.get("scoreError").getAsDouble();
+        score.unit = primary.get("scoreUnit").getAsString();
+        score.lowerIsBetter = !run.get("mode").getAsString().equals("thrpt");
+        JsonObject secondary = run.getAsJsonObject("secondaryMetrics");
+        if ((secondary != null) && secondary.has(ALLOCATION_METRIC)) {
+          score.allocation =
+            secondary.getAsJsonObject(ALLOCATION_METRIC).get("score")
+              .getAsDouble();
+        }
+        result.put(key(run), score);
+      }
+    } finally {
+      reader.close();
+    }
+    return result;
+  }
+
+  /**
+   * Returns the name of a benchmark run with its parameters, sorted by name.
+   *
+   * @param run the run in the JSON results
+   * @return the key
+   */
+  protected static String key(JsonObject run) {
+
+    StringBuilder result = new StringBuilder(run.get("benchmark").getAsString());
+    JsonObject params = run.getAsJsonObject("params");
+    if (params != null) {
+      Map<String, String> sorted = new TreeMap<String, String>();
+      for (Map.Entry<String, JsonElement> param : params.entrySet()) {
+        sorted.put(param.getKey(), param.getValue().getAsString());
+      }
+      for (Map.Entry<String, String> param : sorted.entrySet()) {
+        result.append(" ").append(param.getKey()).append("=")
+          .append(param.getValue());
+      }
+    }
+    return result.toString();
+  }
+
+  /**
+   * Returns the change from the baseline in percent, positive if the new
+   * score is better.
+   *
+   * @param baseline the baseline score
+   * @param result the new score
+   * @return the change in percent
+   */
+  protected static double improvement(Score baseline, Score result) {
+
+    double change = 100 * (result.value - baseline.value) / baseline.value;
+    return result.lowerIsBetter ? -change : change;
+  }
+
+  /**
+   * Returns the benchmarks whose scores got worse by more than the
+   * threshold.
+   *
+   * @return the keys of the regressed benchmarks
+   */
+  public String[] regressions() {
+
+    List<String> result = new ArrayList<String>();
+    for (Map.Entry<String, Score> entry : m_Result.entrySet()) {
+      Score baseline = m_Baseline.get(entry.getKey());
+      if ((baseline != null)
+        && (improvement(baseline, entry.getValue()) < -m_Threshold)) {
+        result.add(entry.getKey());
+      }
+    }
+    return result.toArray(new String[result.size()]);
+  }
+
+  /**
+   * Returns the report as a table, one line per benchmark.
+   *
+   * @return the report
+   */
+  @Override
+  public String toString() {
+
+    StringBuilder result = new StringBuilder();
+    result.append("Change from baseline (positive is better), threshold "
+      + Utils.doubleToString(m_Threshold, 1) + "%\n\n");
+    for (Map.Entry<String, Score> entry : m_Result.entrySet()) {
+      Score score = entry.getValue();
+      Score baseline = m_Baseline.get(entry.getKey());
+      result.append(entry.getKey()).append("\n  ");
+      result.append(Utils.doubleToString(score.value, 3)).append(" +- ")
+        .append(Utils.doubleToString(score.error, 3)).append(" ")
+        .append(score.unit);
+      if (baseline == null) {
+        result.append(" (no baseline)\n");
+        continue;
+      }
+      double change = improvement(baseline, score);
+      result.append(", baseline ")
+        .append(Utils.doubleToString(baseline.value, 3)).append(": ")
+        .append(Utils.doubleToString(change, 1)).append("%");
+      if (!Double.isNaN(score.allocation)
+        && !Double.isNaN(baseline.allocation)) {
+        result.append(", allocation ")
+          .append(Utils.doubleToString(score.allocation, 0))
+          .append(" B/op, baseline ")
+          .append(Utils.doubleToString(baseline.allocation, 0))
+          .append(" B/op");
+      }
+      if (change < -m_Threshold) {
+        result.append("  REGRESSION");
+      }
+      result.append("\n");
+    }
+    return result.toString();
+  }
+
+  /**
+   * Prints the comparison of two JMH result files.
+   *
+   * @param args the options: -baseline file -result file [-threshold percent]
+   * @throws Exception if the files can't be read
+   */
+  public static void main(String[] args) throws Exception {
+
+    String baseline = Utils.getOption("baseline", args);
+    String result = Utils.getOption("result", args);
+    String threshold = Utils.getOption("threshold", args);
+    if ((baseline.length() == 0) || (result.length() == 0)) {
+      System.err.println("Usage: " + BaselineReport.class.getName()
+        + " -baseline <file.json> -result <file.json> [-threshold <percent>]");
+      System.exit(1);
+    }
+    BaselineReport report =
+      new BaselineReport(new File(baseline), new File(result),
+        (threshold.length() == 0) ? 10 : Double.parseDouble(threshold));
+    System.out.println(report);
+    if (report.regressions().length > 0) {
+      System.exit(2);
+    }
+  }
+}
@@ -0,0 +1,214 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    BenchmarkData.java
+ *    Copyright (C) 2026 lendle
+ *
+ */
+
+package weka.benchmark;
+
+import java.io.File;
+import java.util.Random;
+
+import weka.core.Attribute;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.TestInstances;
+import weka.core.converters.AbstractFileSaver;
+import weka.core.converters.ArffSaver;
+import weka.core.converters.CSVSaver;
+import weka.core.converters.ColumnarInstancesLoader;
+import weka.core.converters.ColumnarInstancesSaver;
+import weka.core.converters.JSONLoader;
+import weka.core.converters.JSONSaver;
+import weka.core.converters.SerializedInstancesLoader;
+import weka.core.converters.SerializedInstancesSaver;
+
+/**
+ * Generates the synthetic datasets the benchmarks run on, with
+ * {@link TestInstances}. The data only depends on the parameters, so results
+ * of different runs can be compared.
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+public final class BenchmarkData {
+
+  /** the seed of all generated datasets */
+  public static final int SEED = 1;
+
+  /** not to be instantiated */
+  private BenchmarkData() {
+  }
+
+  /**
+   * Generates a dataset with a nominal class as the last attribute. The
+   * nominal attributes have four values.
+   *
+   * @param numInstances the number of instances
+   * @param numNominal the number of nominal attributes, besides the class
+   * @param numNumeric the number of numeric attributes
+   * @param numClasses the number of classes
+   * @param missing the proportion of missing attribute values
+   * @return the data
+   * @throws Exception if generating fails
+   */
+  public static Instances classification(int numInstances, int numNominal,
+    int numNumeric, int numClasses, double missing) throws Exception {
+
+    TestInstances test = new TestInstances();
+    test.setSeed(SEED);
+    test.setNumInstances(numInstances);
+    test.setNumNominal(numNominal);
+    test.setNumNominalValues(4);
+    test.setNumNumeric(numNumeric);
+    test.setNumClasses(numClasses);
+    test.setClassType(Attribute.NOMINAL);
+    test.setClassIndex(TestInstances.CLASS_IS_LAST);
+    return addMissing(test.generate(), missing);
+  }
+
+  /**
+   * Generates a dataset of binary attributes without class, e.g., for
+   * association rule learners.
+   *
+   * @param numInstances the number of instances
+   * @param numAttributes the number of attributes
+   * @return the data
+   * @throws Exception if generating fails
+   */
+  public static Instances transactions(int numInstances, int numAttributes)
+    throws Exception {
+
+    TestInstances test = new TestInstances();
+    test.setSeed(SEED);
+    test.setNumInstances(numInstances);
+    test.setNumNominal(numAttributes);
+    test.setNumNominalValues(2);
+    test.setNumNumeric(0);
+    test.setClassIndex(TestInstances.NO_CLASS);
+    return test.generate();
+  }
+
+  /**
+   * Sets randomly chosen attribute values, except class values, to missing.
+   *
+   * @param data the data to modify
+   * @param missing the proportion of values to set to missing
+   * @return the data
+   */
+  public static Instances addMissing(Instances data, double missing) {
+
+    if (missing <= 0) {
+      return data;
+    }
+    Random random = new Random(SEED);
+    for (int i = 0; i < data.numInstances(); i++) {
+      Instance inst = data.instance(i);
+      for (int j = 0; j < data.numAttributes(); j++) {
+        if ((j != data.classIndex()) && (random.nextDouble() < missing)) {
+          inst.setMissing(j);
+        }
+      }
+    }
+    return data;
+  }
+
+  /**
+   * Saves the data in a temporary ARFF file, which is deleted on exit.
+   *
+   * @param data the data to save
+   * @return the file
+   * @throws Exception if saving fails
+   */
+  public static File toArff(Instances data) throws Exception {
+
+    return save(data, new ArffSaver(), ".arff");
+  }
+
+  /**
+   * Saves the data in a temporary CSV file, which is deleted on exit.
+   *
+   * @param data the data to save
+   * @return the file
+   * @throws Exception if saving fails
+   */
+  public static File toCSV(Instances data) throws Exception {
+
+    return save(data, new CSVSaver(), ".csv");
+  }
+
+  /**
+   * Saves the data in a temporary JSON file, which is deleted on exit.
+   *
+   * @param data the data to save
+   * @return the file
+   * @throws Exception if saving fails
+   */
+  public static File toJSON(Instances data) throws Exception {
+
+    return save(data, new JSONSaver(), JSONLoader.FILE_EXTENSION);
+  }
+
+  /**
+   * Saves the data in a temporary columnar binary file, which is deleted on
+   * exit.
+   *
+   * @param data the data to save
+   * @return the file
+   * @throws Exception if saving fails
+   */
+  public static File toColumnar(Instances data) throws Exception {
+
+    return save(data, new ColumnarInstancesSaver(),
+      ColumnarInstancesLoader.FILE_EXTENSION);
+  }
+
+  /**
+   * Saves the data in a temporary file of serialized instances, which is
+   * deleted on exit.
+   *
+   * @param data the data to save
+   * @return the file
+   * @throws Exception if saving fails
+   */
+  public static File toSerialized(Instances data) throws Exception {
+
+    return save(data, new SerializedInstancesSaver(),
+      SerializedInstancesLoader.FILE_EXTENSION);
+  }
+
+  /**
+   * Saves the data in a temporary file, which is deleted on exit.
+   *
+   * @param data the data to save
+   * @param saver the saver to use
+   * @param extension the extension of the file
+   * @return the file
+   * @throws Exception if saving fails
+   */
+  protected static File save(Instances data, AbstractFileSaver saver,
+    String extension) throws Exception {
+
+    File file = File.createTempFile("weka-benchmark", extension);
+    file.deleteOnExit();
+    saver.setInstances(data);
+    saver.setFile(file);
+    saver.writeBatch();
+    return file;
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    BenchmarkRunner.java
+ *    Copyright (C) 2026 lendle
+ *
+ */
+
+package weka.benchmark;
+
+import java.io.File;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import weka.core.Utils;
+
+/**
+ * Runs the JMH benchmarks of this package with the GC profiler, which
+ * measures the allocation rate, saves the results in JSON format and
+ * optionally compares them with the results of an earlier run (see
+ * {@link BaselineReport}). <br/>
+ * <br/>
+ * The benchmarks are built with the <code>benchmarks</code> Maven profile,
+ * e.g.:
+ *
+ * <pre>
+ * mvn -P benchmarks test-compile exec:exec -Dbenchmark.args="-include Classifier -result after.json -baseline before.json"
+ * </pre>
+ *
+ * Valid options are:
+ * <p/>
+ *
+ * <pre>
+ * -include &lt;regexp&gt;
+ *  The benchmarks to run (default: all of this package)
+ * -result &lt;file&gt;
+ *  The file to save the results in (default: jmh-result.json)
+ * -baseline &lt;file&gt;
+ *  The results of an earlier run to compare with
+ * -threshold &lt;percent&gt;
+ *  The change for the worse that counts as regression (default: 10)
+ * -quick
+ *  Runs fewer iterations, for a first impression
+ * </pre>
+ *
+ * The exit code is 2 if a benchmark regressed compared to the baseline.
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+public class BenchmarkRunner {
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args the options
+   * @throws Exception if running the benchmarks fails
+   */
+  public static void main(String[] args) throws Exception {
+
+    String include = Utils.getOption("include", args);
+    String result = Utils.getOption("result", args);
+    String baseline = Utils.getOption("baseline", args);
+    String threshold = Utils.getOption("threshold", args);
+    boolean quick = Utils.getFlag("quick", args);
+    Utils.checkForRemainingOptions(args);
+
+    if (include.length() == 0) {
+      include = BenchmarkRunner.class.getPackage().getName() + ".*Benchmark";
+    }
+    if (result.length() == 0) {
+      result = "jmh-result.json";
+    }
+
+    ChainedOptionsBuilder options =
+      new OptionsBuilder().include(include).addProfiler(GCProfiler.class)
+        .resultFormat(ResultFormatType.JSON).result(result);
+    if (quick) {
+      options =
+        options.forks(1).warmupIterations(1).measurementIterations(2);
+    }
+    new Runner(options.build()).run();
+
+    if (baseline.length() > 0) {
+      BaselineReport report =
+        new BaselineReport(new File(baseline), new File(result),
+          (threshold.length() == 0) ? 10 : Double.parseDouble(threshold));
+      System.out.println();
+      System.out.println(report);
+      if (report.regressions().length > 0) {
+        System.exit(2);
+      }
+    }
+  }
+}
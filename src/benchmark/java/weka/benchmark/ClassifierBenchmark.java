@@ -0,0 +1,154 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    ClassifierBenchmark.java
+ *    Copyright (C) 2026 lendle
+ *
+ */
+
+package weka.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import weka.classifiers.AbstractClassifier;
+import weka.classifiers.Classifier;
+import weka.classifiers.Evaluation;
+import weka.core.BatchPredictor;
+import weka.core.Instances;
+import weka.core.Utils;
+
+/**
+ * Benchmarks training classifiers, predicting one instance at a time and in
+ * batches, and evaluating a trained model with {@link Evaluation}.
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ClassifierBenchmark {
+
+  /** the classifier, with options */
+  @Param({ "weka.classifiers.trees.J48",
+    "weka.classifiers.trees.RandomForest",
+    "weka.classifiers.bayes.NaiveBayes", "weka.classifiers.functions.SMO",
+    "weka.classifiers.functions.Logistic" })
+  public String classifier;
+
+  /** the number of instances */
+  @Param({ "1000", "10000" })
+  public int numInstances;
+
+  /** the data */
+  protected Instances m_Data;
+
+  /** the configured classifier that is copied for training */
+  protected Classifier m_Template;
+
+  /** the classifier trained on the data */
+  protected Classifier m_Trained;
+
+  /**
+   * Generates the data and trains the classifier.
+   *
+   * @throws Exception if generating the data or training fails
+   */
+  @Setup
+  public void setUp() throws Exception {
+
+    m_Data = BenchmarkData.classification(numInstances, 5, 15, 3, 0.01);
+    String[] options = Utils.splitOptions(classifier);
+    String classname = options[0];
+    options[0] = "";
+    m_Template = AbstractClassifier.forName(classname, options);
+    m_Trained = train();
+  }
+
+  /**
+   * Trains a copy of the classifier on the data.
+   *
+   * @return the trained classifier
+   * @throws Exception if training fails
+   */
+  @Benchmark
+  public Classifier train() throws Exception {
+
+    Classifier result = AbstractClassifier.makeCopy(m_Template);
+    result.buildClassifier(m_Data);
+    return result;
+  }
+
+  /**
+   * Predicts the class distributions of all instances one at a time.
+   *
+   * @param bh the blackhole for the distributions
+   * @throws Exception if predicting fails
+   */
+  @Benchmark
+  public void predict(Blackhole bh) throws Exception {
+
+    for (int i = 0; i < m_Data.numInstances(); i++) {
+      bh.consume(m_Trained.distributionForInstance(m_Data.instance(i)));
+    }
+  }
+
+  /**
+   * Predicts the class distributions of all instances in batches, if the
+   * classifier supports it.
+   *
+   * @return the distributions
+   * @throws Exception if predicting fails
+   */
+  @Benchmark
+  public double[][] predictBatch() throws Exception {
+
+    if (!(m_Trained instanceof BatchPredictor)) {
+      return null;
+    }
+    return ((BatchPredictor) m_Trained).distributionsForInstances(m_Data);
+  }
+
+  /**
+   * Evaluates the trained classifier on the data.
+   *
+   * @return the percentage of correctly classified instances
+   * @throws Exception if evaluating fails
+   */
+  @Benchmark
+  public double evaluateModel() throws Exception {
+
+    Evaluation eval = new Evaluation(m_Data);
+    eval.evaluateModel(m_Trained, m_Data);
+    return eval.pctCorrect();
+  }
+}
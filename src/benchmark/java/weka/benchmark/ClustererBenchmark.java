@@ -0,0 +1,98 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    ClustererBenchmark.java
+ *    Copyright (C) 2026 lendle
+ *
+ */
+
+package weka.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import weka.clusterers.SimpleKMeans;
+import weka.core.Instances;
+import weka.filters.Filter;
+import weka.filters.unsupervised.attribute.Remove;
+
+/**
+ * Benchmarks building SimpleKMeans on numeric data.
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ClustererBenchmark {
+
+  /** the number of instances */
+  @Param({ "10000", "100000" })
+  public int numInstances;
+
+  /** the number of clusters */
+  @Param({ "5", "20" })
+  public int numClusters;
+
+  /** the data, without class */
+  protected Instances m_Data;
+
+  /**
+   * Generates the data.
+   *
+   * @throws Exception if generating fails
+   */
+  @Setup
+  public void setUp() throws Exception {
+
+    Instances data =
+      BenchmarkData.classification(numInstances, 0, 20, 2, 0.01);
+    Remove remove = new Remove();
+    remove.setAttributeIndices("" + (data.classIndex() + 1));
+    remove.setInputFormat(data);
+    m_Data = Filter.useFilter(data, remove);
+  }
+
+  /**
+   * Builds SimpleKMeans on the data.
+   *
+   * @return the clusterer
+   * @throws Exception if building fails
+   */
+  @Benchmark
+  public SimpleKMeans simpleKMeans() throws Exception {
+
+    SimpleKMeans result = new SimpleKMeans();
+    result.setNumClusters(numClusters);
+    result.buildClusterer(m_Data);
+    return result;
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    FilterBenchmark.java
+ *    Copyright (C) 2026 lendle
+ *
+ */
+
+package weka.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import weka.core.Instances;
+import weka.core.Utils;
+import weka.filters.Filter;
+
+/**
+ * Benchmarks filtering a whole dataset with a commonly used filter, which is
+ * set up anew for each run.
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class FilterBenchmark {
+
+  /** the filter, with options */
+  @Param({ "weka.filters.unsupervised.attribute.Normalize",
+    "weka.filters.unsupervised.attribute.Standardize",
+    "weka.filters.unsupervised.attribute.ReplaceMissingValues",
+    "weka.filters.unsupervised.attribute.NominalToBinary",
+    "weka.filters.unsupervised.attribute.Discretize",
+    "weka.filters.supervised.attribute.Discretize" })
+  public String filter;
+
+  /** the number of instances */
+  @Param({ "10000", "100000" })
+  public int numInstances;
+
+  /** the data */
+  protected Instances m_Data;
+
+  /** the configured filter that is copied for each run */
+  protected Filter m_Template;
+
+  /**
+   * Generates the data and creates the filter.
+   *
+   * @throws Exception if generating the data or creating the filter fails
+   */
+  @Setup
+  public void setUp() throws Exception {
+
+    m_Data = BenchmarkData.classification(numInstances, 5, 15, 3, 0.01);
+    String[] options = Utils.splitOptions(filter);
+    String classname = options[0];
+    options[0] = "";
+    m_Template = (Filter) Utils.forName(Filter.class, classname, options);
+  }
+
+  /**
+   * Filters the data.
+   *
+   * @return the filtered data
+   * @throws Exception if filtering fails
+   */
+  @Benchmark
+  public Instances useFilter() throws Exception {
+
+    Filter filter = Filter.makeCopy(m_Template);
+    filter.setInputFormat(m_Data);
+    return Filter.useFilter(m_Data, filter);
+  }
+}
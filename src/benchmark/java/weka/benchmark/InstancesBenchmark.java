@@ -0,0 +1,157 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    InstancesBenchmark.java
+ *    Copyright (C) 2026 lendle
+ *
+ */
+
+package weka.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import weka.core.EuclideanDistance;
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * Benchmarks the basic operations on datasets: copying Instances and
+ * DenseInstance objects, reading values and computing Euclidean distances.
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class InstancesBenchmark {
+
+  /** the number of instances */
+  @Param({ "1000", "100000" })
+  public int numInstances;
+
+  /** the number of numeric attributes */
+  @Param({ "10", "100" })
+  public int numAttributes;
+
+  /** the data */
+  protected Instances m_Data;
+
+  /** the distance function, initialized on the data */
+  protected EuclideanDistance m_Distance;
+
+  /**
+   * Generates the data.
+   *
+   * @throws Exception if generating fails
+   */
+  @Setup
+  public void setUp() throws Exception {
+
+    m_Data =
+      BenchmarkData.classification(numInstances, 0, numAttributes, 2, 0.01);
+    m_Distance = new EuclideanDistance(m_Data);
+  }
+
+  /**
+   * Copies the dataset with all its instances.
+   *
+   * @return the copy
+   */
+  @Benchmark
+  public Instances copyInstances() {
+
+    return new Instances(m_Data);
+  }
+
+  /**
+   * Copies each instance.
+   *
+   * @param bh the blackhole for the copies
+   */
+  @Benchmark
+  public void copyInstance(Blackhole bh) {
+
+    for (int i = 0; i < m_Data.numInstances(); i++) {
+      bh.consume(m_Data.instance(i).copy());
+    }
+  }
+
+  /**
+   * Reads all values of all instances.
+   *
+   * @return the sum of the values that are not missing
+   */
+  @Benchmark
+  public double readValues() {
+
+    double sum = 0;
+    for (int i = 0; i < m_Data.numInstances(); i++) {
+      Instance inst = m_Data.instance(i);
+      for (int j = 0; j < inst.numAttributes(); j++) {
+        if (!inst.isMissing(j)) {
+          sum += inst.value(j);
+        }
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * Computes the distances of the first instance to all instances.
+   *
+   * @return the sum of the distances
+   */
+  @Benchmark
+  public double euclideanDistance() {
+
+    Instance first = m_Data.instance(0);
+    double sum = 0;
+    for (int i = 0; i < m_Data.numInstances(); i++) {
+      sum += m_Distance.distance(first, m_Data.instance(i));
+    }
+    return sum;
+  }
+
+  /**
+   * Sorts a copy of the dataset on the first attribute.
+   *
+   * @return the sorted copy
+   */
+  @Benchmark
+  public Instances sort() {
+
+    Instances copy = new Instances(m_Data);
+    copy.sort(0);
+    return copy;
+  }
+}
@@ -0,0 +1,229 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    LoaderBenchmark.java
+ *    Copyright (C) 2026 lendle
+ *
+ */
+
+package weka.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.converters.ArffLoader;
+import weka.core.converters.ArffLoader.ArffReader;
+import weka.core.converters.CSVLoader;
+import weka.core.converters.ColumnarInstancesLoader;
+import weka.core.converters.JSONLoader;
+import weka.core.converters.SerializedInstancesLoader;
+
+/**
+ * Benchmarks loading ARFF, CSV and binary files with mixed nominal and
+ * numeric attributes and some missing values.
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class LoaderBenchmark {
+
+  /** the number of instances */
+  @Param({ "10000", "100000" })
+  public int numInstances;
+
+  /** the ARFF file */
+  protected File m_Arff;
+
+  /** the CSV file */
+  protected File m_CSV;
+
+  /** the JSON file */
+  protected File m_JSON;
+
+  /** the columnar binary file */
+  protected File m_Columnar;
+
+  /** the file of serialized instances */
+  protected File m_Serialized;
+
+  /**
+   * Generates the files.
+   *
+   * @throws Exception if generating fails
+   */
+  @Setup
+  public void setUp() throws Exception {
+
+    Instances data =
+      BenchmarkData.classification(numInstances, 5, 15, 3, 0.01);
+    m_Arff = BenchmarkData.toArff(data);
+    m_CSV = BenchmarkData.toCSV(data);
+    m_JSON = BenchmarkData.toJSON(data);
+    m_Columnar = BenchmarkData.toColumnar(data);
+    m_Serialized = BenchmarkData.toSerialized(data);
+  }
+
+  /**
+   * Loads the ARFF file.
+   *
+   * @return the data
+   * @throws Exception if loading fails
+   */
+  @Benchmark
+  public Instances loadArff() throws Exception {
+
+    ArffLoader loader = new ArffLoader();
+    loader.setFile(m_Arff);
+    return loader.getDataSet();
+  }
+
+  /**
+   * Loads the ARFF file in parallel, with one thread per processor.
+   *
+   * @return the data
+   * @throws Exception if loading fails
+   */
+  @Benchmark
+  public Instances loadArffParallel() throws Exception {
+
+    ArffLoader loader = new ArffLoader();
+    loader.setNumExecutionSlots(0);
+    loader.setFile(m_Arff);
+    return loader.getDataSet();
+  }
+
+  /**
+   * Reads the ARFF file with the tokenizer only, i.e., without the line
+   * parser, as a baseline.
+   *
+   * @return the data
+   * @throws Exception if loading fails
+   */
+  @Benchmark
+  public Instances loadArffTokenizer() throws Exception {
+
+    BufferedReader reader = new BufferedReader(new FileReader(m_Arff));
+    try {
+      ArffReader arff = new ArffReader(reader, 1);
+      Instances structure = arff.getStructure();
+      Instances data = new Instances(structure, numInstances);
+      Instance inst;
+      while ((inst = arff.readInstance(structure, false)) != null) {
+        data.add(inst);
+      }
+      return data;
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Loads the JSON file.
+   *
+   * @return the data
+   * @throws Exception if loading fails
+   */
+  @Benchmark
+  public Instances loadJSON() throws Exception {
+
+    JSONLoader loader = new JSONLoader();
+    loader.setFile(m_JSON);
+    return loader.getDataSet();
+  }
+
+  /**
+   * Reads the JSON file incrementally, without keeping the instances.
+   *
+   * @return the number of instances
+   * @throws Exception if loading fails
+   */
+  @Benchmark
+  public int loadJSONIncremental() throws Exception {
+
+    JSONLoader loader = new JSONLoader();
+    loader.setFile(m_JSON);
+    Instances structure = loader.getStructure();
+    int count = 0;
+    while (loader.getNextInstance(structure) != null) {
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Loads the columnar binary file.
+   *
+   * @return the data
+   * @throws Exception if loading fails
+   */
+  @Benchmark
+  public Instances loadColumnar() throws Exception {
+
+    ColumnarInstancesLoader loader = new ColumnarInstancesLoader();
+    loader.setFile(m_Columnar);
+    return loader.getDataSet();
+  }
+
+  /**
+   * Loads the file of serialized instances.
+   *
+   * @return the data
+   * @throws Exception if loading fails
+   */
+  @Benchmark
+  public Instances loadSerialized() throws Exception {
+
+    SerializedInstancesLoader loader = new SerializedInstancesLoader();
+    loader.setFile(m_Serialized);
+    return loader.getDataSet();
+  }
+
+  /**
+   * Loads the CSV file.
+   *
+   * @return the data
+   * @throws Exception if loading fails
+   */
+  @Benchmark
+  public Instances loadCSV() throws Exception {
+
+    CSVLoader loader = new CSVLoader();
+    loader.setFile(m_CSV);
+    return loader.getDataSet();
+  }
+}
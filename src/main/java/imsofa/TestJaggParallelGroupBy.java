@@ -0,0 +1,61 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package imsofa;
+
+import imsofa.TestJaggPropertyAccess.Record;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import net.sf.jagg.AggregateFunction;
+import net.sf.jagg.Aggregation;
+import net.sf.jagg.AvgAggregator;
+import net.sf.jagg.CountAggregator;
+import net.sf.jagg.MaxAggregator;
+import net.sf.jagg.SumAggregator;
+import net.sf.jagg.model.AggregateValue;
+
+/**
+ * times a parallel groupBy on unsorted data, sorting first vs hash
+ * partitioning
+ *
+ * @author lendle
+ */
+public class TestJaggParallelGroupBy {
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int size = 1000000;
+        List<Record> records = new ArrayList<>(size);
+        Random random = new Random(1);
+        for (int i = 0; i < size; i++) {
+            records.add(new Record(random.nextInt(10000), random.nextGaussian()));
+        }
+        int numProcessors = Runtime.getRuntime().availableProcessors();
+        for (int round = 0; round < 3; round++) {
+            for (int parallelism = 1; parallelism <= numProcessors; parallelism *= 2) {
+                for (boolean useHashPartitioning : new boolean[]{false, true}) {
+                    Aggregation agg = new Aggregation.Builder().setAggregators(Arrays.asList(
+                            new AggregateFunction[]{
+                                new CountAggregator("value"), new SumAggregator("value"), new AvgAggregator("value"), new MaxAggregator("value")
+                            }
+                    )).setProperties(Arrays.asList(new String[]{
+                        "group"
+                    })).setParallelism(parallelism).setUseHashPartitioning(useHashPartitioning).build();
+                    long start = System.currentTimeMillis();
+                    List<AggregateValue<Record>> result = agg.groupBy(records);
+                    long time = System.currentTimeMillis() - start;
+                    if (round == 2) {
+                        System.out.println((useHashPartitioning ? "hash" : "sort") + ", parallelism " + parallelism + ": " + time + "ms ("
+                                + result.size() + " groups)");
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package imsofa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import net.sf.jagg.AggregateFunction;
+import net.sf.jagg.Aggregation;
+import net.sf.jagg.Aggregator;
+import net.sf.jagg.AvgAggregator;
+import net.sf.jagg.CountAggregator;
+import net.sf.jagg.MaxAggregator;
+import net.sf.jagg.MinAggregator;
+import net.sf.jagg.SumAggregator;
+import net.sf.jagg.VarianceAggregator;
+import net.sf.jagg.model.AggregateValue;
+import net.sf.jagg.util.MethodCache;
+
+/**
+ * compares reflective and MethodHandle based property access in jagg, both
+ * for single property reads and for a whole groupBy with the common
+ * aggregators
+ *
+ * @author lendle
+ */
+public class TestJaggPropertyAccess {
+
+    public static class Record {
+
+        private int group;
+        private double value;
+
+        public Record(int group, double value) {
+            this.group = group;
+            this.value = value;
+        }
+
+        public int getGroup() {
+            return group;
+        }
+
+        public double getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int size = 1000000;
+        List<Record> records = new ArrayList<>(size);
+        Random random = new Random(1);
+        for (int i = 0; i < size; i++) {
+            records.add(new Record(random.nextInt(100), random.nextGaussian()));
+        }
+        //warm up both paths first, then measure
+        for (int round = 0; round < 6; round++) {
+            for (boolean useMethodHandles : new boolean[]{false, true}) {
+                MethodCache.getMethodCache().setUseMethodHandles(useMethodHandles);
+                String label = useMethodHandles ? "MethodHandle" : "reflection";
+
+                long start = System.currentTimeMillis();
+                double sum = 0;
+                for (Record record : records) {
+                    sum += (Double) Aggregator.getValueFromProperty(record, "value");
+                }
+                long readTime = System.currentTimeMillis() - start;
+
+                start = System.currentTimeMillis();
+                Aggregation agg = new Aggregation.Builder().setAggregators(Arrays.asList(
+                        new AggregateFunction[]{
+                            new CountAggregator("value"), new SumAggregator("value"), new AvgAggregator("value"),
+                            new MinAggregator("value"), new MaxAggregator("value"), new VarianceAggregator("value")
+                        }
+                )).setProperties(Arrays.asList(new String[]{
+                    "group"
+                })).build();
+                List<AggregateValue<Record>> result = agg.groupBy(records);
+                long groupByTime = System.currentTimeMillis() - start;
+
+                if (round >= 4) {
+                    System.out.println(label + ": read " + size + " values in " + readTime + "ms (sum=" + sum + "), groupBy in "
+                            + groupByTime + "ms (" + result.size() + " groups, first sum="
+                            + result.get(0).getAggregateValue(1) + ")");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package imsofa;
+
+import imsofa.weka.utils.RenjinWrapper;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+import weka.core.converters.CSVLoader;
+import weka.core.converters.CSVSaver;
+
+/**
+ * compares the in-memory data bridge with the old CSV temp file round trip
+ *
+ * @author lendle
+ */
+public class TestRenjinDataBridge {
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) throws Exception {
+        int[] sizes = {10000, 100000, 1000000};
+        RenjinWrapper wrapper = new RenjinWrapper();
+        for (int size : sizes) {
+            Instances instances = createData(size);
+
+            long start = System.currentTimeMillis();
+            loadDataByCSV(wrapper, instances, "csv");
+            long csvLoad = System.currentTimeMillis() - start;
+
+            start = System.currentTimeMillis();
+            wrapper.loadData(instances, "bridge");
+            long bridgeLoad = System.currentTimeMillis() - start;
+
+            start = System.currentTimeMillis();
+            writeDataByCSV(wrapper, "csv");
+            long csvWrite = System.currentTimeMillis() - start;
+
+            start = System.currentTimeMillis();
+            Instances back = wrapper.writeData("bridge");
+            long bridgeWrite = System.currentTimeMillis() - start;
+
+            System.out.println(size + " rows: load csv=" + csvLoad + "ms, bridge=" + bridgeLoad
+                    + "ms; write csv=" + csvWrite + "ms, bridge=" + bridgeWrite + "ms ("
+                    + back.numInstances() + " rows back)");
+        }
+    }
+
+    private static Instances createData(int size) {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        attributes.add(new Attribute("x1"));
+        attributes.add(new Attribute("x2"));
+        attributes.add(new Attribute("y"));
+        attributes.add(new Attribute("class", Arrays.asList("a", "b", "c")));
+        Instances instances = new Instances("test", attributes, size);
+        Random random = new Random(1);
+        for (int i = 0; i < size; i++) {
+            double x1 = random.nextDouble();
+            double x2 = random.nextDouble();
+            instances.add(new DenseInstance(1.0, new double[]{x1, x2, 3 * x1 - 2 * x2 + random.nextGaussian(), random.nextInt(3)}));
+        }
+        return instances;
+    }
+
+    private static void loadDataByCSV(RenjinWrapper wrapper, Instances instances, String varName) throws Exception {
+        CSVSaver saver = new CSVSaver();
+        File file = File.createTempFile("" + System.currentTimeMillis(), ".csv");
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            saver.setDestination(output);
+            saver.setInstances(instances);
+            saver.writeBatch();
+        }
+        String path = file.getCanonicalPath().replace("\\", "/");
+        wrapper.eval(varName + "<-read.csv('" + path + "')");
+        FileUtils.deleteQuietly(file);
+    }
+
+    private static Instances writeDataByCSV(RenjinWrapper wrapper, String varName) throws Exception {
+        File file = File.createTempFile("temp", ".csv");
+        wrapper.writeData(varName, file);
+        CSVLoader loader = new CSVLoader();
+        loader.setFile(file);
+        Instances instances = loader.getDataSet();
+        FileUtils.deleteQuietly(file);
+        return instances;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package imsofa;
+
+import imsofa.weka.utils.InstanceIterator;
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import net.sf.jagg.AggregateFunction;
+import net.sf.jagg.AvgAggregator;
+import net.sf.jagg.CountAggregator;
+import net.sf.jagg.MaxAggregator;
+import net.sf.jagg.StreamingAggregation;
+import net.sf.jagg.model.AggregateValue;
+import weka.core.Instance;
+import weka.core.converters.ArffLoader;
+
+/**
+ * aggregates an arff file one instance at a time, with and without spilling
+ * groups to disk
+ *
+ * @author lendle
+ */
+public class TestStreamingAggregation {
+
+    /**
+     * @param args the arff file and the index of the attribute to group by
+     */
+    public static void main(String[] args) throws Exception {
+        File file = new File((args.length > 0) ? args[0] : "src/main/java/weka/gui/beans/templates/iris.arff");
+        int groupIndex = (args.length > 1) ? Integer.parseInt(args[1]) : 4;
+        for (int maxGroups : new int[]{Integer.MAX_VALUE, 1}) {
+            ArffLoader loader = new ArffLoader();
+            loader.setFile(file);
+            InstanceIterator iterator = new InstanceIterator(loader);
+            StreamingAggregation<Instance> aggregation = new StreamingAggregation.Builder().setAggregators(Arrays.asList(
+                    new AggregateFunction[]{
+                        new CountAggregator("value(0)"), new AvgAggregator("value(0)"), new MaxAggregator("value(0)")
+                    }
+            )).setProperties(Arrays.asList(new String[]{
+                "stringValue(" + groupIndex + ")"
+            })).setMaxGroups(maxGroups).setSpillDirectory(new File(System.getProperty("java.io.tmpdir"))).build();
+            long start = System.currentTimeMillis();
+            aggregation.addAll(iterator);
+            List<AggregateValue<Instance>> result = aggregation.finish();
+            System.out.println("maxGroups=" + maxGroups + ": " + (System.currentTimeMillis() - start) + "ms");
+            for (AggregateValue<Instance> value : result) {
+                System.out.println(value.getPropertyValue(0) + ": count=" + value.getAggregateValue(0) + ", avg="
+                        + value.getAggregateValue(1) + ", max=" + value.getAggregateValue(2));
+            }
+        }
+    }
+}
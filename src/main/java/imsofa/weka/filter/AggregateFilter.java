@@ -0,0 +1,426 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package imsofa.weka.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Vector;
+import weka.core.Attribute;
+import weka.core.Capabilities;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.Option;
+import weka.core.Utils;
+import weka.filters.SimpleBatchFilter;
+
+/**
+ * group-by aggregation directly over the columns of the input, e.g.
+ * aggregators "Avg(x),Max(x),Count(*)" grouped by "time"; function names
+ * follow jagg (Count, Sum, Avg, Min, Max, Variance, VariancePop, StdDev,
+ * StdDevPop, GeometricMean, HarmonicMean, Product) and missing values are
+ * ignored like jagg ignores nulls
+ *
+ * @author lendle
+ */
+public class AggregateFilter extends SimpleBatchFilter {
+
+    private static final long serialVersionUID = 1L;
+    private static final String[] FUNCTIONS = {"Count", "Sum", "Avg", "Min", "Max", "Variance", "VariancePop",
+        "StdDev", "StdDevPop", "GeometricMean", "HarmonicMean", "Product"};
+    private static final int COUNT = 0, SUM = 1, AVG = 2, MIN = 3, MAX = 4, VARIANCE = 5, VARIANCE_POP = 6,
+            STDDEV = 7, STDDEV_POP = 8, GEOMETRIC_MEAN = 9, HARMONIC_MEAN = 10, PRODUCT = 11;
+    /**
+     * property of Count that counts rows instead of non missing values
+     */
+    public static final String ALL_ROWS = "*";
+
+    protected String aggregators = "Count(*)";
+    protected String groupbyProperties = "";
+
+    public String getAggregators() {
+        return aggregators;
+    }
+
+    public void setAggregators(String aggregators) {
+        this.aggregators = aggregators;
+    }
+
+    public String aggregatorsTipText() {
+        return "comma separated aggregator specifications, e.g. Avg(x),Count(*)";
+    }
+
+    public String getGroupbyProperties() {
+        return groupbyProperties;
+    }
+
+    public void setGroupbyProperties(String groupbyProperties) {
+        this.groupbyProperties = groupbyProperties;
+    }
+
+    public String groupbyPropertiesTipText() {
+        return "comma separated names of the attributes to group by";
+    }
+
+    @Override
+    public String globalInfo() {
+        return "Groups the instances by the values of some attributes and aggregates other attributes per group.";
+    }
+
+    @Override
+    public Capabilities getCapabilities() {
+        Capabilities result = super.getCapabilities();
+        result.disableAll();
+        result.enableAllAttributes();
+        result.enable(Capabilities.Capability.MISSING_VALUES);
+        result.enableAllClasses();
+        result.enable(Capabilities.Capability.MISSING_CLASS_VALUES);
+        result.enable(Capabilities.Capability.NO_CLASS);
+        return result;
+    }
+
+    @Override
+    public Enumeration<Option> listOptions() {
+        Vector<Option> result = new Vector<>();
+        result.add(new Option("\tThe aggregators, e.g. Avg(x),Count(*)\n\t(default: Count(*))", "A", 1, "-A <aggregators>"));
+        result.add(new Option("\tThe attributes to group by, comma separated\n\t(default: none)", "G", 1, "-G <attributes>"));
+        result.addAll(Collections.list(super.listOptions()));
+        return result.elements();
+    }
+
+    @Override
+    public void setOptions(String[] options) throws Exception {
+        String value = Utils.getOption('A', options);
+        setAggregators(value.length() == 0 ? "Count(*)" : value);
+        setGroupbyProperties(Utils.getOption('G', options));
+        super.setOptions(options);
+    }
+
+    @Override
+    public String[] getOptions() {
+        Vector<String> result = new Vector<>();
+        result.add("-A");
+        result.add(aggregators);
+        if (groupbyProperties.length() > 0) {
+            result.add("-G");
+            result.add(groupbyProperties);
+        }
+        result.addAll(Arrays.asList(super.getOptions()));
+        return result.toArray(new String[0]);
+    }
+
+    @Override
+    protected Instances determineOutputFormat(Instances inputFormat) throws Exception {
+        int[] groupIndices = groupIndices(inputFormat);
+        String[] specs = splitList(aggregators);
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        for (int index : groupIndices) {
+            attributes.add((Attribute) inputFormat.attribute(index).copy());
+        }
+        for (String spec : specs) {
+            //validates the specification
+            parseFunction(spec);
+            parseProperty(inputFormat, spec);
+            attributes.add(new Attribute(spec));
+        }
+        return new Instances(inputFormat.relationName(), attributes, 0);
+    }
+
+    @Override
+    protected Instances process(Instances instances) throws Exception {
+        Instances output = getOutputFormat();
+        int[] groupIndices = groupIndices(instances);
+        String[] specs = splitList(aggregators);
+        int numAggregates = specs.length;
+        int[] functions = new int[numAggregates];
+        int[] properties = new int[numAggregates];
+        for (int a = 0; a < numAggregates; a++) {
+            functions[a] = parseFunction(specs[a]);
+            properties[a] = parseProperty(instances, specs[a]);
+        }
+
+        GroupTable groups = new GroupTable(groupIndices.length);
+        //per aggregate and group: number of values and two running values
+        int capacity = 0;
+        double[][] counts = new double[numAggregates][0];
+        double[][] first = new double[numAggregates][0];
+        double[][] second = new double[numAggregates][0];
+        double[] key = new double[groupIndices.length];
+        for (int i = 0; i < instances.numInstances(); i++) {
+            Instance instance = instances.instance(i);
+            for (int k = 0; k < groupIndices.length; k++) {
+                key[k] = instance.value(groupIndices[k]);
+            }
+            int group = groups.groupOf(key);
+            if (group >= capacity) {
+                int oldCapacity = capacity;
+                capacity = Math.max(16, capacity * 2);
+                for (int a = 0; a < numAggregates; a++) {
+                    counts[a] = Arrays.copyOf(counts[a], capacity);
+                    first[a] = Arrays.copyOf(first[a], capacity);
+                    second[a] = Arrays.copyOf(second[a], capacity);
+                    initialize(functions[a], first[a], oldCapacity, capacity);
+                }
+            }
+            for (int a = 0; a < numAggregates; a++) {
+                if (properties[a] < 0) {
+                    counts[a][group]++;
+                    continue;
+                }
+                double value = instance.value(properties[a]);
+                if (Utils.isMissingValue(value)) {
+                    continue;
+                }
+                double n = ++counts[a][group];
+                switch (functions[a]) {
+                    case SUM:
+                    case AVG:
+                        first[a][group] += value;
+                        break;
+                    case MIN:
+                        first[a][group] = Math.min(first[a][group], value);
+                        break;
+                    case MAX:
+                        first[a][group] = Math.max(first[a][group], value);
+                        break;
+                    case VARIANCE:
+                    case VARIANCE_POP:
+                    case STDDEV:
+                    case STDDEV_POP:
+                        //Welford: running mean and sum of squared deviations
+                        double delta = value - first[a][group];
+                        first[a][group] += delta / n;
+                        second[a][group] += delta * (value - first[a][group]);
+                        break;
+                    case GEOMETRIC_MEAN:
+                        first[a][group] += Math.log(value);
+                        break;
+                    case HARMONIC_MEAN:
+                        first[a][group] += 1 / value;
+                        break;
+                    case PRODUCT:
+                        first[a][group] *= value;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        for (int group = 0; group < groups.size(); group++) {
+            double[] values = new double[output.numAttributes()];
+            groups.getKey(group, values);
+            for (int a = 0; a < numAggregates; a++) {
+                double n = counts[a][group];
+                double s1 = first[a][group];
+                double s2 = second[a][group];
+                double result;
+                switch (functions[a]) {
+                    case COUNT:
+                        result = n;
+                        break;
+                    case AVG:
+                        result = (n == 0) ? Utils.missingValue() : s1 / n;
+                        break;
+                    case VARIANCE:
+                        result = (n < 2) ? Utils.missingValue() : s2 / (n - 1);
+                        break;
+                    case VARIANCE_POP:
+                        result = (n == 0) ? Utils.missingValue() : s2 / n;
+                        break;
+                    case STDDEV:
+                        result = (n < 2) ? Utils.missingValue() : Math.sqrt(s2 / (n - 1));
+                        break;
+                    case STDDEV_POP:
+                        result = (n == 0) ? Utils.missingValue() : Math.sqrt(s2 / n);
+                        break;
+                    case GEOMETRIC_MEAN:
+                        result = (n == 0) ? Utils.missingValue() : Math.exp(s1 / n);
+                        break;
+                    case HARMONIC_MEAN:
+                        result = (n == 0) ? Utils.missingValue() : n / s1;
+                        break;
+                    default:
+                        result = (n == 0) ? Utils.missingValue() : s1;
+                        break;
+                }
+                values[groupIndices.length + a] = result;
+            }
+            output.add(new DenseInstance(1.0, values));
+        }
+        return output;
+    }
+
+    private static void initialize(int function, double[] values, int from, int to) {
+        double initial = 0;
+        if (function == MIN) {
+            initial = Double.POSITIVE_INFINITY;
+        } else if (function == MAX) {
+            initial = Double.NEGATIVE_INFINITY;
+        } else if (function == PRODUCT) {
+            initial = 1;
+        }
+        Arrays.fill(values, from, to, initial);
+    }
+
+    private int[] groupIndices(Instances instances) throws Exception {
+        String[] names = splitList(groupbyProperties);
+        int[] ret = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            Attribute attribute = instances.attribute(names[i]);
+            if (attribute == null) {
+                throw new IllegalArgumentException("Unknown group by attribute: " + names[i]);
+            }
+            ret[i] = attribute.index();
+        }
+        return ret;
+    }
+
+    private static int parseFunction(String spec) {
+        int leftParenIdx = spec.indexOf("(");
+        if (leftParenIdx == -1 || !spec.endsWith(")")) {
+            throw new IllegalArgumentException("Malformed aggregator specification: " + spec);
+        }
+        String name = spec.substring(0, leftParenIdx).trim();
+        if (name.endsWith("Aggregator")) {
+            name = name.substring(0, name.length() - "Aggregator".length());
+        }
+        for (int i = 0; i < FUNCTIONS.length; i++) {
+            if (FUNCTIONS[i].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported aggregator: " + spec);
+    }
+
+    /**
+     * @return the attribute index, -1 for Count(*)
+     */
+    private static int parseProperty(Instances instances, String spec) {
+        String property = spec.substring(spec.indexOf("(") + 1, spec.length() - 1).trim();
+        if (ALL_ROWS.equals(property) && parseFunction(spec) == COUNT) {
+            return -1;
+        }
+        Attribute attribute = instances.attribute(property);
+        if (attribute == null) {
+            throw new IllegalArgumentException("Unknown attribute in " + spec);
+        }
+        if (!attribute.isNumeric() && parseFunction(spec) != COUNT) {
+            throw new IllegalArgumentException("Only Count can aggregate a non numeric attribute: " + spec);
+        }
+        return attribute.index();
+    }
+
+    private static String[] splitList(String list) {
+        ArrayList<String> ret = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i <= list.length(); i++) {
+            char c = (i == list.length()) ? ',' : list.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                String item = list.substring(start, i).trim();
+                if (item.length() > 0) {
+                    ret.add(item);
+                }
+                start = i + 1;
+            }
+        }
+        return ret.toArray(new String[0]);
+    }
+
+    /**
+     * open addressing hash table from group key (the raw double values of the
+     * group by attributes, missing values included) to a dense group number
+     */
+    private static class GroupTable {
+
+        private final int keyLength;
+        private double[] keys;
+        private int[] slots = new int[64];
+        private int size = 0;
+
+        public GroupTable(int keyLength) {
+            this.keyLength = keyLength;
+            this.keys = new double[16 * keyLength];
+            Arrays.fill(slots, -1);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void getKey(int group, double[] target) {
+            System.arraycopy(keys, group * keyLength, target, 0, keyLength);
+        }
+
+        public int groupOf(double[] key) {
+            int mask = slots.length - 1;
+            int slot = hash(key) & mask;
+            while (true) {
+                int group = slots[slot];
+                if (group < 0) {
+                    break;
+                }
+                if (matches(group, key)) {
+                    return group;
+                }
+                slot = (slot + 1) & mask;
+            }
+            int group = size++;
+            if (keys.length < size * keyLength) {
+                keys = Arrays.copyOf(keys, keys.length * 2);
+            }
+            System.arraycopy(key, 0, keys, group * keyLength, keyLength);
+            slots[slot] = group;
+            if (size * 2 > slots.length) {
+                rehash();
+            }
+            return group;
+        }
+
+        private boolean matches(int group, double[] key) {
+            int offset = group * keyLength;
+            for (int k = 0; k < keyLength; k++) {
+                if (Double.doubleToLongBits(keys[offset + k]) != Double.doubleToLongBits(key[k])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int hash(double[] key) {
+            long hash = 1;
+            for (int k = 0; k < keyLength; k++) {
+                hash = hash * 31 + Double.doubleToLongBits(key[k]);
+            }
+            //the low bits of small integral doubles are all zero, mix before masking
+            hash *= 0x9E3779B97F4A7C15L;
+            return (int) (hash >>> 32);
+        }
+
+        private void rehash() {
+            int[] newSlots = new int[slots.length * 2];
+            Arrays.fill(newSlots, -1);
+            int mask = newSlots.length - 1;
+            double[] key = new double[keyLength];
+            for (int group = 0; group < size; group++) {
+                getKey(group, key);
+                int slot = hash(key) & mask;
+                while (newSlots[slot] >= 0) {
+                    slot = (slot + 1) & mask;
+                }
+                newSlots[slot] = group;
+            }
+            slots = newSlots;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package imsofa.weka.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import net.sf.cglib.beans.BeanGenerator;
+import net.sf.cglib.core.NamingPolicy;
+import net.sf.cglib.core.Predicate;
+import net.sf.jagg.AggregateFunction;
+import net.sf.jagg.Aggregation;
+import net.sf.jagg.AvgAggregator;
+import net.sf.jagg.CountAggregator;
+import net.sf.jagg.MaxAggregator;
+import net.sf.jagg.VarianceAggregator;
+import org.apache.commons.beanutils.BeanUtils;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.filters.Filter;
+
+/**
+ * times the bean based aggregation of TestAggregateFilter against
+ * AggregateFilter
+ *
+ * @author lendle
+ */
+public class TestAggregateFilterPerformance {
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) throws Exception {
+        int[] sizes = {10000, 100000, 1000000};
+        for (int size : sizes) {
+            Instances instances = createData(size, 100);
+
+            long start = System.currentTimeMillis();
+            List<?> beanResult = aggregateWithBeans(instances);
+            long beanTime = System.currentTimeMillis() - start;
+
+            start = System.currentTimeMillis();
+            AggregateFilter filter = new AggregateFilter();
+            filter.setGroupbyProperties("time");
+            filter.setAggregators("Avg(x),Max(x),Variance(x),Count(x)");
+            filter.setInputFormat(instances);
+            Instances filterResult = Filter.useFilter(instances, filter);
+            long filterTime = System.currentTimeMillis() - start;
+
+            System.out.println(size + " rows: beans+jagg=" + beanTime + "ms (" + beanResult.size() + " groups), AggregateFilter="
+                    + filterTime + "ms (" + filterResult.numInstances() + " groups)");
+        }
+    }
+
+    private static Instances createData(int size, int numGroups) {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        attributes.add(new Attribute("time"));
+        attributes.add(new Attribute("x"));
+        Instances instances = new Instances("test", attributes, size);
+        Random random = new Random(1);
+        for (int i = 0; i < size; i++) {
+            instances.add(new DenseInstance(1.0, new double[]{random.nextInt(numGroups), random.nextGaussian()}));
+        }
+        return instances;
+    }
+
+    /**
+     * what TestAggregateFilter does: one generated bean per row, then jagg
+     */
+    private static List<?> aggregateWithBeans(Instances instances) throws Exception {
+        BeanGenerator beanGenerator = new BeanGenerator();
+        final String className = "imsofa.bean.temp" + System.nanoTime();
+        beanGenerator.setNamingPolicy(new NamingPolicy() {
+            @Override
+            public String getClassName(String string, String string1, Object o, Predicate prdct) {
+                return className;
+            }
+        });
+        Map<String, Class> props = new HashMap<>();
+        for (int i = 0; i < instances.numAttributes(); i++) {
+            props.put(instances.attribute(i).name(), double.class);
+        }
+        BeanGenerator.addProperties(beanGenerator, props);
+        Class c = (Class) beanGenerator.createClass();
+        List list = new ArrayList();
+        for (int i = 0; i < instances.numInstances(); i++) {
+            Instance instance = instances.instance(i);
+            Object o = c.newInstance();
+            for (int j = 0; j < instance.numAttributes(); j++) {
+                BeanUtils.setProperty(o, instance.attribute(j).name(), instance.value(j));
+            }
+            list.add(o);
+        }
+        Aggregation agg = new Aggregation.Builder().setAggregators(Arrays.asList(
+                new AggregateFunction[]{
+                    new AvgAggregator("x"), new MaxAggregator("x"), new VarianceAggregator("x"), new CountAggregator("x")
+                }
+        )).setProperties(Arrays.asList(new String[]{
+            "time"
+        })).build();
+        return agg.groupBy(list);
+    }
+}
@@ -11,19 +11,24 @@ import imsofa.weka.gui.model.regression.RegressionStatisticsTableModel;
 import imsofa.weka.gui.model.regression.RegressionParameter;
 import imsofa.weka.gui.regression.RegressionResult;
 import imsofa.weka.gui.table.ClassPredictionResultTable;
+import imsofa.weka.utils.OLSRegression;
+import imsofa.weka.utils.RegressionModel;
+import imsofa.weka.validation.DefaultRegressionValidatorImpl;
+import imsofa.weka.validation.ValidationParameter;
 import java.awt.Color;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.SwingUtilities;
-import net.sourceforge.openforecast.DataSet;
-import net.sourceforge.openforecast.Observation;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
@@ -32,6 +37,7 @@ import org.jfree.chart.plot.XYPlot;
 import org.jfree.data.xy.XYSeries;
 import org.jfree.data.xy.XYSeriesCollection;
 import weka.core.Attribute;
+import weka.core.Instances;
 
 /**
  *
@@ -78,6 +84,59 @@ public abstract class AbstractRegressionPanel extends AbstractModelingPanel {
     protected abstract RegressionResult performRegression(List<RegressionParameter> parameters);
     protected abstract List<RegressionParameter> getRegressionParameters();
     
+    /**
+     * fit the model on the instances of the panel and collect the same
+     * statistics summary.lm would report
+     * 
+     * @param model
+     * @return 
+     */
+    protected RegressionResult performOLSRegression(RegressionModel model){
+        Instances instances=panelContext.getInstances();
+        OLSRegression regression=model.train(instances);
+        RegressionResult result=new RegressionResult();
+        result.setIntercept(regression.getIntercept());
+        result.setInterceptStandardError(regression.getInterceptStandardError());
+        result.setInterceptTValue(regression.getInterceptTValue());
+        result.setInterceptPValue(regression.getInterceptPValue());
+        Map<String, Double> coefs = new HashMap<>();
+        Map<String, Double> standardErrors = new HashMap<>();
+        Map<String, Double> tValues = new HashMap<>();
+        Map<String, Double> pValues = new HashMap<>();
+        for(int i=0; i<model.getNumTerms(); i++){
+            String termName=model.getTermName(i);
+            coefs.put(termName, regression.getCoefficients()[i]);
+            standardErrors.put(termName, regression.getStandardErrors()[i]);
+            tValues.put(termName, regression.getTValue(i));
+            pValues.put(termName, regression.getPValue(i));
+        }
+        result.setCoefs(coefs);
+        result.setStandardErrors(standardErrors);
+        result.setTValues(tValues);
+        result.setPValues(pValues);
+        result.setRSquared(regression.getRSquared());
+        result.setMse(regression.getMeanSquaredError());
+        result.setMape(model.meanAbsolutePercentageError(instances));
+        return result;
+    }
+    
+    /**
+     * save a fitted model for DefaultRegressionValidatorImpl
+     * 
+     * @param model
+     * @param outputFile
+     * @throws IOException 
+     */
+    protected void saveRegressionModel(RegressionModel model, File outputFile) throws IOException{
+        ValidationParameter<RegressionModel> validationParameter = new ValidationParameter<>();
+        validationParameter.setValidator(model);
+        validationParameter.setValidatorClassName(DefaultRegressionValidatorImpl.class.getName());
+        try (ObjectOutputStream output = new ObjectOutputStream(new FileOutputStream(outputFile))) {
+            output.writeObject(validationParameter);
+            output.flush();
+        }
+    }
+    
     protected void startButtonActionPerformed() throws Exception{
         panelPlot.removeAll();
         
@@ -90,33 +149,11 @@ public abstract class AbstractRegressionPanel extends AbstractModelingPanel {
                 break;
             }
         }
-        DataSet dataSet=new DataSet();
-        double[] y = new double[panelContext.getInstances().numInstances()];
-        for (int i = 0; i < y.length; i++) {
-            y[i]=panelContext.getInstances().instance(i).value(panelContext.getInstances().attribute(leftFieldName));
-            Observation observation=new Observation(y[i]);
-            for(int j=0; j<panelContext.getInstances().numAttributes(); j++){
-                Attribute attribute=panelContext.getInstances().attribute(j);
-                if(attribute.isNumeric() && attribute.name().equals(leftFieldName)==false){
-                    observation.setIndependentValue(attribute.name(), panelContext.getInstances().instance(i).value(attribute));
-                }
-            }
-            dataSet.add(observation);
-        }
-        
         XYSeriesCollection dataset = new XYSeriesCollection();
         XYSeries series1 = new XYSeries("data");
         
         for (int i = 0; i < panelContext.getInstances().numInstances(); i++) {
-            double estimatedY=result.getIntercept();
-            for(Map.Entry<String,Double> entry: result.getCoefs().entrySet()){
-                String attrName=entry.getKey();
-                if(attrName.contains("^")){
-                    attrName=attrName.substring(0, attrName.indexOf("^"));
-                }
-                Attribute attribute=panelContext.getInstances().attribute(attrName);
-                estimatedY+=panelContext.getInstances().instance(i).value(attribute)*entry.getValue();
-            }
+            double estimatedY=result.estimate(panelContext.getInstances().instance(i));
             Attribute resultAttribute=panelContext.getInstances().attribute(leftFieldName);
             series1.add(panelContext.getInstances().instance(i).value(resultAttribute), estimatedY);
         }
@@ -142,6 +179,11 @@ public abstract class AbstractRegressionPanel extends AbstractModelingPanel {
         regressionStatisticsTableModel.setMape(result.getMape());
         regressionStatisticsTableModel.setMse(result.getMse());
         regressionStatisticsTableModel.setpValues(result.getPValues());
+        regressionStatisticsTableModel.setStandardErrors(result.getStandardErrors());
+        regressionStatisticsTableModel.settValues(result.getTValues());
+        regressionStatisticsTableModel.setInterceptStandardError(result.getInterceptStandardError());
+        regressionStatisticsTableModel.setInterceptTValue(result.getInterceptTValue());
+        regressionStatisticsTableModel.setrSquared(result.getRSquared());
         tableStatistics.setModel(regressionStatisticsTableModel);
         
         SwingUtilities.invokeLater(new Runnable() {
@@ -11,6 +11,10 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+import javax.swing.SwingUtilities;
 import weka.core.Instances;
 import weka.gui.arffviewer.ArffSortedTableModel;
 
@@ -20,6 +24,8 @@ import weka.gui.arffviewer.ArffSortedTableModel;
  */
 public class ValidationPanel extends javax.swing.JPanel {
     private ModelingPanelContext ctx=null;
+    private Map<String, ValidationParameter> loadedValidationParameters=new HashMap<>();
+    private Future<Instances> currentValidation=null;
     /**
      * Creates new form ClusterValidationPanel
      */
@@ -28,6 +34,22 @@ public class ValidationPanel extends javax.swing.JPanel {
         
     }
     
+    /**
+     * the same ValidationParameter object is returned as long as the file is
+     * unchanged, so that ValidatorManager can reuse the initialized validator
+     */
+    private ValidationParameter loadValidationParameter(File file) throws IOException, ClassNotFoundException{
+        String key=file.getCanonicalPath()+":"+file.lastModified()+":"+file.length();
+        ValidationParameter vp=loadedValidationParameters.get(key);
+        if(vp==null){
+            try (ObjectInputStream input = new ObjectInputStream(new FileInputStream(file))) {
+                vp=(ValidationParameter) input.readObject();
+            }
+            loadedValidationParameters.put(key, vp);
+        }
+        return vp;
+    }
+    
     public void init(ModelingPanelContext ctx){
         this.ctx=ctx;
         for(File file : ctx.getLecture().getHomeFolder().listFiles()){
@@ -71,11 +93,25 @@ public class ValidationPanel extends javax.swing.JPanel {
 
     private void buttonGoActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_buttonGoActionPerformed
         // TODO add your handling code here:
-        try (ObjectInputStream input = new ObjectInputStream(new FileInputStream(new File(ctx.getLecture().getHomeFolder(), comboSavedValidationParameters.getSelectedItem().toString())))) {
-            ValidationParameter vp=(ValidationParameter) input.readObject();
-            Instances result=ValidatorManager.getInstance().validate(ctx.getInstances(), vp);
-            ArffSortedTableModel model = new ArffSortedTableModel(result);
-            this.dataTable.setModel(model);
+        try {
+            ValidationParameter vp=loadValidationParameter(new File(ctx.getLecture().getHomeFolder(), comboSavedValidationParameters.getSelectedItem().toString()));
+            if(currentValidation!=null){
+                currentValidation.cancel(true);
+            }
+            currentValidation=ValidatorManager.getInstance().validateAsync(ctx.getInstances(), vp, new ValidatorManager.ValidationCallback() {
+                @Override
+                public void validated(final Instances result) {
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            if(result!=null){
+                                ArffSortedTableModel model = new ArffSortedTableModel(result);
+                                dataTable.setModel(model);
+                            }
+                        }
+                    });
+                }
+            });
         } catch (IOException ex) {
             ex.printStackTrace();
         } catch (ClassNotFoundException ex) {
@@ -7,7 +7,6 @@ package imsofa.weka.gui.model.regression;
 
 import imsofa.weka.gui.model.AbstractPredictionTableModel;
 import imsofa.weka.gui.regression.RegressionResult;
-import java.util.Map;
 import weka.core.Attribute;
 
 /**
@@ -35,13 +34,7 @@ public class RegressionResultTableModel extends AbstractPredictionTableModel{
                 return instances.instance(rowIndex).value(attribute);
             }
         }else{
-            double estimatedY=regressionResult.getIntercept();
-            for(Map.Entry<String,Double> entry: regressionResult.getCoefs().entrySet()){
-                String attrName=entry.getKey();
-                Attribute attribute=instances.attribute(attrName);
-                estimatedY+=instances.instance(rowIndex).value(attribute)*entry.getValue();
-            }
-            return estimatedY;
+            return regressionResult.estimate(instances.instance(rowIndex));
         }
     }
     
@@ -21,6 +21,51 @@ public class RegressionStatisticsTableModel extends AbstractTableModel{
     protected Map<String, Double> pValues=new HashMap<>();
     protected double intercept=-1;
     protected double interceptPValue=-1;
+    protected Map<String, Double> standardErrors=new HashMap<>();
+    protected Map<String, Double> tValues=new HashMap<>();
+    protected double interceptStandardError=-1;
+    protected double interceptTValue=-1;
+    protected double rSquared=-1;
+
+    public Map<String, Double> getStandardErrors() {
+        return standardErrors;
+    }
+
+    public void setStandardErrors(Map<String, Double> standardErrors) {
+        this.standardErrors = standardErrors;
+    }
+
+    public Map<String, Double> gettValues() {
+        return tValues;
+    }
+
+    public void settValues(Map<String, Double> tValues) {
+        this.tValues = tValues;
+    }
+
+    public double getInterceptStandardError() {
+        return interceptStandardError;
+    }
+
+    public void setInterceptStandardError(double interceptStandardError) {
+        this.interceptStandardError = interceptStandardError;
+    }
+
+    public double getInterceptTValue() {
+        return interceptTValue;
+    }
+
+    public void setInterceptTValue(double interceptTValue) {
+        this.interceptTValue = interceptTValue;
+    }
+
+    public double getrSquared() {
+        return rSquared;
+    }
+
+    public void setrSquared(double rSquared) {
+        this.rSquared = rSquared;
+    }
 
     public double getInterceptPValue() {
         return interceptPValue;
@@ -76,48 +121,44 @@ public class RegressionStatisticsTableModel extends AbstractTableModel{
     
     @Override
     public int getRowCount() {
-        return this.coefs.size()+3;
+        return this.coefs.size()+4;
     }
 
     @Override
     public int getColumnCount() {
-        return 3;
+        return 5;
     }
 
     @Override
     public Object getValueAt(int rowIndex, int columnIndex) {
-        if(columnIndex==0){
-            if(rowIndex==0){
-                return "截距";
-            }else if(rowIndex==coefs.size()+1+0){
-                return "MSE";
-            }else if(rowIndex==coefs.size()+1+1){
-                return "MAPE";
-            }else{
-                return coefs.keySet().toArray(new String[0])[rowIndex-1];
-            }
-        }else if(columnIndex==1){
-            if(rowIndex==0){
-                return ""+this.intercept;
-            }else if(rowIndex==coefs.size()+1+0){
-                return ""+this.mse;
-            }else if(rowIndex==coefs.size()+1+1){
-                return ""+this.mape;
+        if(rowIndex>coefs.size()){
+            //summary rows only have a value
+            int summaryIndex=rowIndex-coefs.size()-1;
+            if(columnIndex==0){
+                return new String[]{"R²", "MSE", "MAPE"}[summaryIndex];
+            }else if(columnIndex==1){
+                return ""+new double[]{rSquared, mse, mape}[summaryIndex];
             }else{
-                //System.out.println(coefs.keySet().toArray(new String[0])[rowIndex-1]+":"+coefs.get(coefs.keySet().toArray(new String[0])[rowIndex-1]));
-                return ""+coefs.get(coefs.keySet().toArray(new String[0])[rowIndex-1]);
-            }
-        }else{
-            if(rowIndex==0){
-                return ""+interceptPValue;
-            }else if(rowIndex==coefs.size()+1+0){
                 return "";
-            }else if(rowIndex==coefs.size()+1+1){
-                return "";
-            }else{
-                return ""+pValues.get(coefs.keySet().toArray(new String[0])[rowIndex-1]);
             }
         }
+        if(rowIndex==0){
+            switch(columnIndex){
+                case 0: return "截距";
+                case 1: return ""+this.intercept;
+                case 2: return ""+this.interceptStandardError;
+                case 3: return ""+this.interceptTValue;
+                default: return ""+interceptPValue;
+            }
+        }
+        String name=coefs.keySet().toArray(new String[0])[rowIndex-1];
+        switch(columnIndex){
+            case 0: return name;
+            case 1: return ""+coefs.get(name);
+            case 2: return ""+standardErrors.get(name);
+            case 3: return ""+tValues.get(name);
+            default: return ""+pValues.get(name);
+        }
     }
 
     @Override
@@ -130,7 +171,9 @@ public class RegressionStatisticsTableModel extends AbstractTableModel{
         switch(column){
             case 0: return "項目";
             case 1: return "數值";
-            case 2: return "P";
+            case 2: return "標準誤";
+            case 3: return "t";
+            case 4: return "P";
         }
         return null;
     }
@@ -7,6 +7,8 @@ package imsofa.weka.gui.regression;
 
 import java.util.HashMap;
 import java.util.Map;
+import weka.core.Attribute;
+import weka.core.Instance;
 
 /**
  *
@@ -19,6 +21,11 @@ public class RegressionResult {
     protected Map<String, Double> pValues=new HashMap<>();
     protected double intercept=-1;
     protected double interceptPValue=-1;
+    protected Map<String, Double> standardErrors=new HashMap<>();
+    protected Map<String, Double> tValues=new HashMap<>();
+    protected double interceptStandardError=-1;
+    protected double interceptTValue=-1;
+    protected double rSquared=-1;
 
     public double getInterceptPValue() {
         return interceptPValue;
@@ -70,5 +77,65 @@ public class RegressionResult {
         this.pValues = pValues;
     }
 
+    public Map<String, Double> getStandardErrors() {
+        return standardErrors;
+    }
+
+    public void setStandardErrors(Map<String, Double> standardErrors) {
+        this.standardErrors = standardErrors;
+    }
+
+    public Map<String, Double> getTValues() {
+        return tValues;
+    }
+
+    public void setTValues(Map<String, Double> tValues) {
+        this.tValues = tValues;
+    }
+
+    public double getInterceptStandardError() {
+        return interceptStandardError;
+    }
+
+    public void setInterceptStandardError(double interceptStandardError) {
+        this.interceptStandardError = interceptStandardError;
+    }
+
+    public double getInterceptTValue() {
+        return interceptTValue;
+    }
+
+    public void setInterceptTValue(double interceptTValue) {
+        this.interceptTValue = interceptTValue;
+    }
+
+    public double getRSquared() {
+        return rSquared;
+    }
+
+    public void setRSquared(double rSquared) {
+        this.rSquared = rSquared;
+    }
     
+    /**
+     * the estimated y of the instance; a coefficient named "x^2" applies to
+     * the square of attribute x
+     * 
+     * @param instance
+     * @return 
+     */
+    public double estimate(Instance instance){
+        double estimatedY=intercept;
+        for(Map.Entry<String,Double> entry: coefs.entrySet()){
+            String attrName=entry.getKey();
+            int power=1;
+            if(attrName.contains("^")){
+                power=Integer.parseInt(attrName.substring(attrName.indexOf("^")+1));
+                attrName=attrName.substring(0, attrName.indexOf("^"));
+            }
+            Attribute attribute=instance.dataset().attribute(attrName);
+            estimatedY+=Math.pow(instance.value(attribute), power)*entry.getValue();
+        }
+        return estimatedY;
+    }
 }
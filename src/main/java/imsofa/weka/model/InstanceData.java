@@ -5,10 +5,10 @@
  */
 package imsofa.weka.model;
 
+import imsofa.weka.utils.InstancesBinaryCache;
 import java.io.File;
 import java.io.IOException;
 import weka.core.Instances;
-import weka.core.converters.CSVLoader;
 
 /**
  *
@@ -18,7 +18,7 @@ public class InstanceData {
 
     private File csvFile = null;
     private String title = null;
-    private Instances instances = null;
+    private volatile Instances instances = null;
 
     public InstanceData(String title, File csvFile, Instances instances) {
         this.title = title;
@@ -42,17 +42,23 @@ public class InstanceData {
         this.title = title;
     }
 
-    public synchronized Instances getInstances() {
-        if (instances == null) {
-            CSVLoader loader = new CSVLoader();
-            try {
-                loader.setFile(this.csvFile);
-                instances=loader.getDataSet();
-            } catch (IOException ex) {
-                ex.printStackTrace();
+    public Instances getInstances() {
+        Instances ret = instances;
+        if (ret == null) {
+            //only loads of this data set wait for each other
+            synchronized (this) {
+                ret = instances;
+                if (ret == null) {
+                    try {
+                        ret = InstancesBinaryCache.load(this.csvFile);
+                        instances = ret;
+                    } catch (IOException ex) {
+                        ex.printStackTrace();
+                    }
+                }
             }
         }
-        return instances;
+        return ret;
     }
 
     public void setInstances(Instances instances) {
@@ -0,0 +1,61 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package imsofa.weka.utils;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.converters.Loader;
+
+/**
+ * iterates over the instances of a loader one at a time (getNextInstance),
+ * so that e.g. a StreamingAggregation never needs the whole data set in
+ * memory; the loader must support incremental reading (IncrementalConverter)
+ *
+ * @author lendle
+ */
+public class InstanceIterator implements Iterator<Instance> {
+
+    private Loader loader = null;
+    private Instances structure = null;
+    private Instance next = null;
+
+    public InstanceIterator(Loader loader) throws IOException {
+        this.loader = loader;
+        this.structure = loader.getStructure();
+        this.next = loader.getNextInstance(structure);
+    }
+
+    public Instances getStructure() {
+        return structure;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    @Override
+    public Instance next() {
+        if (next == null) {
+            throw new NoSuchElementException();
+        }
+        Instance ret = next;
+        try {
+            next = loader.getNextInstance(structure);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return ret;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
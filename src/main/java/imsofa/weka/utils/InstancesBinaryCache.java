@@ -0,0 +1,195 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package imsofa.weka.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+import weka.core.converters.CSVLoader;
+
+/**
+ * keeps a binary, column oriented copy of a CSV file next to it (name.csv.wbin)
+ * and memory maps it on later loads; the copy is rebuilt whenever the
+ * modification time or the size of the CSV file changes
+ *
+ * @author lendle
+ */
+public class InstancesBinaryCache {
+
+    public static final String EXTENSION = ".wbin";
+    private static final int MAGIC = 0x57424e31;
+    private static final int VERSION = 1;
+    private static final Charset UTF8 = Charset.forName("utf-8");
+
+    private InstancesBinaryCache() {
+    }
+
+    public static File getCacheFile(File csvFile) {
+        return new File(csvFile.getParentFile(), csvFile.getName() + EXTENSION);
+    }
+
+    /**
+     * load the CSV file through its binary copy, creating the copy if it is
+     * missing or out of date
+     *
+     * @param csvFile
+     * @return
+     * @throws IOException
+     */
+    public static Instances load(File csvFile) throws IOException {
+        File cacheFile = getCacheFile(csvFile);
+        if (cacheFile.exists()) {
+            try {
+                Instances instances = read(cacheFile, csvFile.lastModified(), csvFile.length());
+                if (instances != null) {
+                    return instances;
+                }
+            } catch (IOException | RuntimeException ex) {
+                //a broken copy is simply rebuilt
+                ex.printStackTrace();
+            }
+        }
+        CSVLoader loader = new CSVLoader();
+        loader.setFile(csvFile);
+        Instances instances = loader.getDataSet();
+        try {
+            write(instances, cacheFile, csvFile.lastModified(), csvFile.length());
+        } catch (IOException ex) {
+            //e.g. a read only lecture folder, the data is still usable
+            ex.printStackTrace();
+        }
+        return instances;
+    }
+
+    /**
+     * @return null if the copy was made from another version of the CSV
+     * file
+     */
+    private static Instances read(File cacheFile, long lastModified, long length) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(cacheFile, "r"); FileChannel channel = file.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            if (buffer.getLong() != lastModified || buffer.getLong() != length) {
+                return null;
+            }
+            String relationName = readString(buffer);
+            int numAttributes = buffer.getInt();
+            int numRows = buffer.getInt();
+            ArrayList<Attribute> attributes = new ArrayList<>();
+            for (int j = 0; j < numAttributes; j++) {
+                String name = readString(buffer);
+                int type = buffer.get();
+                if (type == Attribute.NUMERIC) {
+                    attributes.add(new Attribute(name));
+                } else if (type == Attribute.DATE) {
+                    attributes.add(new Attribute(name, readString(buffer)));
+                } else {
+                    int numValues = buffer.getInt();
+                    List<String> values = new ArrayList<>(numValues);
+                    for (int k = 0; k < numValues; k++) {
+                        values.add(readString(buffer));
+                    }
+                    if (type == Attribute.STRING) {
+                        Attribute attribute = new Attribute(name, (List<String>) null);
+                        for (String value : values) {
+                            attribute.addStringValue(value);
+                        }
+                        attributes.add(attribute);
+                    } else {
+                        attributes.add(new Attribute(name, values));
+                    }
+                }
+            }
+            //columns are 8 byte aligned
+            buffer.position((buffer.position() + 7) & ~7);
+            DoubleBuffer columns = buffer.slice().asDoubleBuffer();
+            double[][] rows = new double[numRows][numAttributes];
+            double[] column = new double[numRows];
+            for (int j = 0; j < numAttributes; j++) {
+                columns.get(column);
+                for (int i = 0; i < numRows; i++) {
+                    rows[i][j] = column[i];
+                }
+            }
+            Instances instances = new Instances(relationName, attributes, numRows);
+            for (int i = 0; i < numRows; i++) {
+                instances.add(new DenseInstance(1.0, rows[i]));
+            }
+            return instances;
+        }
+    }
+
+    private static void write(Instances instances, File cacheFile, long lastModified, long length) throws IOException {
+        File tempFile = File.createTempFile("cache", EXTENSION, cacheFile.getParentFile());
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 1 << 16))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeLong(lastModified);
+                output.writeLong(length);
+                writeString(output, instances.relationName());
+                output.writeInt(instances.numAttributes());
+                output.writeInt(instances.numInstances());
+                for (int j = 0; j < instances.numAttributes(); j++) {
+                    Attribute attribute = instances.attribute(j);
+                    if (attribute.isRelationValued()) {
+                        throw new IOException("relational attributes are not supported: " + attribute.name());
+                    }
+                    writeString(output, attribute.name());
+                    output.writeByte(attribute.type());
+                    if (attribute.isDate()) {
+                        writeString(output, attribute.getDateFormat());
+                    } else if (attribute.isNominal() || attribute.isString()) {
+                        output.writeInt(attribute.numValues());
+                        for (int k = 0; k < attribute.numValues(); k++) {
+                            writeString(output, attribute.value(k));
+                        }
+                    }
+                }
+                for (int padding = (8 - output.size() % 8) % 8; padding > 0; padding--) {
+                    output.writeByte(0);
+                }
+                for (int j = 0; j < instances.numAttributes(); j++) {
+                    for (int i = 0; i < instances.numInstances(); i++) {
+                        output.writeDouble(instances.instance(i).value(j));
+                    }
+                }
+            }
+            Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(UTF8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, UTF8);
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package imsofa.weka.utils;
+
+import java.util.Arrays;
+import weka.core.Statistics;
+
+/**
+ * ordinary least squares with an intercept, accumulated one row at a time;
+ * the rows are folded into the triangular factor of a QR decomposition with
+ * Givens rotations, so memory does not depend on the number of rows and the
+ * accuracy is that of the QR decomposition lm uses
+ *
+ * @author lendle
+ */
+public class OLSRegression {
+
+    /**
+     * relative column norm below which a term is aliased, the tol of lm.fit
+     */
+    private static final double ALIAS_TOLERANCE = 1e-7;
+
+    private int numPredictors = 0;
+    private long numRows = 0;
+    private double meanY = 0;
+    private double syy = 0;
+    //triangular factor of [1, x, y], columns: intercept, predictors, target
+    private double[][] triangle = null;
+    private double[] row = null;
+
+    private double[] coefficients = null;
+    private double[] standardErrors = null;
+    private double intercept = 0;
+    private double interceptStandardError = 0;
+    private double residualSumOfSquares = 0;
+    private int rank = 0;
+    private boolean[] aliased = null;
+
+    public OLSRegression(int numPredictors) {
+        this.numPredictors = numPredictors;
+        this.triangle = new double[numPredictors + 2][numPredictors + 2];
+        this.row = new double[numPredictors + 2];
+    }
+
+    public int getNumPredictors() {
+        return numPredictors;
+    }
+
+    public long getNumRows() {
+        return numRows;
+    }
+
+    public void addRow(double[] x, double y) {
+        numRows++;
+        double deltaY = y - meanY;
+        meanY += deltaY / numRows;
+        syy += deltaY * (y - meanY);
+
+        int size = row.length;
+        row[0] = 1;
+        System.arraycopy(x, 0, row, 1, numPredictors);
+        row[size - 1] = y;
+        //rotate the row into the triangle, one column at a time
+        for (int j = 0; j < size; j++) {
+            if (row[j] == 0) {
+                continue;
+            }
+            double[] pivotRow = triangle[j];
+            double norm = Math.hypot(pivotRow[j], row[j]);
+            double c = pivotRow[j] / norm;
+            double s = row[j] / norm;
+            pivotRow[j] = norm;
+            for (int k = j + 1; k < size; k++) {
+                double value = pivotRow[k];
+                pivotRow[k] = c * value + s * row[k];
+                row[k] = c * row[k] - s * value;
+            }
+        }
+    }
+
+    /**
+     * solve the least squares problem for the rows added so far; like lm, the
+     * triangle is decomposed again with Householder reflections in the order
+     * of the terms, moving a term to the end when it is (nearly) a linear
+     * combination of the terms before it; such aliased terms are left out of
+     * the fit and reported as NaN
+     */
+    public void fit() {
+        int size = row.length;
+        int numColumns = numPredictors + 1;
+        double[][] a = new double[size][];
+        for (int i = 0; i < size; i++) {
+            a[i] = triangle[i].clone();
+        }
+        //column order after pivoting, the target stays last
+        int[] order = new int[numColumns];
+        double[] originalNorms = new double[numColumns];
+        for (int j = 0; j < numColumns; j++) {
+            order[j] = j;
+            originalNorms[j] = columnNorm(a, j, 0);
+        }
+
+        int limit = numColumns;
+        int l = 0;
+        while (l < limit) {
+            double norm = columnNorm(a, l, l);
+            if (!(norm > ALIAS_TOLERANCE * originalNorms[l])) {
+                //move the aliased column to the end
+                rotateColumns(a, l, limit - 1);
+                rotate(order, l, limit - 1);
+                rotate(originalNorms, l, limit - 1);
+                limit--;
+                continue;
+            }
+            double alpha = (a[l][l] > 0) ? -norm : norm;
+            double[] v = new double[size];
+            for (int i = l; i < size; i++) {
+                v[i] = a[i][l];
+            }
+            v[l] -= alpha;
+            double vv = 0;
+            for (int i = l; i < size; i++) {
+                vv += v[i] * v[i];
+            }
+            for (int k = l; k < size; k++) {
+                double dot = 0;
+                for (int i = l; i < size; i++) {
+                    dot += v[i] * a[i][k];
+                }
+                double factor = 2 * dot / vv;
+                for (int i = l; i < size; i++) {
+                    a[i][k] -= factor * v[i];
+                }
+            }
+            l++;
+        }
+        int kept = limit;
+        rank = kept - 1;
+
+        aliased = new boolean[numPredictors];
+        for (int j = kept; j < numColumns; j++) {
+            aliased[order[j] - 1] = true;
+        }
+        if (numRows <= kept) {
+            throw new IllegalStateException("at least " + (kept + 1) + " rows are required, got " + numRows);
+        }
+
+        //back substitution for the kept terms, and the inverse of their
+        //triangle for the covariance matrix
+        double[] beta = new double[kept];
+        for (int i = kept - 1; i >= 0; i--) {
+            double value = a[i][size - 1];
+            for (int k = i + 1; k < kept; k++) {
+                value -= a[i][k] * beta[k];
+            }
+            beta[i] = value / a[i][i];
+        }
+        residualSumOfSquares = 0;
+        for (int i = kept; i < size; i++) {
+            residualSumOfSquares += a[i][size - 1] * a[i][size - 1];
+        }
+        double[][] inverse = new double[kept][kept];
+        for (int j = 0; j < kept; j++) {
+            inverse[j][j] = 1 / a[j][j];
+            for (int i = j - 1; i >= 0; i--) {
+                double value = 0;
+                for (int k = i + 1; k <= j; k++) {
+                    value -= a[i][k] * inverse[k][j];
+                }
+                inverse[i][j] = value / a[i][i];
+            }
+        }
+
+        double sigma2 = residualSumOfSquares / getResidualDegreesOfFreedom();
+        coefficients = new double[numPredictors];
+        standardErrors = new double[numPredictors];
+        Arrays.fill(coefficients, Double.NaN);
+        Arrays.fill(standardErrors, Double.NaN);
+        for (int i = 0; i < kept; i++) {
+            //diagonal of R^-1 R^-T
+            double variance = 0;
+            for (int k = i; k < kept; k++) {
+                variance += inverse[i][k] * inverse[i][k];
+            }
+            double standardError = Math.sqrt(sigma2 * variance);
+            if (order[i] == 0) {
+                intercept = beta[i];
+                interceptStandardError = standardError;
+            } else {
+                coefficients[order[i] - 1] = beta[i];
+                standardErrors[order[i] - 1] = standardError;
+            }
+        }
+    }
+
+    private static double columnNorm(double[][] a, int column, int from) {
+        double scale = 0;
+        for (int i = from; i < a.length; i++) {
+            scale = Math.max(scale, Math.abs(a[i][column]));
+        }
+        if (scale == 0) {
+            return 0;
+        }
+        double sum = 0;
+        for (int i = from; i < a.length; i++) {
+            double value = a[i][column] / scale;
+            sum += value * value;
+        }
+        return scale * Math.sqrt(sum);
+    }
+
+    /**
+     * move column from to position to, shifting the columns in between left
+     */
+    private static void rotateColumns(double[][] a, int from, int to) {
+        for (double[] r : a) {
+            double value = r[from];
+            System.arraycopy(r, from + 1, r, from, to - from);
+            r[to] = value;
+        }
+    }
+
+    private static void rotate(int[] values, int from, int to) {
+        int value = values[from];
+        System.arraycopy(values, from + 1, values, from, to - from);
+        values[to] = value;
+    }
+
+    private static void rotate(double[] values, int from, int to) {
+        double value = values[from];
+        System.arraycopy(values, from + 1, values, from, to - from);
+        values[to] = value;
+    }
+
+    /**
+     * the number of predictors that are not aliased
+     *
+     * @return
+     */
+    public int getRank() {
+        return rank;
+    }
+
+    /**
+     * whether the term is (nearly) a linear combination of the terms before
+     * it and therefore left out of the fit, NA in summary.lm
+     *
+     * @param index
+     * @return
+     */
+    public boolean isAliased(int index) {
+        return aliased[index];
+    }
+
+    public long getResidualDegreesOfFreedom() {
+        return numRows - rank - 1;
+    }
+
+    public double[] getCoefficients() {
+        return coefficients;
+    }
+
+    public double[] getStandardErrors() {
+        return standardErrors;
+    }
+
+    public double getIntercept() {
+        return intercept;
+    }
+
+    public double getInterceptStandardError() {
+        return interceptStandardError;
+    }
+
+    public double getTValue(int index) {
+        return coefficients[index] / standardErrors[index];
+    }
+
+    public double getInterceptTValue() {
+        return intercept / interceptStandardError;
+    }
+
+    public double getPValue(int index) {
+        return tProbability(getTValue(index), getResidualDegreesOfFreedom());
+    }
+
+    public double getInterceptPValue() {
+        return tProbability(getInterceptTValue(), getResidualDegreesOfFreedom());
+    }
+
+    public double getResidualSumOfSquares() {
+        return residualSumOfSquares;
+    }
+
+    /**
+     * same as mean(summary(model)$residuals^2) in R
+     *
+     * @return
+     */
+    public double getMeanSquaredError() {
+        return residualSumOfSquares / numRows;
+    }
+
+    public double getRSquared() {
+        return (syy == 0) ? 1 : 1 - residualSumOfSquares / syy;
+    }
+
+    /**
+     * two-sided probability of a t statistic, Pr(>|t|) in summary.lm
+     *
+     * @param t
+     * @param df
+     * @return
+     */
+    private static double tProbability(double t, double df) {
+        if (Double.isNaN(t)) {
+            return Double.NaN;
+        }
+        return Statistics.incompleteBeta(df / 2, 0.5, df / (df + t * t));
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package imsofa.weka.utils;
+
+import java.io.Serializable;
+import weka.core.Attribute;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.Utils;
+
+/**
+ * a fitted (polynomial) linear model y = intercept + sum(coef * x^power),
+ * small enough to be saved into a ValidationParameter
+ *
+ * @author lendle
+ */
+public class RegressionModel implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private String targetName = null;
+    private String[] attributeNames = null;
+    private int[] powers = null;
+    private double[] coefficients = null;
+    private double intercept = 0;
+
+    /**
+     * @param targetName the attribute to be predicted
+     * @param attributeNames one entry per term
+     * @param powers the power each attribute is raised to in the term
+     */
+    public RegressionModel(String targetName, String[] attributeNames, int[] powers) {
+        if (attributeNames.length != powers.length) {
+            throw new IllegalArgumentException("one power per attribute is required");
+        }
+        this.targetName = targetName;
+        this.attributeNames = attributeNames;
+        this.powers = powers;
+    }
+
+    public String getTargetName() {
+        return targetName;
+    }
+
+    public int getNumTerms() {
+        return attributeNames.length;
+    }
+
+    /**
+     * name of the term as shown to the user: the attribute name, with ^power
+     * appended for higher powers
+     *
+     * @param index
+     * @return
+     */
+    public String getTermName(int index) {
+        return (powers[index] == 1) ? attributeNames[index] : attributeNames[index] + "^" + powers[index];
+    }
+
+    public double[] getCoefficients() {
+        return coefficients;
+    }
+
+    public double getIntercept() {
+        return intercept;
+    }
+
+    /**
+     * fit the model in one pass over the data; rows with a missing value in
+     * any of the used attributes are skipped, like na.omit in lm
+     *
+     * @param instances
+     * @return the statistics of the fit
+     */
+    public OLSRegression train(Instances instances) {
+        int[] indices = attributeIndices(instances);
+        int targetIndex = indexOf(instances, targetName);
+        OLSRegression regression = new OLSRegression(indices.length);
+        double[] x = new double[indices.length];
+        for (int i = 0; i < instances.numInstances(); i++) {
+            Instance instance = instances.instance(i);
+            double y = instance.value(targetIndex);
+            if (Utils.isMissingValue(y) || !termValues(instance, indices, x)) {
+                continue;
+            }
+            regression.addRow(x, y);
+        }
+        regression.fit();
+        this.coefficients = regression.getCoefficients().clone();
+        //aliased terms do not take part in predictions, as in predict.lm
+        for (int j = 0; j < coefficients.length; j++) {
+            if (regression.isAliased(j)) {
+                coefficients[j] = 0;
+            }
+        }
+        this.intercept = regression.getIntercept();
+        return regression;
+    }
+
+    public double predict(Instance instance) {
+        return predict(instance, attributeIndices(instance.dataset()), new double[attributeNames.length]);
+    }
+
+    /**
+     * predict all instances, resolving the attributes only once
+     *
+     * @param instances
+     * @return
+     */
+    public double[] predict(Instances instances) {
+        int[] indices = attributeIndices(instances);
+        double[] x = new double[indices.length];
+        double[] ret = new double[instances.numInstances()];
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = predict(instances.instance(i), indices, x);
+        }
+        return ret;
+    }
+
+    /**
+     * same as mean(abs(fitted-y)/y)*100 in R
+     *
+     * @param instances
+     * @return
+     */
+    public double meanAbsolutePercentageError(Instances instances) {
+        int[] indices = attributeIndices(instances);
+        int targetIndex = indexOf(instances, targetName);
+        double[] x = new double[indices.length];
+        double sum = 0;
+        int count = 0;
+        for (int i = 0; i < instances.numInstances(); i++) {
+            Instance instance = instances.instance(i);
+            double y = instance.value(targetIndex);
+            double predicted = predict(instance, indices, x);
+            if (Utils.isMissingValue(y) || Double.isNaN(predicted)) {
+                continue;
+            }
+            sum += Math.abs(predicted - y) / y;
+            count++;
+        }
+        return sum / count * 100;
+    }
+
+    private double predict(Instance instance, int[] indices, double[] x) {
+        if (!termValues(instance, indices, x)) {
+            return Double.NaN;
+        }
+        double ret = intercept;
+        for (int j = 0; j < x.length; j++) {
+            ret += coefficients[j] * x[j];
+        }
+        return ret;
+    }
+
+    private boolean termValues(Instance instance, int[] indices, double[] x) {
+        for (int j = 0; j < indices.length; j++) {
+            double value = instance.value(indices[j]);
+            if (Utils.isMissingValue(value)) {
+                return false;
+            }
+            x[j] = (powers[j] == 1) ? value : Math.pow(value, powers[j]);
+        }
+        return true;
+    }
+
+    private int[] attributeIndices(Instances instances) {
+        int[] ret = new int[attributeNames.length];
+        for (int j = 0; j < ret.length; j++) {
+            ret[j] = indexOf(instances, attributeNames[j]);
+        }
+        return ret;
+    }
+
+    private static int indexOf(Instances instances, String name) {
+        Attribute attribute = instances.attribute(name);
+        if (attribute == null) {
+            throw new IllegalArgumentException("no such attribute: " + name);
+        }
+        return attribute.index();
+    }
+}
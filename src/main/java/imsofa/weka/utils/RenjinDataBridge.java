@@ -0,0 +1,199 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package imsofa.weka.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import org.renjin.sexp.AttributeMap;
+import org.renjin.sexp.DoubleArrayVector;
+import org.renjin.sexp.DoubleVector;
+import org.renjin.sexp.IntArrayVector;
+import org.renjin.sexp.IntVector;
+import org.renjin.sexp.ListVector;
+import org.renjin.sexp.SEXP;
+import org.renjin.sexp.StringArrayVector;
+import org.renjin.sexp.StringVector;
+import org.renjin.sexp.Symbols;
+import org.renjin.sexp.Vector;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+import weka.core.Utils;
+
+/**
+ * converts weka Instances to renjin data.frame and back in memory, column by
+ * column: numeric attributes become double vectors, nominal/string/date
+ * attributes become factors
+ *
+ * @author lendle
+ */
+public class RenjinDataBridge {
+
+    private RenjinDataBridge() {
+    }
+
+    /**
+     * build a data.frame equivalent to the one read.csv would produce from
+     * the CSVSaver output of the given instances
+     *
+     * @param instances
+     * @return
+     */
+    public static ListVector toDataFrame(Instances instances) {
+        int numRows = instances.numInstances();
+        ListVector.NamedBuilder builder = ListVector.newNamedBuilder();
+        for (int j = 0; j < instances.numAttributes(); j++) {
+            Attribute attribute = instances.attribute(j);
+            if (attribute.isDate()) {
+                //checked before isNumeric(), which is also true for dates:
+                //CSVSaver writes the formatted date, so read.csv makes a factor
+                String[] values = new String[numRows];
+                for (int i = 0; i < numRows; i++) {
+                    double value = instances.instance(i).value(j);
+                    values[i] = Utils.isMissingValue(value) ? null : attribute.formatDate(value);
+                }
+                builder.add(attribute.name(), factor(values));
+            } else if (attribute.isNumeric()) {
+                double[] column = new double[numRows];
+                for (int i = 0; i < numRows; i++) {
+                    double value = instances.instance(i).value(j);
+                    column[i] = Utils.isMissingValue(value) ? DoubleVector.NA : value;
+                }
+                builder.add(attribute.name(), new DoubleArrayVector(column));
+            } else if (attribute.isNominal()) {
+                String[] levels = new String[attribute.numValues()];
+                for (int k = 0; k < levels.length; k++) {
+                    levels[k] = attribute.value(k);
+                }
+                int[] codes = new int[numRows];
+                for (int i = 0; i < numRows; i++) {
+                    double value = instances.instance(i).value(j);
+                    codes[i] = Utils.isMissingValue(value) ? IntVector.NA : (int) value + 1;
+                }
+                builder.add(attribute.name(), factor(codes, levels));
+            } else {
+                String[] values = new String[numRows];
+                for (int i = 0; i < numRows; i++) {
+                    values[i] = instances.instance(i).isMissing(j) ? null : instances.instance(i).stringValue(j);
+                }
+                builder.add(attribute.name(), factor(values));
+            }
+        }
+        builder.setAttribute(Symbols.CLASS, new StringArrayVector("data.frame"));
+        //compact row names, same as what read.csv produces
+        builder.setAttribute(Symbols.ROW_NAMES, new IntArrayVector(IntVector.NA, -numRows));
+        return builder.build();
+    }
+
+    /**
+     * convert a data.frame (or any named list of equal length vectors) back
+     * to Instances; factors and character vectors become nominal attributes,
+     * everything else numeric
+     *
+     * @param dataFrame
+     * @param relationName
+     * @return
+     */
+    public static Instances toInstances(SEXP dataFrame, String relationName) {
+        if (!(dataFrame instanceof ListVector)) {
+            throw new IllegalArgumentException("not a data.frame: " + dataFrame.getTypeName());
+        }
+        ListVector list = (ListVector) dataFrame;
+        int numColumns = list.length();
+        int numRows = (numColumns == 0) ? 0 : list.getElementAsSEXP(0).length();
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        //for each column, the mapping from factor codes (or strings) to nominal indices
+        List<Object> columnLevels = new ArrayList<>();
+        for (int j = 0; j < numColumns; j++) {
+            SEXP column = list.getElementAsSEXP(j);
+            String name = list.getName(j);
+            if (column.inherits("factor")) {
+                StringVector levels = (StringVector) column.getAttribute(Symbols.LEVELS);
+                List<String> values = new ArrayList<>();
+                for (int k = 0; k < levels.length(); k++) {
+                    values.add(levels.getElementAsString(k));
+                }
+                attributes.add(new Attribute(name, values));
+                columnLevels.add(null);
+            } else if (column instanceof StringVector) {
+                StringVector strings = (StringVector) column;
+                TreeSet<String> distinct = new TreeSet<>();
+                for (int i = 0; i < numRows; i++) {
+                    if (!strings.isElementNA(i)) {
+                        distinct.add(strings.getElementAsString(i));
+                    }
+                }
+                Map<String, Integer> index = new HashMap<>();
+                for (String value : distinct) {
+                    index.put(value, index.size());
+                }
+                attributes.add(new Attribute(name, new ArrayList<>(distinct)));
+                columnLevels.add(index);
+            } else {
+                attributes.add(new Attribute(name));
+                columnLevels.add(null);
+            }
+        }
+
+        Instances instances = new Instances(relationName, attributes, numRows);
+        double[][] values = new double[numRows][numColumns];
+        for (int j = 0; j < numColumns; j++) {
+            Vector column = (Vector) list.getElementAsSEXP(j);
+            Map<String, Integer> index = (Map<String, Integer>) columnLevels.get(j);
+            boolean factor = column.inherits("factor");
+            for (int i = 0; i < numRows; i++) {
+                if (column.isElementNA(i)) {
+                    values[i][j] = Utils.missingValue();
+                } else if (factor) {
+                    values[i][j] = column.getElementAsInt(i) - 1;
+                } else if (index != null) {
+                    values[i][j] = index.get(column.getElementAsString(i));
+                } else {
+                    values[i][j] = column.getElementAsDouble(i);
+                }
+            }
+        }
+        for (int i = 0; i < numRows; i++) {
+            instances.add(new DenseInstance(1.0, values[i]));
+        }
+        return instances;
+    }
+
+    private static IntArrayVector factor(int[] codes, String[] levels) {
+        AttributeMap attributes = AttributeMap.builder()
+                .set(Symbols.CLASS, new StringArrayVector("factor"))
+                .set(Symbols.LEVELS, new StringArrayVector(levels))
+                .build();
+        return new IntArrayVector(codes, attributes);
+    }
+
+    /**
+     * factor with sorted levels, the way read.csv builds it from text
+     *
+     * @param values
+     * @return
+     */
+    private static IntArrayVector factor(String[] values) {
+        TreeSet<String> distinct = new TreeSet<>();
+        for (String value : values) {
+            if (value != null) {
+                distinct.add(value);
+            }
+        }
+        Map<String, Integer> index = new HashMap<>();
+        for (String value : distinct) {
+            index.put(value, index.size() + 1);
+        }
+        int[] codes = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            codes[i] = (values[i] == null) ? IntVector.NA : index.get(values[i]);
+        }
+        return factor(codes, distinct.toArray(new String[0]));
+    }
+}
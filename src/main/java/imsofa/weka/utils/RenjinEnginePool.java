@@ -0,0 +1,93 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package imsofa.weka.utils;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * a bounded pool of RenjinWrapper; engines are created lazily on the first
+ * borrow and handed back with release so that the datasets and models
+ * already loaded into them can be reused
+ *
+ * @author lendle
+ */
+public class RenjinEnginePool {
+
+    public static final int DEFAULT_POOL_SIZE = 2;
+    private static RenjinEnginePool instance = null;
+
+    private final int maxSize;
+    private final LinkedBlockingQueue<RenjinWrapper> idle = new LinkedBlockingQueue<>();
+    private int created = 0;
+
+    public static synchronized RenjinEnginePool getInstance() {
+        if (instance == null) {
+            instance = new RenjinEnginePool(DEFAULT_POOL_SIZE);
+        }
+        return instance;
+    }
+
+    public RenjinEnginePool(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("pool size must be at least 1");
+        }
+        this.maxSize = maxSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * take an engine, creating one if the pool is not full yet, otherwise
+     * wait until another caller releases one
+     *
+     * @return
+     * @throws InterruptedException
+     */
+    public RenjinWrapper borrow() throws InterruptedException {
+        while (true) {
+            RenjinWrapper wrapper = idle.poll();
+            if (wrapper != null) {
+                return wrapper;
+            }
+            synchronized (this) {
+                if (created < maxSize) {
+                    created++;
+                    try {
+                        return new RenjinWrapper();
+                    } catch (RuntimeException ex) {
+                        created--;
+                        throw ex;
+                    }
+                }
+            }
+            //recheck the capacity from time to time in case an engine was discarded
+            wrapper = idle.poll(100, TimeUnit.MILLISECONDS);
+            if (wrapper != null) {
+                return wrapper;
+            }
+        }
+    }
+
+    public void release(RenjinWrapper wrapper) {
+        if (wrapper != null) {
+            idle.offer(wrapper);
+        }
+    }
+
+    /**
+     * drop an engine that is in an unknown state instead of returning it
+     *
+     * @param wrapper
+     */
+    public synchronized void discard(RenjinWrapper wrapper) {
+        if (wrapper != null) {
+            created--;
+        }
+    }
+}
@@ -6,15 +6,22 @@
 package imsofa.weka.utils;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import javax.script.ScriptEngine;
 import javax.script.ScriptException;
 import org.apache.commons.io.FileUtils;
 import org.renjin.script.RenjinScriptEngineFactory;
+import org.renjin.sexp.SEXP;
+import weka.core.Instance;
 import weka.core.Instances;
-import weka.core.converters.CSVLoader;
-import weka.core.converters.CSVSaver;
 
 /**
  *
@@ -23,6 +30,9 @@ import weka.core.converters.CSVSaver;
 public class RenjinWrapper {
 
     private ScriptEngine engine = null;
+    //what is currently bound to each variable loaded through loadData/loadModel
+    private Map<String, DataKey> loadedData = new HashMap<>();
+    private Map<String, ModelKey> loadedModels = new HashMap<>();
 
     public RenjinWrapper() {
         RenjinScriptEngineFactory factory = new RenjinScriptEngineFactory();
@@ -30,22 +40,59 @@ public class RenjinWrapper {
         engine = factory.getScriptEngine();
     }
 
+    /**
+     * bind the instances to varName as a data.frame; nothing is transferred
+     * if the same data, unchanged since, is already bound to it
+     *
+     * @param instances
+     * @param varName
+     * @throws Exception 
+     */
     public void loadData(Instances instances, String varName) throws Exception{
+        byte[] digest = DataKey.digest(instances);
+        DataKey key = loadedData.get(varName);
+        if (key != null && key.matches(instances, digest)) {
+            return;
+        }
+        loadedData.remove(varName);
+        engine.put(varName, RenjinDataBridge.toDataFrame(instances));
+        //read.csv used to sanitize the header, keep formulas working the same way
+        engine.eval("names("+varName+")<-make.names(names("+varName+"), unique=TRUE)");
+        loadedData.put(varName, new DataKey(instances, digest));
+    }
+    
+    /**
+     * bind the object named "model" in the given saved R image to varName;
+     * the image is only loaded again if it differs from the last one
+     *
+     * @param model
+     * @param varName
+     * @throws IOException
+     * @throws ScriptException 
+     */
+    public void loadModel(byte[] model, String varName) throws IOException, ScriptException{
+        ModelKey key = loadedModels.get(varName);
+        if (key != null && key.matches(model)) {
+            return;
+        }
+        loadedModels.remove(varName);
+        File tempFile = File.createTempFile("temp", ".model");
         try {
-            CSVSaver saver = new CSVSaver();
-            File file = File.createTempFile("" + System.currentTimeMillis(), ".csv");
-            try (FileOutputStream output = new FileOutputStream(file)) {
-                saver.setDestination(output);
-                saver.setInstances(instances);
-                saver.setDir(".");
-                saver.writeBatch();
-            }
-            String path = file.getCanonicalPath().replace("\\", "/");
-            engine.eval(varName+"<-read.csv('" + path + "')");
-            FileUtils.deleteQuietly(file);
-        }   catch (IOException ex) {
-            ex.printStackTrace();
+            FileUtils.writeByteArrayToFile(tempFile, model);
+            String path = tempFile.getCanonicalPath().replace("\\", "/");
+            engine.eval(varName + "<-local({load(file='" + path + "'); model})");
+        } finally {
+            FileUtils.deleteQuietly(tempFile);
         }
+        loadedModels.put(varName, new ModelKey(model));
+    }
+    
+    /**
+     * forget the cached bindings, e.g. after a script reassigned them
+     */
+    public void clearCache(){
+        loadedData.clear();
+        loadedModels.clear();
     }
     
     public Object getVar(String var) throws ScriptException{
@@ -62,10 +109,89 @@ public class RenjinWrapper {
     }
     
     public Instances writeData(String varName) throws IOException, ScriptException{
-        File file=File.createTempFile("temp", ".csv");
-        this.writeData(varName, file);
-        CSVLoader loader=new CSVLoader();
-        loader.setFile(new File("03face.csv"));
-        return loader.getDataSet();
+        return RenjinDataBridge.toInstances((SEXP) engine.eval(varName), varName);
+    }
+
+    /**
+     * the identity of the bound data plus a SHA-1 digest of its content;
+     * the digest catches an Instances that was edited in place, labels,
+     * strings and date formats are covered by the header check
+     */
+    private static class DataKey {
+
+        private WeakReference<Instances> source = null;
+        private Instances header = null;
+        private byte[] digest = null;
+
+        public DataKey(Instances instances, byte[] digest) {
+            this.source = new WeakReference<>(instances);
+            this.header = new Instances(instances, 0);
+            this.digest = digest;
+        }
+
+        public boolean matches(Instances other, byte[] otherDigest) {
+            if (source.get() != other || !header.equalHeaders(other)) {
+                return false;
+            }
+            for (int j = 0; j < header.numAttributes(); j++) {
+                if (header.attribute(j).isDate()
+                        && !header.attribute(j).getDateFormat().equals(other.attribute(j).getDateFormat())) {
+                    return false;
+                }
+            }
+            return MessageDigest.isEqual(digest, otherDigest);
+        }
+
+        /**
+         * hash the values of all rows, and the text of string values
+         *
+         * @param instances
+         * @return 
+         */
+        public static byte[] digest(Instances instances) {
+            MessageDigest md = null;
+            try {
+                md = MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException ex) {
+                //every Java platform is required to provide SHA-1
+                throw new IllegalStateException(ex);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            buffer.putInt(instances.numInstances()).putInt(instances.numAttributes());
+            for (int i = 0; i < instances.numInstances(); i++) {
+                Instance instance = instances.instance(i);
+                for (int j = 0; j < instances.numAttributes(); j++) {
+                    if (buffer.remaining() < 8) {
+                        md.update(buffer.array(), 0, buffer.position());
+                        buffer.clear();
+                    }
+                    buffer.putLong(Double.doubleToLongBits(instance.value(j)));
+                    if (instances.attribute(j).isString() && !instance.isMissing(j)) {
+                        md.update(buffer.array(), 0, buffer.position());
+                        buffer.clear();
+                        byte[] text = instance.stringValue(j).getBytes(StandardCharsets.UTF_8);
+                        buffer.putInt(text.length);
+                        md.update(buffer.array(), 0, buffer.position());
+                        buffer.clear();
+                        md.update(text);
+                    }
+                }
+            }
+            md.update(buffer.array(), 0, buffer.position());
+            return md.digest();
+        }
+    }
+
+    private static class ModelKey {
+
+        private byte[] model = null;
+
+        public ModelKey(byte[] model) {
+            this.model = model.clone();
+        }
+
+        public boolean matches(byte[] other) {
+            return Arrays.equals(model, other);
+        }
     }
 }
@@ -5,21 +5,11 @@
  */
 package imsofa.weka.validation;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.ObjectInputStream;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVPrinter;
-import org.apache.commons.io.FileUtils;
+import weka.clusterers.AbstractClusterer;
 import weka.clusterers.Clusterer;
-import weka.core.Attribute;
-import weka.core.Instance;
 import weka.core.Instances;
-import weka.core.converters.CSVLoader;
-import weka.gui.arffviewer.ArffSortedTableModel;
 
 /**
  *
@@ -28,56 +18,37 @@ import weka.gui.arffviewer.ArffSortedTableModel;
 public class DefaultClustererValidatorImpl implements Validator {
 
     private ValidationParameter validationParameter = null;
+    //copies of the clusterer kept for the next validation
+    private Clusterer[] clusterers = null;
 
     @Override
     public void init(ValidationParameter validationData) {
         this.validationParameter = validationData;
+        this.clusterers = null;
     }
 
     @Override
     public Instances validate(Instances instances) {
         Clusterer clusterer = (Clusterer) validationParameter.getValidator();
         try {
-            File file = File.createTempFile("testModel", ".csv", new File("."));
-
-            List<String> attributeNames = new ArrayList<>();
-            for (int i = 0; i < instances.numAttributes(); i++) {
-                attributeNames.add(instances.attribute(i).name());
+            int numChunks = ParallelScorer.numChunks(instances.numInstances());
+            //clusterers are not guaranteed to be thread safe, every thread gets its own copy
+            if (clusterers == null || clusterers.length != numChunks) {
+                clusterers = (numChunks == 1) ? new Clusterer[]{clusterer} : AbstractClusterer.makeCopies(clusterer, numChunks);
             }
-            attributeNames.add("預測結果");
-            CSVFormat cSVFormat = CSVFormat.EXCEL.withHeader(attributeNames.toArray(new String[0]));
-
-            try {
-                CSVPrinter cSVPrinter = cSVFormat.print(file, Charset.forName("utf-8"));
-                for (int i = 0; i < instances.size(); i++) {
-                    List rowData = new ArrayList();
-                    for (int j = 0; j < instances.numAttributes(); j++) {
-                        Attribute attribute = instances.attribute(j);
-                        if (attribute.isString() || attribute.isNominal()) {
-                            rowData.add(instances.get(i).stringValue(j));
-                        } else {
-                            rowData.add(instances.get(i).value(j));
+            List<ParallelScorer.ChunkScorer> scorers = new ArrayList<>();
+            for (final Clusterer c : clusterers) {
+                scorers.add(new ParallelScorer.ChunkScorer() {
+                    @Override
+                    public void score(Instances instances, int from, int to, double[] predictions) throws Exception {
+                        for (int i = from; i < to; i++) {
+                            predictions[i] = c.clusterInstance(instances.instance(i));
                         }
                     }
-                    Instance instance = instances.get(i);
-                    int result = clusterer.clusterInstance(instance);
-                    rowData.add(result);
-
-                    cSVPrinter.printRecord(rowData.toArray());
-                }
-                cSVPrinter.flush();
-                cSVPrinter.close();
-
-            } catch (Exception ex) {
-                ex.printStackTrace();
+                });
             }
-            CSVLoader csvLoader = new CSVLoader();
-            csvLoader.setFile(file);
-            instances = csvLoader.getDataSet();
-            //ArffSortedTableModel model = new ArffSortedTableModel(instances);
-            FileUtils.deleteQuietly(file);
-            file.deleteOnExit();
-            return instances;
+            double[] predictions = ParallelScorer.score(instances, scorers);
+            return ParallelScorer.appendPredictions(instances, "預測結果", predictions);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
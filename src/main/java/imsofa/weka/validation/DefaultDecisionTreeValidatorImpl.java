@@ -5,18 +5,13 @@
  */
 package imsofa.weka.validation;
 
-import java.io.File;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVPrinter;
-import org.apache.commons.io.FileUtils;
+import weka.classifiers.AbstractClassifier;
 import weka.classifiers.Classifier;
-import weka.core.Attribute;
-import weka.core.Instance;
+import weka.core.BatchPredictor;
 import weka.core.Instances;
-import weka.core.converters.CSVLoader;
+import weka.core.Utils;
 
 /**
  *
@@ -25,10 +20,13 @@ import weka.core.converters.CSVLoader;
 public class DefaultDecisionTreeValidatorImpl implements Validator {
 
     private ValidationParameter validationParameter = null;
+    //copies of the classifier kept for the next validation
+    private Classifier[] classifiers = null;
 
     @Override
     public void init(ValidationParameter validationData) {
         this.validationParameter = validationData;
+        this.classifiers = null;
     }
 
     @Override
@@ -36,50 +34,56 @@ public class DefaultDecisionTreeValidatorImpl implements Validator {
         Classifier classifier = (Classifier) validationParameter.getValidator();
         instances.setClassIndex((Integer)validationParameter.getParameter("classIndex"));
         try {
-            File file = File.createTempFile("testModel", ".csv", new File("."));
-
-            List<String> attributeNames = new ArrayList<>();
-            for (int i = 0; i < instances.numAttributes(); i++) {
-                attributeNames.add(instances.attribute(i).name());
+            int numChunks = ParallelScorer.numChunks(instances.numInstances());
+            //classifiers are not guaranteed to be thread safe, every thread gets its own copy
+            if (classifiers == null || classifiers.length != numChunks) {
+                classifiers = (numChunks == 1) ? new Classifier[]{classifier} : AbstractClassifier.makeCopies(classifier, numChunks);
             }
-            attributeNames.add("預測結果");
-            CSVFormat cSVFormat = CSVFormat.EXCEL.withHeader(attributeNames.toArray(new String[0]));
-
-            try {
-                CSVPrinter cSVPrinter = cSVFormat.print(file, Charset.forName("utf-8"));
-                for (int i = 0; i < instances.size(); i++) {
-                    List rowData = new ArrayList();
-                    for (int j = 0; j < instances.numAttributes(); j++) {
-                        Attribute attribute = instances.attribute(j);
-                        if (attribute.isString() || attribute.isNominal()) {
-                            rowData.add(instances.get(i).stringValue(j));
-                        } else {
-                            rowData.add(instances.get(i).value(j));
-                        }
-                    }
-                    Instance instance = instances.get(i);
-                    double result = classifier.classifyInstance(instance);
-                    rowData.add(result);
-
-                    cSVPrinter.printRecord(rowData.toArray());
-                }
-                cSVPrinter.flush();
-                cSVPrinter.close();
-
-            } catch (Exception ex) {
-                ex.printStackTrace();
+            List<ClassifierScorer> scorers = new ArrayList<>();
+            for (Classifier c : classifiers) {
+                scorers.add(new ClassifierScorer(c));
             }
-            CSVLoader csvLoader = new CSVLoader();
-            csvLoader.setFile(file);
-            instances = csvLoader.getDataSet();
-            //ArffSortedTableModel model = new ArffSortedTableModel(instances);
-            FileUtils.deleteQuietly(file);
-            file.deleteOnExit();
-            return instances;
+            double[] predictions = ParallelScorer.score(instances, scorers);
+            return ParallelScorer.appendPredictions(instances, "預測結果", predictions);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
         return null;
     }
 
+    private static class ClassifierScorer implements ParallelScorer.ChunkScorer {
+
+        private Classifier classifier = null;
+
+        public ClassifierScorer(Classifier classifier) {
+            this.classifier = classifier;
+        }
+
+        @Override
+        public void score(Instances instances, int from, int to, double[] predictions) throws Exception {
+            if (classifier instanceof BatchPredictor && ((BatchPredictor) classifier).implementsMoreEfficientBatchPrediction()) {
+                double[][] distributions = ((BatchPredictor) classifier).distributionsForInstances(new Instances(instances, from, to - from));
+                boolean nominal = instances.classAttribute().isNominal();
+                for (int i = from; i < to; i++) {
+                    predictions[i] = toPrediction(distributions[i - from], nominal);
+                }
+            } else {
+                for (int i = from; i < to; i++) {
+                    predictions[i] = classifier.classifyInstance(instances.instance(i));
+                }
+            }
+        }
+
+        /**
+         * the same as AbstractClassifier.classifyInstance does with a
+         * distribution
+         */
+        private static double toPrediction(double[] distribution, boolean nominal) {
+            if (!nominal) {
+                return distribution[0];
+            }
+            int maxIndex = Utils.maxIndex(distribution);
+            return (distribution[maxIndex] > 0) ? maxIndex : Utils.missingValue();
+        }
+    }
 }
@@ -0,0 +1,38 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package imsofa.weka.validation;
+
+import imsofa.weka.utils.RegressionModel;
+import weka.core.Instances;
+
+/**
+ * validates a RegressionModel fitted in java, the prediction is appended as
+ * the last attribute
+ *
+ * @author lendle
+ */
+public class DefaultRegressionValidatorImpl implements Validator {
+
+    private ValidationParameter validationParameter = null;
+
+    @Override
+    public void init(ValidationParameter validationData) {
+        this.validationParameter = validationData;
+    }
+
+    @Override
+    public Instances validate(Instances instances) {
+        try {
+            RegressionModel model = (RegressionModel) validationParameter.getValidator();
+            double[] predictions = model.predict(instances);
+            return ParallelScorer.appendPredictions(instances, "Predict", predictions);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return null;
+    }
+
+}
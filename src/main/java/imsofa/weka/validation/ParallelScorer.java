@@ -0,0 +1,149 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package imsofa.weka.validation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import weka.core.Attribute;
+import weka.core.Instances;
+
+/**
+ * scores instances in contiguous chunks on a shared pool and appends the
+ * predictions to a copy of the data, in memory
+ *
+ * @author lendle
+ */
+public class ParallelScorer {
+
+    /**
+     * chunks smaller than this are not worth a thread (and a model copy)
+     */
+    public static final int MIN_CHUNK_SIZE = 2000;
+    /**
+     * rows scored between two checks for cancellation
+     */
+    private static final int BLOCK_SIZE = 1024;
+    private static final int NUM_THREADS = Runtime.getRuntime().availableProcessors();
+    private static ExecutorService executor = null;
+
+    /**
+     * scores the rows [from, to) of instances into predictions[from..to);
+     * each ChunkScorer is used by one thread only
+     */
+    public interface ChunkScorer {
+
+        public void score(Instances instances, int from, int to, double[] predictions) throws Exception;
+    }
+
+    private ParallelScorer() {
+    }
+
+    /**
+     * how many chunks (and therefore ChunkScorer) should be used for the
+     * given number of rows
+     *
+     * @param numInstances
+     * @return
+     */
+    public static int numChunks(int numInstances) {
+        return Math.max(1, Math.min(NUM_THREADS, numInstances / MIN_CHUNK_SIZE));
+    }
+
+    public static double[] score(final Instances instances, List<? extends ChunkScorer> scorers) throws Exception {
+        final double[] predictions = new double[instances.numInstances()];
+        int numChunks = scorers.size();
+        if (numChunks == 1) {
+            scoreInBlocks(scorers.get(0), instances, 0, predictions.length, predictions);
+            return predictions;
+        }
+        int chunkSize = (predictions.length + numChunks - 1) / numChunks;
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < numChunks; i++) {
+            final ChunkScorer scorer = scorers.get(i);
+            final int from = Math.min(predictions.length, i * chunkSize);
+            final int to = Math.min(predictions.length, from + chunkSize);
+            futures.add(getExecutor().submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    scoreInBlocks(scorer, instances, from, to, predictions);
+                    return null;
+                }
+            }));
+        }
+        try {
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException ex) {
+            cancelAll(futures);
+            throw (ex.getCause() instanceof Exception) ? (Exception) ex.getCause() : ex;
+        } catch (InterruptedException ex) {
+            cancelAll(futures);
+            throw ex;
+        }
+        return predictions;
+    }
+
+    /**
+     * score a chunk a block at a time, so that a cancelled validation stops
+     * soon
+     */
+    private static void scoreInBlocks(ChunkScorer scorer, Instances instances, int from, int to, double[] predictions) throws Exception {
+        for (int start = from; start < to; start += BLOCK_SIZE) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException("validation cancelled");
+            }
+            scorer.score(instances, start, Math.min(to, start + BLOCK_SIZE), predictions);
+        }
+    }
+
+    private static void cancelAll(List<Future<Void>> futures) {
+        for (Future<Void> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * copy of instances with the predictions as an extra numeric attribute
+     * at the end
+     *
+     * @param instances
+     * @param attributeName
+     * @param predictions
+     * @return
+     */
+    public static Instances appendPredictions(Instances instances, String attributeName, double[] predictions) {
+        Instances ret = new Instances(instances);
+        ret.insertAttributeAt(new Attribute(attributeName), ret.numAttributes());
+        int index = ret.numAttributes() - 1;
+        for (int i = 0; i < predictions.length; i++) {
+            ret.instance(i).setValue(index, predictions[i]);
+        }
+        return ret;
+    }
+
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(NUM_THREADS, new ThreadFactory() {
+                private int count = 0;
+
+                @Override
+                public synchronized Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "scorer-" + (count++));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+}
@@ -5,6 +5,19 @@
  */
 package imsofa.weka.validation;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import weka.core.Instances;
 
 /**
@@ -12,19 +25,189 @@ import weka.core.Instances;
  * @author lendle
  */
 public class ValidatorManager {
-    public static ValidatorManager getInstance(){
-        return new ValidatorManager();
+
+    /**
+     * at most this many validations wait for a free thread, a further request
+     * cancels the oldest waiting one
+     */
+    public static final int MAX_PENDING_VALIDATIONS = 8;
+    /**
+     * number of initialized validators kept for reuse
+     */
+    public static final int MAX_CACHED_VALIDATORS = 8;
+    private static ValidatorManager instance = null;
+
+    private final Map<String, ValidatorFactory> factories = new HashMap<>();
+    //initialized validators by ValidationParameter (identity), least recently used ones are dropped
+    private final Map<ValidationParameter, Validator> validators = new LinkedHashMap<ValidationParameter, Validator>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ValidationParameter, Validator> eldest) {
+            return size() > MAX_CACHED_VALIDATORS;
+        }
+    };
+    private final ThreadPoolExecutor executor;
+
+    public interface ValidatorFactory {
+
+        public Validator newValidator();
+    }
+
+    public interface ValidationCallback {
+
+        /**
+         * called from the validation thread once the result is ready; not
+         * called if the validation was cancelled
+         *
+         * @param result null if validation failed
+         */
+        public void validated(Instances result);
+    }
+
+    public static synchronized ValidatorManager getInstance() {
+        if (instance == null) {
+            instance = new ValidatorManager();
+        }
+        return instance;
+    }
+
+    private ValidatorManager() {
+        executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(MAX_PENDING_VALIDATIONS), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "validation");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }, new RejectedExecutionHandler() {
+            @Override
+            public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+                if (executor.isShutdown()) {
+                    throw new RejectedExecutionException("validation thread is shut down");
+                }
+                //like DiscardOldestPolicy, but cancel the dropped task so that
+                //nobody waits on its Future forever
+                Runnable oldest = executor.getQueue().poll();
+                if (oldest instanceof Future) {
+                    ((Future<?>) oldest).cancel(false);
+                }
+                executor.execute(r);
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        registerFactory(DefaultDecisionTreeValidatorImpl.class.getName(), new ValidatorFactory() {
+            @Override
+            public Validator newValidator() {
+                return new DefaultDecisionTreeValidatorImpl();
+            }
+        });
+        registerFactory(DefaultClustererValidatorImpl.class.getName(), new ValidatorFactory() {
+            @Override
+            public Validator newValidator() {
+                return new DefaultClustererValidatorImpl();
+            }
+        });
+        registerFactory(DefaultRegressionValidatorImpl.class.getName(), new ValidatorFactory() {
+            @Override
+            public Validator newValidator() {
+                return new DefaultRegressionValidatorImpl();
+            }
+        });
+        registerFactory(DefaultRenjinRegressionValidatorImpl.class.getName(), new ValidatorFactory() {
+            @Override
+            public Validator newValidator() {
+                return new DefaultRenjinRegressionValidatorImpl();
+            }
+        });
     }
-    
-    public Instances validate(Instances inst, ValidationParameter data){
+
+    public synchronized void registerFactory(String validatorClassName, ValidatorFactory factory) {
+        factories.put(validatorClassName, factory);
+    }
+
+    public Instances validate(Instances inst, ValidationParameter data) {
         try {
-            String validatorClassName=data.getValidatorClassName();
-            Validator validator=(Validator) Class.forName(validatorClassName).newInstance();
-            validator.init(data);
-            return validator.validate(inst);
+            Validator validator = getValidator(data);
+            //a validator is only used by one validation at a time
+            synchronized (validator) {
+                return validator.validate(inst);
+            }
         } catch (Exception ex) {
             ex.printStackTrace();
             return null;
         }
     }
+
+    /**
+     * run the validation on the validation thread; the returned Future can
+     * be used to cancel it; the validation works on a copy of inst, so inst
+     * is not modified and may be changed by the caller meanwhile
+     *
+     * @param inst
+     * @param data
+     * @param callback may be null
+     * @return
+     */
+    public Future<Instances> validateAsync(Instances inst, final ValidationParameter data, final ValidationCallback callback) {
+        //validators set the class index, the caller's data is left alone
+        final Instances copy = new Instances(inst);
+        FutureTask<Instances> task = new FutureTask<Instances>(new Callable<Instances>() {
+            @Override
+            public Instances call() throws Exception {
+                return validate(copy, data);
+            }
+        }) {
+            @Override
+            protected void done() {
+                if (callback == null || isCancelled()) {
+                    return;
+                }
+                try {
+                    callback.validated(get());
+                } catch (InterruptedException | ExecutionException ex) {
+                    ex.printStackTrace();
+                    callback.validated(null);
+                }
+            }
+        };
+        //cancelled validations still waiting in the queue would take up its room
+        executor.purge();
+        executor.execute(task);
+        return task;
+    }
+
+    private Validator getValidator(ValidationParameter data) throws Exception {
+        synchronized (validators) {
+            Validator validator = validators.get(data);
+            if (validator == null) {
+                validator = newValidator(data.getValidatorClassName());
+                validator.init(data);
+                validators.put(data, validator);
+            }
+            return validator;
+        }
+    }
+
+    private Validator newValidator(final String validatorClassName) throws Exception {
+        ValidatorFactory factory = null;
+        synchronized (this) {
+            factory = factories.get(validatorClassName);
+        }
+        if (factory == null) {
+            //not a built-in validator, resolve the class once and remember it
+            final Class<? extends Validator> validatorClass = Class.forName(validatorClassName).asSubclass(Validator.class);
+            factory = new ValidatorFactory() {
+                @Override
+                public Validator newValidator() {
+                    try {
+                        return validatorClass.newInstance();
+                    } catch (InstantiationException | IllegalAccessException ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                }
+            };
+            registerFactory(validatorClassName, factory);
+        }
+        return factory.newValidator();
+    }
 }
@@ -9,9 +9,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -48,6 +51,7 @@ public class Aggregation
    private MsdWorkspace myWorkspace;
    private List<List<Integer>> myGroupingSets;
    private boolean amIUsingSuperAggregation;
+   private boolean amIUsingHashPartitioning;
 
    /**
     * Private constructor to ensure that the "Builder" pattern is used.
@@ -61,6 +65,7 @@ public class Aggregation
       amIUsingMsd = builder.amIUsingMsd;
       myGroupingSets = builder.myGroupingSets;
       amIUsingSuperAggregation = builder.amIUsingSuperAggregation;
+      amIUsingHashPartitioning = builder.amIUsingHashPartitioning;
    }
 
    /**
@@ -92,7 +97,9 @@ public class Aggregation
     * <code>T</code> does not need to be <code>Comparable</code>.  This
     * operates on a copy of the list of values, either sorted based on the
     * "group by" properties (if any), or grouped into equivalence classes using
-    * multiset discrimination.
+    * multiset discrimination.  If hash partitioning was chosen and the
+    * parallelism is more than 1, then the values are not sorted at all; see
+    * <code>Builder.setUseHashPartitioning</code>.
     * @param <T> The object type to aggregate.
     * @param values The <code>List&lt;T&gt;</code> of objects to aggregate.
     * @return A <code>List&lt;AggregateValue&lt;T&gt;&gt;</code>.
@@ -105,6 +112,14 @@ public class Aggregation
       {
          return getEmptyAggregateValues();
       }
+      if (amIUsingHashPartitioning && myProperties.size() > 0 &&
+          Math.min(myParallelism, values.size()) > 1)
+      {
+         List<AggregateValue<T>> aggregatedList = getHashAggregateValues(values, myParallelism);
+         if (amIUsingSuperAggregation)
+            getSuperAggregateValues(aggregatedList);
+         return aggregatedList;
+      }
       PropertiesDiscriminator<T> disc = new PropertiesDiscriminator<T>(myProperties);
       PropertiesComparator<T> comparator = new PropertiesComparator<T>(myProperties);
       List<T> listCopy = null;
@@ -173,6 +188,15 @@ public class Aggregation
     * @return An <code>ExecutorCompletionService</code>.
     */
    private static <T> ExecutorCompletionService<PositionedAggregatorList<T>> initializeService()
+   {
+      return new ExecutorCompletionService<PositionedAggregatorList<T>>(getThreadPool());
+   }
+
+   /**
+    * Lazy-initializes the <code>ThreadPoolExecutor</code>.
+    * @return The <code>ThreadPoolExecutor</code>.
+    */
+   private static synchronized ThreadPoolExecutor getThreadPool()
    {
       if (theThreadPool == null)
       {
@@ -180,7 +204,125 @@ public class Aggregation
          theThreadPool = new ThreadPoolExecutor(0, numProcessors,
             0, TimeUnit.MILLISECONDS, new SynchronousQueue<Runnable>());
       }
-      return new ExecutorCompletionService<PositionedAggregatorList<T>>(theThreadPool);
+      return theThreadPool;
+   }
+
+   /**
+    * Runs all tasks on the thread pool and waits for all of them.
+    * @param tasks The tasks, no more than the degree of parallelism.
+    * @return The results, in the order of the tasks.
+    * @throws JaggException If any task throws an <code>Exception</code>.
+    */
+   private static <R> List<R> runAll(List<Callable<R>> tasks)
+   {
+      List<Future<R>> futures = new ArrayList<Future<R>>(tasks.size());
+      for (Callable<R> task : tasks)
+      {
+         FutureTask<R> future = new FutureTask<R>(task);
+         try
+         {
+            getThreadPool().execute(future);
+         }
+         catch (RejectedExecutionException e)
+         {
+            // A Thread that just finished a task may not be taking new ones
+            // yet; run the task in the caller then.
+            future.run();
+         }
+         futures.add(future);
+      }
+      List<R> results = new ArrayList<R>(tasks.size());
+      try
+      {
+         for (Future<R> future : futures)
+            results.add(future.get());
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new JaggException("Interrupted while aggregating.", e);
+      }
+      catch (ExecutionException e)
+      {
+         throw new JaggException(e.getClass().getName() +
+            " caught while aggregating.", e);
+      }
+      return results;
+   }
+
+   /**
+    * Get all aggregate values for all aggregators without sorting the
+    * values.  Each of <code>parallelism</code> tasks builds partial groups
+    * in a hash table from its own range of the values.  Then each of
+    * <code>parallelism</code> tasks merges the partial groups of one hash
+    * partition, using the aggregators' <code>merge</code> method.  Only the
+    * resulting groups are sorted, so that the result is in the same order as
+    * when sorting the values.
+    * @param values The unsorted list of values to aggregate.
+    * @param parallelism The degree of parallelism.
+    * @return A <code>List</code> of <code>AggregateValues</code>.
+    */
+   private <T> List<AggregateValue<T>> getHashAggregateValues(List<T> values, final int parallelism)
+   {
+      int size = values.size();
+      List<Callable<List<Map<HashAggregateRunner.Group<T>, HashAggregateRunner.Group<T>>>>> runners =
+         new ArrayList<Callable<List<Map<HashAggregateRunner.Group<T>, HashAggregateRunner.Group<T>>>>>(parallelism);
+      for (int p = 0; p < parallelism; p++)
+      {
+         int startIndex = (size * p) / parallelism;
+         int endIndex = (size * (p + 1)) / parallelism - 1;
+         runners.add(new HashAggregateRunner<T>(myAggregators, values, myProperties, startIndex, endIndex, parallelism));
+      }
+      final List<List<Map<HashAggregateRunner.Group<T>, HashAggregateRunner.Group<T>>>> partials = runAll(runners);
+
+      int numProperties = myProperties.size();
+      final List<Integer> defaultGroupingSet = new ArrayList<Integer>(numProperties);
+      for (int i = 0; i < numProperties; i++)
+         defaultGroupingSet.add(i);
+      List<Callable<List<AggregateValue<T>>>> mergers = new ArrayList<Callable<List<AggregateValue<T>>>>(parallelism);
+      for (int q = 0; q < parallelism; q++)
+      {
+         final int partition = q;
+         mergers.add(new Callable<List<AggregateValue<T>>>() {
+            /**
+             * Merges the groups of one hash partition from all runners.
+             * @return The <code>AggregateValues</code> of the partition.
+             */
+            public List<AggregateValue<T>> call()
+            {
+               Map<HashAggregateRunner.Group<T>, HashAggregateRunner.Group<T>> merged = partials.get(0).get(partition);
+               for (int p = 1; p < parallelism; p++)
+               {
+                  for (HashAggregateRunner.Group<T> group : partials.get(p).get(partition).keySet())
+                  {
+                     HashAggregateRunner.Group<T> existing = merged.get(group);
+                     if (existing == null)
+                        merged.put(group, group);
+                     else
+                        existing.merge(group);
+                  }
+               }
+               List<AggregateValue<T>> aggValues = new ArrayList<AggregateValue<T>>(merged.size());
+               for (HashAggregateRunner.Group<T> group : merged.keySet())
+               {
+                  AggregateValue<T> aggValue = new AggregateValue<T>(group.getObject());
+                  for (AggregateFunction agg : group.getAggregators())
+                     aggValue.setAggregateValue(agg, agg.terminate());
+                  aggValue.assignPropsAndGroupingSet(myProperties, defaultGroupingSet);
+                  // Store for super-aggregation later.
+                  if (amIUsingSuperAggregation)
+                     aggValue.assignAggregators(group.getAggregators());
+                  aggValues.add(aggValue);
+               }
+               return aggValues;
+            }
+         });
+      }
+      List<AggregateValue<T>> aggValues = new ArrayList<AggregateValue<T>>();
+      for (List<AggregateValue<T>> partitionValues : runAll(mergers))
+         aggValues.addAll(partitionValues);
+      Collections.sort(aggValues, new AggregateValuePropertiesComparator<T>(myProperties));
+      return aggValues;
    }
 
    /**
@@ -579,10 +721,12 @@ public class Aggregation
       private boolean amIUsingMsd;
       private List<List<Integer>> myGroupingSets;
       private boolean amIUsingSuperAggregation;
+      private boolean amIUsingHashPartitioning;
 
       /**
        * Constructs a <code>Builder</code> with no aggregators, no properties,
-       * parallelism of 1, and not using multiset discrimination.
+       * parallelism of 1, not using multiset discrimination, and not using
+       * hash partitioning.
        */
       public Builder()
       {
@@ -592,6 +736,7 @@ public class Aggregation
          amIUsingMsd = false;
          myGroupingSets = null;
          amIUsingSuperAggregation = false;
+         amIUsingHashPartitioning = false;
       }
 
       /**
@@ -669,6 +814,31 @@ public class Aggregation
          return this;
       }
 
+      /**
+       * Sets whether parallel "group by" aggregation partitions the values by
+       * the hash of their "group by" properties instead of sorting them.  If
+       * used, each <code>Thread</code> aggregates its own range of the
+       * unsorted values into a hash table, and the partial results are then
+       * combined with the <code>merge</code> method of each
+       * <code>AggregateFunction</code>, one hash partition per
+       * <code>Thread</code>.  Only the groups themselves are sorted at the
+       * end.  Values are in the same group if their property values are
+       * <code>equal</code>.  This only has an effect when calling
+       * <code>groupBy</code> with "group by" properties and a parallelism of
+       * more than 1; it takes precedence over multiset discrimination.
+       * Analytic functions are unaffected and still sort their partitions.
+       * If not called, then the Builder defaults to <code>false</code>.
+       * @param useHashPartitioning Whether hash partitioning is to be used.
+       * @return This <code>Builder</code>.
+       * @since 0.9.1
+       * @see #setParallelism
+       */
+      public Builder setUseHashPartitioning(boolean useHashPartitioning)
+      {
+         amIUsingHashPartitioning = useHashPartitioning;
+         return this;
+      }
+
       /**
        * Sets the grouping sets to use.  Each list contains a list of integer
        * references, ranging from 0 to <em>n</em> - 1, if <em>n</em> is the
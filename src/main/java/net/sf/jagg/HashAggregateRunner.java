@@ -0,0 +1,227 @@
+package net.sf.jagg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * <p>Gets partial aggregate values for a sub-range of an <em>unsorted</em>
+ * <code>List</code> of Objects, grouping them in a hash table by the values
+ * of the "group by" properties.  The partial results are returned already
+ * split into as many hash partitions as there are runners, so that each
+ * partition can later be merged by its own <code>Thread</code> using the
+ * <code>merge</code> method of the <code>AggregateFunctions</code>.
+ * Running Time: <em>O(n * (a + p))</em>, where <em>n</em> is the number of
+ * items to process, <em>a</em> is the number of aggregators desired, and
+ * <em>p</em> is the number of properties.</p>
+ * <p>Objects are in the same group if their property values are
+ * <code>equal</code>, as opposed to comparing to 0 as in the sorting
+ * approach.</p>
+ *
+ * @author lendle
+ * @since 0.9.1
+ */
+class HashAggregateRunner<T> implements Callable<List<Map<HashAggregateRunner.Group<T>, HashAggregateRunner.Group<T>>>>
+{
+   private List<AggregateFunction> myAggregators;
+   private List<T> myValuesList;
+   private List<String> myProperties;
+   private int myStart;
+   private int myEnd;
+   private int myNumPartitions;
+
+   /**
+    * Construct a <code>HashAggregateRunner</code>.
+    *
+    * @param aggregators The <code>List</code> of archetype
+    *    <code>AggregateFunctions</code>; they are replicated for each group.
+    * @param valuesList The list of values to aggregate, in any order.
+    * @param properties The <code>List</code> of "group by" properties.
+    * @param start The start index.
+    * @param end The end index.
+    * @param numPartitions The number of hash partitions to return.
+    */
+   public HashAggregateRunner(List<AggregateFunction> aggregators, List<T> valuesList,
+      List<String> properties, int start, int end, int numPartitions)
+   {
+      myAggregators = aggregators;
+      myValuesList = valuesList;
+      myProperties = properties;
+      myStart = start;
+      myEnd = end;
+      myNumPartitions = numPartitions;
+   }
+
+   /**
+    * Runs through a section of the values list from start to end, finding
+    * the group of each value in a hash table and iterating the group's
+    * <code>AggregateFunctions</code> over it.
+    *
+    * @return One <code>Map</code> of groups per hash partition, each in the
+    *    order in which the groups were first seen.
+    */
+   public List<Map<Group<T>, Group<T>>> call()
+   {
+      List<Map<Group<T>, Group<T>>> partitions = new ArrayList<Map<Group<T>, Group<T>>>(myNumPartitions);
+      for (int p = 0; p < myNumPartitions; p++)
+         partitions.add(new LinkedHashMap<Group<T>, Group<T>>());
+      int numProperties = myProperties.size();
+      int aggSize = myAggregators.size();
+      // Reused to look up existing groups without creating objects.
+      Group<T> probe = new Group<T>(null, new Object[numProperties], null);
+
+      for (int i = myStart; i <= myEnd; i++)
+      {
+         T value = myValuesList.get(i);
+         for (int k = 0; k < numProperties; k++)
+            probe.myKey[k] = Aggregator.getValueFromProperty(value, myProperties.get(k));
+         probe.rehash();
+         Map<Group<T>, Group<T>> partition = partitions.get(probe.getPartition(myNumPartitions));
+         Group<T> group = partition.get(probe);
+         if (group == null)
+         {
+            group = new Group<T>(value, probe.myKey.clone(), newAggregators(myAggregators));
+            partition.put(group, group);
+         }
+         List<AggregateFunction> aggList = group.myAggregators;
+         for (int a = 0; a < aggSize; a++)
+            aggList.get(a).iterate(value);
+      }
+      return partitions;
+   }
+
+   /**
+    * Creates initialized copies of the given archetypes for a new group.
+    * They don't come from the cache of <code>Aggregators</code>, because
+    * there may be very many groups.
+    * @param archetypes The <code>AggregateFunctions</code> to copy.
+    * @return A <code>List</code> of initialized <code>AggregateFunctions</code>.
+    */
+   static List<AggregateFunction> newAggregators(List<AggregateFunction> archetypes)
+   {
+      int aggSize = archetypes.size();
+      List<AggregateFunction> aggList = new ArrayList<AggregateFunction>(aggSize);
+      for (int a = 0; a < aggSize; a++)
+      {
+         AggregateFunction agg = archetypes.get(a).replicate();
+         agg.init();
+         aggList.add(agg);
+      }
+      return aggList;
+   }
+
+   /**
+    * A <code>Group</code> is the partial aggregation state of all values
+    * with the same "group by" property values.  It is also its own key in
+    * the hash table.
+    */
+   static class Group<T>
+   {
+      private T myObject;
+      private Object[] myKey;
+      private int myHash;
+      private List<AggregateFunction> myAggregators;
+
+      /**
+       * Constructs a <code>Group</code>.
+       * @param object The first object found in the group.
+       * @param key The "group by" property values.
+       * @param aggregators The <code>AggregateFunctions</code> of the group.
+       */
+      Group(T object, Object[] key, List<AggregateFunction> aggregators)
+      {
+         myObject = object;
+         myKey = key;
+         myAggregators = aggregators;
+         rehash();
+      }
+
+      /**
+       * Returns the "group by" property values; a probe
+       * <code>Group</code> may change them and then call
+       * <code>rehash</code>.
+       * @return The "group by" property values.
+       */
+      Object[] getKey()
+      {
+         return myKey;
+      }
+
+      /**
+       * Recomputes the hash code after the key values changed.
+       */
+      void rehash()
+      {
+         myHash = Arrays.hashCode(myKey);
+      }
+
+      /**
+       * Returns the hash partition of this <code>Group</code>.
+       * @param numPartitions The number of hash partitions.
+       * @return A number from 0 to <code>numPartitions - 1</code>.
+       */
+      int getPartition(int numPartitions)
+      {
+         // Spread the bits; many hash codes only differ in their high bits.
+         int h = myHash ^ (myHash >>> 16);
+         return (h & Integer.MAX_VALUE) % numPartitions;
+      }
+
+      /**
+       * Returns the first object found in the group.
+       * @return The first object found in the group.
+       */
+      T getObject()
+      {
+         return myObject;
+      }
+
+      /**
+       * Returns the <code>AggregateFunctions</code> of the group.
+       * @return The <code>AggregateFunctions</code> of the group.
+       */
+      List<AggregateFunction> getAggregators()
+      {
+         return myAggregators;
+      }
+
+      /**
+       * Merges the state of another <code>Group</code> with the same key
+       * into this one.
+       * @param other Another <code>Group</code> with the same key.
+       */
+      void merge(Group<T> other)
+      {
+         int aggSize = myAggregators.size();
+         for (int a = 0; a < aggSize; a++)
+            myAggregators.get(a).merge(other.myAggregators.get(a));
+      }
+
+      /**
+       * Returns the hash code of the key values.
+       * @return The hash code of the key values.
+       */
+      @Override
+      public int hashCode()
+      {
+         return myHash;
+      }
+
+      /**
+       * Returns whether another <code>Group</code> has equal key values.
+       * @param obj Another object.
+       * @return Whether another <code>Group</code> has equal key values.
+       */
+      @Override
+      public boolean equals(Object obj)
+      {
+         if (this == obj) return true;
+         if (!(obj instanceof Group)) return false;
+         Group<?> other = (Group<?>) obj;
+         return myHash == other.myHash && Arrays.equals(myKey, other.myKey);
+      }
+   }
+}
@@ -0,0 +1,486 @@
+package net.sf.jagg;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.jagg.exception.JaggException;
+import net.sf.jagg.model.AggregateValue;
+import net.sf.jagg.util.AggregateValuePropertiesComparator;
+
+/**
+ * <p>A <code>StreamingAggregation</code> performs a "group by" aggregation
+ * over values that are supplied one at a time, e.g. from an
+ * <code>Iterator</code> over a file that is too large to be read into a
+ * <code>List</code>.  Only the state of the <code>AggregateFunctions</code>
+ * of each group is kept, not the values themselves.  Results for all values
+ * added so far can be retrieved at any time with
+ * <code>getPartialResults</code>; <code>finish</code> returns the final
+ * results and releases all resources.</p>
+ * <p>At most <code>maxGroups</code> groups are kept in memory.  Once that
+ * many groups exist, values that belong to any other group are written to
+ * one of several spill files, chosen by the hash of their "group by"
+ * property values, so that the spilled values must be
+ * <code>Serializable</code>.  Each spill file is aggregated on its own later,
+ * spilling again with a different hash if it still has too many groups.
+ * Values whose "group by" property values have equal hash codes always end
+ * up in the same spill file, so after <code>MAX_SPILL_DEPTH</code> levels a
+ * spill file is aggregated in memory regardless of <code>maxGroups</code>.
+ * Without a spill directory, exceeding <code>maxGroups</code> throws a
+ * <code>JaggException</code> instead.</p>
+ * <p>The results are sorted by the "group by" properties, as from
+ * <code>Aggregation.groupBy</code>.  Super-aggregation is not supported.
+ * Objects are in the same group if their property values are
+ * <code>equal</code>.  A <code>StreamingAggregation</code> is not thread
+ * safe.</p>
+ *
+ * @author lendle
+ * @since 0.9.1
+ */
+public class StreamingAggregation<T>
+{
+   // Write this many values before resetting an ObjectOutputStream, so it
+   // doesn't keep references to all of them.
+   private static final int RESET_INTERVAL = 1024;
+
+   /**
+    * How many times values are spilled at most.  The groups of a spill file
+    * at this depth are all kept in memory, since more spilling cannot split
+    * up groups whose keys have the same hash code.
+    */
+   public static final int MAX_SPILL_DEPTH = 8;
+
+   private List<AggregateFunction> myAggregators;
+   private List<String> myProperties;
+   private List<Integer> myGroupingSet;
+   private int myMaxGroups;
+   private File mySpillDirectory;
+   private int myNumSpillFiles;
+   private int myDepth;
+
+   private Map<HashAggregateRunner.Group<T>, HashAggregateRunner.Group<T>> myGroups;
+   private HashAggregateRunner.Group<T> myProbe;
+   private File[] mySpillFiles;
+   private ObjectOutputStream[] mySpillStreams;
+   private int[] mySpillCounts;
+   private boolean amIFinished;
+
+   /**
+    * Private constructor to ensure that the "Builder" pattern is used.
+    * @param builder A <code>Builder</code>.
+    */
+   private StreamingAggregation(Builder builder)
+   {
+      this(builder.myAggregators, builder.myProperties, builder.myMaxGroups,
+         builder.mySpillDirectory, builder.myNumSpillFiles, 0);
+   }
+
+   /**
+    * Constructs a <code>StreamingAggregation</code>, also used for
+    * aggregating a spill file.
+    * @param aggregators The archetype <code>AggregateFunctions</code>.
+    * @param properties The "group by" properties.
+    * @param maxGroups The maximum number of groups in memory.
+    * @param spillDirectory Where to create spill files, or <code>null</code>.
+    * @param numSpillFiles The number of spill files.
+    * @param depth 0, or how many times the values have been spilled.
+    */
+   private StreamingAggregation(List<AggregateFunction> aggregators, List<String> properties,
+      int maxGroups, File spillDirectory, int numSpillFiles, int depth)
+   {
+      myAggregators = aggregators;
+      myProperties = properties;
+      myMaxGroups = maxGroups;
+      mySpillDirectory = spillDirectory;
+      myNumSpillFiles = numSpillFiles;
+      myDepth = depth;
+      int numProperties = properties.size();
+      myGroupingSet = new ArrayList<Integer>(numProperties);
+      for (int i = 0; i < numProperties; i++)
+         myGroupingSet.add(i);
+      myGroups = new LinkedHashMap<HashAggregateRunner.Group<T>, HashAggregateRunner.Group<T>>();
+      myProbe = new HashAggregateRunner.Group<T>(null, new Object[numProperties], null);
+      amIFinished = false;
+   }
+
+   /**
+    * Aggregates one value.
+    * @param value The value.
+    * @throws JaggException If there are too many groups and no spill
+    *    directory, or if writing a spill file fails.
+    * @throws IllegalStateException If <code>finish</code> was already called.
+    */
+   public void add(T value)
+   {
+      if (amIFinished)
+         throw new IllegalStateException("StreamingAggregation is already finished.");
+      Object[] key = myProbe.getKey();
+      for (int k = 0; k < key.length; k++)
+         key[k] = Aggregator.getValueFromProperty(value, myProperties.get(k));
+      myProbe.rehash();
+      HashAggregateRunner.Group<T> group = myGroups.get(myProbe);
+      if (group == null)
+      {
+         if (myGroups.size() >= myMaxGroups && myDepth < MAX_SPILL_DEPTH)
+         {
+            spill(value);
+            return;
+         }
+         group = new HashAggregateRunner.Group<T>(value, key.clone(),
+            HashAggregateRunner.newAggregators(myAggregators));
+         myGroups.put(group, group);
+      }
+      List<AggregateFunction> aggList = group.getAggregators();
+      int aggSize = aggList.size();
+      for (int a = 0; a < aggSize; a++)
+         aggList.get(a).iterate(value);
+   }
+
+   /**
+    * Aggregates all remaining values of an <code>Iterator</code>.
+    * @param values An <code>Iterator</code> over the values.
+    */
+   public void addAll(Iterator<? extends T> values)
+   {
+      while (values.hasNext())
+         add(values.next());
+   }
+
+   /**
+    * Returns the number of groups currently held in memory.
+    * @return The number of groups currently held in memory.
+    */
+   public int getNumGroupsInMemory()
+   {
+      return myGroups.size();
+   }
+
+   /**
+    * Returns whether any values have been spilled to disk.
+    * @return Whether any values have been spilled to disk.
+    */
+   public boolean isSpilled()
+   {
+      return mySpillFiles != null;
+   }
+
+   /**
+    * Returns the aggregate values of all values added so far.  More values
+    * can be added afterwards.  If values were spilled, then the spill files
+    * are read (but kept), so this is about as expensive as
+    * <code>finish</code>.
+    * @return A <code>List</code> of <code>AggregateValues</code>, sorted by the
+    *    "group by" properties.
+    */
+   public List<AggregateValue<T>> getPartialResults()
+   {
+      if (amIFinished)
+         throw new IllegalStateException("StreamingAggregation is already finished.");
+      List<AggregateValue<T>> aggValues = getInMemoryValues();
+      if (mySpillFiles != null)
+      {
+         flushSpillStreams();
+         for (int i = 0; i < mySpillFiles.length; i++)
+         {
+            if (mySpillCounts[i] > 0)
+               aggValues.addAll(aggregateSpillFile(mySpillFiles[i]));
+         }
+      }
+      Collections.sort(aggValues, new AggregateValuePropertiesComparator<T>(myProperties));
+      return aggValues;
+   }
+
+   /**
+    * Returns the aggregate values of all values added, and deletes any spill
+    * files.  No more values can be added afterwards.
+    * @return A <code>List</code> of <code>AggregateValues</code>, sorted by the
+    *    "group by" properties.
+    */
+   public List<AggregateValue<T>> finish()
+   {
+      try
+      {
+         return getPartialResults();
+      }
+      finally
+      {
+         close();
+      }
+   }
+
+   /**
+    * Deletes any spill files without computing results.  No more values can
+    * be added afterwards.
+    */
+   public void close()
+   {
+      amIFinished = true;
+      myGroups.clear();
+      if (mySpillFiles == null)
+         return;
+      for (int i = 0; i < mySpillFiles.length; i++)
+      {
+         if (mySpillFiles[i] == null)
+            continue;
+         try
+         {
+            mySpillStreams[i].close();
+         }
+         catch (IOException ignored) {}
+         mySpillFiles[i].delete();
+      }
+      mySpillFiles = null;
+      mySpillStreams = null;
+   }
+
+   /**
+    * Creates <code>AggregateValues</code> from the groups in memory, without
+    * changing the state of their <code>AggregateFunctions</code>.
+    * @return A <code>List</code> of <code>AggregateValues</code>.
+    */
+   private List<AggregateValue<T>> getInMemoryValues()
+   {
+      List<AggregateValue<T>> aggValues = new ArrayList<AggregateValue<T>>(myGroups.size());
+      if (myGroups.isEmpty() && myProperties.isEmpty() && myDepth == 0)
+      {
+         // Like Aggregation.groupBy, no values and no properties still give
+         // one AggregateValue with all Aggregators' initial values.
+         AggregateValue<T> aggValue = new AggregateValue<T>((T) null);
+         for (AggregateFunction agg : HashAggregateRunner.newAggregators(myAggregators))
+            aggValue.setAggregateValue(agg, agg.terminate());
+         aggValues.add(aggValue);
+         return aggValues;
+      }
+      for (HashAggregateRunner.Group<T> group : myGroups.keySet())
+      {
+         AggregateValue<T> aggValue = new AggregateValue<T>(group.getObject());
+         for (AggregateFunction agg : group.getAggregators())
+            aggValue.setAggregateValue(agg, agg.terminate());
+         aggValue.assignPropsAndGroupingSet(myProperties, myGroupingSet);
+         aggValues.add(aggValue);
+      }
+      return aggValues;
+   }
+
+   /**
+    * Writes a value of a group that is not in memory to its spill file.
+    * @param value The value.
+    */
+   private void spill(T value)
+   {
+      if (mySpillDirectory == null)
+         throw new JaggException("More than " + myMaxGroups + " groups and no spill directory.");
+      try
+      {
+         if (mySpillFiles == null)
+         {
+            mySpillFiles = new File[myNumSpillFiles];
+            mySpillStreams = new ObjectOutputStream[myNumSpillFiles];
+            mySpillCounts = new int[myNumSpillFiles];
+         }
+         // A different hash on every level, so that an overfull spill file
+         // is split up when it is spilled again.
+         int h = (myProbe.hashCode() ^ (myDepth * 0x85EBCA6B)) * 0x9E3779B9;
+         int partition = ((h ^ (h >>> 16)) & Integer.MAX_VALUE) % myNumSpillFiles;
+         if (mySpillFiles[partition] == null)
+         {
+            mySpillFiles[partition] = File.createTempFile("jagg", ".spill", mySpillDirectory);
+            mySpillStreams[partition] = new ObjectOutputStream(
+               new BufferedOutputStream(new FileOutputStream(mySpillFiles[partition]), 1 << 16));
+         }
+         ObjectOutputStream out = mySpillStreams[partition];
+         out.writeObject(value);
+         if (++mySpillCounts[partition] % RESET_INTERVAL == 0)
+            out.reset();
+      }
+      catch (IOException e)
+      {
+         throw new JaggException("IOException caught while spilling values.", e);
+      }
+   }
+
+   /**
+    * Flushes all spill files so that they can be read.
+    */
+   private void flushSpillStreams()
+   {
+      try
+      {
+         for (ObjectOutputStream out : mySpillStreams)
+         {
+            if (out != null)
+               out.flush();
+         }
+      }
+      catch (IOException e)
+      {
+         throw new JaggException("IOException caught while spilling values.", e);
+      }
+   }
+
+   /**
+    * Aggregates the values of one spill file with a new
+    * <code>StreamingAggregation</code> that may spill again.
+    * @param spillFile The spill file.
+    * @return A <code>List</code> of <code>AggregateValues</code>.
+    */
+   @SuppressWarnings("unchecked")
+   private List<AggregateValue<T>> aggregateSpillFile(File spillFile)
+   {
+      StreamingAggregation<T> aggregation = new StreamingAggregation<T>(myAggregators, myProperties,
+         myMaxGroups, mySpillDirectory, myNumSpillFiles, myDepth + 1);
+      ObjectInputStream in = null;
+      try
+      {
+         in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(spillFile), 1 << 16));
+         while (true)
+         {
+            T value;
+            try
+            {
+               value = (T) in.readObject();
+            }
+            catch (EOFException e)
+            {
+               break;
+            }
+            aggregation.add(value);
+         }
+         return aggregation.finish();
+      }
+      catch (IOException e)
+      {
+         throw new JaggException("IOException caught while reading spilled values.", e);
+      }
+      catch (ClassNotFoundException e)
+      {
+         throw new JaggException("ClassNotFoundException caught while reading spilled values.", e);
+      }
+      finally
+      {
+         aggregation.close();
+         if (in != null)
+         {
+            try
+            {
+               in.close();
+            }
+            catch (IOException ignored) {}
+         }
+      }
+   }
+
+   /**
+    * This <code>Builder</code> class follows the "Builder" pattern to create
+    * a <code>StreamingAggregation</code> object.
+    */
+   public static class Builder
+   {
+      private List<AggregateFunction> myAggregators;
+      private List<String> myProperties;
+      private int myMaxGroups;
+      private File mySpillDirectory;
+      private int myNumSpillFiles;
+
+      /**
+       * Constructs a <code>Builder</code> with no aggregators, no properties,
+       * no limit on the number of groups, and 16 spill files.
+       */
+      public Builder()
+      {
+         myAggregators = null;
+         myProperties = Collections.emptyList();
+         myMaxGroups = Integer.MAX_VALUE;
+         mySpillDirectory = null;
+         myNumSpillFiles = 16;
+      }
+
+      /**
+       * Sets the <code>List</code> of <code>AggregateFunction</code> to use.
+       * @param aggregators A <code>List</code> of <code>AggregateFunctions</code>.
+       * @return This <code>Builder</code>.
+       */
+      public Builder setAggregators(List<AggregateFunction> aggregators)
+      {
+         myAggregators = aggregators;
+         return this;
+      }
+
+      /**
+       * Sets the <code>List</code> of properties to "group by".  If not
+       * called, then all values are aggregated into one group.
+       * @param properties The <code>List&lt;String&gt;</code> of properties.
+       * @return This <code>Builder</code>.
+       */
+      public Builder setProperties(List<String> properties)
+      {
+         myProperties = properties;
+         return this;
+      }
+
+      /**
+       * Sets the maximum number of groups held in memory.
+       * @param maxGroups The maximum number of groups, at least 1.
+       * @return This <code>Builder</code>.
+       */
+      public Builder setMaxGroups(int maxGroups)
+      {
+         if (maxGroups < 1)
+            throw new IllegalArgumentException("maxGroups must be at least 1: " + maxGroups);
+         myMaxGroups = maxGroups;
+         return this;
+      }
+
+      /**
+       * Sets the directory in which to create spill files when there are
+       * more groups than the maximum.  If not called, then no values are
+       * spilled.
+       * @param spillDirectory A directory, or <code>null</code>.
+       * @return This <code>Builder</code>.
+       */
+      public Builder setSpillDirectory(File spillDirectory)
+      {
+         mySpillDirectory = spillDirectory;
+         return this;
+      }
+
+      /**
+       * Sets the number of spill files values are distributed over.
+       * @param numSpillFiles The number of spill files, at least 2.
+       * @return This <code>Builder</code>.
+       */
+      public Builder setNumSpillFiles(int numSpillFiles)
+      {
+         if (numSpillFiles < 2)
+            throw new IllegalArgumentException("numSpillFiles must be at least 2: " + numSpillFiles);
+         myNumSpillFiles = numSpillFiles;
+         return this;
+      }
+
+      /**
+       * Build the <code>StreamingAggregation</code> object.
+       * @param <T> The type of values to aggregate.
+       * @return A <code>StreamingAggregation</code>.
+       * @throws IllegalArgumentException If at least one
+       *    <code>AggregateFunction</code> was not supplied.
+       */
+      public <T> StreamingAggregation<T> build()
+      {
+         if (myAggregators == null || myAggregators.isEmpty())
+            throw new IllegalArgumentException("StreamingAggregation.Builder: Must supply at least one AggregateFunction.");
+         return new StreamingAggregation<T>(this);
+      }
+   }
+}
@@ -1,7 +1,11 @@
 package net.sf.jagg.model;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 
 import net.sf.jagg.model.ChainedMethodCall;
 
@@ -13,23 +17,94 @@ import net.sf.jagg.model.ChainedMethodCall;
  * pulled out and made public.  It was made to extend
  * <code>ChainedMethodCall</code> for version 0.8.0.
  *
+ * <p>The <code>Method</code> is compiled to a <code>MethodHandle</code> with
+ * the parameters already bound, so that an invocation costs about as much as
+ * a direct call instead of going through <code>Method.invoke</code> with its
+ * argument array and access checks.  If no <code>MethodHandle</code> can be
+ * obtained, e.g. the declaring class is not public, then the
+ * <code>Method</code> is invoked reflectively as before.</p>
+ *
  * @author Randy Gettman
  * @since 0.5.0
  */
 public class MethodCall extends ChainedMethodCall
 {
+   private static final MethodType GENERIC_TYPE =
+      MethodType.methodType(Object.class, Object.class);
+
    private Method myMethod;
    private Object[] myParameters;
+   private MethodHandle myHandle;
 
    /**
-    * Constructs a <code>MethodCall</code>.
+    * Constructs a <code>MethodCall</code> that is invoked through a
+    * <code>MethodHandle</code> if possible.
     * @param method The <code>Method</code>.
     * @param parameters The array of parameter values.
     */
    public MethodCall(Method method, Object[] parameters)
+   {
+      this(method, parameters, true);
+   }
+
+   /**
+    * Constructs a <code>MethodCall</code>.
+    * @param method The <code>Method</code>.
+    * @param parameters The array of parameter values.
+    * @param useMethodHandle Whether to invoke the <code>Method</code> through
+    *    a <code>MethodHandle</code> instead of reflectively.
+    * @since 0.9.1
+    */
+   public MethodCall(Method method, Object[] parameters, boolean useMethodHandle)
    {
       myMethod = method;
       myParameters = parameters;
+      if (useMethodHandle)
+         myHandle = createHandle(method, parameters);
+   }
+
+   /**
+    * Creates a <code>MethodHandle</code> of type <code>(Object)Object</code>
+    * that calls the given <code>Method</code> with the given parameters.
+    * @param method The <code>Method</code>.
+    * @param parameters The array of parameter values.
+    * @return The <code>MethodHandle</code>, or <code>null</code> if the
+    *    <code>Method</code> is not accessible through a public lookup.
+    */
+   private static MethodHandle createHandle(Method method, Object[] parameters)
+   {
+      try
+      {
+         MethodHandle handle = MethodHandles.publicLookup().unreflect(method);
+         boolean isStatic = Modifier.isStatic(method.getModifiers());
+         if (parameters != null && parameters.length > 0)
+            handle = MethodHandles.insertArguments(handle, isStatic ? 0 : 1, parameters);
+         // Like Method.invoke, a static method ignores the object.
+         if (isStatic)
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+         return handle.asType(GENERIC_TYPE);
+      }
+      catch (IllegalAccessException e)
+      {
+         return null;
+      }
+      catch (RuntimeException e)
+      {
+         // Parameters that can't be bound to the parameter types; let
+         // Method.invoke report the problem at invocation time.
+         return null;
+      }
+   }
+
+   /**
+    * Returns whether this <code>MethodCall</code> is invoked through a
+    * <code>MethodHandle</code>.
+    * @return Whether a <code>MethodHandle</code> is used.
+    * @since 0.9.1
+    */
+   public boolean isUsingMethodHandle()
+   {
+      return myHandle != null;
    }
 
    /**
@@ -54,6 +129,18 @@ public class MethodCall extends ChainedMethodCall
     */
    protected Object invokeMethod(Object object) throws IllegalAccessException, InvocationTargetException
    {
-      return myMethod.invoke(object, myParameters);
+      if (myHandle == null)
+         return myMethod.invoke(object, myParameters);
+      if (object == null && !Modifier.isStatic(myMethod.getModifiers()))
+         throw new NullPointerException();
+      try
+      {
+         return (Object) myHandle.invokeExact(object);
+      }
+      catch (Throwable t)
+      {
+         // Same as Method.invoke: anything thrown by the method is wrapped.
+         throw new InvocationTargetException(t);
+      }
    }
 }
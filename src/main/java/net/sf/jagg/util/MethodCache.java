@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.sf.jagg.exception.PropertyAccessException;
 import net.sf.jagg.model.ChainedMethodCall;
@@ -19,6 +20,12 @@ import net.sf.jagg.util.PropertyParser;
  * for argument types are found.  Property names, e.g. "property", are mapped
  * to "getProperty()" or "isProperty()" methods if found.
  *
+ * <p>Lookups of already cached <code>MethodCalls</code> take no lock and
+ * create no objects, because they happen once per aggregated value.  The
+ * <code>MethodCalls</code> invoke their <code>Methods</code> through
+ * <code>MethodHandles</code> unless that is turned off with
+ * {@link #setUseMethodHandles(boolean)}.</p>
+ *
  * @author Randy Gettman
  * @since 0.1.0
  */
@@ -28,21 +35,22 @@ public class MethodCache
 
    private static MethodCache theMethodCache = null;
 
-   private final Map<MethodDescriptor, ChainedMethodCall> myMethods;
+   private final Map<Class<?>, Map<String, ChainedMethodCall>> myMethods;
+   private volatile boolean amIUsingMethodHandles = true;
 
    /**
     * Private constructor for the singleton pattern.
     */
    private MethodCache()
    {
-      myMethods = new HashMap<MethodDescriptor, ChainedMethodCall>();
+      myMethods = new ConcurrentHashMap<Class<?>, Map<String, ChainedMethodCall>>();
    }
 
    /**
     * Returns the singleton <code>MethodCache</code>.
     * @return The singleton <code>MethodCache</code>.
     */
-   public static MethodCache getMethodCache()
+   public static synchronized MethodCache getMethodCache()
    {
       if (theMethodCache == null)
       {
@@ -57,7 +65,37 @@ public class MethodCache
     */
    public void clear()
    {
-      myMethods.clear();
+      synchronized (myMethods)
+      {
+         myMethods.clear();
+      }
+   }
+
+   /**
+    * Sets whether newly found <code>MethodCalls</code> invoke their
+    * <code>Methods</code> through <code>MethodHandles</code> (the default) or
+    * reflectively.  Clears the <code>MethodCache</code>.
+    * @param useMethodHandles Whether to use <code>MethodHandles</code>.
+    * @since 0.9.1
+    */
+   public void setUseMethodHandles(boolean useMethodHandles)
+   {
+      synchronized (myMethods)
+      {
+         amIUsingMethodHandles = useMethodHandles;
+         myMethods.clear();
+      }
+   }
+
+   /**
+    * Returns whether newly found <code>MethodCalls</code> invoke their
+    * <code>Methods</code> through <code>MethodHandles</code>.
+    * @return Whether <code>MethodHandles</code> are used.
+    * @since 0.9.1
+    */
+   public boolean isUsingMethodHandles()
+   {
+      return amIUsingMethodHandles;
    }
 
    /**
@@ -97,14 +135,26 @@ public class MethodCache
    public ChainedMethodCall getMethodCallFromProperty(Object value, String property)
       throws PropertyAccessException
    {
-      ChainedMethodCall methodCall;
-      MethodDescriptor lookup = new MethodDescriptor(value.getClass(), property);
+      Class<?> valueClass = value.getClass();
+      Map<String, ChainedMethodCall> classMethods = myMethods.get(valueClass);
+      ChainedMethodCall methodCall = (classMethods != null) ? classMethods.get(property) : null;
+      if (methodCall != null)
+         return methodCall;
+
       Object[] parameterArray;
-      // Synchronize access to the cache so multiple Threads don't "find"
-      // the same Method.
+      boolean useMethodHandles;
+      // Synchronize creation so multiple Threads don't "find" the same
+      // Method.
       synchronized (myMethods)
       {
-         methodCall = myMethods.get(lookup);
+         useMethodHandles = amIUsingMethodHandles;
+         classMethods = myMethods.get(valueClass);
+         if (classMethods == null)
+         {
+            classMethods = new ConcurrentHashMap<String, ChainedMethodCall>();
+            myMethods.put(valueClass, classMethods);
+         }
+         methodCall = classMethods.get(property);
          // If not in cache...
          if (methodCall == null)
          {
@@ -158,7 +208,7 @@ public class MethodCache
                         assignParameters(method.getParameterTypes(), parameterArray);
                         if (DEBUG)
                            System.err.println("  Method found: " + method);
-                        currMethodCall = new MethodCall(method, parameterArray);
+                        currMethodCall = new MethodCall(method, parameterArray, useMethodHandles);
                      }
                      else
                      {
@@ -227,7 +277,7 @@ public class MethodCache
 
                      if (DEBUG)
                         System.err.println("  Property Method found: " + method);
-                     currMethodCall = new MethodCall(method, parameterArray);
+                     currMethodCall = new MethodCall(method, parameterArray, useMethodHandles);
                   }
 
                   if (methodCall == null)
@@ -246,7 +296,7 @@ public class MethodCache
                while (!parser.isFinished());
 
             }
-            myMethods.put(lookup, methodCall);
+            classMethods.put(property, methodCall);
          }
       }
       return methodCall;
@@ -452,56 +502,4 @@ public class MethodCache
 
       return false;
    }
-
-   /**
-    * A <code>MethodDescriptor</code> contains all information necessary to
-    * describe a method call on a class.
-    * @since 0.8.0
-    */
-   private static class MethodDescriptor
-   {
-      private Class<?> myClass;
-      private String myProperty;
-
-      /**
-       * Constructs a <code>MethodDescriptor</code>.
-       * @param clazz The <code>Class</code> of the class on which the method
-       *    will be called.
-       * @param property The property or method name plus signature of the
-       *    method.
-       */
-      public MethodDescriptor(Class<?> clazz, String property)
-      {
-         if (clazz == null || property == null)
-            throw new IllegalArgumentException("Class or property being null not allowed!");
-         myClass = clazz;
-         myProperty = property;
-      }
-
-      /**
-       * Returns a hash code.
-       * @return A hash code.
-       */
-      @Override
-      public int hashCode()
-      {
-         return 31 * myClass.hashCode() + myProperty.hashCode();
-      }
-
-      /**
-       * Returns whether another <code>MethodDescriptor</code> is equal to this
-       * one.
-       * @param obj Another object.
-       * @return Whether another <code>MethodDescriptor</code> is equal to this
-       *    one.
-       */
-      @Override
-      public boolean equals(Object obj)
-      {
-         if (obj == null) return false;
-         if (!(obj instanceof MethodDescriptor)) return false;
-         MethodDescriptor md = (MethodDescriptor) obj;
-         return myClass == md.myClass && myProperty.equals(md.myProperty);
-      }
-   }
 }
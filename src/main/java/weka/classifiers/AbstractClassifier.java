@@ -472,10 +472,12 @@ public abstract class AbstractClassifier implements Classifier, BatchPredictor,
   }
 
   /**
-   * Batch prediction method. This default implementation simply calls
-   * distributionForInstance() for each instance in the batch. If subclasses can
-   * produce batch predictions in a more efficient manner than this they should
-   * override this method and also return true from
+   * Batch prediction method. This default implementation splits the batch
+   * into blocks of the preferred batch size (see getBatchSize()) and calls
+   * distributionsForBlock() for each of them, which in turn calls
+   * distributionForInstance() for each instance. If subclasses can produce
+   * batch predictions in a more efficient manner than this they should
+   * override this method or distributionsForBlock() and also return true from
    * implementsMoreEfficientBatchPrediction()
    * 
    * @param batch the instances to get predictions for
@@ -487,13 +489,42 @@ public abstract class AbstractClassifier implements Classifier, BatchPredictor,
   public double[][] distributionsForInstances(Instances batch)
     throws Exception {
     double[][] batchPreds = new double[batch.numInstances()][];
-    for (int i = 0; i < batch.numInstances(); i++) {
-      batchPreds[i] = distributionForInstance(batch.instance(i));
+    int blockSize = batch.numInstances();
+    try {
+      if (Integer.parseInt(getBatchSize()) > 0) {
+        blockSize = Integer.parseInt(getBatchSize());
+      }
+    } catch (NumberFormatException e) {
+      // score the batch as a whole
+    }
+    for (int first = 0; first < batch.numInstances(); first += blockSize) {
+      distributionsForBlock(batch, first,
+        Math.min(blockSize, batch.numInstances() - first), batchPreds);
     }
 
     return batchPreds;
   }
 
+  /**
+   * Computes the predictions for a block of instances of a batch. The block
+   * is at most as large as the preferred batch size, so that the data a
+   * classifier extracts from it stays small. This default implementation
+   * simply calls distributionForInstance() for each instance in the block.
+   * 
+   * @param batch the instances to get predictions for
+   * @param first the index of the first instance of the block
+   * @param num the number of instances in the block
+   * @param batchPreds the array to store the probability distributions in, at
+   *          the index of each instance in the batch
+   * @throws Exception if a problem occurs.
+   */
+  protected void distributionsForBlock(Instances batch, int first, int num,
+    double[][] batchPreds) throws Exception {
+    for (int i = first; i < first + num; i++) {
+      batchPreds[i] = distributionForInstance(batch.instance(i));
+    }
+  }
+
   /**
    * Returns the Capabilities of this classifier. Maximally permissive
    * capabilities are allowed by default. Derived classifiers should override
@@ -300,6 +300,28 @@ public class Evaluation implements Serializable, Summarizable, RevisionHandler {
     return m_delegate.getDiscardPredictions();
   }
 
+  /**
+   * Sets the number of execution slots (threads) to use for building the models
+   * of the folds of a cross-validation. 0 uses as many threads as there are
+   * processors. The folds are still evaluated in order, so the result does not
+   * depend on the number of threads.
+   *
+   * @param numSlots the number of slots to use
+   */
+  public void setNumExecutionSlots(int numSlots) {
+    m_delegate.setNumExecutionSlots(numSlots);
+  }
+
+  /**
+   * Returns the number of execution slots (threads) to use for building the
+   * models of the folds of a cross-validation.
+   *
+   * @return the number of slots to use
+   */
+  public int getNumExecutionSlots() {
+    return m_delegate.getNumExecutionSlots();
+  }
+
   /**
    * Returns the area under ROC for those predictions that have been collected
    * in the evaluateClassifier(Classifier, Instances) method. Returns
@@ -34,9 +34,11 @@ import weka.classifiers.evaluation.output.prediction.PlainText;
 import weka.classifiers.pmml.consumer.PMMLClassifier;
 import weka.classifiers.xml.XMLClassifier;
 import weka.core.BatchPredictor;
+import weka.core.CopyOnWriteInstancesView;
 import weka.core.Drawable;
 import weka.core.Instance;
 import weka.core.Instances;
+import weka.core.InstancesView;
 import weka.core.Option;
 import weka.core.OptionHandler;
 import weka.core.RevisionHandler;
@@ -76,6 +78,11 @@ import java.util.Date;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
@@ -381,6 +388,9 @@ public class Evaluation implements Summarizable, RevisionHandler, Serializable {
   /** whether to discard predictions (and save memory). */
   protected boolean m_DiscardPredictions;
 
+  /** the number of threads used to build the models of a cross-validation. */
+  protected int m_NumExecutionSlots = 1;
+
   /** Holds plugin evaluation metrics */
   protected List<AbstractEvaluationMetric> m_pluginMetrics;
 
@@ -539,6 +549,30 @@ public class Evaluation implements Summarizable, RevisionHandler, Serializable {
     return m_DiscardPredictions;
   }
 
+  /**
+   * Sets the number of execution slots (threads) to use for building the models
+   * of the folds of a cross-validation. 0 uses as many threads as there are
+   * processors. The folds are still evaluated one after the other, in order,
+   * so the result does not depend on the number of threads. Every fold gets
+   * its own copy-on-write view of the instances.
+   * 
+   * @param numSlots the number of slots to use
+   * @see #crossValidateModel(Classifier, Instances, int, Random, Object...)
+   */
+  public void setNumExecutionSlots(int numSlots) {
+    m_NumExecutionSlots = numSlots;
+  }
+
+  /**
+   * Returns the number of execution slots (threads) to use for building the
+   * models of the folds of a cross-validation.
+   * 
+   * @return the number of slots to use
+   */
+  public int getNumExecutionSlots() {
+    return m_NumExecutionSlots;
+  }
+
   /**
    * Returns the list of plugin metrics in use (or null if there are none)
    * 
@@ -746,8 +780,10 @@ public class Evaluation implements Summarizable, RevisionHandler, Serializable {
     int numFolds, Random random, Object... forPredictionsPrinting)
     throws Exception {
 
-    // Make a copy of the data we can reorder
-    data = new Instances(data);
+    // Make a view of the data we can reorder; the folds handed to the
+    // classifier copy an instance only when it is changed, so the classifier
+    // cannot change the caller's data
+    data = new InstancesView(data, 0, data.numInstances());
     data.randomize(random);
     if (data.classAttribute().isNominal()) {
       data.stratify(numFolds);
@@ -764,13 +800,18 @@ public class Evaluation implements Summarizable, RevisionHandler, Serializable {
     }
 
     // Do the folds
-    for (int i = 0; i < numFolds; i++) {
-      Instances train = data.trainCV(numFolds, i, random);
-      setPriors(train);
-      Classifier copiedClassifier = AbstractClassifier.makeCopy(classifier);
-      copiedClassifier.buildClassifier(train);
-      Instances test = data.testCV(numFolds, i);
-      evaluateModel(copiedClassifier, test, forPredictionsPrinting);
+    if ((m_NumExecutionSlots != 1) && (numFolds > 1)) {
+      crossValidateFoldsInParallel(classifier, data, numFolds, random,
+        forPredictionsPrinting);
+    } else {
+      for (int i = 0; i < numFolds; i++) {
+        Instances train = data.trainCVView(numFolds, i, random);
+        setPriors(train);
+        Classifier copiedClassifier = AbstractClassifier.makeCopy(classifier);
+        copiedClassifier.buildClassifier(train);
+        Instances test = data.testCVView(numFolds, i);
+        evaluateModel(copiedClassifier, test, forPredictionsPrinting);
+      }
     }
     m_NumFolds = numFolds;
 
@@ -779,6 +820,79 @@ public class Evaluation implements Summarizable, RevisionHandler, Serializable {
     }
   }
 
+  /**
+   * Builds the models of the folds of a cross-validation concurrently, using
+   * the configured number of execution slots, and evaluates them in fold order
+   * on the calling thread. The training sets are drawn in fold order before
+   * any model is built, so that the random number generator is used exactly
+   * as in the sequential case and the statistics are identical.
+   * 
+   * @param classifier the classifier with any options set.
+   * @param data the randomized (and stratified) data
+   * @param numFolds the number of folds
+   * @param random the random number generator used to draw the training sets
+   * @param forPredictionsPrinting varargs parameter that, if supplied, is
+   *          expected to hold a
+   *          weka.classifiers.evaluation.output.prediction.AbstractOutput
+   *          object
+   * @throws Exception if a classifier could not be generated successfully
+   */
+  protected void crossValidateFoldsInParallel(Classifier classifier,
+    Instances data, int numFolds, Random random,
+    Object... forPredictionsPrinting) throws Exception {
+
+    int numThreads =
+      (m_NumExecutionSlots == 0) ? Runtime.getRuntime().availableProcessors()
+        : m_NumExecutionSlots;
+    if (numThreads < 1) {
+      throw new Exception("Number of execution slots needs to be >= 0!");
+    }
+
+    Instances[] train = new Instances[numFolds];
+    for (int i = 0; i < numFolds; i++) {
+      train[i] = data.trainCVView(numFolds, i, random);
+    }
+
+    ExecutorService executorPool =
+      Executors.newFixedThreadPool(Math.min(numThreads, numFolds));
+    try {
+      List<Future<Classifier>> models = new ArrayList<Future<Classifier>>();
+      for (int i = 0; i < numFolds; i++) {
+        final Classifier copiedClassifier =
+          AbstractClassifier.makeCopy(classifier);
+        // the fold is needed unchanged for the priors later on
+        final Instances fold =
+          new CopyOnWriteInstancesView(train[i], 0, train[i].numInstances());
+        models.add(executorPool.submit(new Callable<Classifier>() {
+          @Override
+          public Classifier call() throws Exception {
+            copiedClassifier.buildClassifier(fold);
+            return copiedClassifier;
+          }
+        }));
+      }
+
+      for (int i = 0; i < numFolds; i++) {
+        Classifier copiedClassifier;
+        try {
+          copiedClassifier = models.get(i).get();
+        } catch (ExecutionException ex) {
+          if (ex.getCause() instanceof Exception) {
+            throw (Exception) ex.getCause();
+          }
+          throw ex;
+        }
+        models.set(i, null);
+        setPriors(train[i]);
+        train[i] = null;
+        Instances test = data.testCVView(numFolds, i);
+        evaluateModel(copiedClassifier, test, forPredictionsPrinting);
+      }
+    } finally {
+      executorPool.shutdownNow();
+    }
+  }
+
   /**
    * Performs a (stratified if class is nominal) cross-validation for a
    * classifier on a set of instances.
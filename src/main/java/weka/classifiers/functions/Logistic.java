@@ -31,6 +31,7 @@ import weka.core.Aggregateable;
 import weka.core.Capabilities;
 import weka.core.Capabilities.Capability;
 import weka.core.ConjugateGradientOptimization;
+import weka.core.DenseBlock;
 import weka.core.Instance;
 import weka.core.Instances;
 import weka.core.Optimization;
@@ -884,6 +885,64 @@ public class Logistic extends AbstractClassifier implements OptionHandler,
     return distribution;
   }
 
+  /**
+   * Returns true, as batches are scored with a matrix product.
+   * 
+   * @return true
+   */
+  @Override
+  public boolean implementsMoreEfficientBatchPrediction() {
+    return true;
+  }
+
+  /**
+   * Computes the distributions for a block of instances: the instances are
+   * filtered and their predictor columns extracted into one array, which is
+   * multiplied with the parameters in a tight loop.
+   * 
+   * @param batch the instances to get predictions for
+   * @param first the index of the first instance of the block
+   * @param num the number of instances in the block
+   * @param batchPreds the array to store the distributions in
+   * @throws Exception if the distributions can't be computed successfully
+   */
+  @Override
+  protected void distributionsForBlock(Instances batch, int first, int num,
+    double[][] batchPreds) throws Exception {
+
+    // Extract the predictor columns of the filtered instances, with a column
+    // of ones for the intercept
+    DenseBlock block = new DenseBlock(num, m_NumPredictors + 1);
+    for (int i = 0; i < num; i++) {
+      m_ReplaceMissingValues.input(batch.instance(first + i));
+      Instance instance = m_ReplaceMissingValues.output();
+      m_AttFilter.input(instance);
+      instance = m_AttFilter.output();
+      m_NominalToBinary.input(instance);
+      instance = m_NominalToBinary.output();
+
+      block.set(i, 0, 1);
+      int j = 1;
+      for (int k = 0; k <= m_NumPredictors; k++) {
+        if (k != m_ClassIndex) {
+          block.set(i, j++, instance.value(k));
+        }
+      }
+    }
+
+    // Log-posteriors before normalizing, the last class is the reference
+    double[][] weights = new double[m_NumClasses - 1][m_NumPredictors + 1];
+    for (int j = 0; j < m_NumClasses - 1; j++) {
+      for (int k = 0; k <= m_NumPredictors; k++) {
+        weights[j][k] = m_Par[k][j];
+      }
+    }
+    double[][] v = block.multiply(weights, m_NumClasses);
+    for (int i = 0; i < num; i++) {
+      batchPreds[first + i] = normalizeProbability(v[i]);
+    }
+  }
+
   /**
    * Compute the posterior distribution using optimized parameter values and the
    * testing instance.
@@ -892,7 +951,7 @@ public class Logistic extends AbstractClassifier implements OptionHandler,
    * @return the posterior probability distribution
    */
   private double[] evaluateProbability(double[] data) {
-    double[] prob = new double[m_NumClasses], v = new double[m_NumClasses];
+    double[] v = new double[m_NumClasses];
 
     // Log-posterior before normalizing
     for (int j = 0; j < m_NumClasses - 1; j++) {
@@ -902,6 +961,18 @@ public class Logistic extends AbstractClassifier implements OptionHandler,
     }
     v[m_NumClasses - 1] = 0;
 
+    return normalizeProbability(v);
+  }
+
+  /**
+   * Computes the posterior distribution from the log-posteriors.
+   * 
+   * @param v the log-posteriors, 0 for the last class
+   * @return the posterior probability distribution
+   */
+  private double[] normalizeProbability(double[] v) {
+    double[] prob = new double[m_NumClasses];
+
     // Do so to avoid scaling problems
     for (int m = 0; m < m_NumClasses; m++) {
       double sum = 0;
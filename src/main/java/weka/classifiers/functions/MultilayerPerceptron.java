@@ -33,8 +33,11 @@ import java.awt.event.MouseEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Random;
 import java.util.StringTokenizer;
 import java.util.Vector;
@@ -2149,6 +2152,170 @@ public class MultilayerPerceptron extends AbstractClassifier implements
     return theArray;
   }
 
+  /**
+   * Returns true, as batches are scored with the whole block of instances
+   * going through the network one unit at a time.
+   * 
+   * @return true
+   */
+  @Override
+  public boolean implementsMoreEfficientBatchPrediction() {
+    return true;
+  }
+
+  /**
+   * Calculates the class distributions for a block of instances. The
+   * filtered and normalized instances are extracted into one array, and the
+   * value of each unit is computed for all of them in a tight loop, with the
+   * inputs added up in the same order as for a single instance. Networks
+   * with units other than sigmoid and linear units are evaluated one
+   * instance at a time.
+   * 
+   * @param batch the instances to be classified
+   * @param first the index of the first instance of the block
+   * @param num the number of instances in the block
+   * @param batchPreds the array to store the distributions in
+   * @throws Exception if the distributions can't be computed successfully
+   */
+  @Override
+  protected void distributionsForBlock(Instances batch, int first, int num,
+    double[][] batchPreds) throws Exception {
+
+    boolean standardUnits = true;
+    for (NeuralConnection unit : m_neuralNodes) {
+      if (!(unit instanceof NeuralNode)
+        || ((((NeuralNode) unit).getMethod().getClass() != SigmoidUnit.class)
+        && (((NeuralNode) unit).getMethod().getClass() != LinearUnit.class))) {
+        standardUnits = false;
+      }
+    }
+    if (m_useDefaultModel || !standardUnits) {
+      super.distributionsForBlock(batch, first, num, batchPreds);
+      return;
+    }
+
+    DenseBlock block = new DenseBlock(num, m_instances.numAttributes());
+    for (int i = 0; i < num; i++) {
+      Instance inst = batch.instance(first + i);
+      if (m_useNomToBin) {
+        m_nominalToBinaryFilter.input(inst);
+        inst = m_nominalToBinaryFilter.output();
+      }
+      for (int noa = 0; noa < m_instances.numAttributes(); noa++) {
+        double value = inst.value(noa);
+        if (m_normalizeAttributes && (noa != m_instances.classIndex())) {
+          if (m_attributeRanges[noa] != 0) {
+            value = (value - m_attributeBases[noa]) / m_attributeRanges[noa];
+          } else {
+            value = value - m_attributeBases[noa];
+          }
+        }
+        block.set(i, noa, value);
+      }
+    }
+
+    Map<NeuralConnection, double[]> values =
+      new IdentityHashMap<NeuralConnection, double[]>();
+    double[][] outputs = new double[m_numClasses][];
+    for (int noa = 0; noa < m_numClasses; noa++) {
+      outputs[noa] = unitValues(m_outputs[noa], block, values);
+    }
+    for (int i = 0; i < num; i++) {
+      double[] theArray = new double[m_numClasses];
+      for (int noa = 0; noa < m_numClasses; noa++) {
+        theArray[noa] = outputs[noa][i];
+      }
+      batchPreds[first + i] = theArray;
+      if (m_instances.classAttribute().isNumeric()) {
+        continue;
+      }
+
+      // now normalize the array
+      double count = 0;
+      for (int noa = 0; noa < m_numClasses; noa++) {
+        count += theArray[noa];
+      }
+      if (count <= 0) {
+        batchPreds[first + i] =
+          m_ZeroR.distributionForInstance(batch.instance(first + i));
+        continue;
+      }
+      for (int noa = 0; noa < m_numClasses; noa++) {
+        theArray[noa] /= count;
+      }
+    }
+  }
+
+  /**
+   * Computes the output values of a unit for a block of instances, and the
+   * ones of the units it depends on.
+   * 
+   * @param unit the unit, a NeuralEnd or a NeuralNode with a sigmoid or
+   *          linear unit
+   * @param block the normalized values of the instances
+   * @param values the values of the units computed so far
+   * @return the values of the unit for all instances
+   */
+  protected double[] unitValues(NeuralConnection unit, DenseBlock block,
+    Map<NeuralConnection, double[]> values) {
+
+    double[] result = values.get(unit);
+    if (result != null) {
+      return result;
+    }
+    result = new double[block.numRows()];
+    NeuralConnection[] inputs = unit.getInputs();
+
+    if (unit instanceof NeuralEnd) {
+      NeuralEnd end = (NeuralEnd) unit;
+      if (end.m_input) {
+        for (int i = 0; i < result.length; i++) {
+          double value = block.get(i, end.m_link);
+          result[i] = Utils.isMissingValue(value) ? 0 : value;
+        }
+      } else {
+        // node is an output.
+        for (int noa = 0; noa < unit.getNumInputs(); noa++) {
+          double[] input = unitValues(inputs[noa], block, values);
+          for (int i = 0; i < result.length; i++) {
+            result[i] += input[i];
+          }
+        }
+        if (m_numeric && m_normalizeClass) {
+          // then scale the value;
+          for (int i = 0; i < result.length; i++) {
+            result[i] = result[i] * m_attributeRanges[m_instances.classIndex()]
+              + m_attributeBases[m_instances.classIndex()];
+          }
+        }
+      }
+    } else {
+      NeuralNode node = (NeuralNode) unit;
+      double[] weights = node.getWeights();
+      Arrays.fill(result, weights[0]);
+      for (int noa = 0; noa < node.getNumInputs(); noa++) {
+        double[] input = unitValues(inputs[noa], block, values);
+        double weight = weights[noa + 1];
+        for (int i = 0; i < result.length; i++) {
+          result[i] += input[i] * weight;
+        }
+      }
+      if (node.getMethod() instanceof SigmoidUnit) {
+        for (int i = 0; i < result.length; i++) {
+          if (result[i] < -45) {
+            result[i] = 0;
+          } else if (result[i] > 45) {
+            result[i] = 1;
+          } else {
+            result[i] = 1 / (1 + Math.exp(-result[i]));
+          }
+        }
+      }
+    }
+    values.put(unit, result);
+    return result;
+  }
+
   /**
    * Returns an enumeration describing the available options.
    * 
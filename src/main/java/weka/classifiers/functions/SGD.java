@@ -32,6 +32,7 @@ import weka.classifiers.UpdateableClassifier;
 import weka.core.Capabilities;
 import weka.core.Capabilities.Capability;
 import weka.core.Aggregateable;
+import weka.core.DenseBlock;
 import weka.core.Instance;
 import weka.core.Instances;
 import weka.core.Option;
@@ -843,8 +844,6 @@ public class SGD extends RandomizableClassifier implements
    */
   @Override
   public double[] distributionForInstance(Instance inst) throws Exception {
-    double[] result = (inst.classAttribute().isNominal()) ? new double[2]
-        : new double[1];
 
     if (m_replaceMissing != null) {
       m_replaceMissing.input(inst);
@@ -864,7 +863,88 @@ public class SGD extends RandomizableClassifier implements
     double wx = dotProd(inst, m_weights, inst.classIndex());// * m_wScale;
     double z = (wx + m_weights[m_weights.length - 1]);
 
-    if (inst.classAttribute().isNumeric()) {
+    return distributionForOutput(z, inst.classAttribute().isNominal());
+  }
+
+  /**
+   * Returns true, as batches are scored with a matrix product.
+   * 
+   * @return true
+   */
+  @Override
+  public boolean implementsMoreEfficientBatchPrediction() {
+    return true;
+  }
+
+  /**
+   * Computes the distributions for a block of instances: the instances are
+   * filtered and their values extracted into one array, which is multiplied
+   * with the weights in a tight loop.
+   * 
+   * @param batch the instances to be classified
+   * @param first the index of the first instance of the block
+   * @param num the number of instances in the block
+   * @param batchPreds the array to store the distributions in
+   * @throws Exception if the distributions can't be computed successfully
+   */
+  @Override
+  protected void distributionsForBlock(Instances batch, int first, int num,
+    double[][] batchPreds) throws Exception {
+
+    // the weights apply to the attributes before the bias
+    DenseBlock block = new DenseBlock(num, m_weights.length - 1);
+    int classIndex = -1;
+    for (int i = 0; i < num; i++) {
+      Instance inst = batch.instance(first + i);
+      if (m_replaceMissing != null) {
+        m_replaceMissing.input(inst);
+        inst = m_replaceMissing.output();
+      }
+
+      if (m_nominalToBinary != null) {
+        m_nominalToBinary.input(inst);
+        inst = m_nominalToBinary.output();
+      }
+
+      if (m_normalize != null) {
+        m_normalize.input(inst);
+        inst = m_normalize.output();
+      }
+      classIndex = inst.classIndex();
+
+      // missing values are skipped, like dotProd() does
+      for (int p = 0; p < inst.numValues(); p++) {
+        if ((inst.index(p) < block.numColumns()) && !inst.isMissingSparse(p)) {
+          block.set(i, inst.index(p), inst.valueSparse(p));
+        }
+      }
+    }
+
+    double[][] weights = new double[1][block.numColumns()];
+    for (int j = 0; j < block.numColumns(); j++) {
+      if (j != classIndex) {
+        weights[0][j] = m_weights[j];
+      }
+    }
+    double[][] wx = block.multiply(weights, 1);
+    for (int i = 0; i < num; i++) {
+      double z = (wx[i][0] + m_weights[m_weights.length - 1]);
+      batchPreds[first + i] =
+        distributionForOutput(z, batch.classAttribute().isNominal());
+    }
+  }
+
+  /**
+   * Computes the distribution from the output of the linear function.
+   * 
+   * @param z the output
+   * @param nominal whether the class is nominal
+   * @return the distribution
+   */
+  protected double[] distributionForOutput(double z, boolean nominal) {
+    double[] result = nominal ? new double[2] : new double[1];
+
+    if (!nominal) {
       result[0] = z;
       return result;
     }
@@ -27,8 +27,10 @@ import weka.classifiers.functions.supportVector.Kernel;
 import weka.classifiers.functions.supportVector.PolyKernel;
 import weka.classifiers.functions.supportVector.SMOset;
 import weka.core.Attribute;
+import weka.core.BatchPredictor;
 import weka.core.Capabilities;
 import weka.core.Capabilities.Capability;
+import weka.core.DenseBlock;
 import weka.core.DenseInstance;
 import weka.core.Instance;
 import weka.core.Instances;
@@ -1508,6 +1510,167 @@ public class SMO
     }
   }
 
+  /**
+   * Returns true if the kernel is linear, as batches are then scored with a
+   * matrix product.
+   * 
+   * @return true if the machines are linear
+   */
+  @Override
+  public boolean implementsMoreEfficientBatchPrediction() {
+    return m_KernelIsLinear;
+  }
+
+  /**
+   * Estimates class probabilities for a block of instances. For linear
+   * machines, the filtered instances are extracted into one array, which is
+   * multiplied with the weight vectors of all pairs of classes in a tight
+   * loop, and the calibrators are applied to each pair's outputs as a batch.
+   * 
+   * @param batch the instances to compute the probabilities for
+   * @param first the index of the first instance of the block
+   * @param num the number of instances in the block
+   * @param batchPreds the array to store the probabilities in
+   * @throws Exception in case of an error
+   */
+  @Override
+  protected void distributionsForBlock(Instances batch, int first, int num,
+    double[][] batchPreds) throws Exception {
+
+    if (!m_KernelIsLinear || (m_classifiers == null)) {
+      super.distributionsForBlock(batch, first, num, batchPreds);
+      return;
+    }
+
+    // Pairs of classes with a machine
+    int numClasses = batch.numClasses();
+    int numPairs = 0;
+    int[][] pairs = new int[numClasses * (numClasses - 1) / 2][];
+    for (int i = 0; i < numClasses; i++) {
+      for (int j = i + 1; j < numClasses; j++) {
+        if ((m_classifiers[i][j].m_alpha != null) ||
+                (m_classifiers[i][j].m_sparseWeights != null)) {
+          pairs[numPairs++] = new int[] { i, j };
+        }
+      }
+    }
+    if ((numClasses == 2) && (numPairs == 0)) {
+      super.distributionsForBlock(batch, first, num, batchPreds);
+      return;
+    }
+
+    // Filter instances
+    Instance[] insts = new Instance[num];
+    int numAttributes = 0;
+    for (int n = 0; n < num; n++) {
+      Instance inst = batch.instance(first + n);
+      if (!m_checksTurnedOff) {
+        m_Missing.input(inst);
+        m_Missing.batchFinished();
+        inst = m_Missing.output();
+      }
+
+      if (m_NominalToBinary != null) {
+        m_NominalToBinary.input(inst);
+        m_NominalToBinary.batchFinished();
+        inst = m_NominalToBinary.output();
+      }
+
+      if (m_Filter != null) {
+        m_Filter.input(inst);
+        m_Filter.batchFinished();
+        inst = m_Filter.output();
+      }
+      insts[n] = inst;
+      numAttributes = inst.numAttributes();
+    }
+    DenseBlock block = new DenseBlock(num, numAttributes);
+    for (int n = 0; n < num; n++) {
+      block.setRow(n, insts[n]);
+      if (m_classIndex < numAttributes) {
+        block.set(n, m_classIndex, 0);
+      }
+    }
+
+    // Weight vectors of the pairs
+    double[][] weights = new double[numPairs][numAttributes];
+    for (int p = 0; p < numPairs; p++) {
+      BinarySMO smo = m_classifiers[pairs[p][0]][pairs[p][1]];
+      int numWeights = (smo.m_sparseWeights == null) ? smo.m_weights.length
+              : smo.m_sparseWeights.length;
+      for (int k = 0; k < numWeights; k++) {
+        int index = (smo.m_sparseWeights == null) ? k : smo.m_sparseIndices[k];
+        if ((index != m_classIndex) && (index < numAttributes)) {
+          weights[p][index] = (smo.m_sparseWeights == null) ? smo.m_weights[k]
+                  : smo.m_sparseWeights[k];
+        }
+      }
+    }
+    double[][] outputs = block.multiply(weights, numPairs);
+    for (int n = 0; n < num; n++) {
+      for (int p = 0; p < numPairs; p++) {
+        outputs[n][p] -= m_classifiers[pairs[p][0]][pairs[p][1]].m_b;
+      }
+    }
+
+    if (!m_fitCalibratorModels) {
+      for (int n = 0; n < num; n++) {
+        double[] result = new double[numClasses];
+        for (int p = 0; p < numPairs; p++) {
+          if (outputs[n][p] > 0) {
+            result[pairs[p][1]] += 1;
+          } else {
+            result[pairs[p][0]] += 1;
+          }
+        }
+        Utils.normalize(result);
+        batchPreds[first + n] = result;
+      }
+      return;
+    }
+
+    // Apply the calibrators to the outputs of each pair
+    double[][][] calibrated = new double[numPairs][][];
+    for (int p = 0; p < numPairs; p++) {
+      BinarySMO smo = m_classifiers[pairs[p][0]][pairs[p][1]];
+      Instances data = new Instances(smo.m_calibrationDataHeader, num);
+      for (int n = 0; n < num; n++) {
+        double[] newInst = new double[2];
+        newInst[0] = outputs[n][p];
+        newInst[1] = Utils.missingValue();
+        data.add(new DenseInstance(1, newInst));
+      }
+      if (smo.m_calibrator instanceof BatchPredictor) {
+        calibrated[p] =
+          ((BatchPredictor) smo.m_calibrator).distributionsForInstances(data);
+      } else {
+        calibrated[p] = new double[num][];
+        for (int n = 0; n < num; n++) {
+          calibrated[p][n] =
+            smo.m_calibrator.distributionForInstance(data.instance(n));
+        }
+      }
+    }
+
+    // We only need to do pairwise coupling if there are more
+    // then two classes.
+    for (int n = 0; n < num; n++) {
+      if (numClasses == 2) {
+        batchPreds[first + n] = calibrated[0][n];
+        continue;
+      }
+      double[][] r = new double[numClasses][numClasses];
+      double[][] w = new double[numClasses][numClasses];
+      for (int p = 0; p < numPairs; p++) {
+        r[pairs[p][0]][pairs[p][1]] = calibrated[p][n][0];
+        w[pairs[p][0]][pairs[p][1]] =
+          m_classifiers[pairs[p][0]][pairs[p][1]].m_sumOfWeights;
+      }
+      batchPreds[first + n] =
+        weka.classifiers.meta.MultiClassClassifier.pairwiseCoupling(w, r);
+    }
+  }
+
   /**
    * Returns an array of votes for the given instance.
    * @param inst the instance
@@ -0,0 +1,347 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    CompiledTrees.java
+ *    Copyright (C) 2026 lendle
+ *
+ */
+
+package weka.classifiers.trees;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.RevisionHandler;
+import weka.core.RevisionUtils;
+
+/**
+ * One or more trained decision/regression trees flattened into arrays, for
+ * fast prediction. The nodes of all trees are stored in one block: for each
+ * node the attribute it splits on (-1 for a leaf), the split point, the
+ * position and number of its children, which are stored next to each other,
+ * the proportion of training instances that went down to it from its parent,
+ * and the position of its class distribution in a shared array (-1 if it has
+ * none). <br/>
+ * <br/>
+ * A prediction follows the instance down from the root in a loop without
+ * allocating anything. Only a missing value at a node splits the instance up
+ * into pieces for all children, weighted by their proportions, like the tree
+ * learners do. If the path ends in a node without class distribution, the
+ * distribution of the deepest node on the path that has one is used.
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+public class CompiledTrees implements Serializable, RevisionHandler {
+
+  /** for serialization */
+  private static final long serialVersionUID = 6802463328418453176L;
+
+  /** the initial number of nodes to reserve */
+  protected static final int INITIAL_CAPACITY = 64;
+
+  /** the number of classes, 1 for a numeric class */
+  protected int m_NumClasses;
+
+  /** whether the class is numeric */
+  protected boolean m_NumericClass;
+
+  /** whether each attribute is nominal */
+  protected boolean[] m_NominalAttribute;
+
+  /** the number of nodes */
+  protected int m_NumNodes;
+
+  /** the root node of each tree */
+  protected int[] m_Roots = new int[0];
+
+  /** the attribute each node splits on, -1 for leaves */
+  protected int[] m_Attribute = new int[INITIAL_CAPACITY];
+
+  /** the split point of each node on a numeric attribute */
+  protected double[] m_SplitPoint = new double[INITIAL_CAPACITY];
+
+  /** the first child of each node */
+  protected int[] m_FirstChild = new int[INITIAL_CAPACITY];
+
+  /** the number of children of each node */
+  protected int[] m_NumChildren = new int[INITIAL_CAPACITY];
+
+  /** the proportion of the parent's training instances at each node */
+  protected double[] m_Prop = new double[INITIAL_CAPACITY];
+
+  /** the offset of each node's class distribution, -1 for none */
+  protected int[] m_DistOffset = new int[INITIAL_CAPACITY];
+
+  /** the class distributions of all nodes */
+  protected double[] m_Dists = new double[INITIAL_CAPACITY];
+
+  /** the number of values used in m_Dists */
+  protected int m_DistsSize;
+
+  /**
+   * Creates an empty set of compiled trees for the given data.
+   *
+   * @param header the header of the training data
+   */
+  public CompiledTrees(Instances header) {
+
+    m_NumClasses = header.numClasses();
+    m_NumericClass = header.classAttribute().isNumeric();
+    m_NominalAttribute = new boolean[header.numAttributes()];
+    for (int i = 0; i < m_NominalAttribute.length; i++) {
+      m_NominalAttribute[i] = header.attribute(i).isNominal();
+    }
+  }
+
+  /**
+   * Adds a tree, whose nodes are set with setSplit() and setDistribution().
+   *
+   * @return the root node of the tree, a leaf
+   */
+  public int addTree() {
+
+    int root = addNodes(1);
+    m_Roots = Arrays.copyOf(m_Roots, m_Roots.length + 1);
+    m_Roots[m_Roots.length - 1] = root;
+    return root;
+  }
+
+  /**
+   * Adds the given number of leaves with consecutive node numbers.
+   *
+   * @param num the number of leaves
+   * @return the first of the new nodes
+   */
+  protected int addNodes(int num) {
+
+    int first = m_NumNodes;
+    m_NumNodes += num;
+    if (m_NumNodes > m_Attribute.length) {
+      int capacity = Math.max(m_NumNodes, 2 * m_Attribute.length);
+      m_Attribute = Arrays.copyOf(m_Attribute, capacity);
+      m_SplitPoint = Arrays.copyOf(m_SplitPoint, capacity);
+      m_FirstChild = Arrays.copyOf(m_FirstChild, capacity);
+      m_NumChildren = Arrays.copyOf(m_NumChildren, capacity);
+      m_Prop = Arrays.copyOf(m_Prop, capacity);
+      m_DistOffset = Arrays.copyOf(m_DistOffset, capacity);
+    }
+    for (int i = first; i < m_NumNodes; i++) {
+      m_Attribute[i] = -1;
+      m_DistOffset[i] = -1;
+      m_Prop[i] = 1;
+    }
+    return first;
+  }
+
+  /**
+   * Turns a leaf into a node that splits on the given attribute and adds its
+   * children as leaves.
+   *
+   * @param node the node
+   * @param att the attribute to split on
+   * @param splitPoint the split point for a numeric attribute, values below
+   *          it go to the first child
+   * @param props the proportions of the training instances going down each
+   *          branch
+   * @return the first child of the node, the others follow it
+   */
+  public int setSplit(int node, int att, double splitPoint, double[] props) {
+
+    int first = addNodes(props.length);
+    m_Attribute[node] = att;
+    m_SplitPoint[node] = splitPoint;
+    m_FirstChild[node] = first;
+    m_NumChildren[node] = props.length;
+    for (int i = 0; i < props.length; i++) {
+      m_Prop[first + i] = props[i];
+    }
+    return first;
+  }
+
+  /**
+   * Sets the class distribution that is predicted at the given node. For a
+   * numeric class, it holds the predicted value.
+   *
+   * @param node the node
+   * @param dist the distribution to predict, null for none
+   */
+  public void setDistribution(int node, double[] dist) {
+
+    if (dist == null) {
+      m_DistOffset[node] = -1;
+      return;
+    }
+    if (m_DistsSize + m_NumClasses > m_Dists.length) {
+      m_Dists =
+        Arrays.copyOf(m_Dists,
+          Math.max(m_DistsSize + m_NumClasses, 2 * m_Dists.length));
+    }
+    System.arraycopy(dist, 0, m_Dists, m_DistsSize, m_NumClasses);
+    m_DistOffset[node] = m_DistsSize;
+    m_DistsSize += m_NumClasses;
+  }
+
+  /**
+   * Frees the capacity reserved for further nodes.
+   */
+  public void trimToSize() {
+
+    m_Attribute = Arrays.copyOf(m_Attribute, m_NumNodes);
+    m_SplitPoint = Arrays.copyOf(m_SplitPoint, m_NumNodes);
+    m_FirstChild = Arrays.copyOf(m_FirstChild, m_NumNodes);
+    m_NumChildren = Arrays.copyOf(m_NumChildren, m_NumNodes);
+    m_Prop = Arrays.copyOf(m_Prop, m_NumNodes);
+    m_DistOffset = Arrays.copyOf(m_DistOffset, m_NumNodes);
+    m_Dists = Arrays.copyOf(m_Dists, m_DistsSize);
+  }
+
+  /**
+   * Returns the number of trees.
+   *
+   * @return the number of trees
+   */
+  public int numTrees() {
+
+    return m_Roots.length;
+  }
+
+  /**
+   * Returns the number of nodes of all trees.
+   *
+   * @return the number of nodes
+   */
+  public int numNodes() {
+
+    return m_NumNodes;
+  }
+
+  /**
+   * Returns the number of classes, i.e., the length of the distributions.
+   *
+   * @return the number of classes, 1 for a numeric class
+   */
+  public int numClasses() {
+
+    return m_NumClasses;
+  }
+
+  /**
+   * Returns whether the class is numeric.
+   *
+   * @return true if the trees are regression trees
+   */
+  public boolean isNumericClass() {
+
+    return m_NumericClass;
+  }
+
+  /**
+   * Computes the class distribution of the given tree for an instance.
+   *
+   * @param tree the index of the tree
+   * @param instance the instance to compute the distribution for
+   * @return the distribution, null if the tree predicts none
+   */
+  public double[] distributionForInstance(int tree, Instance instance) {
+
+    double[] dist = new double[m_NumClasses];
+    if (!addDistribution(tree, instance, 1, dist)) {
+      return null;
+    }
+    return dist;
+  }
+
+  /**
+   * Adds the class distribution of the given tree for an instance, times the
+   * given weight, to the given array.
+   *
+   * @param tree the index of the tree
+   * @param instance the instance to compute the distribution for
+   * @param weight the weight of the distribution
+   * @param result the array to add the distribution to
+   * @return false if the tree predicts no distribution, nothing is added then
+   */
+  public boolean addDistribution(int tree, Instance instance, double weight,
+    double[] result) {
+
+    return addNodeDistribution(m_Roots[tree], instance, weight, result);
+  }
+
+  /**
+   * Adds the class distribution of the subtree at the given node for an
+   * instance, times the given weight, to the given array.
+   *
+   * @param node the root of the subtree
+   * @param instance the instance to compute the distribution for
+   * @param weight the weight of the distribution
+   * @param result the array to add the distribution to
+   * @return false if the subtree predicts no distribution, nothing is added
+   *         then
+   */
+  protected boolean addNodeDistribution(int node, Instance instance,
+    double weight, double[] result) {
+
+    int fallback = -1;
+    int att;
+    while ((att = m_Attribute[node]) > -1) {
+      if (m_DistOffset[node] > -1) {
+        fallback = node;
+      }
+      if (instance.isMissing(att)) {
+
+        // Split instance up
+        int first = m_FirstChild[node];
+        for (int i = first; i < first + m_NumChildren[node]; i++) {
+          addNodeDistribution(i, instance, weight * m_Prop[i], result);
+        }
+        return true;
+      }
+      if (m_NominalAttribute[att]) {
+        node = m_FirstChild[node] + (int) instance.value(att);
+      } else if (instance.value(att) < m_SplitPoint[node]) {
+        node = m_FirstChild[node];
+      } else {
+        node = m_FirstChild[node] + 1;
+      }
+    }
+
+    // Empty leaf?
+    if (m_DistOffset[node] == -1) {
+      if (fallback == -1) {
+        return false;
+      }
+      node = fallback;
+    }
+    int offset = m_DistOffset[node];
+    for (int j = 0; j < m_NumClasses; j++) {
+      result[j] += weight * m_Dists[offset + j];
+    }
+    return true;
+  }
+
+  /**
+   * Returns the revision string.
+   *
+   * @return the revision
+   */
+  @Override
+  public String getRevision() {
+    return RevisionUtils.extract("$Revision$");
+  }
+}
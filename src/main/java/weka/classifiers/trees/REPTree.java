@@ -22,12 +22,15 @@
 package weka.classifiers.trees;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
 import java.util.Random;
 import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
 
 import weka.classifiers.AbstractClassifier;
 import weka.classifiers.Sourcable;
@@ -43,6 +46,7 @@ import weka.core.Instances;
 import weka.core.Option;
 import weka.core.OptionHandler;
 import weka.core.PartitionGenerator;
+import weka.core.PresortedIndex;
 import weka.core.Randomizable;
 import weka.core.RevisionHandler;
 import weka.core.RevisionUtils;
@@ -92,6 +96,13 @@ import weka.core.WeightedInstancesHandler;
  *  Maximum tree depth (default -1, no maximum)
  * </pre>
  * 
+ * <pre>
+ * -num-slots &lt;num&gt;
+ *  Number of execution slots for building the tree.
+ *  (default 1 - i.e. no parallelism)
+ *  (use 0 to auto-detect number of cores)
+ * </pre>
+ * 
  * <!-- options-end -->
  * 
  * @author Eibe Frank (eibe@cs.waikato.ac.nz)
@@ -224,6 +235,24 @@ public class REPTree extends AbstractClassifier implements OptionHandler,
       }
     }
 
+    /**
+     * Adds this subtree to the given compiled trees.
+     * 
+     * @param compiled the compiled trees
+     * @param node the node of this subtree in the compiled trees
+     */
+    protected void compile(CompiledTrees compiled, int node) {
+
+      if (m_Attribute > -1) {
+        int first =
+          compiled.setSplit(node, m_Attribute, m_SplitPoint, m_Prop);
+        for (int i = 0; i < m_Successors.length; i++) {
+          m_Successors[i].compile(compiled, first + i);
+        }
+      }
+      compiled.setDistribution(node, m_ClassProbs);
+    }
+
     /**
      * Returns a string containing java source code equivalent to the test made
      * at this node. The instance being tested is called "i". This routine
@@ -618,27 +647,9 @@ public class REPTree extends AbstractClassifier implements OptionHandler,
       double[][] props = new double[data.numAttributes()][0];
       double[][] totalSubsetWeights = new double[data.numAttributes()][0];
       double[] splits = new double[data.numAttributes()];
-      if (data.classAttribute().isNominal()) {
-
-        // Nominal case
-        for (int i = 0; i < data.numAttributes(); i++) {
-          if (i != data.classIndex()) {
-            splits[i] = distribution(props, dists, i, sortedIndices[0][i],
-              weights[0][i], totalSubsetWeights, data);
-            vals[i] = gain(dists[i], priorVal(dists[i]));
-          }
-        }
-      } else {
-
-        // Numeric case
-        for (int i = 0; i < data.numAttributes(); i++) {
-          if (i != data.classIndex()) {
-            splits[i] = numericDistribution(props, dists, i,
-              sortedIndices[0][i], weights[0][i], totalSubsetWeights, data,
-              vals);
-          }
-        }
-      }
+      evaluateAttributes(vals, dists, props, totalSubsetWeights, splits,
+        sortedIndices[0], weights[0], data,
+        sortedIndices[0][helpIndex].length);
 
       // Find best attribute
       m_Attribute = Utils.maxIndex(vals);
@@ -683,17 +694,24 @@ public class REPTree extends AbstractClassifier implements OptionHandler,
         sortedIndices[0] = null;
         weights[0] = null;
 
-        // Build successors
+        // Build successors, in parallel if the node is large enough
+        int numInstances = 0;
         m_Successors = new Tree[numAttVals];
+        List<SubtreeTask> subtrees = new ArrayList<SubtreeTask>(numAttVals);
         for (int i = 0; i < numAttVals; i++) {
+          numInstances += subsetIndices[i][0][helpIndex].length;
           m_Successors[i] = new Tree();
-          m_Successors[i].buildTree(subsetIndices[i], subsetWeights[i], data,
-            attTotalSubsetWeights[i], attSubsetDists[i], header, minNum,
-            minVariance, depth + 1, maxDepth);
+          subtrees.add(new SubtreeTask(m_Successors[i], subsetIndices[i],
+            subsetWeights[i], data, attTotalSubsetWeights[i],
+            attSubsetDists[i], header, minNum, minVariance, depth + 1,
+            maxDepth));
 
           // Release as much memory as we can
+          subsetIndices[i] = null;
+          subsetWeights[i] = null;
           attSubsetDists[i] = null;
         }
+        TreeBuildTask.runAll(subtrees, numInstances);
       } else {
 
         // Make leaf
@@ -717,6 +735,59 @@ public class REPTree extends AbstractClassifier implements OptionHandler,
       }
     }
 
+    /**
+     * Computes the class distributions, the value of the splitting criterion
+     * and the split point of each attribute. The attributes are evaluated in
+     * parallel if the node is large enough.
+     * 
+     * @param vals the values of the splitting criterion
+     * @param dists the class distributions
+     * @param props the proportions of the subsets
+     * @param totalSubsetWeights the weights of the subsets
+     * @param splits the split points
+     * @param sortedIndices the sorted indices of the instances
+     * @param weights the weights of the instances
+     * @param data the data to work with
+     * @param numInstances the number of instances at the node
+     * @throws Exception if computation fails
+     */
+    protected void evaluateAttributes(final double[] vals,
+      final double[][][] dists, final double[][] props,
+      final double[][] totalSubsetWeights, final double[] splits,
+      final int[][] sortedIndices, final double[][] weights,
+      final Instances data, int numInstances) throws Exception {
+
+      List<TreeBuildTask> steps = new ArrayList<TreeBuildTask>();
+      for (int i = 0; i < data.numAttributes(); i++) {
+        if (i != data.classIndex()) {
+          final int att = i;
+          steps.add(new TreeBuildTask() {
+
+            /** for serialization */
+            private static final long serialVersionUID = 2362455298131785335L;
+
+            @Override
+            protected void build() throws Exception {
+              if (data.classAttribute().isNominal()) {
+
+                // Nominal case
+                splits[att] = distribution(props, dists, att,
+                  sortedIndices[att], weights[att], totalSubsetWeights, data);
+                vals[att] = gain(dists[att], priorVal(dists[att]));
+              } else {
+
+                // Numeric case
+                splits[att] = numericDistribution(props, dists, att,
+                  sortedIndices[att], weights[att], totalSubsetWeights, data,
+                  vals);
+              }
+            }
+          });
+        }
+      }
+      TreeBuildTask.runAll(steps, numInstances);
+    }
+
     /**
      * Smoothes class probabilities stored at node.
      */
@@ -1358,9 +1429,100 @@ public class REPTree extends AbstractClassifier implements OptionHandler,
     }
   }
 
+  /**
+   * Builds a subtree, in parallel to its siblings if the parent node is large
+   * enough.
+   */
+  protected class SubtreeTask extends TreeBuildTask {
+
+    /** for serialization */
+    private static final long serialVersionUID = -3434598651224378384L;
+
+    /** the subtree to build */
+    protected Tree m_Subtree;
+
+    /** the sorted indices of the instances */
+    protected int[][][] m_SortedIndices;
+
+    /** the weights of the instances */
+    protected double[][][] m_Weights;
+
+    /** the data to work with */
+    protected Instances m_Data;
+
+    /** the total weight of the instances */
+    protected double m_TotalWeight;
+
+    /** the class probabilities */
+    protected double[] m_ClassProbs;
+
+    /** the header of the data */
+    protected Instances m_Header;
+
+    /** the minimum number of instances in a leaf */
+    protected double m_MinNum;
+
+    /** the minimum variance for a split */
+    protected double m_MinVariance;
+
+    /** the depth of the subtree */
+    protected int m_Depth;
+
+    /** the maximum allowed depth of the tree */
+    protected int m_MaxDepth;
+
+    /**
+     * Sets up the task, see Tree.buildTree() for the parameters.
+     * 
+     * @param subtree the subtree to build
+     * @param sortedIndices the sorted indices of the instances
+     * @param weights the weights of the instances
+     * @param data the data to work with
+     * @param totalWeight the total weight of the instances
+     * @param classProbs the class probabilities
+     * @param header the header of the data
+     * @param minNum the minimum number of instances in a leaf
+     * @param minVariance the minimum variance for a split
+     * @param depth the current depth of the tree
+     * @param maxDepth the maximum allowed depth of the tree
+     */
+    protected SubtreeTask(Tree subtree, int[][][] sortedIndices,
+      double[][][] weights, Instances data, double totalWeight,
+      double[] classProbs, Instances header, double minNum,
+      double minVariance, int depth, int maxDepth) {
+
+      m_Subtree = subtree;
+      m_SortedIndices = sortedIndices;
+      m_Weights = weights;
+      m_Data = data;
+      m_TotalWeight = totalWeight;
+      m_ClassProbs = classProbs;
+      m_Header = header;
+      m_MinNum = minNum;
+      m_MinVariance = minVariance;
+      m_Depth = depth;
+      m_MaxDepth = maxDepth;
+    }
+
+    /**
+     * Builds the subtree.
+     * 
+     * @throws Exception if building fails
+     */
+    @Override
+    protected void build() throws Exception {
+
+      m_Subtree.buildTree(m_SortedIndices, m_Weights, m_Data, m_TotalWeight,
+        m_ClassProbs, m_Header, m_MinNum, m_MinVariance, m_Depth, m_MaxDepth);
+    }
+  }
+
   /** The Tree object */
   protected Tree m_Tree = null;
 
+  /** The tree compiled for prediction, null if it is not compiled */
+  protected CompiledTrees m_Compiled = null;
+
   /** Number of folds for reduced error pruning. */
   protected int m_NumFolds = 3;
 
@@ -1388,6 +1550,9 @@ public class REPTree extends AbstractClassifier implements OptionHandler,
   /** Whether to spread initial count across all values */
   protected boolean m_SpreadInitialCount = false;
 
+  /** The number of threads to build the tree with, 0 for one per core */
+  protected int m_NumExecutionSlots = 1;
+
   /**
    * Returns the tip text for this property
    * 
@@ -1633,6 +1798,39 @@ public class REPTree extends AbstractClassifier implements OptionHandler,
     m_SpreadInitialCount = newSpreadInitialCount;
   }
 
+  /**
+   * Returns the tip text for this property
+   * 
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String numExecutionSlotsTipText() {
+    return "The number of execution slots (threads) to build the tree with, "
+      + "0 for one per core. Subtrees and attributes of large nodes are "
+      + "processed in parallel, the tree does not depend on the number "
+      + "of slots.";
+  }
+
+  /**
+   * Get the number of execution slots.
+   * 
+   * @return the number of execution slots.
+   */
+  public int getNumExecutionSlots() {
+
+    return m_NumExecutionSlots;
+  }
+
+  /**
+   * Set the number of execution slots.
+   * 
+   * @param numSlots the number of execution slots, 0 for one per core.
+   */
+  public void setNumExecutionSlots(int numSlots) {
+
+    m_NumExecutionSlots = numSlots;
+  }
+
   /**
    * Lists the command-line options for this classifier.
    * 
@@ -1663,6 +1861,11 @@ public class REPTree extends AbstractClassifier implements OptionHandler,
     newVector.addElement(new Option(
       "\tSpread initial count over all class values (i.e."
         + " don't use 1 per value)", "R", 0, "-R"));
+    newVector.addElement(new Option(
+      "\tNumber of execution slots for building the tree.\n"
+        + "\t(default 1 - i.e. no parallelism)\n"
+        + "\t(use 0 to auto-detect number of cores)", "num-slots", 1,
+      "-num-slots <num>"));
 
     newVector.addAll(Collections.list(super.listOptions()));
 
@@ -1696,6 +1899,8 @@ public class REPTree extends AbstractClassifier implements OptionHandler,
     if (getSpreadInitialCount()) {
       options.add("-R");
     }
+    options.add("-num-slots");
+    options.add("" + getNumExecutionSlots());
 
     Collections.addAll(options, super.getOptions());
 
@@ -1740,6 +1945,13 @@ public class REPTree extends AbstractClassifier implements OptionHandler,
    *  Maximum tree depth (default -1, no maximum)
    * </pre>
    * 
+   * <pre>
+   * -num-slots &lt;num&gt;
+   *  Number of execution slots for building the tree.
+   *  (default 1 - i.e. no parallelism)
+   *  (use 0 to auto-detect number of cores)
+   * </pre>
+   * 
    * <!-- options-end -->
    * 
    * @param options the list of options as an array of strings
@@ -1786,6 +1998,12 @@ public class REPTree extends AbstractClassifier implements OptionHandler,
       m_InitialCount = 0;
     }
     m_SpreadInitialCount = Utils.getFlag('R', options);
+    String numSlotsString = Utils.getOption("num-slots", options);
+    if (numSlotsString.length() != 0) {
+      m_NumExecutionSlots = Integer.parseInt(numSlotsString);
+    } else {
+      m_NumExecutionSlots = 1;
+    }
 
     super.setOptions(options);
     Utils.checkForRemainingOptions(options);
@@ -1875,6 +2093,7 @@ public class REPTree extends AbstractClassifier implements OptionHandler,
 
     Random random = new Random(m_Seed);
 
+    m_Compiled = null;
     m_zeroR = null;
     if (data.numAttributes() == 1) {
       m_zeroR = new ZeroR();
@@ -1899,45 +2118,15 @@ public class REPTree extends AbstractClassifier implements OptionHandler,
     }
 
     // Create array of sorted indices and weights
+    PresortedIndex index = new PresortedIndex(train, m_NumExecutionSlots);
     int[][][] sortedIndices = new int[1][train.numAttributes()][0];
     double[][][] weights = new double[1][train.numAttributes()][0];
-    double[] vals = new double[train.numInstances()];
     for (int j = 0; j < train.numAttributes(); j++) {
       if (j != train.classIndex()) {
+        sortedIndices[0][j] = index.sortedIndices(j);
         weights[0][j] = new double[train.numInstances()];
-        if (train.attribute(j).isNominal()) {
-
-          // Handling nominal attributes. Putting indices of
-          // instances with missing values at the end.
-          sortedIndices[0][j] = new int[train.numInstances()];
-          int count = 0;
-          for (int i = 0; i < train.numInstances(); i++) {
-            Instance inst = train.instance(i);
-            if (!inst.isMissing(j)) {
-              sortedIndices[0][j][count] = i;
-              weights[0][j][count] = inst.weight();
-              count++;
-            }
-          }
-          for (int i = 0; i < train.numInstances(); i++) {
-            Instance inst = train.instance(i);
-            if (inst.isMissing(j)) {
-              sortedIndices[0][j][count] = i;
-              weights[0][j][count] = inst.weight();
-              count++;
-            }
-          }
-        } else {
-
-          // Sorted indices are computed for numeric attributes
-          for (int i = 0; i < train.numInstances(); i++) {
-            Instance inst = train.instance(i);
-            vals[i] = inst.value(j);
-          }
-          sortedIndices[0][j] = Utils.sort(vals);
-          for (int i = 0; i < train.numInstances(); i++) {
-            weights[0][j][i] = train.instance(sortedIndices[0][j][i]).weight();
-          }
+        for (int i = 0; i < train.numInstances(); i++) {
+          weights[0][j][i] = train.instance(sortedIndices[0][j][i]).weight();
         }
       }
     }
@@ -1965,10 +2154,20 @@ public class REPTree extends AbstractClassifier implements OptionHandler,
       classProbs[0] /= totalWeight;
     }
 
-    // Build tree
-    m_Tree.buildTree(sortedIndices, weights, train, totalWeight, classProbs,
-      new Instances(train, 0), m_MinNum, m_MinVarianceProp * trainVariance, 0,
-      m_MaxDepth);
+    // Build tree, in parallel if required
+    SubtreeTask root = new SubtreeTask(m_Tree, sortedIndices, weights, train,
+      totalWeight, classProbs, new Instances(train, 0), m_MinNum,
+      m_MinVarianceProp * trainVariance, 0, m_MaxDepth);
+    if (m_NumExecutionSlots == 1) {
+      root.build();
+    } else {
+      ForkJoinPool pool = TreeBuildTask.newPool(m_NumExecutionSlots);
+      try {
+        TreeBuildTask.run(pool, root);
+      } finally {
+        pool.shutdown();
+      }
+    }
 
     // Insert pruning data and perform reduced error pruning
     if (!m_NoPruning) {
@@ -1990,11 +2189,33 @@ public class REPTree extends AbstractClassifier implements OptionHandler,
 
     if (m_zeroR != null) {
       return m_zeroR.distributionForInstance(instance);
+    } else if (m_Compiled != null) {
+      return m_Compiled.distributionForInstance(0, instance);
     } else {
       return m_Tree.distributionForInstance(instance);
     }
   }
 
+  /**
+   * Compiles the tree into flat arrays (see {@link CompiledTrees}), which are
+   * used for predictions from then on, until the tree is built again.
+   * Predictions are the same, but faster.
+   * 
+   * @throws Exception if no tree has been built yet
+   */
+  public void compile() throws Exception {
+
+    if ((m_Tree == null) && (m_zeroR == null)) {
+      throw new Exception("No model built yet.");
+    }
+    if (m_Tree != null) {
+      CompiledTrees compiled = new CompiledTrees(m_Tree.m_Info);
+      m_Tree.compile(compiled, compiled.addTree());
+      compiled.trimToSize();
+      m_Compiled = compiled;
+    }
+  }
+
   /**
    * For getting a unique ID when outputting the tree source (hashcode isn't
    * guaranteed unique)
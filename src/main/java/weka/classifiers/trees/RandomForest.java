@@ -25,6 +25,8 @@ import weka.classifiers.AbstractClassifier;
 import weka.classifiers.Classifier;
 import weka.classifiers.meta.Bagging;
 import weka.core.Capabilities;
+import weka.core.Instance;
+import weka.core.Instances;
 import weka.core.Option;
 import weka.core.OptionHandler;
 import weka.core.RevisionUtils;
@@ -150,6 +152,13 @@ import java.util.Vector;
  * </pre>
  * 
  * <pre>
+ * -num-bins &lt;num&gt;
+ *  The number of bins (at most 256) numeric attributes are quantized into,
+ *  0 to try every distinct value.
+ *  (default 0)
+ * </pre>
+ * 
+ * <pre>
  * -U
  *  Allow unclassified instances.
  * </pre>
@@ -194,6 +203,9 @@ public class RandomForest extends Bagging {
   /** True to compute attribute importance */
   protected boolean m_computeAttributeImportance;
 
+  /** The trees compiled for prediction, null if they are not compiled */
+  protected CompiledTrees m_Compiled = null;
+
   /**
    * The default number of iterations to perform.
    */
@@ -406,6 +418,34 @@ public class RandomForest extends Bagging {
     ((RandomTree) getClassifier()).setMaxDepth(value);
   }
 
+  /**
+   * Returns the tip text for this property
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String numBinsTipText() {
+    return ((RandomTree) getClassifier()).numBinsTipText();
+  }
+
+  /**
+   * Get the number of bins for numeric attributes, 0 for no binning.
+   *
+   * @return the number of bins.
+   */
+  public int getNumBins() {
+    return ((RandomTree) getClassifier()).getNumBins();
+  }
+
+  /**
+   * Set the number of bins for numeric attributes, 0 for no binning.
+   *
+   * @param value the number of bins.
+   */
+  public void setNumBins(int value) {
+    ((RandomTree) getClassifier()).setNumBins(value);
+  }
+
   /**
    * Returns the tip text for this property
    *
@@ -479,6 +519,93 @@ public class RandomForest extends Bagging {
     ((RandomTree) getClassifier()).setSeed(s);
   }
 
+  /**
+   * Builds the forest.
+   *
+   * @param data the training data to be used for generating the forest
+   * @throws Exception if the forest could not be built successfully
+   */
+  @Override
+  public void buildClassifier(Instances data) throws Exception {
+
+    m_Compiled = null;
+    super.buildClassifier(data);
+  }
+
+  /**
+   * Compiles the trees of the forest into one block of flat arrays (see
+   * {@link CompiledTrees}), which is used for predictions from then on, until
+   * the forest is built again. Predictions are the same up to rounding, but
+   * faster. Trees that fell back to ZeroR are compiled as a single leaf.
+   *
+   * @throws Exception if the forest has not been built yet or a member of the
+   *           forest is not a RandomTree
+   */
+  public void compile() throws Exception {
+
+    if (m_Classifiers == null) {
+      throw new WekaException("Classifier has not been built yet!");
+    }
+
+    CompiledTrees compiled = null;
+    for (Classifier c : m_Classifiers) {
+      if (!(c instanceof RandomTree)) {
+        throw new WekaException("Only RandomTrees can be compiled, found "
+          + c.getClass().getName() + "!");
+      }
+      RandomTree tree = (RandomTree) c;
+      if (compiled == null) {
+        compiled = new CompiledTrees(tree.m_Info);
+      }
+      tree.compileInto(compiled);
+    }
+    compiled.trimToSize();
+    m_Compiled = compiled;
+  }
+
+  /**
+   * Calculates the class membership probabilities for the given test
+   * instance.
+   *
+   * @param instance the instance to be classified
+   * @return predicted class probability distribution
+   * @throws Exception if distribution can't be computed successfully
+   */
+  @Override
+  public double[] distributionForInstance(Instance instance) throws Exception {
+
+    if (m_Compiled == null) {
+      return super.distributionForInstance(instance);
+    }
+
+    double[] sums = new double[instance.numClasses()];
+    if (m_Compiled.isNumericClass()) {
+      double[] pred = new double[1];
+      double numPreds = 0;
+      for (int i = 0; i < m_Compiled.numTrees(); i++) {
+        pred[0] = 0;
+        if (m_Compiled.addDistribution(i, instance, 1, pred)
+          && !Utils.isMissingValue(pred[0])) {
+          sums[0] += pred[0];
+          numPreds++;
+        }
+      }
+      if (numPreds == 0) {
+        sums[0] = Utils.missingValue();
+      } else {
+        sums[0] /= numPreds;
+      }
+    } else {
+      for (int i = 0; i < m_Compiled.numTrees(); i++) {
+        m_Compiled.addDistribution(i, instance, 1, sums);
+      }
+      if (!Utils.eq(Utils.sum(sums), 0)) {
+        Utils.normalize(sums);
+      }
+    }
+    return sums;
+  }
+
   /**
    * Returns description of the bagged classifier.
    *
@@ -754,6 +881,13 @@ public class RandomForest extends Bagging {
    * </pre>
    * 
    * <pre>
+   * -num-bins &lt;num&gt;
+   *  The number of bins (at most 256) numeric attributes are quantized into,
+   *  0 to try every distinct value.
+   *  (default 0)
+   * </pre>
+   * 
+   * <pre>
    * -U
    *  Allow unclassified instances.
    * </pre>
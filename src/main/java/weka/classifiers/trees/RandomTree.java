@@ -27,9 +27,11 @@ import weka.core.Attribute;
 import weka.core.Capabilities;
 import weka.core.Capabilities.Capability;
 import weka.core.ContingencyTables;
+import weka.core.DenseInstance;
 import weka.core.Drawable;
 import weka.core.Instance;
 import weka.core.Instances;
+import weka.core.InstancesView;
 import weka.core.Option;
 import weka.core.OptionHandler;
 import weka.core.PartitionGenerator;
@@ -40,12 +42,16 @@ import weka.core.WeightedInstancesHandler;
 import weka.gui.ProgrammaticProperty;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
 import java.util.Random;
 import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * <!-- globalinfo-start --> Class for constructing a tree that considers K
@@ -94,6 +100,20 @@ import java.util.Vector;
  * </pre>
  * 
  * <pre>
+ * -num-bins &lt;num&gt;
+ *  The number of bins (at most 256) numeric attributes are quantized into,
+ *  0 to try every distinct value.
+ *  (default 0)
+ * </pre>
+ * 
+ * <pre>
+ * -num-slots &lt;num&gt;
+ *  Number of execution slots for building the tree.
+ *  (default 1 - i.e. no parallelism)
+ *  (use 0 to auto-detect number of cores)
+ * </pre>
+ * 
+ * <pre>
  * -U
  *  Allow unclassified instances.
  * </pre>
@@ -177,6 +197,27 @@ public class RandomTree extends AbstractClassifier implements OptionHandler,
    */
   protected double[][] m_impurityDecreasees;
 
+  /** The maximum number of bins for numeric attributes */
+  public static final int MAX_NUM_BINS = 256;
+
+  /**
+   * The number of bins numeric attributes are quantized into before building
+   * the tree, 0 for no binning
+   */
+  protected int m_NumBins = 0;
+
+  /**
+   * Indexed by attribute, the boundaries between the bins of a numeric
+   * attribute, only while the tree is built with binning
+   */
+  protected double[][] m_BinBoundaries = null;
+
+  /** The number of threads to build the tree with, 0 for one per core */
+  protected int m_NumExecutionSlots = 1;
+
+  /** The tree compiled for prediction, null if it is not compiled */
+  protected CompiledTrees m_Compiled = null;
+
   /**
    * Returns a string describing classifier
    * 
@@ -375,6 +416,68 @@ public class RandomTree extends AbstractClassifier implements OptionHandler,
     m_MaxDepth = value;
   }
 
+  /**
+   * Returns the tip text for this property
+   * 
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String numBinsTipText() {
+    return "The number of bins (at most " + MAX_NUM_BINS + ") numeric "
+      + "attributes are quantized into, so that split points are only "
+      + "searched between bins, 0 to try every distinct value.";
+  }
+
+  /**
+   * Get the number of bins for numeric attributes, 0 for no binning.
+   * 
+   * @return the number of bins.
+   */
+  public int getNumBins() {
+    return m_NumBins;
+  }
+
+  /**
+   * Set the number of bins for numeric attributes, 0 for no binning.
+   * 
+   * @param value the number of bins.
+   */
+  public void setNumBins(int value) {
+    m_NumBins = value;
+  }
+
+  /**
+   * Returns the tip text for this property
+   * 
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String numExecutionSlotsTipText() {
+    return "The number of execution slots (threads) to build the tree with, "
+      + "0 for one per core. Subtrees and attributes of large nodes are "
+      + "processed in parallel. For a given seed, the tree does not depend on "
+      + "the number of slots, but each subtree uses its own random number "
+      + "generator, so it differs from the tree built with one slot.";
+  }
+
+  /**
+   * Get the number of execution slots.
+   * 
+   * @return the number of execution slots.
+   */
+  public int getNumExecutionSlots() {
+    return m_NumExecutionSlots;
+  }
+
+  /**
+   * Set the number of execution slots.
+   * 
+   * @param numSlots the number of execution slots, 0 for one per core.
+   */
+  public void setNumExecutionSlots(int numSlots) {
+    m_NumExecutionSlots = numSlots;
+  }
+
   /**
    * Returns the tip text for this property
    * 
@@ -501,6 +604,15 @@ public class RandomTree extends AbstractClassifier implements OptionHandler,
 
     newVector.addElement(new Option("\tNumber of folds for backfitting "
       + "(default 0, no backfitting).", "N", 1, "-N <num>"));
+    newVector.addElement(new Option(
+      "\tThe number of bins (at most " + MAX_NUM_BINS + ") numeric attributes "
+        + "are quantized into,\n\t0 to try every distinct value.\n"
+        + "\t(default 0)", "num-bins", 1, "-num-bins <num>"));
+    newVector.addElement(new Option(
+      "\tNumber of execution slots for building the tree.\n"
+        + "\t(default 1 - i.e. no parallelism)\n"
+        + "\t(use 0 to auto-detect number of cores)", "num-slots", 1,
+      "-num-slots <num>"));
     newVector.addElement(new Option("\tAllow unclassified instances.", "U", 0,
       "-U"));
     newVector.addElement(new Option("\t" + breakTiesRandomlyTipText(), "B", 0,
@@ -541,6 +653,16 @@ public class RandomTree extends AbstractClassifier implements OptionHandler,
       result.add("" + getNumFolds());
     }
 
+    if (getNumBins() > 0) {
+      result.add("-num-bins");
+      result.add("" + getNumBins());
+    }
+
+    if (getNumExecutionSlots() != 1) {
+      result.add("-num-slots");
+      result.add("" + getNumExecutionSlots());
+    }
+
     if (getAllowUnclassifiedInstances()) {
       result.add("-U");
     }
@@ -597,6 +719,20 @@ public class RandomTree extends AbstractClassifier implements OptionHandler,
    * </pre>
    * 
    * <pre>
+   * -num-bins &lt;num&gt;
+   *  The number of bins (at most 256) numeric attributes are quantized into,
+   *  0 to try every distinct value.
+   *  (default 0)
+   * </pre>
+   * 
+   * <pre>
+   * -num-slots &lt;num&gt;
+   *  Number of execution slots for building the tree.
+   *  (default 1 - i.e. no parallelism)
+   *  (use 0 to auto-detect number of cores)
+   * </pre>
+   * 
+   * <pre>
    * -U
    *  Allow unclassified instances.
    * </pre>
@@ -673,6 +809,20 @@ public class RandomTree extends AbstractClassifier implements OptionHandler,
       m_NumFolds = 0;
     }
 
+    tmpStr = Utils.getOption("num-bins", options);
+    if (tmpStr.length() != 0) {
+      setNumBins(Integer.parseInt(tmpStr));
+    } else {
+      setNumBins(0);
+    }
+
+    tmpStr = Utils.getOption("num-slots", options);
+    if (tmpStr.length() != 0) {
+      setNumExecutionSlots(Integer.parseInt(tmpStr));
+    } else {
+      setNumExecutionSlots(1);
+    }
+
     setAllowUnclassifiedInstances(Utils.getFlag('U', options));
 
     setBreakTiesRandomly(Utils.getFlag('B', options));
@@ -715,6 +865,7 @@ public class RandomTree extends AbstractClassifier implements OptionHandler,
   @Override
   public void buildClassifier(Instances data) throws Exception {
 
+    m_Compiled = null;
     if (m_computeImpurityDecreases) {
       m_impurityDecreasees = new double[data.numAttributes()][2];
     }
@@ -730,6 +881,11 @@ public class RandomTree extends AbstractClassifier implements OptionHandler,
     // can classifier handle the data?
     getCapabilities().testWithFail(data);
 
+    if ((m_NumBins < 0) || (m_NumBins == 1) || (m_NumBins > MAX_NUM_BINS)) {
+      throw new Exception("Number of bins must be 0 (no binning) or between 2 "
+        + "and " + MAX_NUM_BINS + "!");
+    }
+
     // remove instances with missing class
     data = new Instances(data);
     data.deleteWithMissingClass();
@@ -741,6 +897,7 @@ public class RandomTree extends AbstractClassifier implements OptionHandler,
           + "using ZeroR model instead!");
       m_zeroR = new weka.classifiers.rules.ZeroR();
       m_zeroR.buildClassifier(data);
+      m_Info = new Instances(data, 0);
       return;
     } else {
       m_zeroR = null;
@@ -759,6 +916,11 @@ public class RandomTree extends AbstractClassifier implements OptionHandler,
       backfit = data.testCV(m_NumFolds, 1);
     }
 
+    // Quantize numeric attributes if required
+    if (m_NumBins > 0) {
+      binNumericAttributes(train);
+    }
+
     // Create the attribute indices window
     int[] attIndicesWindow = new int[data.numAttributes() - 1];
     int j = 0;
@@ -795,11 +957,25 @@ public class RandomTree extends AbstractClassifier implements OptionHandler,
       classProbs[0] /= totalWeight;
     }
 
-    // Build tree
+    // Build tree, in parallel if required
     m_Tree = new Tree();
     m_Info = new Instances(data, 0);
-    m_Tree.buildTree(train, classProbs, attIndicesWindow, totalWeight, rand, 0,
-      m_MinVarianceProp * trainVariance);
+    SubtreeTask root = new SubtreeTask(m_Tree, train, classProbs,
+      attIndicesWindow, totalWeight, rand, 0, m_MinVarianceProp * trainVariance);
+    if (m_NumExecutionSlots == 1) {
+      root.build();
+    } else {
+      ForkJoinPool pool = TreeBuildTask.newPool(m_NumExecutionSlots);
+      try {
+        TreeBuildTask.run(pool, root);
+      } finally {
+        pool.shutdown();
+      }
+    }
+    m_BinBoundaries = null;
+    if (m_computeImpurityDecreases) {
+      m_Tree.addImpurityDecreases();
+    }
 
     // Backfit if required
     if (backfit != null) {
@@ -807,6 +983,102 @@ public class RandomTree extends AbstractClassifier implements OptionHandler,
     }
   }
 
+  /**
+   * Quantizes the numeric attributes of the given data into at most
+   * m_NumBins bins of roughly equal size, replacing each value by the index of
+   * its bin. The boundaries between the bins lie halfway between two distinct
+   * values, like the split points of the tree, and are kept in
+   * m_BinBoundaries to map the split points back. Attributes with at most
+   * m_NumBins distinct values get one bin per value, so the same split points
+   * are found as without binning.
+   * 
+   * @param data the data to quantize, which is modified
+   */
+  protected void binNumericAttributes(Instances data) {
+
+    m_BinBoundaries = new double[data.numAttributes()][];
+    for (int j = 0; j < data.numAttributes(); j++) {
+      if ((j == data.classIndex()) || !data.attribute(j).isNumeric()) {
+        continue;
+      }
+
+      // Sort the values that are not missing
+      double[] vals = new double[data.numInstances()];
+      int numVals = 0;
+      for (int i = 0; i < data.numInstances(); i++) {
+        Instance inst = data.instance(i);
+        if (!inst.isMissing(j)) {
+          vals[numVals++] = inst.value(j);
+        }
+      }
+      Arrays.sort(vals, 0, numVals);
+
+      int numDistinct = (numVals > 0) ? 1 : 0;
+      for (int i = 1; i < numVals; i++) {
+        if (vals[i] > vals[i - 1]) {
+          numDistinct++;
+        }
+      }
+
+      // Place a boundary before each distinct value if there are few of them,
+      // otherwise before the first distinct value at or after each quantile
+      double[] boundaries =
+        new double[Math.max(0, Math.min(numDistinct, m_NumBins) - 1)];
+      int numBoundaries = 0;
+      int pos = 1;
+      for (int q = 1; (q < m_NumBins) && (pos < numVals); q++) {
+        if (numDistinct > m_NumBins) {
+          pos = Math.max(pos, (int) ((long) q * numVals / m_NumBins));
+        }
+        while ((pos < numVals) && (vals[pos] == vals[pos - 1])) {
+          pos++;
+        }
+        if (pos == numVals) {
+          break;
+        }
+        double boundary = (vals[pos - 1] + vals[pos]) / 2.0;
+
+        // Check for numeric precision problems
+        if (boundary <= vals[pos - 1]) {
+          boundary = vals[pos];
+        }
+        boundaries[numBoundaries++] = boundary;
+        pos++;
+      }
+      m_BinBoundaries[j] = Arrays.copyOf(boundaries, numBoundaries);
+
+      // Replace values by bins
+      for (int i = 0; i < data.numInstances(); i++) {
+        Instance inst = data.instance(i);
+        if (!inst.isMissing(j)) {
+          inst.setValue(j, bin(m_BinBoundaries[j], inst.value(j)));
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the bin of a value, i.e., the number of boundaries that are less
+   * than or equal to it.
+   * 
+   * @param boundaries the boundaries between the bins, in ascending order
+   * @param value the value
+   * @return the index of the bin
+   */
+  protected static int bin(double[] boundaries, double value) {
+
+    int lo = 0, hi = boundaries.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (boundaries[mid] <= value) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
   /**
    * Computes class distribution of an instance using the tree.
    * 
@@ -819,11 +1091,51 @@ public class RandomTree extends AbstractClassifier implements OptionHandler,
 
     if (m_zeroR != null) {
       return m_zeroR.distributionForInstance(instance);
+    } else if (m_Compiled != null) {
+      return m_Compiled.distributionForInstance(0, instance);
     } else {
       return m_Tree.distributionForInstance(instance);
     }
   }
 
+  /**
+   * Compiles the tree into flat arrays (see {@link CompiledTrees}), which are
+   * used for predictions from then on, until the tree is built again.
+   * Predictions are the same, but faster.
+   * 
+   * @throws Exception if no tree has been built yet
+   */
+  public void compile() throws Exception {
+
+    if ((m_Tree == null) && (m_zeroR == null)) {
+      throw new Exception("No model built yet.");
+    }
+    CompiledTrees compiled = new CompiledTrees(m_Info);
+    compileInto(compiled);
+    compiled.trimToSize();
+    m_Compiled = compiled;
+  }
+
+  /**
+   * Adds the tree to the given compiled trees. If ZeroR is used instead of a
+   * tree, a single leaf predicting the ZeroR distribution is added.
+   * 
+   * @param compiled the compiled trees to add the tree to
+   * @throws Exception if the ZeroR distribution cannot be computed
+   */
+  protected void compileInto(CompiledTrees compiled) throws Exception {
+
+    if (m_zeroR != null) {
+      // ZeroR ignores the attribute values
+      Instance instance = new DenseInstance(m_Info.numAttributes());
+      instance.setDataset(m_Info);
+      compiled.setDistribution(compiled.addTree(),
+        m_zeroR.distributionForInstance(instance));
+      return;
+    }
+    m_Tree.compile(compiled, compiled.addTree());
+  }
+
   /**
    * Outputs the decision tree.
    * 
@@ -995,6 +1307,9 @@ public class RandomTree extends AbstractClassifier implements OptionHandler,
      */
     protected double[] m_Distribution = null;
 
+    /** The value of the splitting criterion, only while the tree is built */
+    protected transient double m_ImpurityDecrease;
+
     /**
      * Backfits the given data into the tree.
      */
@@ -1476,36 +1791,74 @@ public class RandomTree extends AbstractClassifier implements OptionHandler,
       int k = m_KValue;
       boolean gainFound = false;
       double[] tempNumericVals = new double[data.numAttributes()];
-      while ((windowSize > 0) && (k-- > 0 || !gainFound)) {
+      if (m_NumExecutionSlots == 1) {
+        while ((windowSize > 0) && (k-- > 0 || !gainFound)) {
+
+          int chosenIndex = random.nextInt(windowSize);
+          attIndex = attIndicesWindow[chosenIndex];
 
-        int chosenIndex = random.nextInt(windowSize);
-        attIndex = attIndicesWindow[chosenIndex];
+          // shift chosen attIndex out of window
+          attIndicesWindow[chosenIndex] = attIndicesWindow[windowSize - 1];
+          attIndicesWindow[windowSize - 1] = attIndex;
+          windowSize--;
 
-        // shift chosen attIndex out of window
-        attIndicesWindow[chosenIndex] = attIndicesWindow[windowSize - 1];
-        attIndicesWindow[windowSize - 1] = attIndex;
-        windowSize--;
+          double currSplit =
+            data.classAttribute().isNominal() ? distribution(props, dists,
+              attIndex, data) : numericDistribution(props, dists, attIndex,
+              totalSubsetWeights, data, tempNumericVals);
 
-        double currSplit =
-          data.classAttribute().isNominal() ? distribution(props, dists,
-            attIndex, data) : numericDistribution(props, dists, attIndex,
-            totalSubsetWeights, data, tempNumericVals);
+          double currVal =
+            data.classAttribute().isNominal() ? gain(dists[0], priorVal(dists[0]))
+              : tempNumericVals[attIndex];
 
-        double currVal =
-          data.classAttribute().isNominal() ? gain(dists[0], priorVal(dists[0]))
-            : tempNumericVals[attIndex];
+          if (Utils.gr(currVal, 0)) {
+            gainFound = true;
+          }
 
-        if (Utils.gr(currVal, 0)) {
-          gainFound = true;
+          if ((currVal > val)
+            || ((!getBreakTiesRandomly()) && (currVal == val) && (attIndex < bestIndex))) {
+            val = currVal;
+            bestIndex = attIndex;
+            split = currSplit;
+            bestProps = props[0];
+            bestDists = dists[0];
+          }
         }
+      } else {
+
+        // Draw the K attributes first and evaluate them on their own views
+        // of the data, in parallel if the node is large enough, then draw
+        // one attribute at a time until a gain is found
+        while ((windowSize > 0) && ((k > 0) || !gainFound)) {
+          List<SplitTask> steps = new ArrayList<SplitTask>();
+          do {
+            int chosenIndex = random.nextInt(windowSize);
+            attIndex = attIndicesWindow[chosenIndex];
+
+            // shift chosen attIndex out of window
+            attIndicesWindow[chosenIndex] = attIndicesWindow[windowSize - 1];
+            attIndicesWindow[windowSize - 1] = attIndex;
+            windowSize--;
+
+            steps.add(new SplitTask(this, attIndex, data,
+              totalSubsetWeights, tempNumericVals));
+          } while ((windowSize > 0) && (--k > 0));
+          TreeBuildTask.runAll(steps, data.numInstances());
+
+          for (SplitTask step : steps) {
+            if (Utils.gr(step.m_Val, 0)) {
+              gainFound = true;
+            }
 
-        if ((currVal > val)
-          || ((!getBreakTiesRandomly()) && (currVal == val) && (attIndex < bestIndex))) {
-          val = currVal;
-          bestIndex = attIndex;
-          split = currSplit;
-          bestProps = props[0];
-          bestDists = dists[0];
+            if ((step.m_Val > val)
+              || ((!getBreakTiesRandomly()) && (step.m_Val == val) && (step.m_Att < bestIndex))) {
+              val = step.m_Val;
+              bestIndex = step.m_Att;
+              split = step.m_Split;
+              bestProps = step.m_Props[0];
+              bestDists = step.m_Dists[0];
+            }
+          }
         }
       }
 
@@ -1514,23 +1867,44 @@ public class RandomTree extends AbstractClassifier implements OptionHandler,
 
       // Any useful split found?
       if (Utils.gr(val, 0)) {
-        if (m_computeImpurityDecreases) {
-          m_impurityDecreasees[m_Attribute][0] += val;
-          m_impurityDecreasees[m_Attribute][1]++;
-        }
+        m_ImpurityDecrease = val;
 
         // Build subtrees
         m_SplitPoint = split;
         m_Prop = bestProps;
         Instances[] subsets = splitData(data);
+
+        // Map a split point between two bins back to the attribute's values
+        if ((m_BinBoundaries != null)
+          && data.attribute(m_Attribute).isNumeric()
+          && !Double.isNaN(m_SplitPoint)) {
+          m_SplitPoint = m_BinBoundaries[m_Attribute][(int) m_SplitPoint];
+        }
         m_Successors = new Tree[bestDists.length];
         double[] attTotalSubsetWeights = totalSubsetWeights[bestIndex];
 
-        for (int i = 0; i < bestDists.length; i++) {
-          m_Successors[i] = new Tree();
-          m_Successors[i].buildTree(subsets[i], bestDists[i], attIndicesWindow,
-            data.classAttribute().isNominal() ? 0 : attTotalSubsetWeights[i],
-            random, depth + 1, minVariance);
+        if (m_NumExecutionSlots == 1) {
+          for (int i = 0; i < bestDists.length; i++) {
+            m_Successors[i] = new Tree();
+            m_Successors[i].buildTree(subsets[i], bestDists[i],
+              attIndicesWindow, data.classAttribute().isNominal() ? 0
+                : attTotalSubsetWeights[i], random, depth + 1, minVariance);
+          }
+        } else {
+
+          // Each subtree gets its own attribute window and random number
+          // generator, so that it does not depend on the order the subtrees
+          // are built in
+          List<SubtreeTask> subtrees =
+            new ArrayList<SubtreeTask>(bestDists.length);
+          for (int i = 0; i < bestDists.length; i++) {
+            m_Successors[i] = new Tree();
+            subtrees.add(new SubtreeTask(m_Successors[i], subsets[i],
+              bestDists[i], attIndicesWindow.clone(), data.classAttribute()
+                .isNominal() ? 0 : attTotalSubsetWeights[i], new Random(
+                random.nextLong()), depth + 1, minVariance));
+          }
+          TreeBuildTask.runAll(subtrees, data.numInstances());
         }
 
         // If all successors are non-empty, we don't need to store the class
@@ -1558,6 +1932,54 @@ public class RandomTree extends AbstractClassifier implements OptionHandler,
       }
     }
 
+    /**
+     * Adds this subtree to the given compiled trees, with the distributions
+     * that distributionForInstance() returns.
+     * 
+     * @param compiled the compiled trees
+     * @param node the node of this subtree in the compiled trees
+     */
+    protected void compile(CompiledTrees compiled, int node) {
+
+      if (m_Attribute > -1) {
+        int first =
+          compiled.setSplit(node, m_Attribute, m_SplitPoint, m_Prop);
+        for (int i = 0; i < m_Successors.length; i++) {
+          m_Successors[i].compile(compiled, first + i);
+        }
+      }
+
+      double[] dist = m_ClassDistribution;
+      if (dist != null) {
+        if (m_Info.classAttribute().isNominal() && Utils.gr(Utils.sum(dist), 0)) {
+          dist = dist.clone();
+          Utils.normalize(dist);
+        }
+      } else if ((m_Attribute == -1) && getAllowUnclassifiedInstances()) {
+        dist = new double[m_Info.numClasses()];
+        if (m_Info.classAttribute().isNumeric()) {
+          dist[0] = Utils.missingValue();
+        }
+      }
+      compiled.setDistribution(node, dist);
+    }
+
+    /**
+     * Adds the impurity decreases of the splits in the tree to
+     * m_impurityDecreasees, in the order the nodes were created without
+     * parallelism.
+     */
+    protected void addImpurityDecreases() {
+
+      if (m_Attribute > -1) {
+        m_impurityDecreasees[m_Attribute][0] += m_ImpurityDecrease;
+        m_impurityDecreasees[m_Attribute][1]++;
+        for (Tree successor : m_Successors) {
+          successor.addImpurityDecreases();
+        }
+      }
+    }
+
     /**
      * Computes size of the tree.
      * 
@@ -1694,6 +2116,86 @@ public class RandomTree extends AbstractClassifier implements OptionHandler,
         totalSum = Utils.sum(sums);
         totalSumSquared = Utils.sum(sumSquared);
         totalSumOfWeights = Utils.sum(sumOfWeights);
+      } else if (m_BinBoundaries != null) {
+        // For numeric attributes quantized into bins
+        int numBins = m_BinBoundaries[att].length + 1;
+        double[] binSums = new double[numBins];
+        double[] binSumSquared = new double[numBins];
+        double[] binSumOfWeights = new double[numBins];
+        int[] binCounts = new int[numBins];
+
+        // Compute the sums of each bin, no sorting required
+        for (int i = 0; i < data.numInstances(); i++) {
+          Instance inst = data.instance(i);
+          if (inst.isMissing(att)) {
+            if (indexOfFirstMissingValue == data.numInstances()) {
+              indexOfFirstMissingValue = i;
+            }
+            continue;
+          }
+
+          int bin = (int) inst.value(att);
+          binSums[bin] += inst.classValue() * inst.weight();
+          binSumSquared[bin] +=
+            inst.classValue() * inst.classValue() * inst.weight();
+          binSumOfWeights[bin] += inst.weight();
+          binCounts[bin]++;
+        }
+
+        sums = new double[2];
+        sumSquared = new double[2];
+        sumOfWeights = new double[2];
+        double[] currSums = new double[2];
+        double[] currSumSquared = new double[2];
+        double[] currSumOfWeights = new double[2];
+
+        // Move all bins into second subset
+        for (int b = 0; b < numBins; b++) {
+          currSums[1] += binSums[b];
+          currSumSquared[1] += binSumSquared[b];
+          currSumOfWeights[1] += binSumOfWeights[b];
+        }
+
+        totalSum = currSums[1];
+        totalSumSquared = currSumSquared[1];
+        totalSumOfWeights = currSumOfWeights[1];
+
+        sums[1] = currSums[1];
+        sumSquared[1] = currSumSquared[1];
+        sumOfWeights[1] = currSumOfWeights[1];
+
+        // Try the boundaries between non-empty bins
+        int prevBin = -1;
+        double currVal, bestVal = Double.MAX_VALUE;
+        for (int b = 0; b < numBins; b++) {
+          if (binCounts[b] == 0) {
+            continue;
+          }
+
+          if (prevBin >= 0) {
+            currVal =
+              RandomTree.variance(currSums, currSumSquared, currSumOfWeights);
+            if (currVal < bestVal) {
+              bestVal = currVal;
+              splitPoint = prevBin + 0.5;
+
+              for (int j = 0; j < 2; j++) {
+                sums[j] = currSums[j];
+                sumSquared[j] = currSumSquared[j];
+                sumOfWeights[j] = currSumOfWeights[j];
+              }
+            }
+          }
+          prevBin = b;
+
+          currSums[0] += binSums[b];
+          currSumSquared[0] += binSumSquared[b];
+          currSumOfWeights[0] += binSumOfWeights[b];
+
+          currSums[1] -= binSums[b];
+          currSumSquared[1] -= binSumSquared[b];
+          currSumOfWeights[1] -= binSumOfWeights[b];
+        }
       } else {
         // For numeric attributes
         sums = new double[2];
@@ -1789,6 +2291,12 @@ public class RandomTree extends AbstractClassifier implements OptionHandler,
       for (int i = indexOfFirstMissingValue; i < data.numInstances(); i++) {
         Instance inst = data.instance(i);
 
+        // Binned data is not sorted, values may follow a missing one
+        if ((m_BinBoundaries != null) && attribute.isNumeric()
+          && !inst.isMissing(att)) {
+          continue;
+        }
+
         for (int j = 0; j < sums.length; j++) {
           sums[j] += props[0][j] * inst.classValue() * inst.weight();
           sumSquared[j] +=
@@ -1858,6 +2366,70 @@ public class RandomTree extends AbstractClassifier implements OptionHandler,
           }
           dist[(int) inst.value(att)][(int) inst.classValue()] += inst.weight();
         }
+      } else if (m_BinBoundaries != null) {
+
+        // For numeric attributes quantized into bins
+        double[][] binDists =
+          new double[m_BinBoundaries[att].length + 1][data.numClasses()];
+        int[] binCounts = new int[binDists.length];
+
+        // Compute the class distribution of each bin, no sorting required
+        for (int i = 0; i < data.numInstances(); i++) {
+          Instance inst = data.instance(i);
+          if (inst.isMissing(att)) {
+            if (indexOfFirstMissingValue == data.numInstances()) {
+              indexOfFirstMissingValue = i;
+            }
+            continue;
+          }
+          int bin = (int) inst.value(att);
+          binDists[bin][(int) inst.classValue()] += inst.weight();
+          binCounts[bin]++;
+        }
+
+        // Move all bins into second subset
+        double[][] currDist = new double[2][data.numClasses()];
+        dist = new double[2][data.numClasses()];
+        for (double[] binDist : binDists) {
+          for (int c = 0; c < binDist.length; c++) {
+            currDist[1][c] += binDist[c];
+          }
+        }
+
+        // Value before splitting
+        double priorVal = priorVal(currDist);
+
+        // Save initial distribution
+        for (int j = 0; j < currDist.length; j++) {
+          System.arraycopy(currDist[j], 0, dist[j], 0, dist[j].length);
+        }
+
+        // Try the boundaries between non-empty bins
+        int prevBin = -1;
+        double currVal, bestVal = -Double.MAX_VALUE;
+        for (int b = 0; b < binDists.length; b++) {
+          if (binCounts[b] == 0) {
+            continue;
+          }
+
+          if (prevBin >= 0) {
+            currVal = gain(currDist, priorVal);
+            if (currVal > bestVal) {
+              bestVal = currVal;
+              splitPoint = prevBin + 0.5;
+              for (int j = 0; j < currDist.length; j++) {
+                System.arraycopy(currDist[j], 0, dist[j], 0, dist[j].length);
+              }
+            }
+          }
+          prevBin = b;
+
+          // Shift over the weight of the bin
+          for (int c = 0; c < binDists[b].length; c++) {
+            currDist[0][c] += binDists[b][c];
+            currDist[1][c] -= binDists[b][c];
+          }
+        }
       } else {
 
         // For numeric attributes
@@ -1947,7 +2519,7 @@ public class RandomTree extends AbstractClassifier implements OptionHandler,
       // Distribute weights for instances with missing values
       for (int i = indexOfFirstMissingValue; i < data.numInstances(); i++) {
         Instance inst = data.instance(i);
-        if (attribute.isNominal()) {
+        if (attribute.isNominal() || (m_BinBoundaries != null)) {
 
           // Need to check if attribute value is missing
           if (inst.isMissing(att)) {
@@ -2049,6 +2621,157 @@ public class RandomTree extends AbstractClassifier implements OptionHandler,
     }
   }
 
+  /**
+   * Builds a subtree, in parallel to its siblings if the parent node is large
+   * enough.
+   */
+  protected class SubtreeTask extends TreeBuildTask {
+
+    /** for serialization */
+    private static final long serialVersionUID = 4931760745914361262L;
+
+    /** the subtree to build */
+    protected Tree m_Subtree;
+
+    /** the data to work with */
+    protected Instances m_Data;
+
+    /** the class distribution */
+    protected double[] m_ClassProbs;
+
+    /** the attribute window to choose attributes from */
+    protected int[] m_AttIndicesWindow;
+
+    /** the total weight of the instances */
+    protected double m_TotalWeight;
+
+    /** the random number generator for choosing random attributes */
+    protected Random m_Random;
+
+    /** the depth of the subtree */
+    protected int m_Depth;
+
+    /** the minimum variance for a split */
+    protected double m_MinVariance;
+
+    /**
+     * Sets up the task, see Tree.buildTree() for the parameters.
+     * 
+     * @param subtree the subtree to build
+     * @param data the data to work with
+     * @param classProbs the class distribution
+     * @param attIndicesWindow the attribute window to choose attributes from
+     * @param totalWeight the total weight of the instances
+     * @param random random number generator for choosing random attributes
+     * @param depth the current depth
+     * @param minVariance the minimum variance for a split
+     */
+    protected SubtreeTask(Tree subtree, Instances data, double[] classProbs,
+      int[] attIndicesWindow, double totalWeight, Random random, int depth,
+      double minVariance) {
+
+      m_Subtree = subtree;
+      m_Data = data;
+      m_ClassProbs = classProbs;
+      m_AttIndicesWindow = attIndicesWindow;
+      m_TotalWeight = totalWeight;
+      m_Random = random;
+      m_Depth = depth;
+      m_MinVariance = minVariance;
+    }
+
+    /**
+     * Builds the subtree.
+     * 
+     * @throws Exception if building fails
+     */
+    @Override
+    protected void build() throws Exception {
+
+      m_Subtree.buildTree(m_Data, m_ClassProbs, m_AttIndicesWindow,
+        m_TotalWeight, m_Random, m_Depth, m_MinVariance);
+    }
+  }
+
+  /**
+   * Evaluates the splits on one attribute, in parallel to the other
+   * attributes if the node is large enough. Numeric attributes are sorted on
+   * a view of the data, so that the node's data is not reordered.
+   */
+  protected class SplitTask extends TreeBuildTask {
+
+    /** for serialization */
+    private static final long serialVersionUID = -1526381129446011536L;
+
+    /** the node to find the split for */
+    protected Tree m_Node;
+
+    /** the attribute to evaluate */
+    protected int m_Att;
+
+    /** the data to work with */
+    protected Instances m_Data;
+
+    /** the weights of the subsets, indexed by attribute */
+    protected double[][] m_SubsetWeights;
+
+    /** the gains in the numeric case, indexed by attribute */
+    protected double[] m_NumericVals;
+
+    /** the proportions of the subsets */
+    protected double[][] m_Props = new double[1][0];
+
+    /** the class distributions of the subsets */
+    protected double[][][] m_Dists = new double[1][0][0];
+
+    /** the split point */
+    protected double m_Split;
+
+    /** the value of the splitting criterion */
+    protected double m_Val;
+
+    /**
+     * Sets up the task.
+     * 
+     * @param node the node to find the split for
+     * @param att the attribute to evaluate
+     * @param data the data to work with
+     * @param subsetWeights the weights of the subsets, indexed by attribute
+     * @param numericVals the gains in the numeric case, indexed by attribute
+     */
+    protected SplitTask(Tree node, int att, Instances data,
+      double[][] subsetWeights, double[] numericVals) {
+
+      m_Node = node;
+      m_Att = att;
+      m_Data = data;
+      m_SubsetWeights = subsetWeights;
+      m_NumericVals = numericVals;
+    }
+
+    /**
+     * Evaluates the splits on the attribute.
+     * 
+     * @throws Exception if evaluation fails
+     */
+    @Override
+    protected void build() throws Exception {
+
+      Instances data = m_Data;
+      if ((m_BinBoundaries == null) && data.attribute(m_Att).isNumeric()) {
+        data = new InstancesView(data, 0, data.numInstances());
+      }
+      if (data.classAttribute().isNominal()) {
+        m_Split = m_Node.distribution(m_Props, m_Dists, m_Att, data);
+        m_Val = m_Node.gain(m_Dists[0], m_Node.priorVal(m_Dists[0]));
+      } else {
+        m_Split = m_Node.numericDistribution(m_Props, m_Dists, m_Att,
+          m_SubsetWeights, data, m_NumericVals);
+        m_Val = m_NumericVals[m_Att];
+      }
+    }
+  }
+
   /**
    * Computes variance for subsets.
    * 
@@ -0,0 +1,148 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    TreeBuildTask.java
+ *    Copyright (C) 2026 lendle
+ *
+ */
+
+package weka.classifiers.trees;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A step of building a tree, e.g., building a subtree or evaluating the splits
+ * on an attribute, that can run as a fork/join task. Tree learners use it to
+ * build large subtrees and evaluate attributes at large nodes in parallel,
+ * while small nodes are processed on the current thread. An exception thrown
+ * by a step is passed on to the caller.
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+public abstract class TreeBuildTask extends RecursiveAction {
+
+  /** for serialization */
+  private static final long serialVersionUID = 2979226625627779213L;
+
+  /**
+   * The minimum number of instances at a node for its subtrees and attributes
+   * to be processed in parallel
+   */
+  public static final int MIN_PARALLEL_INSTANCES = 1000;
+
+  /** the exception thrown by the step */
+  protected Exception m_Failure;
+
+  /**
+   * Performs the step.
+   *
+   * @throws Exception if the step fails
+   */
+  protected abstract void build() throws Exception;
+
+  /**
+   * Performs the step, keeping an exception for the caller.
+   */
+  @Override
+  protected void compute() {
+
+    try {
+      build();
+    } catch (Exception e) {
+      m_Failure = e;
+    }
+  }
+
+  /**
+   * Creates a pool for building trees.
+   *
+   * @param numSlots the number of threads, 0 for one per available processor
+   * @return the pool
+   * @throws Exception if the number of threads is negative
+   */
+  public static ForkJoinPool newPool(int numSlots) throws Exception {
+
+    if (numSlots == 0) {
+      numSlots = Runtime.getRuntime().availableProcessors();
+    }
+    if (numSlots < 1) {
+      throw new Exception("Number of execution slots needs to be >= 0!");
+    }
+    return new ForkJoinPool(numSlots);
+  }
+
+  /**
+   * Performs the given step in the given pool and waits for it.
+   *
+   * @param pool the pool
+   * @param step the step
+   * @throws Exception if the step fails
+   */
+  public static void run(ForkJoinPool pool, TreeBuildTask step)
+    throws Exception {
+
+    pool.invoke(step);
+    if (step.m_Failure != null) {
+      throw step.m_Failure;
+    }
+  }
+
+  /**
+   * Performs the given steps, in parallel if called from a step running in a
+   * pool and the node is large enough, otherwise in the given order on the
+   * current thread. The steps must not depend on each other.
+   *
+   * @param steps the steps
+   * @param numInstances the number of instances at the node
+   * @throws Exception the exception of the first step that fails
+   */
+  public static void runAll(List<? extends TreeBuildTask> steps,
+    int numInstances) throws Exception {
+
+    if (isParallel(numInstances)) {
+      ForkJoinTask.invokeAll(steps);
+    } else {
+      for (TreeBuildTask step : steps) {
+        step.compute();
+        if (step.m_Failure != null) {
+          break;
+        }
+      }
+    }
+    for (TreeBuildTask step : steps) {
+      if (step.m_Failure != null) {
+        throw step.m_Failure;
+      }
+    }
+  }
+
+  /**
+   * Returns whether a node is processed in parallel.
+   *
+   * @param numInstances the number of instances at the node
+   * @return true if called from a step running in a pool and the node is large
+   *         enough
+   */
+  public static boolean isParallel(int numInstances) {
+
+    return (numInstances >= MIN_PARALLEL_INSTANCES)
+      && ForkJoinTask.inForkJoinPool();
+  }
+}
@@ -28,6 +28,8 @@ import weka.classifiers.Evaluation;
 import weka.classifiers.functions.LinearRegression;
 import weka.core.Instance;
 import weka.core.Instances;
+import weka.core.InstancesView;
+import weka.core.PresortedIndex;
 import weka.core.RevisionUtils;
 import weka.core.Utils;
 import weka.filters.Filter;
@@ -49,6 +51,18 @@ public class RuleNode extends AbstractClassifier {
    */
   private Instances m_instances;
 
+  /**
+   * the indices of the instances reaching this node, sorted by each
+   * attribute; only used while building
+   */
+  private transient PresortedIndex m_sortedIndex;
+
+  /**
+   * scratch array for partitioning the sorted indices, shared by all nodes
+   * of the tree; only used while building
+   */
+  private transient int[] m_subsetOf;
+
   /**
    * the class index
    */
@@ -192,6 +206,26 @@ public class RuleNode extends AbstractClassifier {
   @Override
   public void buildClassifier(Instances data) throws Exception {
 
+    // sort the instances by each attribute once, the nodes below partition
+    // the sorted indices instead of sorting their instances again
+    buildClassifier(data, new PresortedIndex(data),
+      new int[data.numInstances()]);
+  }
+
+  /**
+   * Build this node (find an attribute and split point)
+   * 
+   * @param data the instances on which to build this node
+   * @param sortedIndex the indices of the instances sorted by each attribute
+   * @param subsetOf scratch array for partitioning the sorted indices, as
+   *          long as the data the index was created for
+   * @throws Exception if an error occurs
+   */
+  protected void buildClassifier(Instances data, PresortedIndex sortedIndex,
+    int[] subsetOf) throws Exception {
+
+    m_sortedIndex = sortedIndex;
+    m_subsetOf = subsetOf;
     m_rootMeanSquaredError = Double.MAX_VALUE;
     // m_instances = new Instances(data);
     m_instances = data;
@@ -267,19 +301,24 @@ public class RuleNode extends AbstractClassifier {
     Instances leftSubset, rightSubset;
     SplitEvaluate bestSplit, currentSplit;
     boolean[] attsBelow;
+    Instances indexed = m_sortedIndex.getData();
 
     if (!m_isLeaf) {
 
       bestSplit = new YongSplitInfo(0, m_numInstances - 1, -1);
       currentSplit = new YongSplitInfo(0, m_numInstances - 1, -1);
+      InstancesView sorted = new InstancesView(indexed, m_numInstances);
 
       // find the best attribute to split on
       for (i = 0; i < m_numAttributes; i++) {
-        if (i != m_classIndex) {
+        if (m_sortedIndex.isIndexed(i)) {
 
-          // sort the instances by this attribute
-          m_instances.sort(i);
-          currentSplit.attrSplit(i, m_instances);
+          // the instances sorted by this attribute, taken from the index
+          sorted.delete();
+          for (int index : m_sortedIndex.sortedIndices(i)) {
+            sorted.addShared(indexed.instance(index));
+          }
+          currentSplit.attrSplit(i, sorted);
 
           if ((Math.abs(currentSplit.maxImpurity() - bestSplit.maxImpurity()) > 1.e-6)
             && (currentSplit.maxImpurity() > bestSplit.maxImpurity() + 1.e-6)) {
@@ -295,32 +334,26 @@ public class RuleNode extends AbstractClassifier {
       } else {
         m_splitAtt = bestSplit.splitAttr();
         m_splitValue = bestSplit.splitValue();
-        leftSubset = new Instances(m_instances, m_numInstances);
-        rightSubset = new Instances(m_instances, m_numInstances);
-
-        for (i = 0; i < m_numInstances; i++) {
-          if (m_instances.instance(i).value(m_splitAtt) <= m_splitValue) {
-            leftSubset.add(m_instances.instance(i));
-          } else {
-            rightSubset.add(m_instances.instance(i));
-          }
+        for (int index : m_sortedIndex.indices()) {
+          m_subsetOf[index] =
+            (indexed.instance(index).value(m_splitAtt) <= m_splitValue) ? 0 : 1;
         }
-
-        leftSubset.compactify();
-        rightSubset.compactify();
+        PresortedIndex[] subsetIndices = m_sortedIndex.partition(m_subsetOf, 2);
+        leftSubset = subset(subsetIndices[0]);
+        rightSubset = subset(subsetIndices[1]);
 
         // build left and right nodes
         m_left = new RuleNode(m_globalDeviation, m_globalAbsDeviation, this);
         m_left.setMinNumInstances(m_splitNum);
         m_left.setRegressionTree(m_regressionTree);
         m_left.setSaveInstances(m_saveInstances);
-        m_left.buildClassifier(leftSubset);
+        m_left.buildClassifier(leftSubset, subsetIndices[0], m_subsetOf);
 
         m_right = new RuleNode(m_globalDeviation, m_globalAbsDeviation, this);
         m_right.setMinNumInstances(m_splitNum);
         m_right.setRegressionTree(m_regressionTree);
         m_right.setSaveInstances(m_saveInstances);
-        m_right.buildClassifier(rightSubset);
+        m_right.buildClassifier(rightSubset, subsetIndices[1], m_subsetOf);
 
         // now find out what attributes are tested in the left and right
         // subtrees and use them to learn a linear model for this node
@@ -364,6 +397,26 @@ public class RuleNode extends AbstractClassifier {
       // need to evaluate the model here if want correct stats for unpruned
       // tree
     }
+
+    m_sortedIndex = null;
+    m_subsetOf = null;
+  }
+
+  /**
+   * Copies the instances of a child node out of the data the sorted index was
+   * created for.
+   * 
+   * @param subsetIndex the sorted index of the child
+   * @return the instances reaching the child
+   */
+  private Instances subset(PresortedIndex subsetIndex) {
+    Instances indexed = subsetIndex.getData();
+    Instances subset = new Instances(m_instances, subsetIndex.numInstances());
+
+    for (int index : subsetIndex.indices()) {
+      subset.add(indexed.instance(index));
+    }
+    return subset;
   }
 
   /**
@@ -0,0 +1,321 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    ColumnarInstance.java
+ *    Copyright (C) 2026 lendle
+ *
+ */
+
+package weka.core;
+
+/**
+ * A lightweight view of one row of a {@link ColumnarInstances} object. The
+ * attribute values are not held by the instance itself but read from and
+ * written to the columns of the dataset, so that changing a value changes the
+ * dataset. Only the weight is stored in the instance. Copies of a
+ * ColumnarInstance (<code>copy()</code>, <code>mergeInstance()</code>) are
+ * independent DenseInstance objects.
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+public class ColumnarInstance extends AbstractInstance {
+
+  /** for serialization */
+  private static final long serialVersionUID = -2427387165137306212L;
+
+  /** the columns holding the values */
+  protected ColumnarInstances.ColumnStore m_Store;
+
+  /** the row of this instance in the columns */
+  protected int m_Row;
+
+  /**
+   * Creates a view of the given row. Reference to the dataset is set to null.
+   *
+   * @param store the columns holding the values
+   * @param row the row in the columns
+   * @param weight the instance's weight
+   */
+  protected ColumnarInstance(ColumnarInstances.ColumnStore store, int row,
+    double weight) {
+
+    m_Store = store;
+    m_Row = row;
+    m_Weight = weight;
+    m_Dataset = null;
+  }
+
+  /**
+   * Produces a copy of this instance as a DenseInstance that no longer shares
+   * its values with the dataset. The copy has access to the same dataset.
+   *
+   * @return the copy
+   */
+  @Override
+  public/* @pure@ */Object copy() {
+
+    DenseInstance result = new DenseInstance(m_Weight, toDoubleArray());
+    result.m_Dataset = m_Dataset;
+    return result;
+  }
+
+  /**
+   * Copies the instance but fills up its values based on the given array of
+   * doubles. The copy is a DenseInstance with access to the same dataset.
+   *
+   * @param values the array with new values
+   * @return the new instance
+   */
+  @Override
+  public Instance copy(double[] values) {
+
+    DenseInstance result = new DenseInstance(m_Weight, values);
+    result.m_Dataset = m_Dataset;
+    return result;
+  }
+
+  /**
+   * Returns the index of the attribute stored at the given position. Just
+   * returns the given value.
+   *
+   * @param position the position
+   * @return the index of the attribute stored at the given position
+   */
+  @Override
+  public/* @pure@ */int index(int position) {
+
+    return position;
+  }
+
+  /**
+   * Merges this instance with the given instance and returns the result as a
+   * DenseInstance. Dataset is set to null.
+   *
+   * @param inst the instance to be merged with this one
+   * @return the merged instances
+   */
+  @Override
+  public Instance mergeInstance(Instance inst) {
+
+    int m = 0;
+    double[] newVals = new double[numAttributes() + inst.numAttributes()];
+    for (int j = 0; j < numAttributes(); j++, m++) {
+      newVals[m] = value(j);
+    }
+    for (int j = 0; j < inst.numAttributes(); j++, m++) {
+      newVals[m] = inst.value(j);
+    }
+    return new DenseInstance(1.0, newVals);
+  }
+
+  /**
+   * Returns the number of attributes.
+   *
+   * @return the number of attributes as an integer
+   */
+  @Override
+  public/* @pure@ */int numAttributes() {
+
+    return m_Store.numColumns();
+  }
+
+  /**
+   * Returns the number of values present. Always the same as numAttributes().
+   *
+   * @return the number of values
+   */
+  @Override
+  public/* @pure@ */int numValues() {
+
+    return m_Store.numColumns();
+  }
+
+  /**
+   * Replaces all missing values in the instance with the values contained in
+   * the given array.
+   *
+   * @param array containing the means and modes
+   * @throws IllegalArgumentException if numbers of attributes are unequal
+   */
+  @Override
+  public void replaceMissingValues(double[] array) {
+
+    if ((array == null) || (array.length != numAttributes())) {
+      throw new IllegalArgumentException("Unequal number of attributes!");
+    }
+    for (int i = 0; i < array.length; i++) {
+      if (isMissing(i)) {
+        m_Store.set(m_Row, i, array[i]);
+      }
+    }
+  }
+
+  /**
+   * Sets a specific value in the instance, and therefore in the dataset, to
+   * the given value (internal floating-point format).
+   *
+   * @param attIndex the attribute's index
+   * @param value the new attribute value (If the corresponding attribute is
+   *          nominal (or a string) then this is the new value's index as a
+   *          double).
+   */
+  @Override
+  public void setValue(int attIndex, double value) {
+
+    m_Store.set(m_Row, attIndex, value);
+  }
+
+  /**
+   * Sets a specific value in the instance to the given value (internal
+   * floating-point format). Does exactly the same thing as setValue().
+   *
+   * @param indexOfIndex the index of the attribute's index
+   * @param value the new attribute value (If the corresponding attribute is
+   *          nominal (or a string) then this is the new value's index as a
+   *          double).
+   */
+  @Override
+  public void setValueSparse(int indexOfIndex, double value) {
+
+    m_Store.set(m_Row, indexOfIndex, value);
+  }
+
+  /**
+   * Returns the values of each attribute as an array of doubles.
+   *
+   * @return an array containing all the instance attribute values
+   */
+  @Override
+  public double[] toDoubleArray() {
+
+    double[] newValues = new double[numAttributes()];
+    for (int i = 0; i < newValues.length; i++) {
+      newValues[i] = m_Store.get(m_Row, i);
+    }
+    return newValues;
+  }
+
+  /**
+   * Returns the description of one instance (without weight appended).
+   *
+   * @return the instance's description as a string
+   */
+  @Override
+  public String toStringNoWeight() {
+    return toStringNoWeight(AbstractInstance.s_numericAfterDecimalPoint);
+  }
+
+  /**
+   * Returns the description of one instance (without weight appended).
+   *
+   * @param afterDecimalPoint maximum number of digits after the decimal point
+   *          for numeric values
+   *
+   * @return the instance's description as a string
+   */
+  @Override
+  public String toStringNoWeight(int afterDecimalPoint) {
+    StringBuffer text = new StringBuffer();
+
+    for (int i = 0; i < numAttributes(); i++) {
+      if (i > 0) {
+        text.append(",");
+      }
+      text.append(toString(i, afterDecimalPoint));
+    }
+
+    return text.toString();
+  }
+
+  /**
+   * Returns an instance's attribute value in internal format.
+   *
+   * @param attIndex the attribute's index
+   * @return the specified value as a double (If the corresponding attribute is
+   *         nominal (or a string) then it returns the value's index as a
+   *         double).
+   */
+  @Override
+  public/* @pure@ */double value(int attIndex) {
+
+    return m_Store.get(m_Row, attIndex);
+  }
+
+  /**
+   * Returns an instance's attribute value in internal format, given an index in
+   * the sparse representation. Same as value().
+   *
+   * @param indexOfIndex the index of the attribute's index
+   * @return the specified value as a double
+   */
+  @Override
+  public/* @pure@ */double valueSparse(int indexOfIndex) {
+
+    return m_Store.get(m_Row, indexOfIndex);
+  }
+
+  /**
+   * Called for each instance by ColumnarInstances.deleteAttributeAt(), after
+   * the column has been removed from a new set of columns.
+   *
+   * @param position the attribute's position
+   */
+  @Override
+  protected void forceDeleteAttributeAt(int position) {
+
+    followStore();
+  }
+
+  /**
+   * Called for each instance by ColumnarInstances.insertAttributeAt(), after
+   * the column has been added to a new set of columns.
+   *
+   * @param position the attribute's position
+   */
+  @Override
+  protected void forceInsertAttributeAt(int position) {
+
+    followStore();
+  }
+
+  /**
+   * Moves this instance to the set of columns that replaced its current one.
+   *
+   * @throws UnsupportedOperationException if the columns have not been
+   *           replaced, i.e., the attribute was not inserted or deleted
+   *           through the dataset
+   */
+  private void followStore() {
+
+    if (m_Store.m_Successor == null) {
+      throw new UnsupportedOperationException(
+        "Attributes of a ColumnarInstance can only be changed through its "
+          + "dataset, use copy() instead!");
+    }
+    m_Store = m_Store.m_Successor;
+  }
+
+  /**
+   * Returns the revision string.
+   *
+   * @return the revision
+   */
+  @Override
+  public String getRevision() {
+    return RevisionUtils.extract("$Revision$");
+  }
+}
@@ -0,0 +1,697 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    ColumnarInstances.java
+ *    Copyright (C) 2026 lendle
+ *
+ */
+
+package weka.core;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A set of instances that stores its values column by column, in one primitive
+ * array per attribute, instead of one array per instance. The instances of the
+ * set are {@link ColumnarInstance} views of the rows of these columns, so that
+ * all the usual Instances methods work unchanged, while code that processes
+ * one attribute at a time can use {@link #doubleColumn(int)} and
+ * {@link #floatColumn(int)} to read the values without any per-instance
+ * overhead. <br/>
+ * <br/>
+ * Numeric and nominal values can optionally be held as floats, which halves
+ * the memory needed at the cost of precision. Date attributes are always held
+ * as doubles. <br/>
+ * <br/>
+ * Rows of instances removed from the set stay in the columns until
+ * compactify() is called, and reordering the set (e.g., with randomize() or
+ * sort()) only reorders the views. The column accessors compactify the set
+ * first if necessary, so that the i-th entry of a column is always the value
+ * of the i-th instance.
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+public class ColumnarInstances extends Instances {
+
+  /** for serialization */
+  private static final long serialVersionUID = 4633012876417462361L;
+
+  /** the initial number of rows of a column */
+  protected static final int DEFAULT_CAPACITY = 16;
+
+  /**
+   * The columns of a set of instances. Exactly one of the arrays of a column is
+   * not null.
+   */
+  protected static class ColumnStore implements Serializable {
+
+    /** for serialization */
+    private static final long serialVersionUID = 2101744406566328411L;
+
+    /** the columns held as doubles */
+    protected double[][] m_Doubles;
+
+    /** the columns held as floats */
+    protected float[][] m_Floats;
+
+    /** the number of rows in use */
+    protected int m_NumRows;
+
+    /** the number of rows allocated for each column */
+    protected int m_Capacity;
+
+    /** the columns replacing these ones after an attribute was changed */
+    protected ColumnStore m_Successor;
+
+    /**
+     * Creates empty columns.
+     *
+     * @param useFloat which columns are held as floats
+     * @param capacity the number of rows to reserve
+     */
+    protected ColumnStore(boolean[] useFloat, int capacity) {
+
+      m_Capacity = Math.max(capacity, 1);
+      m_Doubles = new double[useFloat.length][];
+      m_Floats = new float[useFloat.length][];
+      for (int j = 0; j < useFloat.length; j++) {
+        if (useFloat[j]) {
+          m_Floats[j] = new float[m_Capacity];
+        } else {
+          m_Doubles[j] = new double[m_Capacity];
+        }
+      }
+    }
+
+    /**
+     * Creates columns sharing the given arrays.
+     *
+     * @param doubles the columns held as doubles
+     * @param floats the columns held as floats
+     * @param numRows the number of rows in use
+     * @param capacity the number of rows allocated
+     */
+    protected ColumnStore(double[][] doubles, float[][] floats, int numRows,
+      int capacity) {
+
+      m_Doubles = doubles;
+      m_Floats = floats;
+      m_NumRows = numRows;
+      m_Capacity = capacity;
+    }
+
+    /**
+     * Returns the number of columns.
+     *
+     * @return the number of columns
+     */
+    public int numColumns() {
+
+      return m_Doubles.length;
+    }
+
+    /**
+     * Returns a value.
+     *
+     * @param row the row
+     * @param column the column
+     * @return the value
+     */
+    public double get(int row, int column) {
+
+      double[] doubles = m_Doubles[column];
+      if (doubles != null) {
+        return doubles[row];
+      }
+      return m_Floats[column][row];
+    }
+
+    /**
+     * Sets a value.
+     *
+     * @param row the row
+     * @param column the column
+     * @param value the value
+     */
+    public void set(int row, int column, double value) {
+
+      double[] doubles = m_Doubles[column];
+      if (doubles != null) {
+        doubles[row] = value;
+      } else {
+        m_Floats[column][row] = (float) value;
+      }
+    }
+
+    /**
+     * Appends the values of the given instance as a new row.
+     *
+     * @param inst the instance, with the same number of attributes
+     * @return the index of the new row
+     */
+    public int addRow(Instance inst) {
+
+      if (m_NumRows == m_Capacity) {
+        m_Capacity = m_Capacity * 2;
+        for (int j = 0; j < m_Doubles.length; j++) {
+          if (m_Doubles[j] != null) {
+            double[] newColumn = new double[m_Capacity];
+            System.arraycopy(m_Doubles[j], 0, newColumn, 0, m_NumRows);
+            m_Doubles[j] = newColumn;
+          } else {
+            float[] newColumn = new float[m_Capacity];
+            System.arraycopy(m_Floats[j], 0, newColumn, 0, m_NumRows);
+            m_Floats[j] = newColumn;
+          }
+        }
+      }
+      for (int j = 0; j < m_Doubles.length; j++) {
+        set(m_NumRows, j, inst.value(j));
+      }
+      return m_NumRows++;
+    }
+
+    /**
+     * Returns columns with an additional column of missing values at the
+     * given position. The other columns are shared with these columns, which
+     * are not to be used by the dataset anymore.
+     *
+     * @param position the position of the new column
+     * @param useFloat whether the new column is held as floats
+     * @return the new columns
+     */
+    public ColumnStore insertColumn(int position, boolean useFloat) {
+
+      double[][] doubles = new double[m_Doubles.length + 1][];
+      float[][] floats = new float[m_Floats.length + 1][];
+      System.arraycopy(m_Doubles, 0, doubles, 0, position);
+      System.arraycopy(m_Floats, 0, floats, 0, position);
+      System.arraycopy(m_Doubles, position, doubles, position + 1,
+        m_Doubles.length - position);
+      System.arraycopy(m_Floats, position, floats, position + 1,
+        m_Floats.length - position);
+      if (useFloat) {
+        floats[position] = new float[m_Capacity];
+        Arrays.fill(floats[position], Float.NaN);
+      } else {
+        doubles[position] = new double[m_Capacity];
+        Arrays.fill(doubles[position], Utils.missingValue());
+      }
+      m_Successor = new ColumnStore(doubles, floats, m_NumRows, m_Capacity);
+      return m_Successor;
+    }
+
+    /**
+     * Returns columns without the column at the given position. The other
+     * columns are shared with these columns, which are not to be used by the
+     * dataset anymore.
+     *
+     * @param position the position of the column to remove
+     * @return the new columns
+     */
+    public ColumnStore deleteColumn(int position) {
+
+      double[][] doubles = new double[m_Doubles.length - 1][];
+      float[][] floats = new float[m_Floats.length - 1][];
+      System.arraycopy(m_Doubles, 0, doubles, 0, position);
+      System.arraycopy(m_Floats, 0, floats, 0, position);
+      System.arraycopy(m_Doubles, position + 1, doubles, position,
+        doubles.length - position);
+      System.arraycopy(m_Floats, position + 1, floats, position,
+        floats.length - position);
+      m_Successor = new ColumnStore(doubles, floats, m_NumRows, m_Capacity);
+      return m_Successor;
+    }
+  }
+
+  /** the columns */
+  protected ColumnStore m_Store;
+
+  /** whether numeric and nominal values are held as floats */
+  protected boolean m_UseFloats;
+
+  /**
+   * Constructor copying all instances and references to the header information
+   * from the given set of instances. Values are held as doubles.
+   *
+   * @param dataset the set to be copied
+   */
+  public ColumnarInstances(Instances dataset) {
+
+    this(dataset, false);
+  }
+
+  /**
+   * Constructor copying all instances and references to the header information
+   * from the given set of instances.
+   *
+   * @param dataset the set to be copied
+   * @param useFloats whether numeric and nominal values are held as floats
+   */
+  public ColumnarInstances(Instances dataset, boolean useFloats) {
+
+    super(dataset, dataset.numInstances());
+
+    m_UseFloats = useFloats;
+    m_Store = new ColumnStore(columnTypes(), dataset.numInstances());
+    for (int i = 0; i < dataset.numInstances(); i++) {
+      add(dataset.instance(i));
+    }
+  }
+
+  /**
+   * Creates an empty set of instances.
+   *
+   * @param name the name of the relation
+   * @param attInfo the attribute information
+   * @param capacity the capacity of the set
+   * @param useFloats whether numeric and nominal values are held as floats
+   * @throws IllegalArgumentException if attribute names are not unique
+   */
+  public ColumnarInstances(String name, ArrayList<Attribute> attInfo,
+    int capacity, boolean useFloats) {
+
+    super(name, attInfo, capacity);
+
+    m_UseFloats = useFloats;
+    m_Store = new ColumnStore(columnTypes(), capacity);
+  }
+
+  /**
+   * Determines which columns are held as floats.
+   *
+   * @return true for the attributes held as floats
+   */
+  protected boolean[] columnTypes() {
+
+    boolean[] result = new boolean[numAttributes()];
+    for (int j = 0; j < result.length; j++) {
+      result[j] = useFloatFor(attribute(j));
+    }
+    return result;
+  }
+
+  /**
+   * Returns whether the values of the given attribute are held as floats.
+   *
+   * @param att the attribute
+   * @return true if the values are held as floats
+   */
+  protected boolean useFloatFor(Attribute att) {
+
+    return m_UseFloats && !att.isDate();
+  }
+
+  /**
+   * Returns the view at the given position.
+   *
+   * @param index the instance's index
+   * @return the view
+   */
+  protected ColumnarInstance view(int index) {
+
+    return (ColumnarInstance) m_Instances.get(index);
+  }
+
+  /**
+   * Appends the values of the given instance to the columns.
+   *
+   * @param instance the instance
+   * @return the view of the new row
+   */
+  protected ColumnarInstance newRow(Instance instance) {
+
+    ColumnarInstance result = new ColumnarInstance(m_Store,
+      m_Store.addRow(instance), instance.weight());
+    result.setDataset(this);
+    return result;
+  }
+
+  /**
+   * Adds one instance to the end of the set. Copies the values of the instance
+   * into the columns. Does not check if the instance is compatible with the
+   * dataset. Note: String or relational values are not transferred.
+   *
+   * @param instance the instance to be added
+   */
+  @Override
+  public boolean add(Instance instance) {
+
+    m_Instances.add(newRow(instance));
+
+    return true;
+  }
+
+  /**
+   * Adds one instance at the given position in the list. Copies the values of
+   * the instance into the columns. Does not check if the instance is
+   * compatible with the dataset. Note: String or relational values are not
+   * transferred.
+   *
+   * @param index position where instance is to be inserted
+   * @param instance the instance to be added
+   */
+  @Override
+  public void add(int index, Instance instance) {
+
+    m_Instances.add(index, newRow(instance));
+  }
+
+  /**
+   * Replaces the instance at the given position. Copies the values of the
+   * instance into the columns. Does not check if the instance is compatible
+   * with the dataset.
+   *
+   * @param index position where instance is to be inserted
+   * @param instance the instance to be inserted
+   * @return the instance previously at that position
+   */
+  @Override
+  public Instance set(int index, Instance instance) {
+
+    return m_Instances.set(index, newRow(instance));
+  }
+
+  /**
+   * Removes all instances from the set.
+   */
+  @Override
+  public void delete() {
+
+    super.delete();
+    m_Store = new ColumnStore(columnTypes(), DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Compactifies the set of instances. Rebuilds the columns so that they hold
+   * the values of the current instances, in order, and nothing else.
+   */
+  @Override
+  public void compactify() {
+
+    super.compactify();
+    if (isCompact()) {
+      return;
+    }
+    ColumnStore store = new ColumnStore(columnTypes(), numInstances());
+    for (int i = 0; i < numInstances(); i++) {
+      ColumnarInstance inst = view(i);
+      inst.m_Row = store.addRow(inst);
+      inst.m_Store = store;
+    }
+    m_Store = store;
+  }
+
+  /**
+   * Returns whether the i-th row of the columns holds the values of the i-th
+   * instance, for all instances, and there are no other rows.
+   *
+   * @return true if the columns are compact
+   */
+  protected boolean isCompact() {
+
+    if (m_Store.m_NumRows != numInstances()) {
+      return false;
+    }
+    for (int i = 0; i < numInstances(); i++) {
+      if (view(i).m_Row != i) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Inserts an attribute at the given position (0 to numAttributes()) and sets
+   * all values to be missing. Adds a column to the columns.
+   *
+   * @param att the attribute to be inserted
+   * @param position the attribute's position (position starts with 0)
+   * @throws IllegalArgumentException if the given index is out of range
+   */
+  @Override
+  public void insertAttributeAt(Attribute att, int position) {
+
+    if ((position < 0) || (position > m_Attributes.size())) {
+      throw new IllegalArgumentException("Index out of range");
+    }
+    if (attribute(att.name()) != null) {
+      throw new IllegalArgumentException("Attribute name '" + att.name()
+        + "' already in use at position #" + attribute(att.name()).index());
+    }
+    m_Store = m_Store.insertColumn(position, useFloatFor(att));
+
+    super.insertAttributeAt(att, position);
+  }
+
+  /**
+   * Deletes an attribute at the given position (0 to numAttributes() - 1).
+   * Removes its column from the columns.
+   *
+   * @param position the attribute's position (position starts with 0)
+   * @throws IllegalArgumentException if the given index is out of range or the
+   *           class attribute is being deleted
+   */
+  @Override
+  public void deleteAttributeAt(int position) {
+
+    if ((position < 0) || (position >= m_Attributes.size())) {
+      throw new IllegalArgumentException("Index out of range");
+    }
+    if (position == m_ClassIndex) {
+      throw new IllegalArgumentException("Can't delete class attribute");
+    }
+    m_Store = m_Store.deleteColumn(position);
+
+    super.deleteAttributeAt(position);
+  }
+
+  /**
+   * Replaces the attribute at the given position (0 to numAttributes()) with
+   * the given attribute and sets all its values to be missing.
+   *
+   * @param att the attribute to be inserted
+   * @param position the attribute's position (position starts with 0)
+   * @throws IllegalArgumentException if the given index is out of range
+   */
+  @Override
+  public void replaceAttributeAt(Attribute att, int position) {
+
+    super.replaceAttributeAt(att, position);
+
+    // a date attribute may replace a column held as floats
+    boolean useFloat = useFloatFor(att);
+    if (useFloat != (m_Store.m_Floats[position] != null)) {
+      if (useFloat) {
+        m_Store.m_Doubles[position] = null;
+        m_Store.m_Floats[position] = new float[m_Store.m_Capacity];
+        Arrays.fill(m_Store.m_Floats[position], Float.NaN);
+      } else {
+        m_Store.m_Floats[position] = null;
+        m_Store.m_Doubles[position] = new double[m_Store.m_Capacity];
+        Arrays.fill(m_Store.m_Doubles[position],
+          Utils.missingValue());
+      }
+    }
+  }
+
+  /**
+   * Gets the value of all instances in this dataset for a particular
+   * attribute. Useful in conjunction with Utils.sort to allow iterating through
+   * the dataset in sorted order for some attribute.
+   *
+   * @param index the index of the attribute.
+   * @return an array containing the value of the desired attribute for each
+   *         instance in the dataset.
+   */
+  @Override
+  public double[] attributeToDoubleArray(int index) {
+
+    double[] result = new double[numInstances()];
+    double[] doubles = m_Store.m_Doubles[index];
+    float[] floats = m_Store.m_Floats[index];
+    for (int i = 0; i < result.length; i++) {
+      int row = view(i).m_Row;
+      result[i] = (doubles != null) ? doubles[row] : floats[row];
+    }
+    return result;
+  }
+
+  /**
+   * Returns the mean (mode) for a numeric (nominal) attribute as a
+   * floating-point value. Returns 0 if the attribute is neither nominal nor
+   * numeric. If all values are missing it returns zero.
+   *
+   * @param attIndex the attribute's index (index starts with 0)
+   * @return the mean or the mode
+   */
+  @Override
+  public double meanOrMode(int attIndex) {
+
+    if (!attribute(attIndex).isNumeric()) {
+      return super.meanOrMode(attIndex);
+    }
+    double[] doubles = m_Store.m_Doubles[attIndex];
+    float[] floats = m_Store.m_Floats[attIndex];
+    double result = 0, found = 0;
+    for (int i = 0; i < numInstances(); i++) {
+      ColumnarInstance inst = view(i);
+      double value = (doubles != null) ? doubles[inst.m_Row]
+        : floats[inst.m_Row];
+      if (!Utils.isMissingValue(value)) {
+        found += inst.m_Weight;
+        result += inst.m_Weight * value;
+      }
+    }
+    if (found <= 0) {
+      return 0;
+    } else {
+      return result / found;
+    }
+  }
+
+  /**
+   * Computes the variance for a numeric attribute.
+   *
+   * @param attIndex the numeric attribute (index starts with 0)
+   * @return the variance if the attribute is numeric
+   * @throws IllegalArgumentException if the attribute is not numeric
+   */
+  @Override
+  public double variance(int attIndex) {
+
+    if (!attribute(attIndex).isNumeric()) {
+      throw new IllegalArgumentException(
+        "Can't compute variance because attribute is " + "not numeric!");
+    }
+
+    double[] doubles = m_Store.m_Doubles[attIndex];
+    float[] floats = m_Store.m_Floats[attIndex];
+    double mean = 0;
+    double var = Double.NaN;
+    double sumWeights = 0;
+    for (int i = 0; i < numInstances(); i++) {
+      ColumnarInstance inst = view(i);
+      double value = (doubles != null) ? doubles[inst.m_Row]
+        : floats[inst.m_Row];
+      if (!Utils.isMissingValue(value)) {
+        double weight = inst.m_Weight;
+
+        if (Double.isNaN(var)) {
+          // the first value is treated separately, see Instances.variance()
+          mean = value;
+          sumWeights = weight;
+          var = 0;
+          continue;
+        }
+
+        double delta = weight * (value - mean);
+        sumWeights += weight;
+        mean += delta / sumWeights;
+        var += delta * (value - mean);
+      }
+    }
+
+    if (sumWeights <= 1) {
+      return Double.NaN;
+    }
+
+    var /= sumWeights - 1;
+
+    // We don't like negative variance
+    if (var < 0) {
+      return 0;
+    } else {
+      return var;
+    }
+  }
+
+  /**
+   * Returns whether numeric and nominal values are held as floats.
+   *
+   * @return true if values are held as floats
+   */
+  public boolean usesFloats() {
+
+    return m_UseFloats;
+  }
+
+  /**
+   * Returns whether the values of the given attribute are held as floats.
+   *
+   * @param attIndex the attribute's index
+   * @return true if the values are held as floats, false if as doubles
+   */
+  public boolean isFloatColumn(int attIndex) {
+
+    return m_Store.m_Floats[attIndex] != null;
+  }
+
+  /**
+   * Returns the column holding the values of the given attribute, as doubles.
+   * The array is not copied, changes to it change the dataset. Only the first
+   * numInstances() entries are valid, the i-th entry being the value of the
+   * i-th instance. The array is only valid until the set of instances or its
+   * attributes are changed.
+   *
+   * @param attIndex the attribute's index
+   * @return the column
+   * @throws IllegalStateException if the values are held as floats
+   */
+  public double[] doubleColumn(int attIndex) {
+
+    if (isFloatColumn(attIndex)) {
+      throw new IllegalStateException("Attribute " + attribute(attIndex).name()
+        + " is held as floats!");
+    }
+    compactify();
+    return m_Store.m_Doubles[attIndex];
+  }
+
+  /**
+   * Returns the column holding the values of the given attribute, as floats.
+   * The array is not copied, changes to it change the dataset. Only the first
+   * numInstances() entries are valid, the i-th entry being the value of the
+   * i-th instance. The array is only valid until the set of instances or its
+   * attributes are changed.
+   *
+   * @param attIndex the attribute's index
+   * @return the column
+   * @throws IllegalStateException if the values are held as doubles
+   */
+  public float[] floatColumn(int attIndex) {
+
+    if (!isFloatColumn(attIndex)) {
+      throw new IllegalStateException("Attribute " + attribute(attIndex).name()
+        + " is held as doubles!");
+    }
+    compactify();
+    return m_Store.m_Floats[attIndex];
+  }
+
+  /**
+   * Returns the revision string.
+   *
+   * @return the revision
+   */
+  @Override
+  public String getRevision() {
+    return RevisionUtils.extract("$Revision$");
+  }
+}
@@ -0,0 +1,245 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    CopyOnWriteInstancesView.java
+ *    Copyright (C) 2026 lendle
+ *
+ */
+
+package weka.core;
+
+import java.util.Enumeration;
+
+/**
+ * A view of a subset of another set of instances that can be handed to code
+ * modifying its instances, e.g., the training or test set of one fold of a
+ * cross-validation (see {@link Instances#trainCVView(int, int)} and
+ * {@link Instances#testCVView(int, int)}). Like an {@link InstancesView}, the
+ * view only holds references to the instances of the other set. The first
+ * time an instance is handed out, it is replaced by a {@link SharedInstance},
+ * which reads its values from the instance of the other set, but has its own
+ * weight and copies the instance on the first change of a value. Neither the
+ * other set nor other views of it are changed therefore. <br/>
+ * <br/>
+ * Instances added with add() or set() are copied like in any other set.
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+public class CopyOnWriteInstancesView extends InstancesView {
+
+  /** for serialization */
+  private static final long serialVersionUID = 2857170457426393346L;
+
+  /**
+   * Creates a view of a range of the given set of instances.
+   *
+   * @param source the set of instances from which a subset is to be viewed
+   * @param first the index of the first instance
+   * @param toCopy the number of instances
+   * @throws IllegalArgumentException if first and toCopy are out of range
+   */
+  public CopyOnWriteInstancesView(Instances source, int first, int toCopy) {
+
+    super(source, first, toCopy);
+  }
+
+  /**
+   * Creates a view of the instances at the given positions of the given set.
+   *
+   * @param source the set of instances from which a subset is to be viewed
+   * @param indices the positions of the instances in the set, in the order of
+   *          the view
+   */
+  public CopyOnWriteInstancesView(Instances source, int[] indices) {
+
+    super(source, indices);
+  }
+
+  /**
+   * Creates an empty view with the header of the given set of instances.
+   * Instances of that set are added with addShared().
+   *
+   * @param source the set of instances the view is a subset of
+   * @param capacity the number of instances to reserve
+   */
+  public CopyOnWriteInstancesView(Instances source, int capacity) {
+
+    super(source, capacity);
+  }
+
+  /**
+   * Returns the instance at the given position, replacing an instance of the
+   * other set by a view of it first.
+   *
+   * @param index the instance's index (index starts with 0)
+   * @return the instance at the given position
+   */
+  @Override
+  public Instance instance(int index) {
+
+    Instance inst = m_Instances.get(index);
+    if (!(inst instanceof SharedInstance)
+      || (((SharedInstance) inst).m_View != this)) {
+      inst = new SharedInstance(inst, this);
+      m_Instances.set(index, inst);
+    }
+    return inst;
+  }
+
+  /**
+   * Returns the instance at the given position, see instance(int).
+   *
+   * @param index the instance's index (index starts with 0)
+   * @return the instance at the given position
+   */
+  @Override
+  public Instance get(int index) {
+
+    return instance(index);
+  }
+
+  /**
+   * Returns the first instance in the set.
+   *
+   * @return the first instance in the set
+   */
+  @Override
+  public Instance firstInstance() {
+
+    return instance(0);
+  }
+
+  /**
+   * Returns the last instance in the set.
+   *
+   * @return the last instance in the set
+   */
+  @Override
+  public Instance lastInstance() {
+
+    return instance(numInstances() - 1);
+  }
+
+  /**
+   * Returns an enumeration of all instances in the dataset.
+   *
+   * @return enumeration of all instances in the dataset
+   */
+  @Override
+  public Enumeration<Instance> enumerateInstances() {
+
+    return new WekaEnumeration<Instance>(this);
+  }
+
+  /**
+   * Adds a copy of the instance to the end of the set.
+   *
+   * @param instance the instance to be added
+   */
+  @Override
+  public boolean add(Instance instance) {
+
+    m_Instances.add(copyOf(instance));
+    return true;
+  }
+
+  /**
+   * Adds a copy of the instance at the given position.
+   *
+   * @param index position where instance is to be inserted
+   * @param instance the instance to be added
+   */
+  @Override
+  public void add(int index, Instance instance) {
+
+    m_Instances.add(index, copyOf(instance));
+  }
+
+  /**
+   * Replaces the instance at the given position by a copy of the given one.
+   *
+   * @param index position where instance is to be inserted
+   * @param instance the instance to be inserted
+   * @return the instance previously at that position
+   */
+  @Override
+  public Instance set(int index, Instance instance) {
+
+    Instance oldInstance = instance(index);
+    m_Instances.set(index, copyOf(instance));
+    return oldInstance;
+  }
+
+  /**
+   * Removes the instance at the given position.
+   *
+   * @param index the instance's index (index starts with 0)
+   * @return the instance at the given position
+   */
+  @Override
+  public Instance remove(int index) {
+
+    Instance inst = instance(index);
+    m_Instances.remove(index);
+    return inst;
+  }
+
+  /**
+   * Copies instances from this set to the end of another one, without creating
+   * views of them first.
+   *
+   * @param from position of the first instance to be copied
+   * @param dest destination for the instances
+   * @param num number of instances to be copied
+   */
+  @Override
+  protected void copyInstances(int from, Instances dest, int num) {
+
+    for (int i = 0; i < num; i++) {
+      dest.add(m_Instances.get(from + i));
+    }
+  }
+
+  /**
+   * Does nothing: the instances of the other set are only handed out as views,
+   * which copy their instance once the attributes change.
+   */
+  @Override
+  protected void unshare() {
+  }
+
+  /**
+   * Creates a view of a copy of the given instance for this set.
+   *
+   * @param instance the instance to copy
+   * @return the view of the copy
+   */
+  protected SharedInstance copyOf(Instance instance) {
+
+    return new SharedInstance((Instance) instance.copy(), this);
+  }
+
+  /**
+   * Returns the revision string.
+   *
+   * @return the revision
+   */
+  @Override
+  public String getRevision() {
+    return RevisionUtils.extract("$Revision$");
+  }
+}
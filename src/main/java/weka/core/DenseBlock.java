@@ -0,0 +1,160 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    DenseBlock.java
+ *    Copyright (C) 2026 lendle
+ *
+ */
+
+package weka.core;
+
+/**
+ * A block of rows of numbers, e.g., the values of a batch of instances after
+ * a classifier's filters, stored row by row in one array. Classifiers use it
+ * to score a batch with tight loops over primitive arrays instead of calling
+ * Instance methods for every value (see
+ * {@link BatchPredictor#distributionsForInstances(Instances)}).
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+public class DenseBlock implements RevisionHandler {
+
+  /** the values, row by row */
+  protected double[] m_Values;
+
+  /** the number of rows */
+  protected int m_NumRows;
+
+  /** the number of columns */
+  protected int m_NumColumns;
+
+  /**
+   * Creates a block of zeros.
+   *
+   * @param numRows the number of rows
+   * @param numColumns the number of columns
+   */
+  public DenseBlock(int numRows, int numColumns) {
+
+    m_NumRows = numRows;
+    m_NumColumns = numColumns;
+    m_Values = new double[numRows * numColumns];
+  }
+
+  /**
+   * Returns the number of rows.
+   *
+   * @return the number of rows
+   */
+  public int numRows() {
+
+    return m_NumRows;
+  }
+
+  /**
+   * Returns the number of columns.
+   *
+   * @return the number of columns
+   */
+  public int numColumns() {
+
+    return m_NumColumns;
+  }
+
+  /**
+   * Returns a value.
+   *
+   * @param row the row
+   * @param column the column
+   * @return the value
+   */
+  public double get(int row, int column) {
+
+    return m_Values[row * m_NumColumns + column];
+  }
+
+  /**
+   * Sets a value.
+   *
+   * @param row the row
+   * @param column the column
+   * @param value the value
+   */
+  public void set(int row, int column, double value) {
+
+    m_Values[row * m_NumColumns + column] = value;
+  }
+
+  /**
+   * Copies the values of an instance into the first columns of a row, e.g.,
+   * the value of attribute 0 into column 0. Missing values are copied as
+   * well; values the row does not have room for are ignored.
+   *
+   * @param row the row
+   * @param inst the instance
+   */
+  public void setRow(int row, Instance inst) {
+
+    int offset = row * m_NumColumns;
+    int n = inst.numValues();
+    for (int p = 0; p < n; p++) {
+      int index = inst.index(p);
+      if (index < m_NumColumns) {
+        m_Values[offset + index] = inst.valueSparse(p);
+      }
+    }
+  }
+
+  /**
+   * Multiplies the block with a matrix of weights, i.e., computes a linear
+   * function of the columns for each row and output. The sum for each row
+   * and output is formed in the order of the columns, so the result is the
+   * same as adding up the products one instance at a time.
+   *
+   * @param weights the weights of the columns for each output, 0 for a column
+   *          that is ignored; there can be fewer arrays than outputs, the
+   *          remaining outputs are 0 then
+   * @param numOutputs the number of outputs
+   * @return the sums for each row and output
+   */
+  public double[][] multiply(double[][] weights, int numOutputs) {
+
+    double[][] result = new double[m_NumRows][numOutputs];
+    for (int i = 0; i < m_NumRows; i++) {
+      int offset = i * m_NumColumns;
+      for (int k = 0; k < weights.length; k++) {
+        double[] w = weights[k];
+        double sum = 0;
+        for (int j = 0; j < m_NumColumns; j++) {
+          sum += m_Values[offset + j] * w[j];
+        }
+        result[i][k] = sum;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the revision string.
+   *
+   * @return the revision
+   */
+  @Override
+  public String getRevision() {
+    return RevisionUtils.extract("$Revision$");
+  }
+}
@@ -1674,8 +1674,48 @@ RevisionHandler {
   // @ requires 0 <= numFold && numFold < numFolds;
   public Instances testCV(int numFolds, int numFold) {
 
+    int[] range = foldRange(numFolds, numFold);
+    Instances test = new Instances(this, range[1]);
+    copyInstances(range[0], test, range[1]);
+    return test;
+  }
+
+  /**
+   * Creates the test set for one fold of a cross-validation on the dataset
+   * without copying the instances: the test set is a
+   * {@link CopyOnWriteInstancesView} of this dataset. Its instances read their
+   * values from the instances of this dataset and copy them on the first
+   * change, so the test set can be modified like the one of testCV().
+   * 
+   * @param numFolds the number of folds in the cross-validation. Must be
+   *          greater than 1.
+   * @param numFold 0 for the first fold, 1 for the second, ...
+   * @return the test set as a set of weighted instances
+   * @throws IllegalArgumentException if the number of folds is less than 2 or
+   *           greater than the number of instances.
+   */
+  // @ requires 2 <= numFolds && numFolds < numInstances();
+  // @ requires 0 <= numFold && numFold < numFolds;
+  public Instances testCVView(int numFolds, int numFold) {
+
+    int[] range = foldRange(numFolds, numFold);
+    return new CopyOnWriteInstancesView(this, range[0], range[1]);
+  }
+
+  /**
+   * Determines the instances of the test set of one fold of a
+   * cross-validation on the dataset.
+   * 
+   * @param numFolds the number of folds in the cross-validation. Must be
+   *          greater than 1.
+   * @param numFold 0 for the first fold, 1 for the second, ...
+   * @return the index of the first instance and the number of instances
+   * @throws IllegalArgumentException if the number of folds is less than 2 or
+   *           greater than the number of instances.
+   */
+  protected int[] foldRange(int numFolds, int numFold) {
+
     int numInstForFold, first, offset;
-    Instances test;
 
     if (numFolds < 2) {
       throw new IllegalArgumentException("Number of folds must be at least 2!");
@@ -1691,10 +1731,8 @@ RevisionHandler {
     } else {
       offset = numInstances() % numFolds;
     }
-    test = new Instances(this, numInstForFold);
     first = numFold * (numInstances() / numFolds) + offset;
-    copyInstances(first, test, numInstForFold);
-    return test;
+    return new int[] { first, numInstForFold };
   }
 
   /**
@@ -1753,25 +1791,9 @@ RevisionHandler {
   // @ requires 0 <= numFold && numFold < numFolds;
   public Instances trainCV(int numFolds, int numFold) {
 
-    int numInstForFold, first, offset;
-    Instances train;
-
-    if (numFolds < 2) {
-      throw new IllegalArgumentException("Number of folds must be at least 2!");
-    }
-    if (numFolds > numInstances()) {
-      throw new IllegalArgumentException(
-        "Can't have more folds than instances!");
-    }
-    numInstForFold = numInstances() / numFolds;
-    if (numFold < numInstances() % numFolds) {
-      numInstForFold++;
-      offset = numFold;
-    } else {
-      offset = numInstances() % numFolds;
-    }
-    train = new Instances(this, numInstances() - numInstForFold);
-    first = numFold * (numInstances() / numFolds) + offset;
+    int[] range = foldRange(numFolds, numFold);
+    int first = range[0], numInstForFold = range[1];
+    Instances train = new Instances(this, numInstances() - numInstForFold);
     copyInstances(0, train, first);
     copyInstances(first + numInstForFold, train, numInstances() - first
       - numInstForFold);
@@ -1801,6 +1823,59 @@ RevisionHandler {
     return train;
   }
 
+  /**
+   * Creates the training set for one fold of a cross-validation on the dataset
+   * without copying the instances: the training set is a
+   * {@link CopyOnWriteInstancesView} of this dataset, see
+   * {@link #testCVView(int, int)}.
+   * 
+   * @param numFolds the number of folds in the cross-validation. Must be
+   *          greater than 1.
+   * @param numFold 0 for the first fold, 1 for the second, ...
+   * @return the training set
+   * @throws IllegalArgumentException if the number of folds is less than 2 or
+   *           greater than the number of instances.
+   */
+  // @ requires 2 <= numFolds && numFolds < numInstances();
+  // @ requires 0 <= numFold && numFold < numFolds;
+  public Instances trainCVView(int numFolds, int numFold) {
+
+    int[] range = foldRange(numFolds, numFold);
+    int first = range[0], numInstForFold = range[1];
+    int[] indices = new int[numInstances() - numInstForFold];
+    for (int i = 0; i < first; i++) {
+      indices[i] = i;
+    }
+    for (int i = first; i < indices.length; i++) {
+      indices[i] = i + numInstForFold;
+    }
+
+    return new CopyOnWriteInstancesView(this, indices);
+  }
+
+  /**
+   * Creates the training set for one fold of a cross-validation on the dataset
+   * without copying the instances, see {@link #trainCVView(int, int)}. The
+   * data is subsequently randomized based on the given random number
+   * generator, exactly like trainCV(int, int, Random) does.
+   * 
+   * @param numFolds the number of folds in the cross-validation. Must be
+   *          greater than 1.
+   * @param numFold 0 for the first fold, 1 for the second, ...
+   * @param random the random number generator
+   * @return the training set
+   * @throws IllegalArgumentException if the number of folds is less than 2 or
+   *           greater than the number of instances.
+   */
+  // @ requires 2 <= numFolds && numFolds < numInstances();
+  // @ requires 0 <= numFold && numFold < numFolds;
+  public Instances trainCVView(int numFolds, int numFold, Random random) {
+
+    Instances train = trainCVView(numFolds, numFold);
+    train.randomize(random);
+    return train;
+  }
+
   /**
    * Computes the variance for all numeric attributes simultaneously.
    * This is faster than calling variance() for each attribute.
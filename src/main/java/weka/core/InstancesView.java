@@ -0,0 +1,288 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    InstancesView.java
+ *    Copyright (C) 2026 lendle
+ *
+ */
+
+package weka.core;
+
+/**
+ * A subset of another set of instances that shares the instance objects of
+ * that set instead of copying them, e.g., a reordered working set from which
+ * the training and test sets of a cross-validation are taken. Only the list
+ * of references is allocated, so the view can be reordered (randomize(),
+ * stratify(), sort()) and instances can be added or removed without affecting
+ * the other set. <br/>
+ * <br/>
+ * Changes of the header that would have to be applied to the instances
+ * (inserting, deleting, replacing or renaming attributes, or changing the
+ * class index) first replace the shared instances by copies, so that the other
+ * set is not affected either. Changing an instance itself, e.g., with
+ * setValue() or setWeight(), does affect the other set, so a view should not
+ * be handed to code that may do so, such as a classifier's buildClassifier();
+ * use a {@link CopyOnWriteInstancesView} instead (e.g., from trainCVView() and
+ * testCVView()).
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+public class InstancesView extends Instances {
+
+  /** for serialization */
+  private static final long serialVersionUID = -6427051866317016458L;
+
+  /** whether the instances are still shared with the other set */
+  protected boolean m_Shared = true;
+
+  /**
+   * Creates a view of a range of the given set of instances.
+   *
+   * @param source the set of instances from which a subset is to be viewed
+   * @param first the index of the first instance
+   * @param toCopy the number of instances
+   * @throws IllegalArgumentException if first and toCopy are out of range
+   */
+  public InstancesView(Instances source, int first, int toCopy) {
+
+    this(source, toCopy);
+
+    if ((first < 0) || ((first + toCopy) > source.numInstances())) {
+      throw new IllegalArgumentException("Parameters first and/or toCopy out "
+        + "of range");
+    }
+    share(source, first, toCopy);
+  }
+
+  /**
+   * Creates a view of the instances at the given positions of the given set.
+   *
+   * @param source the set of instances from which a subset is to be viewed
+   * @param indices the positions of the instances in the set, in the order of
+   *          the view
+   */
+  public InstancesView(Instances source, int[] indices) {
+
+    this(source, indices.length);
+
+    for (int index : indices) {
+      addShared(shared(source, index));
+    }
+  }
+
+  /**
+   * Creates an empty view with the header of the given set of instances.
+   * Instances of that set are added with addShared().
+   *
+   * @param source the set of instances the view is a subset of
+   * @param capacity the number of instances to reserve
+   */
+  public InstancesView(Instances source, int capacity) {
+
+    super(source, capacity);
+  }
+
+  /**
+   * Appends instances of the given set without copying them.
+   *
+   * @param source the set of instances from which a subset is to be viewed
+   * @param from the index of the first instance
+   * @param num the number of instances
+   */
+  protected void share(Instances source, int from, int num) {
+
+    for (int i = 0; i < num; i++) {
+      addShared(shared(source, from + i));
+    }
+  }
+
+  /**
+   * Returns the instance at the given position of the given set. The
+   * instances of views are taken as they are stored, so that a
+   * CopyOnWriteInstancesView does not create views of them first.
+   *
+   * @param source the set of instances
+   * @param index the position of the instance
+   * @return the instance
+   */
+  protected static Instance shared(Instances source, int index) {
+
+    if (source instanceof InstancesView) {
+      return source.m_Instances.get(index);
+    }
+    return source.instance(index);
+  }
+
+  /**
+   * Adds an instance of the other set to the end of the view without copying
+   * it. If the instances of the view are no longer shared, the instance is
+   * copied like add() does.
+   *
+   * @param instance the instance to be added, with the same header as the view
+   */
+  public void addShared(Instance instance) {
+
+    if (m_Shared) {
+      m_Instances.add(instance);
+    } else {
+      add(instance);
+    }
+  }
+
+  /**
+   * Returns whether the instances are still shared with the other set.
+   *
+   * @return true if the instances are shared
+   */
+  public boolean isShared() {
+
+    return m_Shared;
+  }
+
+  /**
+   * Replaces the shared instances by copies, if not done yet.
+   */
+  protected void unshare() {
+
+    if (!m_Shared) {
+      return;
+    }
+    m_Shared = false;
+    for (int i = 0; i < numInstances(); i++) {
+      Instance copy = (Instance) instance(i).copy();
+      copy.setDataset(this);
+      m_Instances.set(i, copy);
+    }
+  }
+
+  /**
+   * Deletes an attribute at the given position (0 to numAttributes() - 1).
+   * Copies the shared instances first.
+   *
+   * @param position the attribute's position (position starts with 0)
+   * @throws IllegalArgumentException if the given index is out of range or the
+   *           class attribute is being deleted
+   */
+  @Override
+  public void deleteAttributeAt(int position) {
+
+    unshare();
+    super.deleteAttributeAt(position);
+  }
+
+  /**
+   * Inserts an attribute at the given position (0 to numAttributes()) and sets
+   * all values to be missing. Copies the shared instances first.
+   *
+   * @param att the attribute to be inserted
+   * @param position the attribute's position (position starts with 0)
+   * @throws IllegalArgumentException if the given index is out of range
+   */
+  @Override
+  public void insertAttributeAt(Attribute att, int position) {
+
+    unshare();
+    super.insertAttributeAt(att, position);
+  }
+
+  /**
+   * Replaces the attribute at the given position (0 to numAttributes()) with
+   * the given attribute and sets all its values to be missing. Copies the
+   * shared instances first.
+   *
+   * @param att the attribute to be inserted
+   * @param position the attribute's position (position starts with 0)
+   * @throws IllegalArgumentException if the given index is out of range
+   */
+  @Override
+  public void replaceAttributeAt(Attribute att, int position) {
+
+    unshare();
+    super.replaceAttributeAt(att, position);
+  }
+
+  /**
+   * Renames an attribute. Copies the shared instances first, as they would
+   * otherwise still refer to the old name.
+   *
+   * @param att the attribute's index (index starts with 0)
+   * @param name the new name
+   */
+  @Override
+  public void renameAttribute(int att, String name) {
+
+    unshare();
+    super.renameAttribute(att, name);
+  }
+
+  /**
+   * Renames the value of a nominal (or string) attribute value. Copies the
+   * shared instances first, as they would otherwise still refer to the old
+   * value.
+   *
+   * @param att the attribute's index (index starts with 0)
+   * @param val the value's index (index starts with 0)
+   * @param name the new name
+   */
+  @Override
+  public void renameAttributeValue(int att, int val, String name) {
+
+    unshare();
+    super.renameAttributeValue(att, val, name);
+  }
+
+  /**
+   * Sets the class attribute. Copies the shared instances first if the class
+   * changes.
+   *
+   * @param att attribute to be the class
+   */
+  @Override
+  public void setClass(Attribute att) {
+
+    if (att.index() != classIndex()) {
+      unshare();
+    }
+    super.setClass(att);
+  }
+
+  /**
+   * Sets the class index of the set. Copies the shared instances first if the
+   * class changes.
+   *
+   * @param classIndex the new class index (index starts with 0)
+   * @throws IllegalArgumentException if the class index is too big or < 0
+   */
+  @Override
+  public void setClassIndex(int classIndex) {
+
+    if (classIndex != classIndex()) {
+      unshare();
+    }
+    super.setClassIndex(classIndex);
+  }
+
+  /**
+   * Returns the revision string.
+   *
+   * @return the revision
+   */
+  @Override
+  public String getRevision() {
+    return RevisionUtils.extract("$Revision$");
+  }
+}
@@ -0,0 +1,360 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    MappedInstance.java
+ *    Copyright (C) 2026 lendle
+ *
+ */
+
+package weka.core;
+
+/**
+ * An instance whose values are read from a row of a memory-mapped file (see
+ * {@link MappedInstances}). The values only occupy heap space once the
+ * instance is modified: the first call of a method changing a value copies the
+ * row into the instance, which from then on behaves like a DenseInstance. The
+ * file itself is never written. <br/>
+ * <br/>
+ * Copies of an unmodified instance are again views of the same row, so that
+ * copying a MappedInstances object, as done by most classifiers, does not
+ * load the data into the heap.
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+public class MappedInstance extends AbstractInstance {
+
+  /** for serialization */
+  private static final long serialVersionUID = 7150364432474931245L;
+
+  /** the file holding the values */
+  protected MappedInstances.MappedStore m_Store;
+
+  /** the row of this instance in the file */
+  protected int m_Row;
+
+  /**
+   * Creates a view of the given row. Reference to the dataset is set to null.
+   *
+   * @param store the file holding the values
+   * @param row the row in the file
+   * @param weight the instance's weight
+   */
+  protected MappedInstance(MappedInstances.MappedStore store, int row,
+    double weight) {
+
+    m_Store = store;
+    m_Row = row;
+    m_Weight = weight;
+    m_AttValues = null;
+    m_Dataset = null;
+  }
+
+  /**
+   * Produces a shallow copy of this instance. If the instance has not been
+   * modified, the copy is a view of the same row, otherwise a DenseInstance.
+   * The copy has access to the same dataset.
+   *
+   * @return the copy
+   */
+  @Override
+  public/* @pure@ */Object copy() {
+
+    AbstractInstance result;
+    if (m_AttValues == null) {
+      result = new MappedInstance(m_Store, m_Row, m_Weight);
+    } else {
+      result = new DenseInstance(this);
+    }
+    result.m_Dataset = m_Dataset;
+    return result;
+  }
+
+  /**
+   * Copies the instance but fills up its values based on the given array of
+   * doubles. The copy is a DenseInstance with access to the same dataset.
+   *
+   * @param values the array with new values
+   * @return the new instance
+   */
+  @Override
+  public Instance copy(double[] values) {
+
+    DenseInstance result = new DenseInstance(m_Weight, values);
+    result.m_Dataset = m_Dataset;
+    return result;
+  }
+
+  /**
+   * Returns whether the values of the instance are still read from the file.
+   *
+   * @return true if the instance has not been modified
+   */
+  public boolean isMapped() {
+
+    return m_AttValues == null;
+  }
+
+  /**
+   * Returns the index of the attribute stored at the given position. Just
+   * returns the given value.
+   *
+   * @param position the position
+   * @return the index of the attribute stored at the given position
+   */
+  @Override
+  public/* @pure@ */int index(int position) {
+
+    return position;
+  }
+
+  /**
+   * Merges this instance with the given instance and returns the result as a
+   * DenseInstance. Dataset is set to null.
+   *
+   * @param inst the instance to be merged with this one
+   * @return the merged instances
+   */
+  @Override
+  public Instance mergeInstance(Instance inst) {
+
+    int m = 0;
+    double[] newVals = new double[numAttributes() + inst.numAttributes()];
+    for (int j = 0; j < numAttributes(); j++, m++) {
+      newVals[m] = value(j);
+    }
+    for (int j = 0; j < inst.numAttributes(); j++, m++) {
+      newVals[m] = inst.value(j);
+    }
+    return new DenseInstance(1.0, newVals);
+  }
+
+  /**
+   * Returns the number of attributes.
+   *
+   * @return the number of attributes as an integer
+   */
+  @Override
+  public/* @pure@ */int numAttributes() {
+
+    if (m_AttValues != null) {
+      return m_AttValues.length;
+    }
+    return m_Store.numAttributes();
+  }
+
+  /**
+   * Returns the number of values present. Always the same as numAttributes().
+   *
+   * @return the number of values
+   */
+  @Override
+  public/* @pure@ */int numValues() {
+
+    return numAttributes();
+  }
+
+  /**
+   * Replaces all missing values in the instance with the values contained in
+   * the given array.
+   *
+   * @param array containing the means and modes
+   * @throws IllegalArgumentException if numbers of attributes are unequal
+   */
+  @Override
+  public void replaceMissingValues(double[] array) {
+
+    if ((array == null) || (array.length != numAttributes())) {
+      throw new IllegalArgumentException("Unequal number of attributes!");
+    }
+    freshAttributeVector();
+    for (int i = 0; i < m_AttValues.length; i++) {
+      if (isMissing(i)) {
+        m_AttValues[i] = array[i];
+      }
+    }
+  }
+
+  /**
+   * Sets a specific value in the instance to the given value (internal
+   * floating-point format). Copies the values of the row into the instance
+   * first, the file is not changed.
+   *
+   * @param attIndex the attribute's index
+   * @param value the new attribute value (If the corresponding attribute is
+   *          nominal (or a string) then this is the new value's index as a
+   *          double).
+   */
+  @Override
+  public void setValue(int attIndex, double value) {
+
+    freshAttributeVector();
+    m_AttValues[attIndex] = value;
+  }
+
+  /**
+   * Sets a specific value in the instance to the given value (internal
+   * floating-point format). Does exactly the same thing as setValue().
+   *
+   * @param indexOfIndex the index of the attribute's index
+   * @param value the new attribute value (If the corresponding attribute is
+   *          nominal (or a string) then this is the new value's index as a
+   *          double).
+   */
+  @Override
+  public void setValueSparse(int indexOfIndex, double value) {
+
+    setValue(indexOfIndex, value);
+  }
+
+  /**
+   * Returns the values of each attribute as an array of doubles.
+   *
+   * @return an array containing all the instance attribute values
+   */
+  @Override
+  public double[] toDoubleArray() {
+
+    if (m_AttValues != null) {
+      return m_AttValues.clone();
+    }
+    double[] newValues = new double[m_Store.numAttributes()];
+    for (int i = 0; i < newValues.length; i++) {
+      newValues[i] = m_Store.get(m_Row, i);
+    }
+    return newValues;
+  }
+
+  /**
+   * Returns the description of one instance (without weight appended).
+   *
+   * @return the instance's description as a string
+   */
+  @Override
+  public String toStringNoWeight() {
+    return toStringNoWeight(AbstractInstance.s_numericAfterDecimalPoint);
+  }
+
+  /**
+   * Returns the description of one instance (without weight appended).
+   *
+   * @param afterDecimalPoint maximum number of digits after the decimal point
+   *          for numeric values
+   *
+   * @return the instance's description as a string
+   */
+  @Override
+  public String toStringNoWeight(int afterDecimalPoint) {
+    StringBuffer text = new StringBuffer();
+
+    for (int i = 0; i < numAttributes(); i++) {
+      if (i > 0) {
+        text.append(",");
+      }
+      text.append(toString(i, afterDecimalPoint));
+    }
+
+    return text.toString();
+  }
+
+  /**
+   * Returns an instance's attribute value in internal format.
+   *
+   * @param attIndex the attribute's index
+   * @return the specified value as a double (If the corresponding attribute is
+   *         nominal (or a string) then it returns the value's index as a
+   *         double).
+   */
+  @Override
+  public/* @pure@ */double value(int attIndex) {
+
+    if (m_AttValues != null) {
+      return m_AttValues[attIndex];
+    }
+    return m_Store.get(m_Row, attIndex);
+  }
+
+  /**
+   * Returns an instance's attribute value in internal format, given an index in
+   * the sparse representation. Same as value().
+   *
+   * @param indexOfIndex the index of the attribute's index
+   * @return the specified value as a double
+   */
+  @Override
+  public/* @pure@ */double valueSparse(int indexOfIndex) {
+
+    return value(indexOfIndex);
+  }
+
+  /**
+   * Deletes an attribute at the given position (0 to numAttributes() - 1).
+   *
+   * @param position the attribute's position
+   */
+  @Override
+  protected void forceDeleteAttributeAt(int position) {
+
+    freshAttributeVector();
+    double[] newValues = new double[m_AttValues.length - 1];
+
+    System.arraycopy(m_AttValues, 0, newValues, 0, position);
+    if (position < m_AttValues.length - 1) {
+      System.arraycopy(m_AttValues, position + 1, newValues, position,
+        m_AttValues.length - (position + 1));
+    }
+    m_AttValues = newValues;
+  }
+
+  /**
+   * Inserts an attribute at the given position (0 to numAttributes()) and sets
+   * its value to be missing.
+   *
+   * @param position the attribute's position
+   */
+  @Override
+  protected void forceInsertAttributeAt(int position) {
+
+    freshAttributeVector();
+    double[] newValues = new double[m_AttValues.length + 1];
+
+    System.arraycopy(m_AttValues, 0, newValues, 0, position);
+    newValues[position] = Utils.missingValue();
+    System.arraycopy(m_AttValues, position, newValues, position + 1,
+      m_AttValues.length - position);
+    m_AttValues = newValues;
+  }
+
+  /**
+   * Copies the values of the row into the instance, if not done yet.
+   */
+  private void freshAttributeVector() {
+
+    if (m_AttValues == null) {
+      m_AttValues = toDoubleArray();
+    }
+  }
+
+  /**
+   * Returns the revision string.
+   *
+   * @return the revision
+   */
+  @Override
+  public String getRevision() {
+    return RevisionUtils.extract("$Revision$");
+  }
+}
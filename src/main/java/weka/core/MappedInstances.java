@@ -0,0 +1,406 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    MappedInstances.java
+ *    Copyright (C) 2026 lendle
+ *
+ */
+
+package weka.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+
+import weka.core.converters.AbstractFileLoader;
+import weka.core.converters.ArffLoader;
+import weka.core.converters.ConverterUtils;
+import weka.core.converters.ConverterUtils.DataSource;
+import weka.core.converters.Loader;
+
+/**
+ * A set of instances whose values are kept in a memory-mapped file instead of
+ * the heap, for datasets that do not fit into memory. The instances are
+ * {@link MappedInstance} views of the rows of the file, so that only a small
+ * object per row lives on the heap, independent of the number of attributes.
+ * Copies of the dataset (e.g., the ones classifiers make before training, or
+ * the folds of a cross-validation) are again views of the same file. An
+ * instance is only loaded into the heap when it is modified. <br/>
+ * <br/>
+ * The file is created from the data of any loader with
+ * {@link #write(Loader, File)}, or from the command line with:
+ *
+ * <pre>
+ * java weka.core.MappedInstances &lt;input file&gt; &lt;output file&gt;
+ * </pre>
+ *
+ * It holds one fixed-width row of doubles per instance, the last one being the
+ * instance's weight, followed by the header of the dataset. Relational
+ * attributes are not supported.
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+public class MappedInstances extends Instances {
+
+  /** for serialization */
+  private static final long serialVersionUID = -1650931733962339245L;
+
+  /** the default file extension */
+  public final static String FILE_EXTENSION = ".wmap";
+
+  /** identifies the file format */
+  protected static final int MAGIC = 0x574d4150;
+
+  /** the version of the file format */
+  protected static final int VERSION = 1;
+
+  /** the size of the fixed part of the file before the rows */
+  protected static final int DATA_OFFSET = 32;
+
+  /** the maximum size of one mapped region */
+  protected static final int MAX_CHUNK_SIZE = 1 << 30;
+
+  /**
+   * The rows of a mapped file. The file is mapped again when the store is
+   * deserialized.
+   */
+  protected static class MappedStore implements Serializable {
+
+    /** for serialization */
+    private static final long serialVersionUID = -5706426914309924416L;
+
+    /** the mapped file */
+    protected File m_File;
+
+    /** the number of rows */
+    protected int m_NumRows;
+
+    /** the number of attributes, excluding the weight */
+    protected int m_NumAttributes;
+
+    /** the size of a row in bytes */
+    protected int m_RowWidth;
+
+    /** the number of rows in each mapped region */
+    protected int m_RowsPerChunk;
+
+    /** the mapped regions */
+    protected transient ByteBuffer[] m_Chunks;
+
+    /**
+     * Maps the rows of the given file.
+     *
+     * @param file the file
+     * @param numRows the number of rows
+     * @param numAttributes the number of attributes
+     * @throws IOException if mapping fails
+     */
+    protected MappedStore(File file, int numRows, int numAttributes)
+      throws IOException {
+
+      m_File = file;
+      m_NumRows = numRows;
+      m_NumAttributes = numAttributes;
+      m_RowWidth = (numAttributes + 1) * 8;
+      if (m_RowWidth > MAX_CHUNK_SIZE) {
+        throw new IOException("Too many attributes: " + numAttributes);
+      }
+      m_RowsPerChunk = MAX_CHUNK_SIZE / m_RowWidth;
+      map();
+    }
+
+    /**
+     * Maps the rows of the file, read-only.
+     *
+     * @throws IOException if mapping fails
+     */
+    protected void map() throws IOException {
+
+      int numChunks = (m_NumRows + m_RowsPerChunk - 1) / m_RowsPerChunk;
+      m_Chunks = new ByteBuffer[numChunks];
+      RandomAccessFile file = new RandomAccessFile(m_File, "r");
+      try {
+        FileChannel channel = file.getChannel();
+        for (int i = 0; i < numChunks; i++) {
+          int rows = Math.min(m_RowsPerChunk, m_NumRows - i * m_RowsPerChunk);
+          m_Chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+            DATA_OFFSET + (long) i * m_RowsPerChunk * m_RowWidth,
+            (long) rows * m_RowWidth);
+        }
+      } finally {
+        // the mappings stay valid after the file is closed
+        file.close();
+      }
+    }
+
+    /**
+     * Returns the number of attributes, excluding the weight.
+     *
+     * @return the number of attributes
+     */
+    public int numAttributes() {
+
+      return m_NumAttributes;
+    }
+
+    /**
+     * Returns a value. The weight is stored after the last attribute.
+     *
+     * @param row the row
+     * @param attIndex the attribute's index
+     * @return the value
+     */
+    public double get(int row, int attIndex) {
+
+      return m_Chunks[row / m_RowsPerChunk].getDouble((row % m_RowsPerChunk)
+        * m_RowWidth + (attIndex << 3));
+    }
+
+    /**
+     * Maps the file again after deserialization.
+     *
+     * @param in the stream to read from
+     * @throws IOException if mapping fails
+     * @throws ClassNotFoundException if a class is missing
+     */
+    private void readObject(ObjectInputStream in) throws IOException,
+      ClassNotFoundException {
+
+      in.defaultReadObject();
+      map();
+    }
+  }
+
+  /** the rows of the file */
+  protected MappedStore m_Store;
+
+  /**
+   * Creates a set of instances from the given mapped file.
+   *
+   * @param file a file created with write()
+   * @throws IOException if the file cannot be read
+   */
+  public MappedInstances(File file) throws IOException {
+
+    this(file, readHeader(file));
+  }
+
+  /**
+   * Creates the set of instances once the header has been read.
+   *
+   * @param file the file
+   * @param header the header of the file
+   * @throws IOException if mapping fails
+   */
+  protected MappedInstances(File file, Object[] header) throws IOException {
+
+    super((Instances) header[0], (Integer) header[1]);
+
+    m_Store = new MappedStore(file, (Integer) header[1], numAttributes());
+    for (int i = 0; i < m_Store.m_NumRows; i++) {
+      MappedInstance inst = new MappedInstance(m_Store, i, m_Store.get(i,
+        m_Store.m_NumAttributes));
+      inst.setDataset(this);
+      m_Instances.add(inst);
+    }
+  }
+
+  /**
+   * Reads the header of a mapped file.
+   *
+   * @param file the file
+   * @return the structure of the dataset and the number of rows
+   * @throws IOException if the file is not a valid mapped file
+   */
+  protected static Object[] readHeader(File file) throws IOException {
+
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      if ((raf.readInt() != MAGIC) || (raf.readInt() != VERSION)) {
+        throw new IOException("Not a mapped instances file: " + file);
+      }
+      long numRows = raf.readLong();
+      int numAttributes = raf.readInt();
+      raf.readInt();
+      long headerOffset = raf.readLong();
+      if ((numRows > Integer.MAX_VALUE) || (headerOffset != DATA_OFFSET
+        + numRows * (numAttributes + 1) * 8)) {
+        throw new IOException("Corrupt mapped instances file: " + file);
+      }
+      raf.seek(headerOffset);
+      ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(
+        Channels.newInputStream(raf.getChannel())));
+      Instances structure = (Instances) in.readObject();
+      if (structure.numAttributes() != numAttributes) {
+        throw new IOException("Corrupt mapped instances file: " + file);
+      }
+      return new Object[] { structure, (int) numRows };
+    } catch (ClassNotFoundException e) {
+      throw new IOException(e);
+    } finally {
+      raf.close();
+    }
+  }
+
+  /**
+   * Returns the file holding the values.
+   *
+   * @return the file
+   */
+  public File getFile() {
+
+    return m_Store.m_File;
+  }
+
+  /**
+   * Writes the data of the given loader to a mapped file. The data is read
+   * incrementally if the loader supports it, so it never has to fit into
+   * memory. An ArffLoader is told to retain the values of string attributes,
+   * as the values of sparse instances may refer to earlier ones.
+   *
+   * @param loader the loader providing the data
+   * @param file the file to write to
+   * @throws Exception if reading or writing fails
+   */
+  public static void write(Loader loader, File file) throws Exception {
+
+    if (loader instanceof ArffLoader) {
+      ((ArffLoader) loader).setRetainStringVals(true);
+    }
+    write(new DataSource(loader), file);
+  }
+
+  /**
+   * Writes the data of the given source to a mapped file. The data is read
+   * incrementally if the source supports it, so it never has to fit into
+   * memory.
+   *
+   * @param source the source providing the data
+   * @param file the file to write to
+   * @throws Exception if reading or writing fails
+   */
+  public static void write(DataSource source, File file) throws Exception {
+
+    Instances structure = source.getStructure();
+    for (int j = 0; j < structure.numAttributes(); j++) {
+      if (structure.attribute(j).isRelationValued()) {
+        throw new IOException("Relational attributes are not supported: "
+          + structure.attribute(j).name());
+      }
+    }
+    // string values are collected while writing, the loader may only keep
+    // the current ones
+    Instances header = new Instances(structure.stringFreeStructure(), 0);
+    int numAttributes = structure.numAttributes();
+
+    long numRows = 0;
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+      new FileOutputStream(file), 1 << 16));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(0);
+      out.writeInt(numAttributes);
+      out.writeInt(0);
+      out.writeLong(0);
+      while (source.hasMoreElements(structure)) {
+        Instance inst = source.nextElement(structure);
+        for (int j = 0; j < numAttributes; j++) {
+          if (structure.attribute(j).isString() && !inst.isMissing(j)) {
+            if ((int) inst.value(j) >= structure.attribute(j).numValues()) {
+              throw new IOException("Value of string attribute "
+                + structure.attribute(j).name() + " not available, the "
+                + "loader does not retain string values");
+            }
+            out.writeDouble(header.attribute(j).addStringValue(
+              inst.stringValue(j)));
+          } else {
+            out.writeDouble(inst.value(j));
+          }
+        }
+        out.writeDouble(inst.weight());
+        numRows++;
+      }
+      if (numRows > Integer.MAX_VALUE) {
+        throw new IOException("Too many instances: " + numRows);
+      }
+      ObjectOutputStream oos = new ObjectOutputStream(out);
+      oos.writeObject(header);
+      oos.flush();
+    } finally {
+      out.close();
+    }
+
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      raf.seek(8);
+      raf.writeLong(numRows);
+      raf.seek(24);
+      raf.writeLong(DATA_OFFSET + numRows * (numAttributes + 1) * 8);
+    } finally {
+      raf.close();
+    }
+  }
+
+  /**
+   * Returns the revision string.
+   *
+   * @return the revision
+   */
+  @Override
+  public String getRevision() {
+    return RevisionUtils.extract("$Revision$");
+  }
+
+  /**
+   * Converts a dataset into a mapped file.
+   *
+   * @param args the input file (any format a loader exists for) and the
+   *          output file
+   */
+  public static void main(String[] args) {
+
+    try {
+      if (args.length != 2) {
+        System.err.println("Usage: " + MappedInstances.class.getName()
+          + " <input file> <output file>");
+        System.exit(1);
+      }
+      AbstractFileLoader loader = ConverterUtils.getLoaderForFile(args[0]);
+      if (loader == null) {
+        throw new IOException("No loader found for " + args[0]);
+      }
+      loader.setFile(new File(args[0]));
+      write(loader, new File(args[1]));
+      Instances data = new MappedInstances(new File(args[1]));
+      System.out.println(data.toSummaryString());
+    } catch (Exception e) {
+      e.printStackTrace();
+      System.err.println(e.getMessage());
+    }
+  }
+}
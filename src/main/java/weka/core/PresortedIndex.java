@@ -0,0 +1,347 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    PresortedIndex.java
+ *    Copyright (C) 2026 lendle
+ *
+ */
+
+package weka.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The indices of a set of instances sorted by the values of each attribute,
+ * computed once so that tree learners do not have to sort the data again at
+ * every node. For numeric (and date) attributes, the indices are sorted in
+ * ascending order of the values, for nominal attributes they are kept in the
+ * order of the data. In both cases the instances with missing values come
+ * last. The class attribute and string and relational attributes are not
+ * indexed. <br/>
+ * <br/>
+ * The index of a node's children is obtained with
+ * {@link #partition(int[], int)}, which distributes the indices in a single
+ * pass per attribute and keeps their order, so that the split search at each
+ * node is linear in the number of its instances. All indices refer to the
+ * positions of the instances in the original dataset.
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+public class PresortedIndex implements RevisionHandler {
+
+  /** the indexed data */
+  protected Instances m_Data;
+
+  /** the sorted indices per attribute, null if an attribute is not indexed */
+  protected int[][] m_SortedIndices;
+
+  /** the number of instances without missing value per attribute */
+  protected int[] m_NumNonMissing;
+
+  /** the indices of the instances in the index, in the order of the data */
+  protected int[] m_Indices;
+
+  /**
+   * Sorts the instances of the given dataset by each attribute.
+   *
+   * @param data the data to index
+   * @throws Exception if sorting fails
+   */
+  public PresortedIndex(Instances data) throws Exception {
+
+    this(data, 1);
+  }
+
+  /**
+   * Sorts the instances of the given dataset by each attribute, using the
+   * given number of threads. The result does not depend on the number of
+   * threads.
+   *
+   * @param data the data to index
+   * @param numThreads the number of threads to sort the attributes with, 0
+   *          for one per available processor
+   * @throws Exception if sorting fails or the number of threads is negative
+   */
+  public PresortedIndex(final Instances data, int numThreads) throws Exception {
+
+    m_Data = data;
+    m_Indices = new int[data.numInstances()];
+    for (int i = 0; i < m_Indices.length; i++) {
+      m_Indices[i] = i;
+    }
+    m_SortedIndices = new int[data.numAttributes()][];
+    m_NumNonMissing = new int[data.numAttributes()];
+
+    if (numThreads == 0) {
+      numThreads = Runtime.getRuntime().availableProcessors();
+    }
+    if (numThreads < 1) {
+      throw new Exception("Number of threads needs to be >= 0!");
+    }
+
+    if (numThreads == 1) {
+      for (int j = 0; j < data.numAttributes(); j++) {
+        if (isIndexed(j)) {
+          sortAttribute(j);
+        }
+      }
+      return;
+    }
+
+    ExecutorService executorPool = Executors.newFixedThreadPool(numThreads);
+    try {
+      List<Future<Object>> results = new ArrayList<Future<Object>>();
+      for (int j = 0; j < data.numAttributes(); j++) {
+        if (isIndexed(j)) {
+          final int att = j;
+          results.add(executorPool.submit(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+              sortAttribute(att);
+              return null;
+            }
+          }));
+        }
+      }
+      for (Future<Object> result : results) {
+        try {
+          result.get();
+        } catch (ExecutionException ex) {
+          if (ex.getCause() instanceof Exception) {
+            throw (Exception) ex.getCause();
+          }
+          throw ex;
+        }
+      }
+    } finally {
+      executorPool.shutdownNow();
+    }
+  }
+
+  /**
+   * Creates the index of a subset of the data.
+   *
+   * @param data the indexed data
+   * @param sortedIndices the sorted indices per attribute
+   * @param numNonMissing the number of instances without missing value per
+   *          attribute
+   * @param indices the indices of the instances in the subset
+   */
+  protected PresortedIndex(Instances data, int[][] sortedIndices,
+    int[] numNonMissing, int[] indices) {
+
+    m_Data = data;
+    m_SortedIndices = sortedIndices;
+    m_NumNonMissing = numNonMissing;
+    m_Indices = indices;
+  }
+
+  /**
+   * Sorts the instances by the given attribute.
+   *
+   * @param att the attribute's index
+   */
+  protected void sortAttribute(int att) {
+
+    int[] sorted;
+    int numNonMissing = 0;
+
+    if (m_Data.attribute(att).isNominal()) {
+      sorted = new int[m_Indices.length];
+      for (int i = 0; i < sorted.length; i++) {
+        if (!m_Data.instance(i).isMissing(att)) {
+          sorted[numNonMissing++] = i;
+        }
+      }
+      int count = numNonMissing;
+      for (int i = 0; i < sorted.length; i++) {
+        if (m_Data.instance(i).isMissing(att)) {
+          sorted[count++] = i;
+        }
+      }
+    } else {
+      double[] vals = new double[m_Indices.length];
+      for (int i = 0; i < vals.length; i++) {
+        vals[i] = m_Data.instance(i).value(att);
+        if (!Utils.isMissingValue(vals[i])) {
+          numNonMissing++;
+        }
+      }
+      sorted = Utils.sort(vals);
+    }
+
+    m_SortedIndices[att] = sorted;
+    m_NumNonMissing[att] = numNonMissing;
+  }
+
+  /**
+   * Returns whether the given attribute of the data is indexed.
+   *
+   * @param att the attribute's index
+   * @return true if the attribute is indexed
+   */
+  public boolean isIndexed(int att) {
+
+    Attribute attribute = m_Data.attribute(att);
+    return (att != m_Data.classIndex())
+      && (attribute.isNominal() || attribute.isNumeric());
+  }
+
+  /**
+   * Returns the indexed data.
+   *
+   * @return the data
+   */
+  public Instances getData() {
+
+    return m_Data;
+  }
+
+  /**
+   * Returns the number of instances in the index.
+   *
+   * @return the number of instances
+   */
+  public int numInstances() {
+
+    return m_Indices.length;
+  }
+
+  /**
+   * Returns the indices of the instances in the index, in the order of the
+   * data. The array is shared and must not be modified.
+   *
+   * @return the indices into the data
+   */
+  public int[] indices() {
+
+    return m_Indices;
+  }
+
+  /**
+   * Returns the indices of the instances sorted by the given attribute, the
+   * ones with missing values last. The array is shared and must not be
+   * modified.
+   *
+   * @param att the attribute's index
+   * @return the sorted indices into the data, null if the attribute is not
+   *         indexed
+   */
+  public int[] sortedIndices(int att) {
+
+    return m_SortedIndices[att];
+  }
+
+  /**
+   * Returns the number of instances that have a value for the given
+   * attribute, i.e., the position of the first missing value in the sorted
+   * indices.
+   *
+   * @param att the attribute's index
+   * @return the number of instances without missing value
+   */
+  public int numNonMissing(int att) {
+
+    return m_NumNonMissing[att];
+  }
+
+  /**
+   * Splits the index into the indices of the given subsets, e.g., the
+   * children of a node. The order of the instances is kept, so the indices
+   * of the subsets are sorted as well.
+   *
+   * @param subsetOf the subset of each instance of the data (not only the
+   *          ones in this index), -1 for instances that belong to no subset
+   * @param numSubsets the number of subsets
+   * @return the indices of the subsets
+   */
+  public PresortedIndex[] partition(int[] subsetOf, int numSubsets) {
+
+    int numAttributes = m_SortedIndices.length;
+    int[] subsetSize = new int[numSubsets];
+    int[][][] sortedIndices = new int[numSubsets][numAttributes][];
+    int[][] numNonMissing = new int[numSubsets][numAttributes];
+
+    for (int index : m_Indices) {
+      if (subsetOf[index] >= 0) {
+        subsetSize[subsetOf[index]]++;
+      }
+    }
+    int[][] indices = new int[numSubsets][];
+    int[] count = new int[numSubsets];
+    for (int k = 0; k < numSubsets; k++) {
+      indices[k] = new int[subsetSize[k]];
+    }
+    for (int index : m_Indices) {
+      int subset = subsetOf[index];
+      if (subset >= 0) {
+        indices[subset][count[subset]++] = index;
+      }
+    }
+
+    for (int j = 0; j < numAttributes; j++) {
+      int[] sorted = m_SortedIndices[j];
+      if (sorted == null) {
+        continue;
+      }
+      for (int k = 0; k < numSubsets; k++) {
+        sortedIndices[k][j] = new int[subsetSize[k]];
+        count[k] = 0;
+      }
+      for (int i = 0; i < sorted.length; i++) {
+        if (i == m_NumNonMissing[j]) {
+          for (int k = 0; k < numSubsets; k++) {
+            numNonMissing[k][j] = count[k];
+          }
+        }
+        int subset = subsetOf[sorted[i]];
+        if (subset >= 0) {
+          sortedIndices[subset][j][count[subset]++] = sorted[i];
+        }
+      }
+      if (m_NumNonMissing[j] == sorted.length) {
+        for (int k = 0; k < numSubsets; k++) {
+          numNonMissing[k][j] = count[k];
+        }
+      }
+    }
+
+    PresortedIndex[] result = new PresortedIndex[numSubsets];
+    for (int k = 0; k < numSubsets; k++) {
+      result[k] =
+        new PresortedIndex(m_Data, sortedIndices[k], numNonMissing[k],
+          indices[k]);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the revision string.
+   *
+   * @return the revision
+   */
+  @Override
+  public String getRevision() {
+    return RevisionUtils.extract("$Revision$");
+  }
+}
@@ -0,0 +1,322 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    SharedInstance.java
+ *    Copyright (C) 2026 lendle
+ *
+ */
+
+package weka.core;
+
+/**
+ * An instance of an {@link InstancesView} that reads its values from an
+ * instance of the viewed set. It has its own weight and dataset, and the first
+ * call of a method changing a value (or the attributes) copies the viewed
+ * instance, so that the viewed set is never changed. Like the copy of a
+ * DenseInstance or SparseInstance, the copy shares the values until one of
+ * them is set. <br/>
+ * <br/>
+ * Copies of the instance are plain instances of the type of the viewed
+ * instance.
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+public class SharedInstance extends AbstractInstance {
+
+  /** for serialization */
+  private static final long serialVersionUID = -1770306734316187204L;
+
+  /** the viewed instance, or its private copy once the values were changed */
+  protected Instance m_Source;
+
+  /** whether m_Source is a private copy */
+  protected boolean m_Copied;
+
+  /** the view this instance belongs to */
+  protected Instances m_View;
+
+  /**
+   * Creates a view of the given instance for the given set. Reference to the
+   * dataset is set to the view.
+   *
+   * @param source the instance to view, its weight is taken over
+   * @param view the view the instance belongs to
+   */
+  protected SharedInstance(Instance source, Instances view) {
+
+    m_Weight = source.weight();
+    // view the instance of an unchanged view directly
+    while ((source instanceof SharedInstance)
+      && !((SharedInstance) source).m_Copied) {
+      source = ((SharedInstance) source).m_Source;
+    }
+    m_Source = source;
+    m_Copied = false;
+    m_View = view;
+    m_AttValues = null;
+    m_Dataset = view;
+  }
+
+  /**
+   * Produces a shallow copy of this instance, a copy of the viewed instance
+   * with the weight of this one. The copy has access to the same dataset.
+   *
+   * @return the copy
+   */
+  @Override
+  public/* @pure@ */Object copy() {
+
+    Instance result = (Instance) m_Source.copy();
+    result.setWeight(m_Weight);
+    result.setDataset(m_Dataset);
+    return result;
+  }
+
+  /**
+   * Copies the instance but fills up its values based on the given array of
+   * doubles. The copy has access to the same dataset.
+   *
+   * @param values the array with new values
+   * @return the new instance
+   */
+  @Override
+  public Instance copy(double[] values) {
+
+    Instance result = m_Source.copy(values);
+    result.setWeight(m_Weight);
+    result.setDataset(m_Dataset);
+    return result;
+  }
+
+  /**
+   * Returns whether the values are still read from the viewed instance.
+   *
+   * @return true if the values of the instance have not been changed
+   */
+  public boolean isShared() {
+
+    return !m_Copied;
+  }
+
+  /**
+   * Returns the index of the attribute stored at the given position.
+   *
+   * @param position the position
+   * @return the index of the attribute stored at the given position
+   */
+  @Override
+  public/* @pure@ */int index(int position) {
+
+    return m_Source.index(position);
+  }
+
+  /**
+   * Merges this instance with the given instance and returns the result.
+   * Dataset is set to null.
+   *
+   * @param inst the instance to be merged with this one
+   * @return the merged instances
+   */
+  @Override
+  public Instance mergeInstance(Instance inst) {
+
+    return m_Source.mergeInstance(inst);
+  }
+
+  /**
+   * Returns the number of attributes.
+   *
+   * @return the number of attributes as an integer
+   */
+  @Override
+  public/* @pure@ */int numAttributes() {
+
+    return m_Source.numAttributes();
+  }
+
+  /**
+   * Returns the number of values present.
+   *
+   * @return the number of values
+   */
+  @Override
+  public/* @pure@ */int numValues() {
+
+    return m_Source.numValues();
+  }
+
+  /**
+   * Replaces all missing values in the instance with the values contained in
+   * the given array. Copies the viewed instance first.
+   *
+   * @param array containing the means and modes
+   * @throws IllegalArgumentException if numbers of attributes are unequal
+   */
+  @Override
+  public void replaceMissingValues(double[] array) {
+
+    freshSource();
+    m_Source.replaceMissingValues(array);
+  }
+
+  /**
+   * Sets a specific value in the instance to the given value (internal
+   * floating-point format). Copies the viewed instance first.
+   *
+   * @param attIndex the attribute's index
+   * @param value the new attribute value (If the corresponding attribute is
+   *          nominal (or a string) then this is the new value's index as a
+   *          double).
+   */
+  @Override
+  public void setValue(int attIndex, double value) {
+
+    freshSource();
+    m_Source.setValue(attIndex, value);
+  }
+
+  /**
+   * Sets a specific value in the instance to the given value (internal
+   * floating-point format), given an index in the sparse representation.
+   * Copies the viewed instance first.
+   *
+   * @param indexOfIndex the index of the attribute's index
+   * @param value the new attribute value (If the corresponding attribute is
+   *          nominal (or a string) then this is the new value's index as a
+   *          double).
+   */
+  @Override
+  public void setValueSparse(int indexOfIndex, double value) {
+
+    freshSource();
+    m_Source.setValueSparse(indexOfIndex, value);
+  }
+
+  /**
+   * Returns the values of each attribute as an array of doubles.
+   *
+   * @return an array containing all the instance attribute values
+   */
+  @Override
+  public double[] toDoubleArray() {
+
+    return m_Source.toDoubleArray();
+  }
+
+  /**
+   * Returns the description of one instance (without weight appended).
+   *
+   * @return the instance's description as a string
+   */
+  @Override
+  public String toStringNoWeight() {
+    return toStringNoWeight(AbstractInstance.s_numericAfterDecimalPoint);
+  }
+
+  /**
+   * Returns the description of one instance (without weight appended), in the
+   * format of the viewed instance.
+   *
+   * @param afterDecimalPoint maximum number of digits after the decimal point
+   *          for numeric values
+   *
+   * @return the instance's description as a string
+   */
+  @Override
+  public String toStringNoWeight(int afterDecimalPoint) {
+
+    // the labels are taken from this instance's dataset
+    Instance inst = (Instance) copy();
+    return inst.toStringNoWeight(afterDecimalPoint);
+  }
+
+  /**
+   * Returns an instance's attribute value in internal format.
+   *
+   * @param attIndex the attribute's index
+   * @return the specified value as a double (If the corresponding attribute is
+   *         nominal (or a string) then it returns the value's index as a
+   *         double).
+   */
+  @Override
+  public/* @pure@ */double value(int attIndex) {
+
+    return m_Source.value(attIndex);
+  }
+
+  /**
+   * Returns an instance's attribute value in internal format, given an index in
+   * the sparse representation.
+   *
+   * @param indexOfIndex the index of the attribute's index
+   * @return the specified value as a double
+   */
+  @Override
+  public/* @pure@ */double valueSparse(int indexOfIndex) {
+
+    return m_Source.valueSparse(indexOfIndex);
+  }
+
+  /**
+   * Deletes an attribute at the given position (0 to numAttributes() - 1).
+   * Copies the viewed instance first.
+   *
+   * @param position the attribute's position
+   */
+  @Override
+  protected void forceDeleteAttributeAt(int position) {
+
+    freshSource();
+    m_Source.deleteAttributeAt(position);
+  }
+
+  /**
+   * Inserts an attribute at the given position (0 to numAttributes()) and sets
+   * its value to be missing. Copies the viewed instance first.
+   *
+   * @param position the attribute's position
+   */
+  @Override
+  protected void forceInsertAttributeAt(int position) {
+
+    freshSource();
+    m_Source.insertAttributeAt(position);
+  }
+
+  /**
+   * Replaces the viewed instance by a private copy, if not done yet. The copy
+   * has no dataset, so that its attributes can be changed.
+   */
+  private void freshSource() {
+
+    if (!m_Copied) {
+      m_Source = (Instance) m_Source.copy();
+      m_Source.setDataset(null);
+      m_Copied = true;
+    }
+  }
+
+  /**
+   * Returns the revision string.
+   *
+   * @return the revision
+   */
+  @Override
+  public String getRevision() {
+    return RevisionUtils.extract("$Revision$");
+  }
+}
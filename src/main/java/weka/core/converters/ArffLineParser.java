@@ -0,0 +1,670 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    ArffLineParser.java
+ *    Copyright (C) 2026 lendle
+ *
+ */
+
+package weka.core.converters;
+
+import java.io.StringReader;
+import java.text.ParseException;
+import java.util.Arrays;
+
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.RevisionHandler;
+import weka.core.RevisionUtils;
+import weka.core.SparseInstance;
+import weka.core.Utils;
+import weka.core.converters.ArffLoader.ArffReader;
+
+/**
+ * Parses single lines of the data section of an ARFF file directly from a
+ * character buffer, for the {@link ArffReader}. The tokens are split the same
+ * way the reader's StreamTokenizer splits them, but without creating a string
+ * per token: numbers are converted from the characters and nominal values
+ * are looked up in a hash table of the labels' characters. <br/>
+ * <br/>
+ * Lines with anything unusual, e.g., errors, values left over after the
+ * instance, or an escaped line break, are not parsed here: the methods
+ * return -1 or null, and the reader tokenizes such lines as before, which
+ * also produces the error messages.
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+public class ArffLineParser implements RevisionHandler {
+
+  /** the token type of words, quote characters are below 256 */
+  protected static final char WORD = '\uffff';
+
+  /** the field separator, -1 if it isn't a separator for the tokenizer */
+  protected int m_Separator = ',';
+
+  /** the quote characters */
+  protected boolean[] m_Quote = new boolean[256];
+
+  /** the structure the label indices are for */
+  protected Instances m_Structure;
+
+  /** the indices of the labels of the nominal attributes */
+  protected LabelIndex[] m_Labels;
+
+  /** whether the values of string attributes are retained */
+  protected boolean m_RetainStringValues;
+
+  /** the characters of the current line */
+  protected char[] m_Chars;
+
+  /** a copy of the line, for unescaping quoted values */
+  protected char[] m_Copy = new char[0];
+
+  /** the number of tokens of the current line */
+  protected int m_NumTokens;
+
+  /** the type of each token: WORD, a quote character, '{' or '}' */
+  protected char[] m_TokenType = new char[16];
+
+  /** the start of each token */
+  protected int[] m_TokenStart = new int[16];
+
+  /** the end of each token */
+  protected int[] m_TokenEnd = new int[16];
+
+  /** the buffer for the values of sparse instances */
+  protected double[] m_ValueBuffer = new double[0];
+
+  /** the buffer for the indices of sparse instances */
+  protected int[] m_IndicesBuffer = new int[0];
+
+  /** the number of values of the last sparse instance */
+  protected int m_NumValues;
+
+  /**
+   * Creates a parser for the default field separator and quotes.
+   */
+  public ArffLineParser() {
+
+    m_Quote['\''] = true;
+    m_Quote['"'] = true;
+  }
+
+  /**
+   * Creates a parser with the same settings and label indices as the given
+   * one, e.g., for another thread.
+   *
+   * @param parser the parser to copy
+   */
+  public ArffLineParser(ArffLineParser parser) {
+
+    m_Separator = parser.m_Separator;
+    m_Quote = parser.m_Quote;
+    m_Structure = parser.m_Structure;
+    m_Labels = parser.m_Labels;
+    m_RetainStringValues = parser.m_RetainStringValues;
+    m_ValueBuffer = new double[parser.m_ValueBuffer.length];
+    m_IndicesBuffer = new int[parser.m_IndicesBuffer.length];
+  }
+
+  /**
+   * Sets the field separator and quote characters, like the reader's
+   * tokenizer uses them.
+   *
+   * @param separator the field separator
+   * @param quotes the quote characters
+   */
+  public void setSyntax(char separator, char[] quotes) {
+
+    m_Separator = (separator < 256) ? separator : -1;
+    m_Quote = new boolean[256];
+    for (char quote : quotes) {
+      if (quote < 256) {
+        m_Quote[quote] = true;
+      }
+    }
+  }
+
+  /**
+   * Sets whether the values of string attributes are retained, i.e., added
+   * to the attribute, or replace its current value. This is the case when
+   * reading in batch mode or when the reader retains string values.
+   *
+   * @param value true if the values are retained
+   */
+  public void setRetainStringValues(boolean value) {
+
+    m_RetainStringValues = value;
+  }
+
+  /**
+   * Sets the structure the instances are parsed for; the label indices are
+   * only created again if the structure changes.
+   *
+   * @param structure the structure
+   */
+  public void setStructure(Instances structure) {
+
+    if (structure == m_Structure) {
+      return;
+    }
+    m_Structure = structure;
+    m_Labels = new LabelIndex[structure.numAttributes()];
+    for (int i = 0; i < structure.numAttributes(); i++) {
+      if (structure.attribute(i).isNominal()) {
+        m_Labels[i] = new LabelIndex(structure.attribute(i));
+      }
+    }
+    m_ValueBuffer = new double[structure.numAttributes()];
+    m_IndicesBuffer = new int[structure.numAttributes()];
+  }
+
+  /**
+   * Splits a line into tokens. Quoted values with escapes are unescaped in a
+   * copy of the line, the given characters are not modified.
+   *
+   * @param chars the characters
+   * @param start the start of the line
+   * @param end the end of the line, without the line break
+   * @return the number of tokens, -1 if the line can't be split here
+   */
+  public int tokenize(char[] chars, int start, int end) {
+
+    m_Chars = chars;
+    m_NumTokens = 0;
+    return scan(start, start, end);
+  }
+
+  /**
+   * Splits the rest of the current line into tokens.
+   *
+   * @param start the start of the line
+   * @param pos the position to continue at
+   * @param end the end of the line
+   * @return the number of tokens, -1 if the line can't be split here
+   */
+  protected int scan(int start, int pos, int end) {
+
+    char[] chars = m_Chars;
+    while (pos < end) {
+      char c = chars[pos];
+      if ((c <= ' ') || (c == m_Separator)) {
+        pos++;
+      } else if (c == '%') {
+        break;
+      } else if ((c == '{') || (c == '}')) {
+        addToken(c, pos, pos + 1);
+        pos++;
+      } else if ((c < 256) && m_Quote[c]) {
+        int tokenStart = ++pos;
+        while ((pos < end) && (chars[pos] != c)) {
+          if (chars[pos] == '\\') {
+            if (chars != m_Copy) {
+              // unescape in a copy, the caller may still need the line
+              if (m_Copy.length < end) {
+                m_Copy = new char[end];
+              }
+              System.arraycopy(chars, start, m_Copy, start, end - start);
+              return tokenize(m_Copy, start, end);
+            }
+            return unescape(c, start, tokenStart, pos, end);
+          }
+          pos++;
+        }
+        addToken(c, tokenStart, pos);
+        pos++;
+      } else {
+        int tokenStart = pos;
+        while ((pos < end) && !isDelimiter(chars[pos])) {
+          pos++;
+        }
+        addToken(WORD, tokenStart, pos);
+      }
+    }
+    return m_NumTokens;
+  }
+
+  /**
+   * Continues tokenizing at an escape in a quoted value, unescaping the
+   * value in place like the StreamTokenizer does.
+   *
+   * @param quote the quote character
+   * @param start the start of the line
+   * @param tokenStart the start of the quoted value
+   * @param pos the position of the backslash
+   * @param end the end of the line
+   * @return the number of tokens, -1 if the line can't be split here
+   */
+  protected int unescape(char quote, int start, int tokenStart, int pos,
+    int end) {
+
+    char[] chars = m_Chars;
+    int write = pos;
+    while ((pos < end) && (chars[pos] != quote)) {
+      int c = chars[pos++];
+      if (c == '\\') {
+        if (pos == end) {
+          // escaped line break, the value continues on the next line
+          return -1;
+        }
+        c = chars[pos++];
+        int first = c;
+        if ((c >= '0') && (c <= '7')) {
+          c = c - '0';
+          if ((pos < end) && (chars[pos] >= '0') && (chars[pos] <= '7')) {
+            c = (c << 3) + (chars[pos++] - '0');
+            if ((pos < end) && (chars[pos] >= '0') && (chars[pos] <= '7')
+              && (first <= '3')) {
+              c = (c << 3) + (chars[pos++] - '0');
+            }
+          }
+        } else {
+          switch (c) {
+          case 'a':
+            c = 0x7;
+            break;
+          case 'b':
+            c = '\b';
+            break;
+          case 'f':
+            c = 0xC;
+            break;
+          case 'n':
+            c = '\n';
+            break;
+          case 'r':
+            c = '\r';
+            break;
+          case 't':
+            c = '\t';
+            break;
+          case 'v':
+            c = 0xB;
+            break;
+          }
+        }
+      }
+      chars[write++] = (char) c;
+    }
+    addToken(quote, tokenStart, write);
+    return scan(start, pos + 1, end);
+  }
+
+  /**
+   * Returns whether a character ends a word.
+   *
+   * @param c the character
+   * @return true for white space, the separator, comments, braces and quotes
+   */
+  protected boolean isDelimiter(char c) {
+
+    return (c <= ' ') || (c == m_Separator) || (c == '%') || (c == '{')
+      || (c == '}') || ((c < 256) && m_Quote[c]);
+  }
+
+  /**
+   * Appends a token.
+   *
+   * @param type the type
+   * @param start the start of the token
+   * @param end the end of the token
+   */
+  protected void addToken(char type, int start, int end) {
+
+    if (m_NumTokens == m_TokenType.length) {
+      m_TokenType = Arrays.copyOf(m_TokenType, 2 * m_NumTokens);
+      m_TokenStart = Arrays.copyOf(m_TokenStart, 2 * m_NumTokens);
+      m_TokenEnd = Arrays.copyOf(m_TokenEnd, 2 * m_NumTokens);
+    }
+    m_TokenType[m_NumTokens] = type;
+    m_TokenStart[m_NumTokens] = start;
+    m_TokenEnd[m_NumTokens] = end;
+    m_NumTokens++;
+  }
+
+  /**
+   * Returns whether a token is a value, i.e., a word or in single or double
+   * quotes.
+   *
+   * @param token the token
+   * @return true if the token is a value
+   */
+  protected boolean isValue(int token) {
+
+    char type = m_TokenType[token];
+    return (type == WORD) || (type == '\'') || (type == '"');
+  }
+
+  /**
+   * Returns whether a token is the missing value.
+   *
+   * @param token the token
+   * @return true if the token is an unquoted question mark
+   */
+  protected boolean isMissing(int token) {
+
+    return (m_TokenType[token] == WORD)
+      && (m_TokenEnd[token] - m_TokenStart[token] == 1)
+      && (m_Chars[m_TokenStart[token]] == '?');
+  }
+
+  /**
+   * Returns a token as string.
+   *
+   * @param token the token
+   * @return the string
+   */
+  protected String string(int token) {
+
+    return new String(m_Chars, m_TokenStart[token], m_TokenEnd[token]
+      - m_TokenStart[token]);
+  }
+
+  /**
+   * Creates the instance from the tokens of the current line.
+   *
+   * @param flag whether to check for an instance weight and the end of the
+   *          line
+   * @return the instance, null if the line can't be parsed here
+   */
+  public Instance instance(boolean flag) {
+
+    int next;
+    Instance result;
+    if (m_TokenType[0] == '{') {
+      next = sparse();
+      if (next < 0) {
+        return null;
+      }
+      double[] values = Arrays.copyOf(m_ValueBuffer, m_NumValues);
+      int[] indices = Arrays.copyOf(m_IndicesBuffer, m_NumValues);
+      result =
+        new SparseInstance(1.0, values, indices, m_Structure.numAttributes());
+    } else {
+      double[] values = new double[m_Structure.numAttributes()];
+      next = full(values);
+      if (next < 0) {
+        return null;
+      }
+      result = new DenseInstance(1.0, values);
+    }
+
+    // the instance weight, if any, and the end of the line
+    if (next < m_NumTokens) {
+      if (!flag || (next + 3 != m_NumTokens) || (m_TokenType[next] != '{')
+        || !isValue(next + 1) || (m_TokenType[next + 2] != '}')) {
+        return null;
+      }
+      try {
+        result.setWeight(Double.parseDouble(string(next + 1)));
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+    result.setDataset(m_Structure);
+    return result;
+  }
+
+  /**
+   * Parses the values of a dense instance.
+   *
+   * @param values the array for the values
+   * @return the index of the token after the values, -1 if they can't be
+   *         parsed here
+   */
+  protected int full(double[] values) {
+
+    if (m_NumTokens < values.length) {
+      return -1;
+    }
+    for (int i = 0; i < values.length; i++) {
+      if (!isValue(i)) {
+        return -1;
+      }
+      if (isMissing(i)) {
+        values[i] = Utils.missingValue();
+      } else {
+        values[i] = value(i, i, false);
+        if (Double.isNaN(values[i])) {
+          return -1;
+        }
+      }
+    }
+    return values.length;
+  }
+
+  /**
+   * Parses the index/value pairs of a sparse instance into the buffers.
+   *
+   * @return the index of the token after the closing brace, -1 if they can't
+   *         be parsed here
+   */
+  protected int sparse() {
+
+    if (!m_RetainStringValues) {
+      for (int i = 0; i < m_Structure.numAttributes(); i++) {
+        if (m_Structure.attribute(i).isString()) {
+          m_Structure.attribute(i).setStringValue(null);
+        }
+      }
+    }
+    m_NumValues = 0;
+    int maxIndex = -1;
+    int token = 1;
+    while (true) {
+      if (token == m_NumTokens) {
+        return -1;
+      }
+      if (m_TokenType[token] == '}') {
+        return token + 1;
+      }
+      if ((token + 1 == m_NumTokens) || (m_TokenType[token] != WORD)
+        || !isValue(token + 1)) {
+        return -1;
+      }
+      int index = 0;
+      for (int p = m_TokenStart[token]; p < m_TokenEnd[token]; p++) {
+        char c = m_Chars[p];
+        if ((c < '0') || (c > '9') || (index > 100000000)) {
+          return -1;
+        }
+        index = 10 * index + (c - '0');
+      }
+      if ((index <= maxIndex) || (index >= m_Structure.numAttributes())) {
+        return -1;
+      }
+      maxIndex = index;
+      m_IndicesBuffer[m_NumValues] = index;
+      if (isMissing(token + 1)) {
+        m_ValueBuffer[m_NumValues] = Utils.missingValue();
+      } else {
+        m_ValueBuffer[m_NumValues] = value(token + 1, index, true);
+        if (Double.isNaN(m_ValueBuffer[m_NumValues])) {
+          return -1;
+        }
+      }
+      m_NumValues++;
+      token += 2;
+    }
+  }
+
+  /**
+   * Converts a token into the internal value of an attribute. Values that
+   * convert to NaN, e.g., the number "NaN", are left to the tokenizer as
+   * well.
+   *
+   * @param token the token
+   * @param index the index of the attribute
+   * @param sparse whether the value is part of a sparse instance
+   * @return the value, NaN if it can't be converted here
+   */
+  protected double value(int token, int index, boolean sparse) {
+
+    Attribute att = m_Structure.attribute(index);
+    switch (att.type()) {
+    case Attribute.NOMINAL:
+      int label =
+        m_Labels[index].indexOf(m_Chars, m_TokenStart[token],
+          m_TokenEnd[token]);
+      return (label < 0) ? Double.NaN : label;
+    case Attribute.NUMERIC:
+      try {
+        return parseDouble(m_Chars, m_TokenStart[token], m_TokenEnd[token]);
+      } catch (NumberFormatException e) {
+        return Double.NaN;
+      }
+    case Attribute.STRING:
+      if (m_RetainStringValues) {
+        return att.addStringValue(string(token));
+      }
+      if (sparse) {
+        att.addStringValue(string(token));
+      } else {
+        att.setStringValue(string(token));
+      }
+      return 0;
+    case Attribute.DATE:
+      try {
+        return att.parseDate(string(token));
+      } catch (ParseException e) {
+        return Double.NaN;
+      }
+    case Attribute.RELATIONAL:
+      try {
+        ArffReader arff =
+          new ArffReader(new StringReader(string(token)), att.relation(), 0);
+        return att.addRelation(arff.getData());
+      } catch (Exception e) {
+        return Double.NaN;
+      }
+    default:
+      return Double.NaN;
+    }
+  }
+
+  /**
+   * Parses a number like Double.valueOf() does, converting plain decimal
+   * numbers that can be converted exactly directly from the characters.
+   *
+   * @param chars the characters
+   * @param start the start of the number
+   * @param end the end of the number
+   * @return the number
+   * @throws NumberFormatException if it is not a number
+   */
+  public static double parseDouble(char[] chars, int start, int end) {
+
+    double value = DoubleParser.parse(chars, start, end);
+    if (!Double.isNaN(value)) {
+      return value;
+    }
+    return Double.valueOf(new String(chars, start, end - start)).doubleValue();
+  }
+
+  /**
+   * A hash table from the characters of the labels of a nominal attribute to
+   * their indices.
+   */
+  protected static class LabelIndex {
+
+    /** the characters of the labels */
+    protected char[][] m_Labels;
+
+    /** the hash table of indices + 1, 0 for empty slots */
+    protected int[] m_Table;
+
+    /**
+     * Creates the index for the given attribute.
+     *
+     * @param att the nominal attribute
+     */
+    public LabelIndex(Attribute att) {
+
+      m_Labels = new char[att.numValues()][];
+      int size = 4;
+      while (size < 2 * m_Labels.length) {
+        size *= 2;
+      }
+      m_Table = new int[size];
+      for (int i = 0; i < m_Labels.length; i++) {
+        m_Labels[i] = att.value(i).toCharArray();
+        int slot = hash(m_Labels[i], 0, m_Labels[i].length) & (size - 1);
+        while (m_Table[slot] != 0) {
+          slot = (slot + 1) & (size - 1);
+        }
+        m_Table[slot] = i + 1;
+      }
+    }
+
+    /**
+     * Returns the hash code of the given characters, like String.hashCode().
+     *
+     * @param chars the characters
+     * @param start the start
+     * @param end the end
+     * @return the hash code
+     */
+    protected static int hash(char[] chars, int start, int end) {
+
+      int h = 0;
+      for (int i = start; i < end; i++) {
+        h = 31 * h + chars[i];
+      }
+      return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the index of the label with the given characters.
+     *
+     * @param chars the characters
+     * @param start the start of the label
+     * @param end the end of the label
+     * @return the index, -1 if there is no such label
+     */
+    public int indexOf(char[] chars, int start, int end) {
+
+      int mask = m_Table.length - 1;
+      int slot = hash(chars, start, end) & mask;
+      while (m_Table[slot] != 0) {
+        char[] label = m_Labels[m_Table[slot] - 1];
+        if (label.length == end - start) {
+          int i = 0;
+          while ((i < label.length) && (label[i] == chars[start + i])) {
+            i++;
+          }
+          if (i == label.length) {
+            return m_Table[slot] - 1;
+          }
+        }
+        slot = (slot + 1) & mask;
+      }
+      return -1;
+    }
+  }
+
+  /**
+   * Returns the revision string.
+   *
+   * @return the revision
+   */
+  @Override
+  public String getRevision() {
+    return RevisionUtils.extract("$Revision$");
+  }
+}
@@ -22,17 +22,28 @@
 package weka.core.converters;
 
 import java.io.BufferedReader;
+import java.io.CharArrayReader;
+import java.io.CharArrayWriter;
 import java.io.File;
+import java.io.FilterReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.PushbackReader;
 import java.io.Reader;
 import java.io.StreamTokenizer;
 import java.io.StringReader;
 import java.net.URL;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import weka.core.Attribute;
 import weka.core.DenseInstance;
@@ -79,6 +90,9 @@ public class ArffLoader extends AbstractFileLoader implements BatchConverter,
    */
   protected boolean m_retainStringVals;
 
+  /** the number of threads for parsing the data in batch mode */
+  protected int m_numExecutionSlots = 1;
+
   /**
    * Reads data from an ARFF file, either in incremental or batch mode.
    * <p/>
@@ -145,6 +159,217 @@ public class ArffLoader extends AbstractFileLoader implements BatchConverter,
     /** List of (single character) enclosures to use instead of the defaults */
     protected List<String> m_enclosures;
 
+    /** the token type of a StreamTokenizer that hasn't read anything yet */
+    protected static final int TT_NOTHING = -4;
+
+    /** the number of characters read from the source at once */
+    protected static final int BUFFER_SIZE = 65536;
+
+    /** the maximum number of lines parsed by one task in parallel mode */
+    protected static final int BLOCK_LINES = 4096;
+
+    /** the source, which remembers the last character the tokenizer read */
+    protected SourceReader m_Source;
+
+    /** whether it has been decided if the data is read line by line */
+    protected boolean m_LineModeDecided;
+
+    /**
+     * whether the data is read line by line with the line parser, instead of
+     * the tokenizer
+     */
+    protected boolean m_LineMode;
+
+    /** the parser for the data lines */
+    protected ArffLineParser m_Parser;
+
+    /** the characters read ahead from the source */
+    protected char[] m_Buffer;
+
+    /** the position of the next character in the buffer */
+    protected int m_BufferPos;
+
+    /** the end of the characters in the buffer */
+    protected int m_BufferEnd;
+
+    /** whether to skip a line feed, after a carriage return */
+    protected boolean m_SkipLF;
+
+    /** the characters of the current line, the buffer or the line copy */
+    protected char[] m_LineChars;
+
+    /** the start of the current line */
+    protected int m_LineStart;
+
+    /** the end of the current line, without the line break */
+    protected int m_LineEnd;
+
+    /** whether the current line ends with a line break */
+    protected boolean m_LineTerminated;
+
+    /** the line break character of the current line, 0 for none */
+    protected char m_LineBreak;
+
+    /** whether a line feed was skipped before the current line */
+    protected boolean m_SkippedLF;
+
+    /** the copy of a line that doesn't fit in the buffer */
+    protected char[] m_LineCopy = new char[256];
+
+    /** the number of the current line */
+    protected int m_CurrentLineNo;
+
+    /** the number of the next line */
+    protected int m_LineNo;
+
+    /** the number of lines read before, when switching to line mode */
+    protected int m_LineBase;
+
+    /** whether the current line is read with a tokenizer of its own */
+    protected boolean m_OnLine;
+
+    /**
+     * A reader that remembers the last character read one by one, i.e., the
+     * character the tokenizer has looked ahead at.
+     */
+    protected static class SourceReader extends FilterReader {
+
+      /** the last character read one by one, -1 for none */
+      protected int m_Last = -1;
+
+      /**
+       * Creates the reader.
+       *
+       * @param in the reader to read from
+       */
+      public SourceReader(Reader in) {
+        super(in);
+      }
+
+      /**
+       * Reads a single character and remembers it.
+       *
+       * @return the character, -1 at the end of the stream
+       * @throws IOException if reading fails
+       */
+      @Override
+      public int read() throws IOException {
+        m_Last = super.read();
+        return m_Last;
+      }
+    }
+
+    /**
+     * A block of lines that is parsed in a separate thread.
+     */
+    protected static class LineBlock implements Callable<LineBlock> {
+
+      /** the parser of this block */
+      protected ArffLineParser m_Parser;
+
+      /** the characters of the lines */
+      protected char[] m_Chars = new char[BUFFER_SIZE];
+
+      /** the number of characters */
+      protected int m_Length;
+
+      /** the start of each line */
+      protected int[] m_Start = new int[BLOCK_LINES];
+
+      /** the end of each line */
+      protected int[] m_End = new int[BLOCK_LINES];
+
+      /** the number of lines */
+      protected int m_NumLines;
+
+      /** the number of the first line */
+      protected int m_FirstLineNo;
+
+      /** the line break character of each line, 0 for none */
+      protected char[] m_Break = new char[BLOCK_LINES];
+
+      /** whether a line feed was skipped before each line */
+      protected boolean[] m_SkippedLF = new boolean[BLOCK_LINES];
+
+      /**
+       * the first line whose quoted value continues on the next line, the
+       * lines from there on aren't parsed
+       */
+      protected int m_Continued = -1;
+
+      /** the instances, null for empty lines and lines that failed */
+      protected Instance[] m_Instances = new Instance[BLOCK_LINES];
+
+      /** the lines the parser can't parse */
+      protected boolean[] m_Failed = new boolean[BLOCK_LINES];
+
+      /**
+       * Creates an empty block.
+       *
+       * @param parser the parser to use
+       * @param firstLineNo the number of the first line
+       */
+      public LineBlock(ArffLineParser parser, int firstLineNo) {
+        m_Parser = parser;
+        m_FirstLineNo = firstLineNo;
+      }
+
+      /**
+       * Appends a line.
+       *
+       * @param chars the characters
+       * @param start the start of the line
+       * @param end the end of the line
+       * @param lineBreak the line break character, 0 for none
+       * @param skippedLF whether a line feed was skipped before the line
+       */
+      public void add(char[] chars, int start, int end, char lineBreak,
+        boolean skippedLF) {
+        if (m_Length + end - start > m_Chars.length) {
+          m_Chars =
+            Arrays.copyOf(m_Chars, Math.max(2 * m_Chars.length, m_Length + end
+              - start));
+        }
+        System.arraycopy(chars, start, m_Chars, m_Length, end - start);
+        m_Start[m_NumLines] = m_Length;
+        m_Length += end - start;
+        m_End[m_NumLines] = m_Length;
+        m_Break[m_NumLines] = lineBreak;
+        m_SkippedLF[m_NumLines] = skippedLF;
+        m_NumLines++;
+      }
+
+      /**
+       * Returns whether the block is full.
+       *
+       * @return true if no more lines should be added
+       */
+      public boolean isFull() {
+        return (m_NumLines == BLOCK_LINES) || (m_Length >= BUFFER_SIZE);
+      }
+
+      /**
+       * Parses the lines.
+       *
+       * @return this block
+       */
+      @Override
+      public LineBlock call() {
+        for (int i = 0; i < m_NumLines; i++) {
+          int numTokens = m_Parser.tokenize(m_Chars, m_Start[i], m_End[i]);
+          if (numTokens < 0) {
+            m_Continued = i;
+            break;
+          }
+          if (numTokens > 0) {
+            m_Instances[i] = m_Parser.instance(true);
+          }
+          m_Failed[i] = (numTokens > 0) && (m_Instances[i] == null);
+        }
+        return this;
+      }
+    }
+
     /**
      * Reads the data completely from the reader. The data can be accessed via
      * the <code>getData()</code> method.
@@ -156,7 +381,8 @@ public class ArffLoader extends AbstractFileLoader implements BatchConverter,
     public ArffReader(Reader reader) throws IOException {
       m_retainStringValues = true;
       m_batchMode = true;
-      m_Tokenizer = new StreamTokenizer(reader);
+      m_Source = new SourceReader(reader);
+      m_Tokenizer = new StreamTokenizer(m_Source);
       initTokenizer();
 
       readHeader(1000);
@@ -198,7 +424,8 @@ public class ArffLoader extends AbstractFileLoader implements BatchConverter,
         throw new IllegalArgumentException("Capacity has to be positive!");
       }
 
-      m_Tokenizer = new StreamTokenizer(reader);
+      m_Source = new SourceReader(reader);
+      m_Tokenizer = new StreamTokenizer(m_Source);
       initTokenizer();
 
       readHeader(capacity);
@@ -303,7 +530,8 @@ public class ArffLoader extends AbstractFileLoader implements BatchConverter,
       }
 
       m_Lines = lines;
-      m_Tokenizer = new StreamTokenizer(reader);
+      m_Source = new SourceReader(reader);
+      m_Tokenizer = new StreamTokenizer(m_Source);
       initTokenizer();
 
       m_Data = new Instances(template, capacity);
@@ -348,8 +576,10 @@ public class ArffLoader extends AbstractFileLoader implements BatchConverter,
     protected void errorMessage(String msg) throws IOException {
       String str = msg + ", read " + m_Tokenizer.toString();
       if (m_Lines > 0) {
-        int line = Integer.parseInt(str.replaceAll(".* line ", ""));
-        str = str.replaceAll(" line .*", " line " + (m_Lines + line - 1));
+        // the message itself may contain " line ", e.g., "end of line"
+        int pos = str.lastIndexOf(" line ");
+        int line = Integer.parseInt(str.substring(pos + 6));
+        str = str.substring(0, pos) + " line " + (m_Lines + line - 1);
       }
       throw new IOException(str);
     }
@@ -360,6 +590,9 @@ public class ArffLoader extends AbstractFileLoader implements BatchConverter,
      * @return the current line number
      */
     public int getLineNo() {
+      if (m_LineMode) {
+        return m_LineNo;
+      }
       return m_Lines + m_Tokenizer.lineno();
     }
 
@@ -532,6 +765,10 @@ public class ArffLoader extends AbstractFileLoader implements BatchConverter,
         errorMessage("no header information available");
       }
 
+      if (startLineMode(flag)) {
+        return getLineInstance(flag);
+      }
+
       // Check if end of file reached.
       getFirstToken();
       if (m_Tokenizer.ttype == StreamTokenizer.TT_EOF) {
@@ -546,6 +783,364 @@ public class ArffLoader extends AbstractFileLoader implements BatchConverter,
       }
     }
 
+    /**
+     * Decides on the first instance whether the data is read line by line
+     * with the line parser. This is the case if the end of line is checked
+     * after each instance, i.e., each instance is on a line of its own, and
+     * the tokenizer hasn't read beyond the header. The reader reads ahead from
+     * the source then.
+     * 
+     * @param flag if method should test for carriage return after each instance
+     * @return true if the data is read line by line
+     */
+    protected boolean startLineMode(boolean flag) {
+      if (!m_LineModeDecided) {
+        m_LineModeDecided = true;
+        int ttype = m_Tokenizer.ttype;
+        if (flag && ((ttype == TT_NOTHING) || (ttype == StreamTokenizer.TT_WORD))) {
+          m_LineNo = getLineNo();
+          m_LineBase = m_Lines;
+          m_LineMode = true;
+          m_Buffer = new char[BUFFER_SIZE];
+          m_BufferPos = 0;
+          m_BufferEnd = 0;
+          // the character the tokenizer looked ahead at after the @data keyword
+          if ((ttype == StreamTokenizer.TT_WORD) && (m_Source.m_Last >= 0)) {
+            m_Buffer[m_BufferEnd++] = (char) m_Source.m_Last;
+          }
+          m_Parser = new ArffLineParser();
+          if ((m_fieldSeparator != null) || (m_enclosures != null)) {
+            char separator =
+              (m_fieldSeparator != null) ? m_fieldSeparator.charAt(0) : ',';
+            char[] quotes = { '"', '\'' };
+            if (m_enclosures != null) {
+              quotes = new char[m_enclosures.size()];
+              for (int i = 0; i < quotes.length; i++) {
+                quotes[i] = m_enclosures.get(i).charAt(0);
+              }
+            }
+            m_Parser.setSyntax(separator, quotes);
+          }
+        }
+      }
+      return m_LineMode;
+    }
+
+    /**
+     * Reads the next line from the source.
+     * 
+     * @return false if the end of the source has been reached
+     * @throws IOException if reading fails
+     */
+    protected boolean nextLine() throws IOException {
+      int length = 0;
+      boolean copied = false;
+      m_SkippedLF = false;
+      while (true) {
+        if (m_BufferPos == m_BufferEnd) {
+          m_BufferPos = 0;
+          m_BufferEnd = Math.max(m_Source.read(m_Buffer, 0, m_Buffer.length), 0);
+          if (m_BufferEnd == 0) {
+            if (!copied) {
+              return false;
+            }
+            m_LineChars = m_LineCopy;
+            m_LineStart = 0;
+            m_LineEnd = length;
+            m_LineTerminated = false;
+            m_LineBreak = 0;
+            m_CurrentLineNo = m_LineNo;
+            return true;
+          }
+        }
+        if (m_SkipLF) {
+          m_SkipLF = false;
+          if (m_Buffer[m_BufferPos] == '\n') {
+            m_BufferPos++;
+            m_SkippedLF = true;
+            continue;
+          }
+        }
+
+        char[] buffer = m_Buffer;
+        int start = m_BufferPos;
+        int pos = start;
+        int end = m_BufferEnd;
+        while ((pos < end) && (buffer[pos] != '\n') && (buffer[pos] != '\r')) {
+          pos++;
+        }
+        if (copied || (pos == end)) {
+          if (length + pos - start > m_LineCopy.length) {
+            m_LineCopy =
+              Arrays.copyOf(m_LineCopy, Math.max(2 * m_LineCopy.length, length
+                + pos - start));
+          }
+          System.arraycopy(buffer, start, m_LineCopy, length, pos - start);
+          length += pos - start;
+          copied = true;
+          m_BufferPos = pos;
+          if (pos == end) {
+            continue;
+          }
+          m_LineChars = m_LineCopy;
+          m_LineStart = 0;
+          m_LineEnd = length;
+        } else {
+          m_LineChars = buffer;
+          m_LineStart = start;
+          m_LineEnd = pos;
+        }
+        m_SkipLF = (buffer[pos] == '\r');
+        m_BufferPos = pos + 1;
+        m_LineTerminated = true;
+        m_LineBreak = buffer[pos];
+        m_CurrentLineNo = m_LineNo++;
+        return true;
+      }
+    }
+
+    /**
+     * Reads the next instance in line mode. Lines the line parser can't
+     * handle are read with a tokenizer of their own.
+     * 
+     * @param flag if method should test for carriage return after each instance
+     * @return null if end of file has been reached
+     * @throws IOException if the information is not read successfully
+     */
+    protected Instance getLineInstance(boolean flag) throws IOException {
+      while (true) {
+        if (m_OnLine) {
+          Instance inst = getTokenizerInstance(flag);
+          if (inst != null) {
+            return inst;
+          }
+        }
+        if (!nextLine()) {
+          return null;
+        }
+        m_Parser.setStructure(m_Data);
+        m_Parser.setRetainStringValues(m_batchMode || m_retainStringValues);
+        int numTokens =
+          m_Parser.tokenize(m_LineChars, m_LineStart, m_LineEnd);
+        if (numTokens == 0) {
+          continue;
+        }
+        if (numTokens < 0) {
+          int length = m_LineEnd - m_LineStart;
+          char[] rest = Arrays.copyOfRange(m_LineChars, m_LineStart,
+            m_LineBreak != 0 ? m_LineEnd + 1 : m_LineEnd);
+          if (m_LineBreak != 0) {
+            rest[length] = m_LineBreak;
+          }
+          fallBackToTokenizer(rest, rest.length, m_CurrentLineNo);
+          return getInstance(m_Data, flag);
+        }
+        Instance inst = m_Parser.instance(flag);
+        if (inst != null) {
+          return inst;
+        }
+        startLineTokenizer();
+      }
+    }
+
+    /**
+     * Leaves line mode for good, e.g., if a quoted value continues on the
+     * next line. The rest of the source, starting with the given lines, is
+     * read with a tokenizer, which counts the lines as if it had read the
+     * whole source.
+     * 
+     * @param chars the lines read ahead, including their line breaks
+     * @param length the number of characters
+     * @param lineNo the number of the first line
+     * @throws IOException if the information is not read successfully
+     */
+    protected void fallBackToTokenizer(char[] chars, int length, int lineNo)
+      throws IOException {
+      int numLines = lineNo - m_LineBase - 1;
+      int rest = m_BufferEnd - m_BufferPos;
+      char[] text = new char[numLines + length + rest];
+      Arrays.fill(text, 0, numLines, '\n');
+      System.arraycopy(chars, 0, text, numLines, length);
+      System.arraycopy(m_Buffer, m_BufferPos, text, numLines + length, rest);
+      PushbackReader reader =
+        new PushbackReader(m_Source, Math.max(text.length, 1));
+      reader.unread(text);
+      m_Tokenizer = new StreamTokenizer(reader);
+      initTokenizer();
+      m_Lines = m_LineBase;
+      m_LineMode = false;
+      m_OnLine = false;
+      m_Buffer = null;
+      m_BufferPos = 0;
+      m_BufferEnd = 0;
+    }
+
+    /**
+     * Sets up a tokenizer for the current line, which the line parser can't
+     * handle, e.g., to produce the error message.
+     */
+    protected void startLineTokenizer() {
+      int length = m_LineEnd - m_LineStart;
+      char[] line = new char[m_LineTerminated ? length + 1 : length];
+      System.arraycopy(m_LineChars, m_LineStart, line, 0, length);
+      if (m_LineTerminated) {
+        line[length] = '\n';
+      }
+      m_Tokenizer = new StreamTokenizer(new CharArrayReader(line));
+      initTokenizer();
+      // line numbers in error messages as if the whole source was tokenized
+      m_Lines = (m_LineBase > 0) ? m_CurrentLineNo - 1 : m_CurrentLineNo;
+      m_OnLine = true;
+    }
+
+    /**
+     * Reads the next instance of the current line with its tokenizer.
+     * 
+     * @param flag if method should test for carriage return after each instance
+     * @return null if there are no more instances on the line
+     * @throws IOException if the information is not read successfully
+     */
+    protected Instance getTokenizerInstance(boolean flag) throws IOException {
+      getFirstToken();
+      if (m_Tokenizer.ttype == StreamTokenizer.TT_EOF) {
+        m_OnLine = false;
+        return null;
+      }
+      if (m_Tokenizer.ttype == '{') {
+        return getInstanceSparse(flag);
+      } else {
+        return getInstanceFull(flag);
+      }
+    }
+
+    /**
+     * Reads all remaining instances and adds them to the given dataset. If
+     * more than one thread is used, blocks of lines are parsed in parallel,
+     * provided the data is read line by line and there are only numeric and
+     * nominal attributes, i.e., parsing doesn't change the header.
+     * 
+     * @param structure the dataset header information
+     * @param data the dataset to add the instances to
+     * @param numThreads the number of threads, 0 for one per available
+     *          processor
+     * @throws IOException if the information is not read successfully
+     */
+    public void readInstances(Instances structure, Instances data,
+      int numThreads) throws IOException {
+      if (numThreads == 0) {
+        numThreads = Runtime.getRuntime().availableProcessors();
+      }
+      boolean parallel = (numThreads > 1) && (structure.numAttributes() > 0);
+      for (int i = 0; parallel && (i < structure.numAttributes()); i++) {
+        Attribute att = structure.attribute(i);
+        parallel = (att.isNumeric() && !att.isDate()) || att.isNominal();
+      }
+      if (parallel && startLineMode(true) && !m_OnLine) {
+        readParallel(structure, data, numThreads);
+      }
+
+      Instance inst;
+      while ((inst = readInstance(structure)) != null) {
+        data.add(inst);
+      }
+    }
+
+    /**
+     * Reads all remaining lines in blocks that are parsed in parallel, and
+     * adds the instances to the given dataset in order.
+     * 
+     * @param structure the dataset header information
+     * @param data the dataset to add the instances to
+     * @param numThreads the number of threads
+     * @throws IOException if the information is not read successfully
+     */
+    protected void readParallel(Instances structure, Instances data,
+      int numThreads) throws IOException {
+      m_Data = structure;
+      m_Parser.setStructure(structure);
+      ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+      LinkedList<Future<LineBlock>> pending =
+        new LinkedList<Future<LineBlock>>();
+      try {
+        boolean eof = false;
+        while (true) {
+          while (!eof && (pending.size() < 2 * numThreads)) {
+            LineBlock block = null;
+            while ((block == null) || !block.isFull()) {
+              if (!nextLine()) {
+                eof = true;
+                break;
+              }
+              if (block == null) {
+                block =
+                  new LineBlock(new ArffLineParser(m_Parser), m_CurrentLineNo);
+              }
+              block.add(m_LineChars, m_LineStart, m_LineEnd, m_LineBreak,
+                m_SkippedLF);
+            }
+            if (block != null) {
+              pending.add(pool.submit(block));
+            }
+          }
+          if (pending.isEmpty()) {
+            break;
+          }
+
+          LineBlock block = pending.removeFirst().get();
+          int numLines =
+            (block.m_Continued < 0) ? block.m_NumLines : block.m_Continued;
+          for (int i = 0; i < numLines; i++) {
+            if (block.m_Instances[i] != null) {
+              data.add(block.m_Instances[i]);
+            } else if (block.m_Failed[i]) {
+              m_LineChars = block.m_Chars;
+              m_LineStart = block.m_Start[i];
+              m_LineEnd = block.m_End[i];
+              m_LineTerminated = (block.m_Break[i] != 0);
+              m_CurrentLineNo = block.m_FirstLineNo + i;
+              startLineTokenizer();
+              Instance inst;
+              while ((inst = getTokenizerInstance(true)) != null) {
+                data.add(inst);
+              }
+            }
+          }
+          if (block.m_Continued >= 0) {
+            // a quoted value continues on the next line, hand the lines from
+            // there on back to the tokenizer
+            CharArrayWriter lines = new CharArrayWriter();
+            int lineNo = block.m_FirstLineNo + block.m_Continued;
+            int first = block.m_Continued;
+            while (true) {
+              for (int i = first; i < block.m_NumLines; i++) {
+                if (block.m_SkippedLF[i] && (lines.size() > 0)) {
+                  lines.write('\n');
+                }
+                lines.write(block.m_Chars, block.m_Start[i], block.m_End[i]
+                  - block.m_Start[i]);
+                if (block.m_Break[i] != 0) {
+                  lines.write(block.m_Break[i]);
+                }
+              }
+              if (pending.isEmpty()) {
+                break;
+              }
+              block = pending.removeFirst().get();
+              first = 0;
+            }
+            fallBackToTokenizer(lines.toCharArray(), lines.size(), lineNo);
+            return;
+          }
+        }
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      } catch (ExecutionException e) {
+        throw new IOException(e.getCause());
+      } finally {
+        pool.shutdownNow();
+      }
+    }
+
     /**
      * Reads a single instance using the tokenizer and returns it.
      * 
@@ -1054,6 +1649,35 @@ public class ArffLoader extends AbstractFileLoader implements BatchConverter,
     return m_retainStringVals;
   }
 
+  /**
+   * Tool tip text for this property
+   * 
+   * @return the tool tip for this property
+   */
+  public String numExecutionSlotsTipText() {
+    return "The number of threads to use for parsing the data when reading "
+      + "in batch mode (0 = one per processor). Only data with numeric and "
+      + "nominal attributes is parsed in parallel.";
+  }
+
+  /**
+   * Set the number of threads to use for parsing the data in batch mode.
+   * 
+   * @param slots the number of threads, 0 for one per available processor
+   */
+  public void setNumExecutionSlots(int slots) {
+    m_numExecutionSlots = slots;
+  }
+
+  /**
+   * Get the number of threads to use for parsing the data in batch mode.
+   * 
+   * @return the number of threads, 0 for one per available processor
+   */
+  public int getNumExecutionSlots() {
+    return m_numExecutionSlots;
+  }
+
   /**
    * Get the file extension used for arff files
    * 
@@ -1236,10 +1860,7 @@ public class ArffLoader extends AbstractFileLoader implements BatchConverter,
 
       // Read all instances
       insts = new Instances(m_structure, 0);
-      Instance inst;
-      while ((inst = m_ArffReader.readInstance(m_structure)) != null) {
-        insts.add(inst);
-      }
+      m_ArffReader.readInstances(m_structure, insts, m_numExecutionSlots);
 
       // Instances readIn = new Instances(m_structure);
 
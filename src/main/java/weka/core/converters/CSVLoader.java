@@ -124,6 +124,10 @@ import weka.core.converters.ArffLoader.ArffReader;
  *  The size of the in memory buffer (in rows).
  *  (default: 100)</pre>
  * 
+ * <pre> -num-slots &lt;num&gt;
+ *  The number of threads to read a file with in batch mode.
+ *  (default: 1, 0 = one per available processor)</pre>
+ * 
  <!-- options-end -->
  * 
  * @author Mark Hall (mhall{[at]}pentaho{[dot]}com)
@@ -186,6 +190,9 @@ public class CSVLoader extends AbstractFileLoader implements BatchConverter,
   /** The maximum number of rows to hold in memory at any one time */
   protected int m_bufferSize = 100;
 
+  /** The number of threads to read a file with in batch mode */
+  protected int m_numExecutionSlots = 1;
+
   /** Lookup for nominal values */
   protected Map<Integer, LinkedHashSet<String>> m_nominalVals;
 
@@ -560,6 +567,35 @@ public class CSVLoader extends AbstractFileLoader implements BatchConverter,
     return "The number of rows to process in memory at any one time.";
   }
 
+  /**
+   * Get the number of threads to read a file with in batch mode.
+   *
+   * @return the number of threads, 0 for one per available processor
+   */
+  public int getNumExecutionSlots() {
+    return m_numExecutionSlots;
+  }
+
+  /**
+   * Set the number of threads to read a file with in batch mode.
+   *
+   * @param slots the number of threads, 0 for one per available processor
+   */
+  public void setNumExecutionSlots(int slots) {
+    m_numExecutionSlots = slots;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String numExecutionSlotsTipText() {
+    return "The number of threads to read a file with in batch mode "
+      + "(0 = one per available processor).";
+  }
+
   /**
    * Get label specifications for nominal attributes.
    *
@@ -666,6 +702,11 @@ public class CSVLoader extends AbstractFileLoader implements BatchConverter,
     result.add(new Option("\tThe size of the in memory buffer (in rows).\n"
       + "\t(default: 100)", "B", 1, "-B <num>"));
 
+    result.add(new Option(
+      "\tThe number of threads to read a file with in batch mode.\n"
+        + "\t(default: 1, 0 = one per available processor)", "num-slots", 1,
+      "-num-slots <num>"));
+
     return result.elements();
   }
 
@@ -701,6 +742,11 @@ public class CSVLoader extends AbstractFileLoader implements BatchConverter,
     result.add("-B");
     result.add("" + getBufferSize());
 
+    if (getNumExecutionSlots() != 1) {
+      result.add("-num-slots");
+      result.add("" + getNumExecutionSlots());
+    }
+
     result.add("-E");
     result.add(getEnclosureCharacters());
 
@@ -772,6 +818,17 @@ public class CSVLoader extends AbstractFileLoader implements BatchConverter,
       setBufferSize(buff);
     }
 
+    tmpStr = Utils.getOption("num-slots", options);
+    if (tmpStr.length() > 0) {
+      int slots = Integer.parseInt(tmpStr);
+      if (slots < 0) {
+        throw new Exception("Number of execution slots needs to be >= 0!");
+      }
+      setNumExecutionSlots(slots);
+    } else {
+      setNumExecutionSlots(1);
+    }
+
     tmpStr = Utils.getOption("E", options);
     if (tmpStr.length() > 0) {
       setEnclosureCharacters(tmpStr);
@@ -873,6 +930,23 @@ public class CSVLoader extends AbstractFileLoader implements BatchConverter,
     }
     setRetrieval(BATCH);
 
+    // read files in chunks of lines, in parallel, if the file allows it
+    if ((m_sourceFile != null) && m_sourceFile.isFile()
+      && !m_sourceFile.getName().endsWith(FILE_EXTENSION_COMPRESSED)) {
+      Instances structure = m_structure;
+      TYPE[] types = m_types;
+      Map<Integer, LinkedHashSet<String>> nominalVals = m_nominalVals;
+      Instances data =
+        new ParallelCSVReader(this, m_sourceFile, m_numExecutionSlots).read();
+      if (data != null) {
+        return data;
+      }
+      m_structure = structure;
+      m_types = types;
+      m_nominalVals = nominalVals;
+      m_fieldSeparatorAndEnclosures = separatorAndEnclosuresToArray();
+    }
+
     if (m_structure == null) {
       getStructure();
     }
@@ -1123,6 +1197,35 @@ public class CSVLoader extends AbstractFileLoader implements BatchConverter,
       }
       first = false;
     }
+    initStructure(attribNames);
+
+    // Prevents the first row from getting lost in the
+    // case where there is no header row and we're
+    // running in batch mode
+    if (m_noHeaderRow && getRetrieval() == BATCH) {
+      StreamTokenizer tempT = new StreamTokenizer(new StringReader(firstRow));
+      initTokenizer(tempT);
+      tempT.ordinaryChar(m_FieldSeparator.charAt(0));
+      String checked = getInstance(tempT);
+      dumpRow(checked);
+    }
+
+    m_st = new StreamTokenizer(m_sourceReader);
+    initTokenizer(m_st);
+    m_st.ordinaryChar(m_FieldSeparator.charAt(0));
+
+    // try and determine a more accurate structure from the first batch
+    readData(false || getRetrieval() == BATCH);
+    makeStructure();
+  }
+
+  /**
+   * Creates the initial structure with the given attributes, which are all
+   * string attributes, and sets the types that are forced by the options.
+   *
+   * @param attribNames the attributes
+   */
+  protected void initStructure(ArrayList<Attribute> attribNames) {
     String relationName;
     if (m_sourceFile != null) {
       relationName =
@@ -1193,25 +1296,6 @@ public class CSVLoader extends AbstractFileLoader implements BatchConverter,
         }
       }
     }
-
-    // Prevents the first row from getting lost in the
-    // case where there is no header row and we're
-    // running in batch mode
-    if (m_noHeaderRow && getRetrieval() == BATCH) {
-      StreamTokenizer tempT = new StreamTokenizer(new StringReader(firstRow));
-      initTokenizer(tempT);
-      tempT.ordinaryChar(m_FieldSeparator.charAt(0));
-      String checked = getInstance(tempT);
-      dumpRow(checked);
-    }
-
-    m_st = new StreamTokenizer(m_sourceReader);
-    initTokenizer(m_st);
-    m_st.ordinaryChar(m_FieldSeparator.charAt(0));
-
-    // try and determine a more accurate structure from the first batch
-    readData(false || getRetrieval() == BATCH);
-    makeStructure();
   }
 
   protected void openTempFiles() throws IOException {
@@ -0,0 +1,683 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    ColumnarInstancesLoader.java
+ *    Copyright (C) 2026 lendle
+ *
+ */
+
+package weka.core.converters;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.RevisionUtils;
+import weka.core.SparseInstance;
+import weka.core.Utils;
+
+/**
+ <!-- globalinfo-start -->
+ * Reads a source that is in the columnar binary format written by the
+ * ColumnarInstancesSaver. The instances are stored in chunks, column by
+ * column, with nominal and string values as indices into dictionaries. The
+ * chunks can be read one after the other, i.e., incrementally, or from a file
+ * in any order.
+ * <p/>
+ <!-- globalinfo-end -->
+ *
+ * The format of a file is as follows (big-endian):
+ *
+ * <pre>
+ * int    magic number ("WCBI")
+ * int    version
+ * int    flags (1 = chunks compressed with deflate)
+ * int    class index, -1 for none
+ * int    length of the header
+ * byte[] header in ARFF format, UTF-8 encoded
+ * chunks, each:
+ *   int    number of instances
+ *   int    length of the chunk data
+ *   int    length of the stored, i.e., possibly compressed, chunk data
+ *   byte[] stored chunk data
+ * int    0, the end of the chunks
+ * int    number of chunks
+ * chunk index, each:
+ *   long   offset of the chunk
+ *   int    number of instances
+ * long   offset of the chunk index
+ * int    magic number
+ * </pre>
+ *
+ * The chunk data consists of the weights (a byte 0 if all weights are 1,
+ * otherwise a byte 1 followed by the weights as doubles), the sparse
+ * instances (a byte 0 if there are none, otherwise a byte 1 followed by a
+ * bitmap) and one block per attribute. A block starts with the missing values
+ * (a byte 0 if there are none, otherwise a byte 1 followed by a bitmap),
+ * followed by the values that aren't missing. Nominal values are stored as
+ * label indices, string values as indices into a dictionary of the chunk that
+ * precedes them, and numeric and date values either as doubles or, if they
+ * are all integers, as variable-length longs (indicated by a byte 0 or 1).
+ * Indices and the lengths of strings are stored as variable-length integers,
+ * 7 bits per byte, least significant first.
+ *
+ * @author lendle
+ * @version $Revision$
+ * @see Loader
+ * @see ColumnarInstancesSaver
+ */
+public class ColumnarInstancesLoader extends AbstractFileLoader implements
+  BatchConverter, IncrementalConverter {
+
+  /** for serialization */
+  private static final long serialVersionUID = -2794335187409327162L;
+
+  /** the file extension */
+  public static String FILE_EXTENSION = ".wcb";
+
+  /** the magic number at the start and the end of a file ("WCBI") */
+  public static final int MAGIC = 0x57434249;
+
+  /** the version of the format */
+  public static final int VERSION = 1;
+
+  /** the flag for chunks compressed with deflate */
+  public static final int FLAG_DEFLATE = 1;
+
+  /** the encoding of numeric values as doubles */
+  public static final int NUMBERS_DOUBLE = 0;
+
+  /** the encoding of integer numeric values as variable-length longs */
+  public static final int NUMBERS_INTEGER = 1;
+
+  /** the charset of the header and the strings */
+  protected static final Charset UTF8 = Charset.forName("UTF-8");
+
+  /** the stream to read from */
+  protected transient DataInputStream m_Input = null;
+
+  /** the flags of the source */
+  protected int m_Flags;
+
+  /** the chunk read incrementally */
+  protected transient Chunk m_Chunk = null;
+
+  /** the next instance in the chunk read incrementally */
+  protected int m_ChunkRow;
+
+  /** whether the end of the chunks has been reached */
+  protected boolean m_EndOfChunks;
+
+  /** the offsets of the chunks in the file, null if not read yet */
+  protected long[] m_ChunkOffsets = null;
+
+  /** the number of instances in each chunk */
+  protected int[] m_ChunkSizes = null;
+
+  /**
+   * The decoded values of a chunk, column by column.
+   */
+  protected static class Chunk {
+
+    /** the chunk data */
+    protected byte[] m_Data;
+
+    /** the current position in the data */
+    protected int m_Pos;
+
+    /** the number of instances */
+    protected int m_NumRows;
+
+    /** the weights, null if all are 1 */
+    protected double[] m_Weights;
+
+    /** the sparse instances, null if there are none */
+    protected boolean[] m_Sparse;
+
+    /**
+     * the values per attribute, for string attributes the indices into the
+     * dictionary
+     */
+    protected double[][] m_Columns;
+
+    /** the dictionaries of the string attributes */
+    protected String[][] m_Dictionaries;
+
+    /** the dataset the string indices have been mapped for */
+    protected Instances m_MappedDataset;
+
+    /** the indices of the dictionary entries in the mapped dataset */
+    protected int[][] m_StringIndices;
+
+    /**
+     * Decodes the data of a chunk.
+     *
+     * @param data the chunk data
+     * @param numRows the number of instances
+     * @param structure the structure of the data
+     * @throws IOException if the data is corrupt
+     */
+    public Chunk(byte[] data, int numRows, Instances structure)
+      throws IOException {
+
+      m_Data = data;
+      m_NumRows = numRows;
+      try {
+        if (readByte() != 0) {
+          m_Weights = new double[numRows];
+          for (int i = 0; i < numRows; i++) {
+            m_Weights[i] = readDouble();
+          }
+        }
+        m_Sparse = readBitmap();
+
+        m_Columns = new double[structure.numAttributes()][];
+        m_Dictionaries = new String[structure.numAttributes()][];
+        for (int j = 0; j < m_Columns.length; j++) {
+          Attribute att = structure.attribute(j);
+          boolean[] missing = readBitmap();
+          double[] column = new double[numRows];
+          int encoding = NUMBERS_DOUBLE;
+          if (att.isString()) {
+            m_Dictionaries[j] = new String[(int) readVarLong()];
+            for (int k = 0; k < m_Dictionaries[j].length; k++) {
+              int length = (int) readVarLong();
+              m_Dictionaries[j][k] = new String(m_Data, m_Pos, length, UTF8);
+              m_Pos += length;
+            }
+          } else if (att.isNumeric()) {
+            encoding = readByte();
+          }
+          for (int i = 0; i < numRows; i++) {
+            if ((missing != null) && missing[i]) {
+              column[i] = Utils.missingValue();
+            } else if (att.isNominal() || att.isString()) {
+              column[i] = readVarLong();
+            } else if (encoding == NUMBERS_INTEGER) {
+              long value = readVarLong();
+              column[i] = (value >>> 1) ^ -(value & 1);
+            } else {
+              column[i] = readDouble();
+            }
+          }
+          m_Columns[j] = column;
+        }
+      } catch (IndexOutOfBoundsException e) {
+        throw new IOException("Chunk data is corrupt");
+      } catch (NegativeArraySizeException e) {
+        throw new IOException("Chunk data is corrupt");
+      }
+      m_Data = null;
+    }
+
+    /**
+     * Reads a byte from the data.
+     *
+     * @return the byte, unsigned
+     */
+    protected int readByte() {
+      return m_Data[m_Pos++] & 0xff;
+    }
+
+    /**
+     * Reads a double from the data.
+     *
+     * @return the double
+     */
+    protected double readDouble() {
+      long bits = 0;
+      for (int i = 0; i < 8; i++) {
+        bits = (bits << 8) | (m_Data[m_Pos++] & 0xff);
+      }
+      return Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * Reads a variable-length long from the data.
+     *
+     * @return the long
+     */
+    protected long readVarLong() {
+      long result = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = m_Data[m_Pos++];
+        result |= (long) (b & 0x7f) << shift;
+        shift += 7;
+      } while (b < 0);
+      return result;
+    }
+
+    /**
+     * Reads an optional bitmap with a bit per instance from the data.
+     *
+     * @return the bits, null if there is no bitmap
+     */
+    protected boolean[] readBitmap() {
+      if (readByte() == 0) {
+        return null;
+      }
+      boolean[] result = new boolean[m_NumRows];
+      for (int i = 0; i < m_NumRows; i++) {
+        result[i] = (m_Data[m_Pos + (i >> 3)] & (1 << (i & 7))) != 0;
+      }
+      m_Pos += (m_NumRows + 7) >> 3;
+      return result;
+    }
+
+    /**
+     * Creates an instance of the chunk. String values are added to the
+     * attributes of the given dataset.
+     *
+     * @param row the index of the instance in the chunk
+     * @param dataset the dataset the instance is created for
+     * @return the instance
+     */
+    public Instance instance(int row, Instances dataset) {
+
+      if (m_MappedDataset != dataset) {
+        m_StringIndices = new int[m_Dictionaries.length][];
+        m_MappedDataset = dataset;
+      }
+      double[] values = new double[m_Columns.length];
+      for (int j = 0; j < values.length; j++) {
+        values[j] = m_Columns[j][row];
+        if ((m_Dictionaries[j] != null) && !Utils.isMissingValue(values[j])) {
+          if (m_StringIndices[j] == null) {
+            Attribute att = dataset.attribute(j);
+            m_StringIndices[j] = new int[m_Dictionaries[j].length];
+            for (int k = 0; k < m_StringIndices[j].length; k++) {
+              m_StringIndices[j][k] = att.addStringValue(m_Dictionaries[j][k]);
+            }
+          }
+          values[j] = m_StringIndices[j][(int) values[j]];
+        }
+      }
+
+      double weight = (m_Weights == null) ? 1.0 : m_Weights[row];
+      Instance result;
+      if ((m_Sparse != null) && m_Sparse[row]) {
+        result = new SparseInstance(weight, values);
+      } else {
+        result = new DenseInstance(weight, values);
+      }
+      result.setDataset(dataset);
+      return result;
+    }
+  }
+
+  /**
+   * Returns a string describing this object
+   *
+   * @return a description of the classifier suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String globalInfo() {
+    return "Reads a source that is in the columnar binary format written by "
+      + "the ColumnarInstancesSaver. The instances are stored in chunks, "
+      + "column by column, with nominal and string values as indices into "
+      + "dictionaries. The chunks can be read one after the other, i.e., "
+      + "incrementally, or from a file in any order.";
+  }
+
+  /**
+   * Resets the Loader ready to read a new data set
+   *
+   * @throws IOException if something goes wrong
+   */
+  @Override
+  public void reset() throws IOException {
+    m_structure = null;
+    m_Input = null;
+    m_Chunk = null;
+    m_EndOfChunks = false;
+    m_ChunkOffsets = null;
+    m_ChunkSizes = null;
+
+    setRetrieval(NONE);
+
+    if ((m_sourceFile != null) && m_sourceFile.exists()) {
+      setFile(m_sourceFile);
+    }
+  }
+
+  /**
+   * Get the file extension used for columnar binary files
+   *
+   * @return the file extension
+   */
+  @Override
+  public String getFileExtension() {
+    return FILE_EXTENSION;
+  }
+
+  /**
+   * Gets all the file extensions used for this type of file
+   *
+   * @return the file extensions
+   */
+  @Override
+  public String[] getFileExtensions() {
+    return new String[] { getFileExtension() };
+  }
+
+  /**
+   * Returns a description of the file type.
+   *
+   * @return a short file description
+   */
+  @Override
+  public String getFileDescription() {
+    return "Columnar binary instances";
+  }
+
+  /**
+   * Resets the Loader object and sets the source of the data set to be the
+   * supplied InputStream.
+   *
+   * @param in the source InputStream.
+   * @throws IOException if there is a problem with IO
+   */
+  @Override
+  public void setSource(InputStream in) throws IOException {
+    m_structure = null;
+    m_Chunk = null;
+    m_EndOfChunks = false;
+    m_ChunkOffsets = null;
+    m_ChunkSizes = null;
+    setRetrieval(NONE);
+
+    m_Input = new DataInputStream(new BufferedInputStream(in));
+  }
+
+  /**
+   * Reads the header of a source.
+   *
+   * @param in the source, positioned at its start
+   * @return the structure of the data
+   * @throws IOException if the source isn't in columnar binary format
+   */
+  protected Instances readHeader(DataInput in) throws IOException {
+
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Source is not in columnar binary format");
+    }
+    int version = in.readInt();
+    if (version > VERSION) {
+      throw new IOException("Unsupported version of the columnar binary "
+        + "format: " + version);
+    }
+    m_Flags = in.readInt();
+    int classIndex = in.readInt();
+    byte[] header = new byte[in.readInt()];
+    in.readFully(header);
+
+    Instances result =
+      new Instances(new StringReader(new String(header, UTF8)));
+    result.setClassIndex(classIndex);
+    return result;
+  }
+
+  /**
+   * Reads a chunk, after the number of its instances.
+   *
+   * @param in the source, positioned after the number of instances
+   * @param numRows the number of instances
+   * @return the decoded chunk
+   * @throws IOException if reading fails
+   */
+  protected Chunk readChunk(DataInput in, int numRows) throws IOException {
+
+    byte[] data = new byte[in.readInt()];
+    byte[] stored = new byte[in.readInt()];
+    in.readFully(stored);
+    if ((m_Flags & FLAG_DEFLATE) != 0) {
+      Inflater inflater = new Inflater();
+      try {
+        inflater.setInput(stored);
+        if (inflater.inflate(data) != data.length) {
+          throw new IOException("Chunk data is truncated");
+        }
+      } catch (DataFormatException e) {
+        throw new IOException(e);
+      } finally {
+        inflater.end();
+      }
+    } else {
+      data = stored;
+    }
+    return new Chunk(data, numRows, m_structure);
+  }
+
+  /**
+   * Determines and returns (if possible) the structure (internally the
+   * header) of the data set as an empty set of instances.
+   *
+   * @return the structure of the data set as an empty set of Instances
+   * @throws IOException if an error occurs
+   */
+  @Override
+  public Instances getStructure() throws IOException {
+
+    if (m_structure == null) {
+      if (m_Input == null) {
+        throw new IOException("No source has been specified");
+      }
+      m_structure = readHeader(m_Input);
+    }
+
+    return new Instances(m_structure, 0);
+  }
+
+  /**
+   * Return the full data set. If the structure hasn't yet been determined by
+   * a call to getStructure then method should do so before processing the
+   * rest of the data set.
+   *
+   * @return the structure of the data set as an empty set of Instances
+   * @throws IOException if there is no source or parsing fails
+   */
+  @Override
+  public Instances getDataSet() throws IOException {
+
+    if (m_Input == null) {
+      throw new IOException("No source has been specified");
+    }
+    if (getRetrieval() == INCREMENTAL) {
+      throw new IOException(
+        "Cannot mix getting Instances in both incremental and batch modes");
+    }
+    setRetrieval(BATCH);
+    if (m_structure == null) {
+      getStructure();
+    }
+
+    Instances result = m_structure.stringFreeStructure();
+    int numRows;
+    while ((numRows = m_Input.readInt()) > 0) {
+      Chunk chunk = readChunk(m_Input, numRows);
+      for (int i = 0; i < numRows; i++) {
+        result.add(chunk.instance(i, result));
+      }
+    }
+    m_Input.close();
+    m_Input = null;
+
+    return result;
+  }
+
+  /**
+   * Read the data set incrementally---get the next instance in the data set
+   * or returns null if there are no more instances to get. If the structure
+   * hasn't yet been determined by a call to getStructure then method should
+   * do so before returning the next instance in the data set. String values
+   * are added to the given structure.
+   *
+   * @param structure the dataset header information
+   * @return the next instance in the data set as an Instance object or null
+   *         if there are no more instances to be read
+   * @throws IOException if there is an error during parsing
+   */
+  @Override
+  public Instance getNextInstance(Instances structure) throws IOException {
+
+    if (getRetrieval() == BATCH) {
+      throw new IOException(
+        "Cannot mix getting Instances in both incremental and batch modes");
+    }
+    setRetrieval(INCREMENTAL);
+    if (m_structure == null) {
+      getStructure();
+    }
+
+    while ((m_Chunk == null) || (m_ChunkRow == m_Chunk.m_NumRows)) {
+      if (m_EndOfChunks) {
+        return null;
+      }
+      int numRows = m_Input.readInt();
+      if (numRows <= 0) {
+        m_EndOfChunks = true;
+        m_Chunk = null;
+        m_Input.close();
+        return null;
+      }
+      m_Chunk = readChunk(m_Input, numRows);
+      m_ChunkRow = 0;
+    }
+
+    return m_Chunk.instance(m_ChunkRow++, structure);
+  }
+
+  /**
+   * Reads the chunk index of the source file, if necessary.
+   *
+   * @throws IOException if the source is not a file or has no chunk index
+   */
+  protected void readChunkIndex() throws IOException {
+
+    if (m_ChunkOffsets != null) {
+      return;
+    }
+    if ((m_sourceFile == null) || !m_sourceFile.isFile()
+      || m_sourceFile.getName().endsWith(FILE_EXTENSION_COMPRESSED)) {
+      throw new IOException("Chunks can only be accessed in an uncompressed "
+        + "file");
+    }
+
+    RandomAccessFile file = new RandomAccessFile(m_sourceFile, "r");
+    try {
+      Instances structure = readHeader(file);
+      if (m_structure == null) {
+        m_structure = structure;
+      }
+      file.seek(file.length() - 12);
+      long offset = file.readLong();
+      if (file.readInt() != MAGIC) {
+        throw new IOException("File has no chunk index, it is incomplete");
+      }
+      file.seek(offset);
+      int numChunks = file.readInt();
+      m_ChunkOffsets = new long[numChunks];
+      m_ChunkSizes = new int[numChunks];
+      for (int i = 0; i < numChunks; i++) {
+        m_ChunkOffsets[i] = file.readLong();
+        m_ChunkSizes[i] = file.readInt();
+      }
+    } finally {
+      file.close();
+    }
+  }
+
+  /**
+   * Returns the number of chunks in the source file.
+   *
+   * @return the number of chunks
+   * @throws IOException if the source is not a file or has no chunk index
+   */
+  public int getNumChunks() throws IOException {
+    readChunkIndex();
+    return m_ChunkOffsets.length;
+  }
+
+  /**
+   * Returns the number of instances in a chunk of the source file.
+   *
+   * @param index the index of the chunk
+   * @return the number of instances
+   * @throws IOException if the source is not a file or has no chunk index
+   */
+  public int getChunkSize(int index) throws IOException {
+    readChunkIndex();
+    return m_ChunkSizes[index];
+  }
+
+  /**
+   * Reads a chunk of the source file, independently of batch or incremental
+   * reading.
+   *
+   * @param index the index of the chunk
+   * @return the instances of the chunk
+   * @throws IOException if the source is not a file or reading fails
+   */
+  public Instances getChunk(int index) throws IOException {
+
+    readChunkIndex();
+    RandomAccessFile file = new RandomAccessFile(m_sourceFile, "r");
+    try {
+      file.seek(m_ChunkOffsets[index]);
+      int numRows = file.readInt();
+      Chunk chunk = readChunk(file, numRows);
+      Instances result = m_structure.stringFreeStructure();
+      for (int i = 0; i < numRows; i++) {
+        result.add(chunk.instance(i, result));
+      }
+      return result;
+    } finally {
+      file.close();
+    }
+  }
+
+  /**
+   * Returns the revision string.
+   *
+   * @return the revision
+   */
+  @Override
+  public String getRevision() {
+    return RevisionUtils.extract("$Revision$");
+  }
+
+  /**
+   * Main method.
+   *
+   * @param args should contain the name of an input file.
+   */
+  public static void main(String[] args) {
+    runFileLoader(new ColumnarInstancesLoader(), args);
+  }
+}
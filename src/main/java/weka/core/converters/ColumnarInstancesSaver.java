@@ -0,0 +1,759 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    ColumnarInstancesSaver.java
+ *    Copyright (C) 2026 lendle
+ *
+ */
+
+package weka.core.converters;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Vector;
+import java.util.zip.Deflater;
+
+import weka.core.Attribute;
+import weka.core.Capabilities;
+import weka.core.Capabilities.Capability;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.Option;
+import weka.core.RevisionUtils;
+import weka.core.SparseInstance;
+import weka.core.Utils;
+
+/**
+ <!-- globalinfo-start -->
+ * Writes the instances in a columnar binary format, which the
+ * ColumnarInstancesLoader reads. The instances are stored in chunks, column
+ * by column, with nominal and string values as indices into dictionaries. The
+ * chunks can be compressed with deflate.
+ * <p/>
+ <!-- globalinfo-end -->
+ *
+ <!-- options-start -->
+ * Valid options are: <p/>
+ *
+ * <pre> -chunk-size &lt;num&gt;
+ *  The number of instances per chunk.
+ *  (default: 10000)</pre>
+ *
+ * <pre> -compress
+ *  Compresses the chunks with deflate.
+ *  (default: off)</pre>
+ *
+ * <pre> -i &lt;the input file&gt;
+ *  The input file</pre>
+ *
+ * <pre> -o &lt;the output file&gt;
+ *  The output file</pre>
+ *
+ <!-- options-end -->
+ *
+ * @author lendle
+ * @version $Revision$
+ * @see Saver
+ * @see ColumnarInstancesLoader
+ */
+public class ColumnarInstancesSaver extends AbstractFileSaver implements
+  BatchConverter, IncrementalConverter {
+
+  /** for serialization. */
+  private static final long serialVersionUID = 6346839415186390567L;
+
+  /** the number of instances per chunk. */
+  protected int m_ChunkSize = 10000;
+
+  /** whether to compress the chunks. */
+  protected boolean m_CompressOutput = false;
+
+  /** the output stream. */
+  protected transient DataOutputStream m_Output;
+
+  /** the number of bytes written so far. */
+  protected long m_Position;
+
+  /** the offsets of the chunks written so far. */
+  protected transient ArrayList<Long> m_ChunkOffsets;
+
+  /** the number of instances in the chunks written so far. */
+  protected transient ArrayList<Integer> m_ChunkSizes;
+
+  /** the values of the current chunk, per attribute. */
+  protected transient double[][] m_Columns;
+
+  /** the string values of the current chunk, per string attribute. */
+  protected transient String[][] m_Strings;
+
+  /** the weights of the current chunk. */
+  protected transient double[] m_Weights;
+
+  /** the sparse instances of the current chunk. */
+  protected transient boolean[] m_Sparse;
+
+  /** the number of instances in the current chunk. */
+  protected int m_NumRows;
+
+  /** the encoded chunk data. */
+  protected transient byte[] m_Data;
+
+  /** the length of the encoded chunk data. */
+  protected int m_Length;
+
+  /** Constructor. */
+  public ColumnarInstancesSaver() {
+    resetOptions();
+  }
+
+  /**
+   * Returns a string describing this Saver.
+   *
+   * @return a description of the Saver suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String globalInfo() {
+    return "Writes the instances in a columnar binary format, which the "
+      + "ColumnarInstancesLoader reads. The instances are stored in chunks, "
+      + "column by column, with nominal and string values as indices into "
+      + "dictionaries. The chunks can be compressed with deflate.";
+  }
+
+  /**
+   * Returns an enumeration describing the available options.
+   *
+   * @return an enumeration of all the available options.
+   */
+  @Override
+  public Enumeration<Option> listOptions() {
+    Vector<Option> result = new Vector<Option>();
+
+    result.addElement(new Option("\tThe number of instances per chunk.\n"
+      + "\t(default: 10000)", "chunk-size", 1, "-chunk-size <num>"));
+
+    result.addElement(new Option("\tCompresses the chunks with deflate.\n"
+      + "\t(default: off)", "compress", 0, "-compress"));
+
+    result.addAll(Collections.list(super.listOptions()));
+
+    return result.elements();
+  }
+
+  /**
+   * returns the options of the current setup.
+   *
+   * @return the current options
+   */
+  @Override
+  public String[] getOptions() {
+
+    Vector<String> result = new Vector<String>();
+
+    result.add("-chunk-size");
+    result.add("" + getChunkSize());
+
+    if (getCompressOutput()) {
+      result.add("-compress");
+    }
+
+    Collections.addAll(result, super.getOptions());
+
+    return result.toArray(new String[result.size()]);
+  }
+
+  /**
+   * Parses the options for this object.
+   * <p/>
+   *
+   <!-- options-start -->
+   * Valid options are: <p/>
+   *
+   * <pre> -chunk-size &lt;num&gt;
+   *  The number of instances per chunk.
+   *  (default: 10000)</pre>
+   *
+   * <pre> -compress
+   *  Compresses the chunks with deflate.
+   *  (default: off)</pre>
+   *
+   * <pre> -i &lt;the input file&gt;
+   *  The input file</pre>
+   *
+   * <pre> -o &lt;the output file&gt;
+   *  The output file</pre>
+   *
+   <!-- options-end -->
+   *
+   * @param options the options to use
+   * @throws Exception if setting of options fails
+   */
+  @Override
+  public void setOptions(String[] options) throws Exception {
+    String tmpStr;
+
+    tmpStr = Utils.getOption("chunk-size", options);
+    if (tmpStr.length() != 0) {
+      setChunkSize(Integer.parseInt(tmpStr));
+    } else {
+      setChunkSize(10000);
+    }
+
+    setCompressOutput(Utils.getFlag("compress", options));
+
+    super.setOptions(options);
+
+    Utils.checkForRemainingOptions(options);
+  }
+
+  /**
+   * Returns a description of the file type.
+   *
+   * @return a short file description
+   */
+  @Override
+  public String getFileDescription() {
+    return "Columnar binary instances";
+  }
+
+  /**
+   * Resets the Saver.
+   */
+  @Override
+  public void resetOptions() {
+
+    super.resetOptions();
+    setFileExtension(ColumnarInstancesLoader.FILE_EXTENSION);
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String chunkSizeTipText() {
+    return "The number of instances per chunk; a chunk is the unit of "
+      + "compression and of random access.";
+  }
+
+  /**
+   * Gets the number of instances per chunk.
+   *
+   * @return the number of instances
+   */
+  public int getChunkSize() {
+    return m_ChunkSize;
+  }
+
+  /**
+   * Sets the number of instances per chunk.
+   *
+   * @param value the number of instances, at least 1
+   */
+  public void setChunkSize(int value) {
+    if (value > 0) {
+      m_ChunkSize = value;
+    } else {
+      System.err.println("Chunk size must be at least 1, provided: " + value);
+    }
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String compressOutputTipText() {
+    return "Compresses the chunks with deflate.";
+  }
+
+  /**
+   * Gets whether the chunks are compressed.
+   *
+   * @return true if the chunks are compressed
+   */
+  public boolean getCompressOutput() {
+    return m_CompressOutput;
+  }
+
+  /**
+   * Sets whether to compress the chunks.
+   *
+   * @param value if true the chunks will be compressed
+   */
+  public void setCompressOutput(boolean value) {
+    m_CompressOutput = value;
+  }
+
+  /**
+   * Returns the Capabilities of this saver.
+   *
+   * @return the capabilities of this object
+   * @see Capabilities
+   */
+  @Override
+  public Capabilities getCapabilities() {
+    Capabilities result = super.getCapabilities();
+
+    // attributes
+    result.enable(Capability.NOMINAL_ATTRIBUTES);
+    result.enable(Capability.NUMERIC_ATTRIBUTES);
+    result.enable(Capability.DATE_ATTRIBUTES);
+    result.enable(Capability.STRING_ATTRIBUTES);
+    result.enable(Capability.MISSING_VALUES);
+
+    // class
+    result.enable(Capability.NOMINAL_CLASS);
+    result.enable(Capability.NUMERIC_CLASS);
+    result.enable(Capability.DATE_CLASS);
+    result.enable(Capability.STRING_CLASS);
+    result.enable(Capability.MISSING_CLASS_VALUES);
+    result.enable(Capability.NO_CLASS);
+
+    return result;
+  }
+
+  /**
+   * Resets the writer, setting writer and output stream to null.
+   */
+  @Override
+  public void resetWriter() {
+    super.resetWriter();
+
+    m_Output = null;
+    m_Columns = null;
+    m_Strings = null;
+    m_Data = null;
+  }
+
+  /**
+   * Sets the destination output stream.
+   *
+   * @param output the output stream.
+   * @throws IOException throws an IOException if destination cannot be set
+   */
+  @Override
+  public void setDestination(OutputStream output) throws IOException {
+    super.setDestination(output);
+
+    m_Output = new DataOutputStream(new BufferedOutputStream(output));
+  }
+
+  /**
+   * Writes the header and prepares the first chunk.
+   *
+   * @param structure the structure of the data
+   * @throws IOException if writing fails
+   */
+  protected void writeHeader(Instances structure) throws IOException {
+
+    if (m_Output == null) {
+      throw new IOException("No output for the binary data.");
+    }
+
+    byte[] header =
+      new Instances(structure, 0).toString().getBytes(
+        ColumnarInstancesLoader.UTF8);
+    m_Output.writeInt(ColumnarInstancesLoader.MAGIC);
+    m_Output.writeInt(ColumnarInstancesLoader.VERSION);
+    m_Output.writeInt(getCompressOutput() ? ColumnarInstancesLoader.FLAG_DEFLATE
+      : 0);
+    m_Output.writeInt(structure.classIndex());
+    m_Output.writeInt(header.length);
+    m_Output.write(header);
+    m_Position = 20 + header.length;
+
+    m_ChunkOffsets = new ArrayList<Long>();
+    m_ChunkSizes = new ArrayList<Integer>();
+    m_Columns = new double[structure.numAttributes()][m_ChunkSize];
+    m_Strings = new String[structure.numAttributes()][];
+    for (int j = 0; j < structure.numAttributes(); j++) {
+      if (structure.attribute(j).isString()) {
+        m_Strings[j] = new String[m_ChunkSize];
+      }
+    }
+    m_Weights = new double[m_ChunkSize];
+    m_Sparse = new boolean[m_ChunkSize];
+    m_NumRows = 0;
+    m_Data = new byte[1024];
+  }
+
+  /**
+   * Adds an instance to the current chunk and writes the chunk when it is
+   * full.
+   *
+   * @param inst the instance
+   * @param structure the structure of the data
+   * @throws IOException if writing fails
+   */
+  protected void addInstance(Instance inst, Instances structure)
+    throws IOException {
+
+    for (int j = 0; j < m_Columns.length; j++) {
+      double value = inst.value(j);
+      m_Columns[j][m_NumRows] = value;
+      if ((m_Strings[j] != null) && !Utils.isMissingValue(value)) {
+        Attribute att =
+          (inst.dataset() != null) ? inst.attribute(j) : structure
+            .attribute(j);
+        m_Strings[j][m_NumRows] = att.value((int) value);
+      }
+    }
+    m_Weights[m_NumRows] = inst.weight();
+    m_Sparse[m_NumRows] = (inst instanceof SparseInstance);
+    m_NumRows++;
+
+    if (m_NumRows == m_Weights.length) {
+      writeChunk();
+    }
+  }
+
+  /**
+   * Makes sure the chunk data can take the given number of further bytes.
+   *
+   * @param numBytes the number of bytes
+   */
+  protected void ensureCapacity(int numBytes) {
+    if (m_Length + numBytes > m_Data.length) {
+      m_Data =
+        Arrays.copyOf(m_Data, Math.max(2 * m_Data.length, m_Length + numBytes));
+    }
+  }
+
+  /**
+   * Appends a byte to the chunk data.
+   *
+   * @param value the byte
+   */
+  protected void writeByte(int value) {
+    ensureCapacity(1);
+    m_Data[m_Length++] = (byte) value;
+  }
+
+  /**
+   * Appends a double to the chunk data.
+   *
+   * @param value the double
+   */
+  protected void writeDouble(double value) {
+    ensureCapacity(8);
+    long bits = Double.doubleToLongBits(value);
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      m_Data[m_Length++] = (byte) (bits >>> shift);
+    }
+  }
+
+  /**
+   * Appends a variable-length long to the chunk data, 7 bits per byte.
+   *
+   * @param value the long, interpreted as unsigned
+   */
+  protected void writeVarLong(long value) {
+    ensureCapacity(10);
+    while ((value & ~0x7fL) != 0) {
+      m_Data[m_Length++] = (byte) ((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    m_Data[m_Length++] = (byte) value;
+  }
+
+  /**
+   * Appends a bitmap with a bit per instance of the chunk, if any bit is set.
+   *
+   * @param bits the bits
+   */
+  protected void writeBitmap(boolean[] bits) {
+
+    int first = 0;
+    while ((first < m_NumRows) && !bits[first]) {
+      first++;
+    }
+    if (first == m_NumRows) {
+      writeByte(0);
+      return;
+    }
+    writeByte(1);
+    int numBytes = (m_NumRows + 7) >> 3;
+    ensureCapacity(numBytes);
+    Arrays.fill(m_Data, m_Length, m_Length + numBytes, (byte) 0);
+    for (int i = first; i < m_NumRows; i++) {
+      if (bits[i]) {
+        m_Data[m_Length + (i >> 3)] |= (byte) (1 << (i & 7));
+      }
+    }
+    m_Length += numBytes;
+  }
+
+  /**
+   * Encodes and writes the current chunk, if it isn't empty.
+   *
+   * @throws IOException if writing fails
+   */
+  protected void writeChunk() throws IOException {
+
+    if (m_NumRows == 0) {
+      return;
+    }
+    Instances structure = getInstances();
+    m_Length = 0;
+
+    // weights
+    boolean weighted = false;
+    for (int i = 0; i < m_NumRows; i++) {
+      weighted |= (m_Weights[i] != 1.0);
+    }
+    writeByte(weighted ? 1 : 0);
+    if (weighted) {
+      for (int i = 0; i < m_NumRows; i++) {
+        writeDouble(m_Weights[i]);
+      }
+    }
+    writeBitmap(m_Sparse);
+
+    // columns
+    boolean[] missing = new boolean[m_NumRows];
+    for (int j = 0; j < m_Columns.length; j++) {
+      Attribute att = structure.attribute(j);
+      double[] column = m_Columns[j];
+      boolean integers = true;
+      for (int i = 0; i < m_NumRows; i++) {
+        missing[i] = Utils.isMissingValue(column[i]);
+        if (!missing[i]) {
+          double value = column[i];
+          integers &= (value == Math.rint(value))
+            && (Math.abs(value) < 9.007199254740992E15)
+            && (Double.doubleToRawLongBits(value) != Long.MIN_VALUE);
+        }
+      }
+      writeBitmap(missing);
+
+      if (att.isString()) {
+        // the dictionary, in order of first occurrence
+        HashMap<String, Integer> dictionary = new HashMap<String, Integer>();
+        ArrayList<byte[]> entries = new ArrayList<byte[]>();
+        int[] indices = new int[m_NumRows];
+        for (int i = 0; i < m_NumRows; i++) {
+          if (!missing[i]) {
+            Integer index = dictionary.get(m_Strings[j][i]);
+            if (index == null) {
+              index = entries.size();
+              dictionary.put(m_Strings[j][i], index);
+              entries.add(m_Strings[j][i]
+                .getBytes(ColumnarInstancesLoader.UTF8));
+            }
+            indices[i] = index;
+          }
+        }
+        writeVarLong(entries.size());
+        for (byte[] entry : entries) {
+          writeVarLong(entry.length);
+          ensureCapacity(entry.length);
+          System.arraycopy(entry, 0, m_Data, m_Length, entry.length);
+          m_Length += entry.length;
+        }
+        for (int i = 0; i < m_NumRows; i++) {
+          if (!missing[i]) {
+            writeVarLong(indices[i]);
+          }
+        }
+      } else if (att.isNominal()) {
+        for (int i = 0; i < m_NumRows; i++) {
+          if (!missing[i]) {
+            writeVarLong((long) column[i]);
+          }
+        }
+      } else {
+        writeByte(integers ? ColumnarInstancesLoader.NUMBERS_INTEGER
+          : ColumnarInstancesLoader.NUMBERS_DOUBLE);
+        for (int i = 0; i < m_NumRows; i++) {
+          if (!missing[i]) {
+            if (integers) {
+              long value = (long) column[i];
+              writeVarLong((value << 1) ^ (value >> 63));
+            } else {
+              writeDouble(column[i]);
+            }
+          }
+        }
+      }
+    }
+
+    // compression
+    byte[] stored = m_Data;
+    int storedLength = m_Length;
+    if (getCompressOutput()) {
+      Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+      try {
+        deflater.setInput(m_Data, 0, m_Length);
+        deflater.finish();
+        stored = new byte[m_Length + (m_Length >> 8) + 64];
+        storedLength = 0;
+        while (!deflater.finished()) {
+          if (storedLength == stored.length) {
+            stored = Arrays.copyOf(stored, 2 * stored.length);
+          }
+          storedLength +=
+            deflater.deflate(stored, storedLength, stored.length
+              - storedLength);
+        }
+      } finally {
+        deflater.end();
+      }
+    }
+
+    m_ChunkOffsets.add(m_Position);
+    m_ChunkSizes.add(m_NumRows);
+    m_Output.writeInt(m_NumRows);
+    m_Output.writeInt(m_Length);
+    m_Output.writeInt(storedLength);
+    m_Output.write(stored, 0, storedLength);
+    m_Position += 12 + storedLength;
+    m_NumRows = 0;
+  }
+
+  /**
+   * Writes the last chunk, the chunk index and closes the output.
+   *
+   * @throws IOException if writing fails
+   */
+  protected void writeEnd() throws IOException {
+
+    writeChunk();
+    m_Output.writeInt(0);
+    m_Position += 4;
+    long indexOffset = m_Position;
+    m_Output.writeInt(m_ChunkOffsets.size());
+    for (int i = 0; i < m_ChunkOffsets.size(); i++) {
+      m_Output.writeLong(m_ChunkOffsets.get(i));
+      m_Output.writeInt(m_ChunkSizes.get(i));
+    }
+    m_Output.writeLong(indexOffset);
+    m_Output.writeInt(ColumnarInstancesLoader.MAGIC);
+    m_Output.flush();
+    m_Output.close();
+  }
+
+  /**
+   * Saves an instances incrementally. Structure has to be set by using the
+   * setStructure() method or setInstances() method.
+   *
+   * @param inst the instance to save
+   * @throws IOException throws IOEXception if an instance cannot be saved
+   *           incrementally.
+   */
+  @Override
+  public void writeIncremental(Instance inst) throws IOException {
+
+    int writeMode = getWriteMode();
+    Instances structure = getInstances();
+
+    if (getRetrieval() == BATCH || getRetrieval() == NONE) {
+      throw new IOException("Batch and incremental saving cannot be mixed.");
+    }
+
+    if (writeMode == WAIT) {
+      if (structure == null) {
+        setWriteMode(CANCEL);
+        if (inst != null) {
+          System.err
+            .println("Structure(Header Information) has to be set in advance");
+        }
+      } else {
+        setWriteMode(STRUCTURE_READY);
+      }
+      writeMode = getWriteMode();
+    }
+    if (writeMode == CANCEL) {
+      if (m_Output != null) {
+        m_Output.close();
+      }
+      cancel();
+    }
+    if (writeMode == STRUCTURE_READY) {
+      setWriteMode(WRITE);
+      writeHeader(structure);
+      writeMode = getWriteMode();
+    }
+    if (writeMode == WRITE) {
+      if (structure == null) {
+        throw new IOException("No instances information available.");
+      }
+      if (inst != null) {
+        addInstance(inst, structure);
+      } else {
+        writeEnd();
+        resetStructure();
+        resetWriter();
+      }
+    }
+  }
+
+  /**
+   * Writes a Batch of instances.
+   *
+   * @throws IOException throws IOException if saving in batch mode is not
+   *           possible
+   */
+  @Override
+  public void writeBatch() throws IOException {
+
+    if (getRetrieval() == INCREMENTAL) {
+      throw new IOException("Batch and incremental saving cannot be mixed.");
+    }
+    if (getInstances() == null) {
+      throw new IOException("No instances to save");
+    }
+
+    setRetrieval(BATCH);
+    setWriteMode(WRITE);
+    Instances data = getInstances();
+    writeHeader(data);
+    for (int i = 0; i < data.numInstances(); i++) {
+      addInstance(data.instance(i), data);
+    }
+    writeEnd();
+    setWriteMode(WAIT);
+    resetWriter();
+    setWriteMode(CANCEL);
+  }
+
+  /**
+   * Returns the revision string.
+   *
+   * @return the revision
+   */
+  @Override
+  public String getRevision() {
+    return RevisionUtils.extract("$Revision$");
+  }
+
+  /**
+   * Main method.
+   *
+   * @param args should contain the options of a Saver.
+   */
+  public static void main(String[] args) {
+    runFileSaver(new ColumnarInstancesSaver(), args);
+  }
+}
@@ -685,6 +685,8 @@ public class ConverterUtils implements Serializable, RevisionHandler {
     // + weka.core.converters.C45Loader.class.getName() + ","
     + weka.core.converters.CSVLoader.class.getName()
     + ","
+    + weka.core.converters.ColumnarInstancesLoader.class.getName()
+    + ","
     + weka.core.converters.DatabaseConverter.class.getName()
     + ","
     // + weka.core.converters.LibSVMLoader.class.getName() + ","
@@ -706,6 +708,8 @@ public class ConverterUtils implements Serializable, RevisionHandler {
     // + weka.core.converters.C45Saver.class.getName() + ","
     + weka.core.converters.CSVSaver.class.getName()
     + ","
+    + weka.core.converters.ColumnarInstancesSaver.class.getName()
+    + ","
     + weka.core.converters.DatabaseConverter.class.getName()
     + ","
     // + weka.core.converters.LibSVMSaver.class.getName() + ","
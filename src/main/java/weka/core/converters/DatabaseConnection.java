@@ -23,6 +23,7 @@ package weka.core.converters;
 
 import java.io.File;
 import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.Properties;
 
@@ -117,6 +118,74 @@ public class DatabaseConnection
     
     return m_PreparedStatement.getUpdateCount();
   }
+
+  /**
+   * Prepares a parameterized statement, e.g., for batch inserts. Unlike
+   * <code>execute(String)</code> the statement is not managed by this object,
+   * the caller has to close it.
+   *
+   * @param query the SQL statement with '?' placeholders
+   * @return the prepared statement
+   * @throws SQLException if an error occurs
+   */
+  public PreparedStatement prepareStatement(String query) throws SQLException {
+    if (!isConnected())
+      throw new IllegalStateException("Not connected, please connect first!");
+
+    return m_Connection.prepareStatement(query);
+  }
+
+  /**
+   * Returns whether the connection is in auto-commit mode.
+   *
+   * @return true if every statement is committed automatically
+   * @throws SQLException if an error occurs
+   */
+  public boolean getAutoCommit() throws SQLException {
+    if (!isConnected())
+      throw new IllegalStateException("Not connected, please connect first!");
+
+    return m_Connection.getAutoCommit();
+  }
+
+  /**
+   * Sets the auto-commit mode of the connection.
+   *
+   * @param value if true every statement is committed automatically
+   * @throws SQLException if an error occurs
+   */
+  public void setAutoCommit(boolean value) throws SQLException {
+    if (!isConnected())
+      throw new IllegalStateException("Not connected, please connect first!");
+
+    m_Connection.setAutoCommit(value);
+  }
+
+  /**
+   * Commits the current transaction, does nothing in auto-commit mode.
+   *
+   * @throws SQLException if an error occurs
+   */
+  public void commit() throws SQLException {
+    if (!isConnected())
+      throw new IllegalStateException("Not connected, please connect first!");
+
+    if (!m_Connection.getAutoCommit())
+      m_Connection.commit();
+  }
+
+  /**
+   * Rolls back the current transaction, does nothing in auto-commit mode.
+   *
+   * @throws SQLException if an error occurs
+   */
+  public void rollback() throws SQLException {
+    if (!isConnected())
+      throw new IllegalStateException("Not connected, please connect first!");
+
+    if (!m_Connection.getAutoCommit())
+      m_Connection.rollback();
+  }
   
   /**
    * Returns the revision string.
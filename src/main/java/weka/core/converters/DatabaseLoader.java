@@ -46,6 +46,7 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Time;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.Hashtable;
@@ -124,6 +125,26 @@ import java.util.Vector;
  *  Sets incremental loading
  * </pre>
  * 
+ * <pre>
+ * -fetch-size &lt;num&gt;
+ *  The number of rows to fetch per round trip.
+ *  (default: 0, i.e., the driver's default)
+ * </pre>
+ * 
+ * <pre>
+ * -partition-column &lt;name&gt;
+ *  The numeric column to split the query on for a parallel
+ *  read in batch mode.
+ *  (default: none)
+ * </pre>
+ * 
+ * <pre>
+ * -num-partitions &lt;num&gt;
+ *  The number of partitions to read in parallel, each one
+ *  using its own connection.
+ *  (default: 1)
+ * </pre>
+ * 
  * <!-- options-end -->
  * 
  * @author Stefan Mutter (mutter@cs.waikato.ac.nz)
@@ -245,6 +266,18 @@ public class DatabaseLoader extends AbstractLoader implements BatchConverter,
   /** Environment variables */
   protected transient Environment m_env;
 
+  /** the number of rows to fetch per round trip, 0 for the driver default. */
+  protected int m_FetchSize = 0;
+
+  /** the numeric column to split the query on for a parallel read. */
+  protected String m_PartitionColumn = "";
+
+  /** the number of partitions to read in parallel. */
+  protected int m_NumPartitions = 1;
+
+  /** the open result set that is read from in incremental mode. */
+  protected transient ResultSet m_resultSet;
+
   /**
    * Constructor
    * 
@@ -421,6 +454,10 @@ public class DatabaseLoader extends AbstractLoader implements BatchConverter,
    */
   public void resetStructure() {
 
+    if (m_resultSet != null) {
+      m_DataBaseConnection.close(m_resultSet);
+      m_resultSet = null;
+    }
     m_structure = null;
     m_datasetPseudoInc = null;
     m_oldStructure = null;
@@ -709,6 +746,103 @@ public class DatabaseLoader extends AbstractLoader implements BatchConverter,
     return m_CreateSparseData;
   }
 
+  /**
+   * Returns the tip text for this property
+   * 
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String fetchSizeTipText() {
+    return "The number of rows the JDBC driver fetches per round trip (0 uses "
+      + "the driver's default).";
+  }
+
+  /**
+   * Sets the number of rows to fetch per round trip.
+   * 
+   * @param value the fetch size, 0 for the driver's default
+   */
+  public void setFetchSize(int value) {
+    m_FetchSize = value;
+  }
+
+  /**
+   * Returns the number of rows to fetch per round trip.
+   * 
+   * @return the fetch size, 0 for the driver's default
+   */
+  @OptionMetadata(displayName = "Fetch size",
+    description = "The number of rows to fetch per round trip (0 uses the "
+      + "driver's default)", displayOrder = 9)
+  public int getFetchSize() {
+    return m_FetchSize;
+  }
+
+  /**
+   * Returns the tip text for this property
+   * 
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String partitionColumnTipText() {
+    return "The numeric column to split the query on for a parallel read in "
+      + "batch mode (see numPartitions).";
+  }
+
+  /**
+   * Sets the numeric column to split the query on for a parallel read.
+   * 
+   * @param value the name of the column, empty to disable
+   */
+  public void setPartitionColumn(String value) {
+    m_PartitionColumn = (value == null) ? "" : value;
+  }
+
+  /**
+   * Returns the numeric column to split the query on for a parallel read.
+   * 
+   * @return the name of the column, empty if disabled
+   */
+  @OptionMetadata(displayName = "Partition column",
+    description = "The numeric column to split the query on for a parallel "
+      + "read in batch mode", displayOrder = 10)
+  public String getPartitionColumn() {
+    return m_PartitionColumn;
+  }
+
+  /**
+   * Returns the tip text for this property
+   * 
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String numPartitionsTipText() {
+    return "The number of equal-width ranges of the partition column that are "
+      + "read in parallel in batch mode, each one using its own connection (1 "
+      + "disables the parallel read).";
+  }
+
+  /**
+   * Sets the number of partitions to read in parallel.
+   * 
+   * @param value the number of partitions, 1 to disable
+   */
+  public void setNumPartitions(int value) {
+    m_NumPartitions = value;
+  }
+
+  /**
+   * Returns the number of partitions to read in parallel.
+   * 
+   * @return the number of partitions
+   */
+  @OptionMetadata(displayName = "Number of partitions",
+    description = "The number of partitions to read in parallel in batch mode",
+    displayOrder = 11)
+  public int getNumPartitions() {
+    return m_NumPartitions;
+  }
+
   /**
    * Sets the database url, user and pw
    * 
@@ -879,20 +1013,14 @@ public class DatabaseLoader extends AbstractLoader implements BatchConverter,
   }
 
   /**
-   * Used in incremental loading. Modifies the SQL statement, so that only one
-   * instance per time is tretieved and the instances are ordered uniquely.
+   * Used in incremental loading. Returns the ORDER BY clause that orders the
+   * instances uniquely.
    * 
-   * @param query the query to modify for incremental loading
-   * @param offset sets which tuple out of the uniquely ordered ones should be
-   *          returned
-   * @param choice the kind of query that is suitable for the used DBMS
-   * @return the modified query that returns only one result tuple.
+   * @return the ORDER BY clause, empty if no key columns are known
    */
-  private String limitQuery(String query, int offset, int choice) {
+  private String orderBy() {
 
-    String limitedQuery;
     StringBuffer order = new StringBuffer();
-    String orderByString = "";
 
     if (m_orderBy.size() != 0) {
       order.append(" ORDER BY ");
@@ -909,8 +1037,25 @@ public class DatabaseLoader extends AbstractLoader implements BatchConverter,
       } else {
         order.append(m_orderBy.get(m_orderBy.size() - 1));
       }
-      orderByString = order.toString();
     }
+    return order.toString();
+  }
+
+  /**
+   * Used in incremental loading. Modifies the SQL statement, so that only one
+   * instance per time is tretieved and the instances are ordered uniquely.
+   * 
+   * @param query the query to modify for incremental loading
+   * @param offset sets which tuple out of the uniquely ordered ones should be
+   *          returned
+   * @param choice the kind of query that is suitable for the used DBMS
+   * @return the modified query that returns only one result tuple.
+   */
+  private String limitQuery(String query, int offset, int choice) {
+
+    String limitedQuery;
+    String orderByString = orderBy();
+
     if (choice == 0) {
       limitedQuery =
         query.replaceFirst("SELECT", "SELECT LIMIT " + offset + " 1");
@@ -926,25 +1071,6 @@ public class DatabaseLoader extends AbstractLoader implements BatchConverter,
     return limitedQuery;
   }
 
-  /**
-   * Counts the number of rows that are loaded from the database
-   * 
-   * @throws Exception if the number of rows cannot be calculated
-   * @return the entire number of rows
-   */
-  private int getRowCount() throws Exception {
-
-    String query = "SELECT COUNT(*) FROM " + endOfQuery(false);
-    if (m_DataBaseConnection.execute(query) == false) {
-      throw new Exception("Cannot count results tuples.");
-    }
-    ResultSet rs = m_DataBaseConnection.getResultSet();
-    rs.next();
-    int i = rs.getInt(1);
-    rs.close();
-    return i;
-  }
-
   /**
    * Determines and returns (if possible) the structure (internally the header)
    * of the data set as an empty set of instances.
@@ -1128,6 +1254,9 @@ public class DatabaseLoader extends AbstractLoader implements BatchConverter,
           case DatabaseConnection.TIME:
             attributeTypes[i - 1] = Attribute.DATE;
             break;
+          case DatabaseConnection.TIMESTAMP:
+            attributeTypes[i - 1] = Attribute.DATE;
+            break;
           default:
             // System.err.println("Unknown column type");
             attributeTypes[i - 1] = Attribute.STRING;
@@ -1147,8 +1276,10 @@ public class DatabaseLoader extends AbstractLoader implements BatchConverter,
             break;
           case Attribute.STRING:
             Attribute att = new Attribute(attribName, (ArrayList<String>) null);
-            for (int n = 0; n < m_nominalStrings[i].size(); n++) {
-              att.addStringValue(m_nominalStrings[i].get(n));
+            if (m_nominalStrings[i] != null) {
+              for (int n = 0; n < m_nominalStrings[i].size(); n++) {
+                att.addStringValue(m_nominalStrings[i].get(n));
+              }
             }
             attribInfo.add(att);
             break;
@@ -1238,6 +1369,9 @@ public class DatabaseLoader extends AbstractLoader implements BatchConverter,
       }
       iq.setQuery(realQuery);
       iq.setSparseData(m_CreateSparseData);
+      iq.setFetchSize(m_FetchSize);
+      iq.setPartitionColumn(m_PartitionColumn);
+      iq.setNumPartitions(m_NumPartitions);
 
       result = iq.retrieveInstances();
 
@@ -1390,6 +1524,14 @@ public class DatabaseLoader extends AbstractLoader implements BatchConverter,
           vals[i - 1] = time.getTime();
         }
         break;
+      case DatabaseConnection.TIMESTAMP:
+        Timestamp ts = rs.getTimestamp(i);
+        if (rs.wasNull()) {
+          vals[i - 1] = Utils.missingValue();
+        } else {
+          vals[i - 1] = ts.getTime();
+        }
+        break;
       default:
         vals[i - 1] = Utils.missingValue();
       }
@@ -1471,25 +1613,22 @@ public class DatabaseLoader extends AbstractLoader implements BatchConverter,
             "A unique order cannot be detected automatically.\nYou have to use SELECT * in your query to enable this feature.\nMaybe JDBC driver is not able to detect key.\nDefine primary key in your database or use -P option (command line) or enter key columns in the GUI.");
         }
       }
+      // the uniquely ordered rows are read through a single cursor, the
+      // driver fetches them in chunks of the fetch size
       if (m_firstTime) {
         m_firstTime = false;
-        m_rowCount = getRowCount();
-      }
-      // as long as not all rows has been loaded
-      if (m_counter < m_rowCount) {
-        if (m_DataBaseConnection.execute(limitQuery(m_query, m_counter,
-          m_choice)) == false) {
-          throw new Exception("Tuple could not be retrieved.");
+        m_DataBaseConnection.setFetchSize(m_FetchSize);
+        if (m_DataBaseConnection.execute(m_query + orderBy()) == false) {
+          throw new Exception("Tuples could not be retrieved.");
         }
+        m_resultSet = m_DataBaseConnection.getResultSet();
+      }
+      if (m_resultSet != null && m_resultSet.next()) {
         m_counter++;
-        ResultSet rs = m_DataBaseConnection.getResultSet();
-        rs.next();
-        Instance current = readInstance(rs);
-        rs.close();
-        return current;
+        return readInstance(m_resultSet);
       } else {
-        m_DataBaseConnection.disconnectFromDatabase();
         resetStructure();
+        m_DataBaseConnection.disconnectFromDatabase();
         return null;
       }
     } catch (Exception ex) {
@@ -1548,6 +1687,21 @@ public class DatabaseLoader extends AbstractLoader implements BatchConverter,
       options.add(m_CustomPropsFile.toString());
     }
 
+    if (getFetchSize() > 0) {
+      options.add("-fetch-size");
+      options.add("" + getFetchSize());
+    }
+
+    if (getPartitionColumn().length() != 0) {
+      options.add("-partition-column");
+      options.add(getPartitionColumn());
+    }
+
+    if (getNumPartitions() > 1) {
+      options.add("-num-partitions");
+      options.add("" + getNumPartitions());
+    }
+
     return options.toArray(new String[options.size()]);
   }
 
@@ -1595,6 +1749,21 @@ public class DatabaseLoader extends AbstractLoader implements BatchConverter,
         + "\tcontaining the database parameters.\n" + "\t(default: none)",
       "custom-props", 1, "-custom-props <file>"));
 
+    newVector.add(new Option(
+      "\tThe number of rows to fetch per round trip.\n"
+        + "\t(default: 0, i.e., the driver's default)", "fetch-size", 1,
+      "-fetch-size <num>"));
+
+    newVector.add(new Option(
+      "\tThe numeric column to split the query on for a parallel\n"
+        + "\tread in batch mode.\n" + "\t(default: none)",
+      "partition-column", 1, "-partition-column <name>"));
+
+    newVector.add(new Option(
+      "\tThe number of partitions to read in parallel, each one\n"
+        + "\tusing its own connection.\n" + "\t(default: 1)",
+      "num-partitions", 1, "-num-partitions <num>"));
+
     return newVector.elements();
   }
 
@@ -1645,6 +1814,26 @@ public class DatabaseLoader extends AbstractLoader implements BatchConverter,
    *  Sets incremental loading
    * </pre>
    * 
+   * <pre>
+   * -fetch-size &lt;num&gt;
+   *  The number of rows to fetch per round trip.
+   *  (default: 0, i.e., the driver's default)
+   * </pre>
+   * 
+   * <pre>
+   * -partition-column &lt;name&gt;
+   *  The numeric column to split the query on for a parallel
+   *  read in batch mode.
+   *  (default: none)
+   * </pre>
+   * 
+   * <pre>
+   * -num-partitions &lt;num&gt;
+   *  The number of partitions to read in parallel, each one
+   *  using its own connection.
+   *  (default: 1)
+   * </pre>
+   * 
    * <!-- options-end -->
    * 
    * @param options the options
@@ -1699,6 +1888,22 @@ public class DatabaseLoader extends AbstractLoader implements BatchConverter,
     } else {
       setCustomPropsFile(new File(tmpStr));
     }
+
+    tmpStr = Utils.getOption("fetch-size", options);
+    if (tmpStr.length() != 0) {
+      setFetchSize(Integer.parseInt(tmpStr));
+    } else {
+      setFetchSize(0);
+    }
+
+    setPartitionColumn(Utils.getOption("partition-column", options));
+
+    tmpStr = Utils.getOption("num-partitions", options);
+    if (tmpStr.length() != 0) {
+      setNumPartitions(Integer.parseInt(tmpStr));
+    } else {
+      setNumPartitions(1);
+    }
   }
 
   /**
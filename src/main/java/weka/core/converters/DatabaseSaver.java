@@ -39,8 +39,12 @@ import weka.gui.PasswordProperty;
 import javax.swing.*;
 import java.io.File;
 import java.io.IOException;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.text.SimpleDateFormat;
 import java.util.Enumeration;
 import java.util.Vector;
@@ -98,6 +102,13 @@ import java.util.Vector;
  * </pre>
  * 
  * <pre>
+ * -batch-size &lt;num&gt;
+ *  The number of rows to send to the database in one batch
+ *  (1 inserts the rows one by one).
+ *  (default: 100)
+ * </pre>
+ * 
+ * <pre>
  * -i &lt;input file name&gt;
  *  Input file in arff format that should be saved in database.
  * </pre>
@@ -183,6 +194,21 @@ public class DatabaseSaver extends AbstractSaver implements BatchConverter,
   /** Environment variables to use */
   protected transient Environment m_env;
 
+  /** the number of rows to send to the database in one batch. */
+  protected int m_BatchSize = 100;
+
+  /** the prepared statement for inserting the rows. */
+  protected transient PreparedStatement m_Insert;
+
+  /** whether the rows are inserted in batches. */
+  protected boolean m_UseBatch;
+
+  /** the number of rows in the current batch. */
+  protected int m_BatchCount;
+
+  /** whether the connection was in auto-commit mode before inserting. */
+  protected boolean m_AutoCommit;
+
   /**
    * Constructor.
    * 
@@ -308,6 +334,7 @@ public class DatabaseSaver extends AbstractSaver implements BatchConverter,
     super.resetOptions();
 
     setRetrieval(NONE);
+    closeInsert();
 
     try {
       if (m_DataBaseConnection != null && m_DataBaseConnection.isConnected()) {
@@ -325,6 +352,7 @@ public class DatabaseSaver extends AbstractSaver implements BatchConverter,
     m_count = 1;
     m_id = false;
     m_tabName = true;
+    m_BatchSize = 100;
 
     /*
      * m_createText =
@@ -350,6 +378,7 @@ public class DatabaseSaver extends AbstractSaver implements BatchConverter,
   public void cancel() {
 
     if (getWriteMode() == CANCEL) {
+      closeInsert();
       try {
         m_DataBaseConnection.update("DROP TABLE " + m_resolvedTableName);
         if (m_DataBaseConnection.tableExists(m_resolvedTableName)) {
@@ -668,6 +697,40 @@ public class DatabaseSaver extends AbstractSaver implements BatchConverter,
     return "The custom properties that the user can use to override the default ones.";
   }
 
+  /**
+   * Gets the number of rows that are sent to the database in one batch.
+   *
+   * @return the batch size
+   */
+  @OptionMetadata(
+    displayName = "Batch size",
+    description = "The number of rows to send to the database in one batch (1 inserts the rows one by one).",
+    displayOrder = 9)
+  public int getBatchSize() {
+    return m_BatchSize;
+  }
+
+  /**
+   * Sets the number of rows that are sent to the database in one batch.
+   *
+   * @param value the batch size, 1 inserts the rows one by one
+   */
+  public void setBatchSize(int value) {
+    m_BatchSize = value;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return the tip text for this property
+   */
+  public String batchSizeTipText() {
+    return "The number of rows to send to the database in one batch (1 inserts "
+      + "the rows one by one). Batches are committed as a whole, i.e., if one "
+      + "row fails the other rows of its batch are not stored either. Drivers "
+      + "that don't support batch updates insert the rows one by one.";
+  }
+
   /**
    * Sets the database url.
    *
@@ -869,48 +932,173 @@ public class DatabaseSaver extends AbstractSaver implements BatchConverter,
   }
 
   /**
-   * inserts the given instance into the table.
+   * Prepares the parameterized INSERT statement for the table, and switches
+   * off auto-commit if the rows are inserted in batches.
    *
-   * @param inst the instance to insert
    * @throws Exception if something goes wrong
    */
-  private void writeInstance(Instance inst) throws Exception {
+  private void prepareInsert() throws Exception {
 
     StringBuffer insert = new StringBuffer();
     insert.append("INSERT INTO ");
     insert.append(m_resolvedTableName);
     insert.append(" VALUES ( ");
+    int numColumns = getInstances().numAttributes();
     if (m_id) {
-      insert.append(m_count);
-      insert.append(", ");
+      numColumns++;
+    }
+    for (int j = 0; j < numColumns; j++) {
+      if (j > 0) {
+        insert.append(", ");
+      }
+      insert.append("?");
+    }
+    insert.append(" )");
+
+    m_Insert = m_DataBaseConnection.prepareStatement(insert.toString());
+    m_BatchCount = 0;
+    m_UseBatch = (m_BatchSize > 1)
+      && m_DataBaseConnection.getMetaData().supportsBatchUpdates();
+    m_AutoCommit = m_DataBaseConnection.getAutoCommit();
+    if (m_UseBatch && m_AutoCommit) {
+      m_DataBaseConnection.setAutoCommit(false);
+    }
+  }
+
+  /**
+   * inserts the given instance into the table. If batches are used, the row is
+   * only sent to the database once the batch is full.
+   *
+   * @param inst the instance to insert
+   * @throws Exception if something goes wrong
+   */
+  private void writeInstance(Instance inst) throws Exception {
+
+    if (m_Insert == null) {
+      prepareInsert();
+    }
+
+    int column = 1;
+    if (m_id) {
+      m_Insert.setInt(column++, m_count);
       m_count++;
     }
-    for (int j = 0; j < inst.numAttributes(); j++) {
+    for (int j = 0; j < inst.numAttributes(); j++, column++) {
+      Attribute att = inst.attribute(j);
       if (inst.isMissing(j)) {
-        insert.append("NULL");
+        if (att.isDate()) {
+          m_Insert.setNull(column, Types.TIMESTAMP);
+        } else if (att.isNumeric()) {
+          m_Insert.setNull(column, Types.DOUBLE);
+        } else {
+          m_Insert.setNull(column, Types.VARCHAR);
+        }
       } else {
-        if ((inst.attribute(j)).isDate()) {
-          insert.append("'" + m_DateFormat.format((long) inst.value(j)) + "'");
-        } else if ((inst.attribute(j)).isNumeric()) {
-          insert.append(inst.value(j));
+        if (att.isDate()) {
+          m_Insert.setTimestamp(column, new Timestamp((long) inst.value(j)));
+        } else if (att.isNumeric()) {
+          m_Insert.setDouble(column, inst.value(j));
         } else {
-          String stringInsert = "'" + inst.stringValue(j) + "'";
-          if (stringInsert.length() > 2) {
-            stringInsert = stringInsert.replaceAll("''", "'");
-          }
-          insert.append(stringInsert);
+          m_Insert.setString(column, inst.stringValue(j));
         }
       }
-      if (j != inst.numAttributes() - 1) {
-        insert.append(", ");
-      }
     }
-    insert.append(" )");
-    // System.out.println(insert.toString());
-    if (m_DataBaseConnection.update(insert.toString()) < 1) {
+
+    if (m_UseBatch) {
+      m_Insert.addBatch();
+      m_BatchCount++;
+      if (m_BatchCount >= m_BatchSize) {
+        flushInserts();
+      }
+    } else if (m_Insert.executeUpdate() < 1) {
       throw new IOException("Tuple cannot be inserted.");
-    } else {
-      m_DataBaseConnection.close();
+    }
+  }
+
+  /**
+   * Sends the rows of the current batch to the database and commits them.
+   *
+   * @throws Exception if something goes wrong
+   */
+  private void flushInserts() throws Exception {
+
+    if (m_BatchCount == 0) {
+      return;
+    }
+    m_BatchCount = 0;
+    try {
+      int[] counts = m_Insert.executeBatch();
+      for (int count : counts) {
+        if ((count == Statement.EXECUTE_FAILED) || (count == 0)) {
+          throw new IOException("Tuple cannot be inserted.");
+        }
+      }
+      m_DataBaseConnection.commit();
+    } catch (Exception ex) {
+      rollbackInserts();
+      throw ex;
+    }
+  }
+
+  /**
+   * Discards the uncommitted rows of the current batch, so that restoring the
+   * auto-commit mode afterwards does not commit them.
+   */
+  private void rollbackInserts() {
+
+    if (m_Insert == null || !m_UseBatch) {
+      return;
+    }
+    try {
+      if (m_DataBaseConnection.isConnected()) {
+        m_DataBaseConnection.rollback();
+      }
+    } catch (Exception ex) {
+      printException(ex);
+    }
+  }
+
+  /**
+   * Sends any remaining rows to the database, commits them and releases the
+   * INSERT statement.
+   *
+   * @throws Exception if something goes wrong
+   */
+  private void finishInserts() throws Exception {
+
+    if (m_Insert == null) {
+      return;
+    }
+    try {
+      flushInserts();
+      m_DataBaseConnection.commit();
+    } finally {
+      closeInsert();
+    }
+  }
+
+  /**
+   * Releases the INSERT statement (if any) and restores the auto-commit mode of
+   * the connection.
+   */
+  private void closeInsert() {
+
+    if (m_Insert == null) {
+      return;
+    }
+    try {
+      m_Insert.close();
+    } catch (Exception ex) {
+      // ignored
+    }
+    m_Insert = null;
+    m_BatchCount = 0;
+    try {
+      if (m_UseBatch && m_AutoCommit && m_DataBaseConnection.isConnected()) {
+        m_DataBaseConnection.setAutoCommit(true);
+      }
+    } catch (Exception ex) {
+      printException(ex);
     }
   }
 
@@ -969,6 +1157,7 @@ public class DatabaseSaver extends AbstractSaver implements BatchConverter,
           writeInstance(inst);
         } else {
           // close
+          finishInserts();
           m_DataBaseConnection.disconnectFromDatabase();
           resetStructure();
           m_count = 1;
@@ -1007,11 +1196,14 @@ public class DatabaseSaver extends AbstractSaver implements BatchConverter,
       for (int i = 0; i < instances.numInstances(); i++) {
         writeInstance(instances.instance(i));
       }
+      finishInserts();
       m_DataBaseConnection.disconnectFromDatabase();
       setWriteMode(WAIT);
       resetStructure();
       m_count = 1;
     } catch (Exception ex) {
+      rollbackInserts();
+      closeInsert();
       printException(ex);
     }
   }
@@ -1085,6 +1277,9 @@ public class DatabaseSaver extends AbstractSaver implements BatchConverter,
       options.add(m_CustomPropsFile.toString());
     }
 
+    options.add("-batch-size");
+    options.add("" + getBatchSize());
+
     return options.toArray(new String[options.size()]);
   }
 
@@ -1139,6 +1334,13 @@ public class DatabaseSaver extends AbstractSaver implements BatchConverter,
    * </pre>
    * 
    * <pre>
+   * -batch-size &lt;num&gt;
+   *  The number of rows to send to the database in one batch
+   *  (1 inserts the rows one by one).
+   *  (default: 100)
+   * </pre>
+   * 
+   * <pre>
    * -i &lt;input file name&gt;
    *  Input file in arff format that should be saved in database.
    * </pre>
@@ -1207,6 +1409,11 @@ public class DatabaseSaver extends AbstractSaver implements BatchConverter,
       setCustomPropsFile(new File(tmpStr));
     }
 
+    tmpStr = Utils.getOption("batch-size", options);
+    if (tmpStr.length() != 0) {
+      setBatchSize(Integer.parseInt(tmpStr));
+    }
+
     Utils.checkForRemainingOptions(options);
   }
 
@@ -1250,6 +1457,11 @@ public class DatabaseSaver extends AbstractSaver implements BatchConverter,
         + "\tcontaining the database parameters.\n" + "\t(default: none)",
       "custom-props", 1, "-custom-props <file>"));
 
+    newVector.addElement(new Option(
+      "\tThe number of rows to send to the database in one batch\n"
+        + "\t(1 inserts the rows one by one).\n" + "\t(default: 100)",
+      "batch-size", 1, "-batch-size <num>"));
+
     newVector.addElement(new Option(
       "\tInput file in arff format that should be saved in database.", "i", 1,
       "-i <input file name>"));
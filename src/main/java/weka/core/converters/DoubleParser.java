@@ -0,0 +1,209 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    DoubleParser.java
+ *    Copyright (C) 2026 lendle
+ *
+ */
+
+package weka.core.converters;
+
+/**
+ * Converts plain decimal numbers directly from characters or bytes, for the
+ * readers that parse their input without creating a string per value. Only
+ * numbers with at most 15 significant digits and a power of ten up to 22 are
+ * converted, since both are exact as doubles and a single multiplication or
+ * division then rounds correctly, i.e., the result is the same as
+ * Double.valueOf()'s. Everything else, e.g., NaN, Infinity, hexadecimal
+ * numbers or numbers with more digits, is left to Double.valueOf().
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+final class DoubleParser {
+
+  /** the powers of ten that are exact as doubles */
+  static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6,
+    1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18,
+    1e19, 1e20, 1e21, 1e22 };
+
+  /** the maximum number of significant digits that are exact as a double */
+  static final int MAX_DIGITS = 15;
+
+  /** not to be instantiated */
+  private DoubleParser() {
+  }
+
+  /**
+   * Converts a plain decimal number with an optional sign and exponent.
+   *
+   * @param chars the characters
+   * @param start the start of the number
+   * @param end the end of the number
+   * @return the number, or NaN if it has to be parsed with Double.valueOf()
+   */
+  static double parse(char[] chars, int start, int end) {
+
+    int p = start;
+    boolean negative = false;
+    if ((p < end) && ((chars[p] == '-') || (chars[p] == '+'))) {
+      negative = (chars[p] == '-');
+      p++;
+    }
+    long mantissa = 0;
+    int numDigits = 0;
+    int exponent = 0;
+    boolean digits = false;
+    while ((p < end) && (chars[p] >= '0') && (chars[p] <= '9')) {
+      digits = true;
+      if ((mantissa > 0) || (chars[p] != '0')) {
+        mantissa = 10 * mantissa + (chars[p] - '0');
+        numDigits++;
+      }
+      p++;
+    }
+    if ((p < end) && (chars[p] == '.')) {
+      p++;
+      while ((p < end) && (chars[p] >= '0') && (chars[p] <= '9')) {
+        digits = true;
+        if ((mantissa > 0) || (chars[p] != '0')) {
+          mantissa = 10 * mantissa + (chars[p] - '0');
+          numDigits++;
+        }
+        exponent--;
+        p++;
+      }
+    }
+    if (digits && (p < end) && ((chars[p] == 'e') || (chars[p] == 'E'))) {
+      p++;
+      boolean negativeExponent = false;
+      if ((p < end) && ((chars[p] == '-') || (chars[p] == '+'))) {
+        negativeExponent = (chars[p] == '-');
+        p++;
+      }
+      int e = 0;
+      int expStart = p;
+      while ((p < end) && (chars[p] >= '0') && (chars[p] <= '9')
+        && (e < 10000)) {
+        e = 10 * e + (chars[p] - '0');
+        p++;
+      }
+      if (p == expStart) {
+        digits = false;
+      }
+      exponent += negativeExponent ? -e : e;
+    }
+
+    if (!digits || (p != end)) {
+      return Double.NaN;
+    }
+    return toDouble(negative, mantissa, numDigits, exponent);
+  }
+
+  /**
+   * Converts a plain decimal number with an optional sign and exponent.
+   *
+   * @param bytes the bytes, an ASCII compatible encoding
+   * @param start the start of the number
+   * @param end the end of the number
+   * @return the number, or NaN if it has to be parsed with Double.valueOf()
+   */
+  static double parse(byte[] bytes, int start, int end) {
+
+    int p = start;
+    boolean negative = false;
+    if ((p < end) && ((bytes[p] == '-') || (bytes[p] == '+'))) {
+      negative = (bytes[p] == '-');
+      p++;
+    }
+    long mantissa = 0;
+    int numDigits = 0;
+    int exponent = 0;
+    boolean digits = false;
+    while ((p < end) && (bytes[p] >= '0') && (bytes[p] <= '9')) {
+      digits = true;
+      if ((mantissa > 0) || (bytes[p] != '0')) {
+        mantissa = 10 * mantissa + (bytes[p] - '0');
+        numDigits++;
+      }
+      p++;
+    }
+    if ((p < end) && (bytes[p] == '.')) {
+      p++;
+      while ((p < end) && (bytes[p] >= '0') && (bytes[p] <= '9')) {
+        digits = true;
+        if ((mantissa > 0) || (bytes[p] != '0')) {
+          mantissa = 10 * mantissa + (bytes[p] - '0');
+          numDigits++;
+        }
+        exponent--;
+        p++;
+      }
+    }
+    if (digits && (p < end) && ((bytes[p] == 'e') || (bytes[p] == 'E'))) {
+      p++;
+      boolean negativeExponent = false;
+      if ((p < end) && ((bytes[p] == '-') || (bytes[p] == '+'))) {
+        negativeExponent = (bytes[p] == '-');
+        p++;
+      }
+      int e = 0;
+      int expStart = p;
+      while ((p < end) && (bytes[p] >= '0') && (bytes[p] <= '9')
+        && (e < 10000)) {
+        e = 10 * e + (bytes[p] - '0');
+        p++;
+      }
+      if (p == expStart) {
+        digits = false;
+      }
+      exponent += negativeExponent ? -e : e;
+    }
+
+    if (!digits || (p != end)) {
+      return Double.NaN;
+    }
+    return toDouble(negative, mantissa, numDigits, exponent);
+  }
+
+  /**
+   * Computes sign * mantissa * 10^exponent if that is exact.
+   *
+   * @param negative whether the number is negative
+   * @param mantissa the significant digits
+   * @param numDigits the number of significant digits
+   * @param exponent the power of ten
+   * @return the number, or NaN if it can't be computed exactly
+   */
+  static double toDouble(boolean negative, long mantissa, int numDigits,
+    int exponent) {
+
+    if (numDigits > MAX_DIGITS) {
+      return Double.NaN;
+    }
+    double value;
+    if (mantissa == 0) {
+      value = 0;
+    } else if ((exponent >= 0) && (exponent < POWERS_OF_TEN.length)) {
+      value = mantissa * POWERS_OF_TEN[exponent];
+    } else if ((exponent < 0) && (-exponent < POWERS_OF_TEN.length)) {
+      value = mantissa / POWERS_OF_TEN[-exponent];
+    } else {
+      return Double.NaN;
+    }
+    return negative ? -value : value;
+  }
+}
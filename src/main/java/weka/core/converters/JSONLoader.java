@@ -37,11 +37,13 @@ import weka.core.Instances;
 import weka.core.RevisionUtils;
 import weka.core.json.JSONInstances;
 import weka.core.json.JSONNode;
+import weka.core.json.JSONPullParser;
 
 /**
  <!-- globalinfo-start -->
  * Reads a source that is in the JSON format.<br/>
  * It automatically decompresses the data if the extension is '.json.gz'.<br/>
+ * The data is parsed as a stream, so it can also be read incrementally.<br/>
  * <br/>
  * For more information, see JSON homepage:<br/>
  * http://www.json.org/
@@ -54,7 +56,7 @@ import weka.core.json.JSONNode;
  */
 public class JSONLoader 
   extends AbstractFileLoader 
-  implements BatchConverter, URLSourcedLoader {
+  implements BatchConverter, IncrementalConverter, URLSourcedLoader {
 
   /** for serialization. */
   private static final long serialVersionUID = 3764533621135196582L;
@@ -71,8 +73,17 @@ public class JSONLoader
   /** The reader for the source file. */
   protected transient Reader m_sourceReader = null;
 
-  /** the loaded JSON object. */
-  protected JSONNode m_JSON;
+  /** the parser for reading the source. */
+  protected transient JSONPullParser m_Parser;
+
+  /** the data section, if it was located before the header section. */
+  protected transient JSONNode m_Data;
+
+  /** the next instance to read from m_Data. */
+  protected int m_DataIndex;
+
+  /** the number of instances read so far. */
+  protected int m_InstanceCount;
   
   /**
    * Returns a string describing this Loader.
@@ -84,7 +95,8 @@ public class JSONLoader
     return 
         "Reads a source that is in the JSON format.\n"
       + "It automatically decompresses the data if the extension is '" 
-      + FILE_EXTENSION_COMPRESSED + "'.\n\n"
+      + FILE_EXTENSION_COMPRESSED + "'.\n"
+      + "The data is parsed as a stream, so it can also be read incrementally.\n\n"
       + "For more information, see JSON homepage:\n"
       + "http://www.json.org/";
   }
@@ -123,7 +135,8 @@ public class JSONLoader
    */
   public void reset() throws IOException {
     m_structure = null;
-    m_JSON      = null;
+    m_Parser    = null;
+    m_Data      = null;
 
     setRetrieval(NONE);
     
@@ -144,7 +157,8 @@ public class JSONLoader
    */
   public void setSource(File file) throws IOException {
     m_structure = null;
-    m_JSON      = null;
+    m_Parser    = null;
+    m_Data      = null;
     
     setRetrieval(NONE);
 
@@ -174,7 +188,8 @@ public class JSONLoader
    */
   public void setSource(URL url) throws IOException {
     m_structure = null;
-    m_JSON      = null;
+    m_Parser    = null;
+    m_Data      = null;
     
     setRetrieval(NONE);
     
@@ -219,32 +234,97 @@ public class JSONLoader
   
   /**
    * Determines and returns (if possible) the structure (internally the 
-   * header) of the data set as an empty set of instances.
+   * header) of the data set as an empty set of instances. Only the source
+   * up to the start of the data section gets read.
    *
    * @return 			the structure of the data set as an empty set 
    * 				of Instances
    * @throws IOException 	if an error occurs
    */
   public Instances getStructure() throws IOException {
+    JSONNode	header;
+
     if (m_sourceReader == null)
       throw new IOException("No source has been specified");
 
     if (m_structure == null) {
-      try {
-	m_JSON      = JSONNode.read(m_sourceReader);
-	m_structure = new Instances(JSONInstances.toHeader(m_JSON), 0);
-      }
-      catch (IOException ioe) {
-	// just re-throw it
-	throw ioe;
-      }
-      catch (Exception e) {
-	throw new RuntimeException(e);
+      m_Parser        = new JSONPullParser(m_sourceReader);
+      m_Data          = null;
+      m_DataIndex     = 0;
+      m_InstanceCount = 0;
+      header          = null;
+      m_Parser.next();
+      // scan the pairs of the root object until the data section starts
+      while (m_Parser.next() != JSONPullParser.Event.END_OBJECT) {
+	if (JSONInstances.HEADER.equals(m_Parser.getName())
+	    && (m_Parser.getEvent() == JSONPullParser.Event.START_OBJECT)
+	    && (header == null)) {
+	  header = m_Parser.readNode();
+	}
+	else if (JSONInstances.DATA.equals(m_Parser.getName())
+	    && (m_Parser.getEvent() == JSONPullParser.Event.START_ARRAY)
+	    && (m_Data == null)) {
+	  // data before header has to be kept in memory
+	  if (header != null)
+	    break;
+	  m_Data = m_Parser.readNode();
+	}
+	else {
+	  m_Parser.skip();
+	}
       }
+      if (m_Parser.getEvent() == JSONPullParser.Event.END_OBJECT)
+	m_Parser = null;
+
+      if (header == null)
+	throw new IOException("No '" + JSONInstances.HEADER + "' section!");
+      if ((m_Parser == null) && (m_Data == null))
+	throw new IOException("No '" + JSONInstances.DATA + "' section!");
+      m_structure = JSONInstances.toHeader(header, 0);
+      if (m_structure == null)
+	throw new IOException("Failed to convert '" + JSONInstances.HEADER + "' section!");
     }
 
     return new Instances(m_structure, 0);
   }
+
+  /**
+   * Reads the next instance from the data section.
+   *
+   * @param structure		the dataset the instance is for
+   * @return			the instance, null if no more instances
+   * 				are available
+   * @throws IOException	if reading or converting fails
+   */
+  protected Instance readInstance(Instances structure) throws IOException {
+    JSONNode	node;
+    Instance	result;
+
+    if (m_Data != null) {
+      if (m_DataIndex == m_Data.getChildCount())
+	return null;
+      node = (JSONNode) m_Data.getChildAt(m_DataIndex);
+      m_DataIndex++;
+    }
+    else {
+      if (m_Parser == null)
+	return null;
+      if (m_Parser.next() == JSONPullParser.Event.END_ARRAY) {
+	m_Parser = null;
+	return null;
+      }
+      if (m_Parser.getEvent() != JSONPullParser.Event.START_OBJECT)
+	throw new IOException("Instance #" + (m_InstanceCount + 1) + " is not an object!");
+      node = m_Parser.readNode();
+    }
+
+    m_InstanceCount++;
+    result = JSONInstances.toInstance(node, structure);
+    if (result == null)
+      throw new IOException("Could not convert instance #" + m_InstanceCount + "!");
+
+    return result;
+  }
   
   /**
    * Return the full data set. If the structure hasn't yet been determined
@@ -256,6 +336,9 @@ public class JSONLoader
    * @throws IOException 	if there is no source or parsing fails
    */
   public Instances getDataSet() throws IOException {
+    Instances	result;
+    Instance	inst;
+
     if (m_sourceReader == null)
       throw new IOException("No source has been specified");
     
@@ -266,25 +349,64 @@ public class JSONLoader
     if (m_structure == null)
       getStructure();
 
+    result = m_structure.stringFreeStructure();
+    while ((inst = readInstance(result)) != null)
+      result.add(inst);
+    m_Data = null;
+
     try {
       // close the stream
       m_sourceReader.close();
     } catch (Exception ex) {
     }
 
-    return JSONInstances.toInstances(m_JSON);
+    return result;
   }
 
   /**
-   * JSONLoader is unable to process a data set incrementally.
+   * Read the data set incrementally---get the next instance in the data 
+   * set or returns null if there are no more instances to get. If the 
+   * structure hasn't yet been determined by a call to getStructure then 
+   * method should do so before returning the next instance in the data set.
+   * Only the current value of string attributes is kept in the structure.
    *
-   * @param structure		ignored
-   * @return 			never returns without throwing an exception
-   * @throws IOException 	always. JSONLoader is unable to process a 
-   * 				data set incrementally.
+   * @param structure		the dataset header information, will get
+   * 				updated in case of string attributes
+   * @return 			the next instance in the data set as an 
+   * 				Instance object or null if there are no more
+   * 				instances to be read
+   * @throws IOException 	if there is an error during parsing
    */
   public Instance getNextInstance(Instances structure) throws IOException {
-    throw new IOException("JSONLoader can't read data sets incrementally.");
+    Instance	result;
+    int		i;
+
+    if (m_sourceReader == null)
+      throw new IOException("No source has been specified");
+
+    if (getRetrieval() == BATCH)
+      throw new IOException("Cannot mix getting Instances in both incremental and batch modes");
+
+    setRetrieval(INCREMENTAL);
+    if (m_structure == null)
+      getStructure();
+
+    for (i = 0; i < structure.numAttributes(); i++) {
+      if (structure.attribute(i).isString())
+	structure.attribute(i).setStringValue(null);
+    }
+
+    result = readInstance(structure);
+    if (result == null) {
+      m_Data = null;
+      try {
+	// close the stream
+	m_sourceReader.close();
+      } catch (Exception ex) {
+      }
+    }
+
+    return result;
   }
   
   /**
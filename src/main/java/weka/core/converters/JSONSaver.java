@@ -32,6 +32,7 @@ import java.util.zip.GZIPOutputStream;
 
 import weka.core.Capabilities;
 import weka.core.Capabilities.Capability;
+import weka.core.Instance;
 import weka.core.Instances;
 import weka.core.Option;
 import weka.core.RevisionUtils;
@@ -43,6 +44,7 @@ import weka.core.json.JSONNode;
 /**
  * <!-- globalinfo-start --> Writes to a destination that is in JSON format.<br/>
  * The data can be compressed with gzip, in order to save space.<br/>
+ * The instances are written one at a time, so the data can also be saved incrementally.<br/>
  * <br/>
  * For more information, see JSON homepage:<br/>
  * http://www.json.org/
@@ -80,7 +82,8 @@ import weka.core.json.JSONNode;
  * @version $Revision: 10203 $
  * @see Saver
  */
-public class JSONSaver extends AbstractFileSaver implements BatchConverter {
+public class JSONSaver extends AbstractFileSaver implements BatchConverter,
+  IncrementalConverter {
 
   /** for serialization. */
   private static final long serialVersionUID = -1047134047244534557L;
@@ -91,6 +94,12 @@ public class JSONSaver extends AbstractFileSaver implements BatchConverter {
   /** whether to compress the output. */
   protected boolean m_CompressOutput = false;
 
+  /** the data section that the instances get attached to for output. */
+  protected transient JSONNode m_DataNode;
+
+  /** the number of instances written so far. */
+  protected int m_NumWritten;
+
   /**
    * Constructor.
    */
@@ -106,7 +115,9 @@ public class JSONSaver extends AbstractFileSaver implements BatchConverter {
    */
   public String globalInfo() {
     return "Writes to a destination that is in JSON format.\n"
-      + "The data can be compressed with gzip, in order to save space.\n\n"
+      + "The data can be compressed with gzip, in order to save space.\n"
+      + "The instances are written one at a time, so the data can also be "
+      + "saved incrementally.\n\n"
       + "For more information, see JSON homepage:\n" + "http://www.json.org/";
   }
 
@@ -374,6 +385,143 @@ public class JSONSaver extends AbstractFileSaver implements BatchConverter {
     }
   }
 
+  /**
+   * Writes the opening of the JSON object, the header section and the
+   * opening of the data section.
+   * 
+   * @param outW the writer to write to
+   * @param structure the structure to write
+   */
+  protected void writeHeader(PrintWriter outW, Instances structure) {
+    JSONNode json;
+    StringBuffer buffer;
+
+    // the data section is empty, it only determines the indentation and the
+    // separator of the header section
+    json = JSONInstances.toJSON(new Instances(structure, 0));
+    m_DataNode = json.getChild(JSONInstances.DATA);
+    m_NumWritten = 0;
+
+    buffer = new StringBuffer("{\n");
+    json.getChild(JSONInstances.HEADER).toString(buffer);
+    buffer.append("\t\"" + JSONInstances.DATA + "\" : [\n");
+    outW.print(buffer.toString());
+  }
+
+  /**
+   * Writes a single instance of the data section. The separator following the
+   * previous instance gets written first.
+   * 
+   * @param outW the writer to write to
+   * @param inst the instance to write
+   */
+  protected void writeInstance(PrintWriter outW, Instance inst) {
+    JSONNode json;
+    StringBuffer buffer;
+
+    json = JSONInstances.toJSON(inst);
+    m_DataNode.add(json);
+    buffer = new StringBuffer();
+    if (m_NumWritten > 0) {
+      buffer.append(",\n");
+    }
+    json.toString(buffer);
+    m_DataNode.remove(json);
+    // the last instance must not be followed by a separator
+    buffer.setLength(buffer.length() - 1);
+    outW.print(buffer.toString());
+    m_NumWritten++;
+  }
+
+  /**
+   * Closes the data section and the JSON object.
+   * 
+   * @param outW the writer to write to
+   */
+  protected void writeFooter(PrintWriter outW) {
+    if (m_NumWritten > 0) {
+      outW.print("\n");
+    }
+    outW.print("\t]\n}\n");
+    outW.println();
+    m_DataNode = null;
+    m_NumWritten = 0;
+  }
+
+  /**
+   * Saves an instances incrementally. Structure has to be set by using the
+   * setStructure() method or setInstances() method.
+   * 
+   * @param inst the instance to save
+   * @throws IOException throws IOEXception if an instance cannot be saved
+   *           incrementally.
+   */
+  @Override
+  public void writeIncremental(Instance inst) throws IOException {
+    int writeMode = getWriteMode();
+    Instances structure = getInstances();
+    PrintWriter outW = null;
+
+    if (getRetrieval() == BATCH || getRetrieval() == NONE) {
+      throw new IOException("Batch and incremental saving cannot be mixed.");
+    }
+    if (getWriter() != null) {
+      outW = new PrintWriter(getWriter());
+    } else if (retrieveFile() == null) {
+      outW = new PrintWriter(System.out);
+    }
+
+    if (writeMode == WAIT) {
+      if (structure == null) {
+        setWriteMode(CANCEL);
+        if (inst != null) {
+          System.err
+            .println("Structure(Header Information) has to be set in advance");
+        }
+      } else {
+        setWriteMode(STRUCTURE_READY);
+      }
+      writeMode = getWriteMode();
+    }
+    if (writeMode == CANCEL) {
+      if ((outW != null) && (getWriter() != null)) {
+        outW.close();
+      }
+      cancel();
+    }
+    if (writeMode == STRUCTURE_READY) {
+      setWriteMode(WRITE);
+      writeHeader(outW, structure);
+      outW.flush();
+      writeMode = getWriteMode();
+    }
+    if (writeMode == WRITE) {
+      if (structure == null) {
+        throw new IOException("No instances information available.");
+      }
+      if (inst != null) {
+        writeInstance(outW, inst);
+        m_incrementalCounter++;
+        // flush every 100 instances
+        if (m_incrementalCounter > 100) {
+          m_incrementalCounter = 0;
+          outW.flush();
+        }
+      } else {
+        // close
+        writeFooter(outW);
+        outW.flush();
+        if (getWriter() != null) {
+          outW.close();
+        }
+        m_incrementalCounter = 0;
+        resetStructure();
+        outW = null;
+        resetWriter();
+      }
+    }
+  }
+
   /**
    * Writes a Batch of instances.
    * 
@@ -382,6 +530,9 @@ public class JSONSaver extends AbstractFileSaver implements BatchConverter {
    */
   @Override
   public void writeBatch() throws IOException {
+    Instances data;
+    int i;
+
     if (getInstances() == null) {
       throw new IOException("No instances to save");
     }
@@ -400,10 +551,12 @@ public class JSONSaver extends AbstractFileSaver implements BatchConverter {
       outW = new PrintWriter(getWriter());
     }
 
-    JSONNode json = JSONInstances.toJSON(getInstances());
-    StringBuffer buffer = new StringBuffer();
-    json.toString(buffer);
-    outW.println(buffer.toString());
+    data = getInstances();
+    writeHeader(outW, data);
+    for (i = 0; i < data.numInstances(); i++) {
+      writeInstance(outW, data.instance(i));
+    }
+    writeFooter(outW);
     outW.flush();
 
     if (getWriter() != null) {
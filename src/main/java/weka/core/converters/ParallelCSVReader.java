@@ -0,0 +1,1100 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    ParallelCSVReader.java
+ *    Copyright (C) 2026 lendle
+ *
+ */
+
+package weka.core.converters;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.RevisionHandler;
+import weka.core.RevisionUtils;
+import weka.core.Utils;
+import weka.core.converters.CSVLoader.TYPE;
+
+/**
+ * Reads a CSV file in batch mode for a {@link CSVLoader}, with the loader's
+ * settings, in chunks of lines that are parsed in parallel. The file is read
+ * through a FileChannel, and fields are parsed directly from the bytes:
+ * numbers without creating strings, nominal and string values via a
+ * dictionary of byte sequences per chunk. <br/>
+ * <br/>
+ * The attribute types are inferred the same way CSVLoader does it: first on a
+ * sample at the start of the file, then corrected by the chunks, e.g., if a
+ * column that looked numeric turns out to contain other values. If the types
+ * change, the chunks are parsed again. The dictionaries of the chunks are
+ * merged in the order of the file, so that the labels of nominal attributes
+ * are in the order of their first occurrence. The result is the same as with
+ * the sequential tokenizer. <br/>
+ * <br/>
+ * Files with constructs that the sequential tokenizer treats in special ways
+ * (escape characters in quoted values, empty header fields, rows with the
+ * wrong number of values, unparseable dates, character sets that are not
+ * ASCII-compatible) are not read; {@link #read()} returns null then and the
+ * loader falls back to reading the file sequentially, which also reports
+ * errors.
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+public class ParallelCSVReader implements RevisionHandler {
+
+  /** the default number of bytes per chunk */
+  public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+  /** the number of bytes at the start of the data to infer the types from */
+  public static final int SAMPLE_SIZE = 1024 * 1024;
+
+  /** the number of bytes to read at once when looking for line ends */
+  protected static final int BLOCK_SIZE = 64 * 1024;
+
+  /** the loader whose settings are used */
+  protected CSVLoader m_Loader;
+
+  /** the file to read */
+  protected File m_File;
+
+  /** the number of threads */
+  protected int m_NumThreads;
+
+  /** the number of bytes per chunk */
+  protected int m_ChunkSize = DEFAULT_CHUNK_SIZE;
+
+  /** the character set of the file */
+  protected Charset m_Charset = Charset.defaultCharset();
+
+  /** the field separator */
+  protected int m_Separator;
+
+  /** the enclosure characters */
+  protected boolean[] m_Enclosure = new boolean[128];
+
+  /** the bytes of the string representing a missing value */
+  protected byte[] m_MissingValue;
+
+  /** the number of attributes */
+  protected int m_NumAttributes;
+
+  /** the types the chunks are parsed with */
+  protected TYPE[] m_Types;
+
+  /**
+   * the position of the row in which a numeric column turned into a string
+   * column, -1 for other columns; the sequential loader keeps the numbers
+   * before that row unquoted, which trims them
+   */
+  protected long[] m_TrimBefore;
+
+  /**
+   * Creates a reader for the given file with the settings of the given
+   * loader.
+   *
+   * @param loader the loader
+   * @param file the file to read
+   * @param numThreads the number of threads, 0 for one per available
+   *          processor
+   */
+  public ParallelCSVReader(CSVLoader loader, File file, int numThreads) {
+
+    m_Loader = loader;
+    m_File = file;
+    if (numThreads == 0) {
+      numThreads = Runtime.getRuntime().availableProcessors();
+    }
+    m_NumThreads = Math.max(numThreads, 1);
+  }
+
+  /**
+   * Sets the number of bytes per chunk.
+   *
+   * @param value the chunk size
+   */
+  public void setChunkSize(int value) {
+
+    m_ChunkSize = value;
+  }
+
+  /**
+   * Returns the number of bytes per chunk.
+   *
+   * @return the chunk size
+   */
+  public int getChunkSize() {
+
+    return m_ChunkSize;
+  }
+
+  /**
+   * Returns whether bytes below 128 always stand for the ASCII characters in
+   * the file's character set, so that the file can be split up and
+   * tokenized byte by byte.
+   *
+   * @return true if the character set is supported
+   */
+  protected boolean isSupportedCharset() {
+
+    if (m_Charset.name().equals("UTF-8")) {
+      return true;
+    }
+    if (m_Charset.newEncoder().maxBytesPerChar() != 1) {
+      return false;
+    }
+    byte[] ascii = new byte[128];
+    for (int i = 0; i < ascii.length; i++) {
+      ascii[i] = (byte) i;
+    }
+    return Arrays.equals(ascii, new String(ascii, m_Charset)
+      .getBytes(m_Charset));
+  }
+
+  /**
+   * Reads the file.
+   *
+   * @return the data, null if the file can't be read in parallel
+   * @throws IOException if reading fails
+   */
+  public Instances read() throws IOException {
+
+    String separator = m_Loader.m_FieldSeparator;
+    if (!isSupportedCharset() || (separator.length() != 1)
+      || (separator.charAt(0) >= 128)) {
+      return null;
+    }
+    m_Separator = separator.charAt(0);
+    for (String enclosure : m_Loader.m_Enclosures.split(",")) {
+      if ((enclosure.length() != 1) || (enclosure.charAt(0) >= 128)) {
+        return null;
+      }
+      m_Enclosure[enclosure.charAt(0)] = true;
+    }
+    m_MissingValue = m_Loader.m_MissingValue.getBytes(m_Charset);
+
+    FileInputStream stream = new FileInputStream(m_File);
+    try {
+      return read(stream.getChannel());
+    } finally {
+      stream.close();
+    }
+  }
+
+  /**
+   * Reads the data from the given channel.
+   *
+   * @param channel the channel of the file
+   * @return the data, null if the file can't be read in parallel
+   * @throws IOException if reading fails
+   */
+  protected Instances read(final FileChannel channel) throws IOException {
+
+    long size = channel.size();
+
+    // Header
+    long headerEnd = findLineEnd(channel, 0, size);
+    if (headerEnd > Integer.MAX_VALUE) {
+      return null;
+    }
+    Chunk header = new Chunk(0, headerEnd);
+    header.m_Buffer = readBytes(channel, 0, (int) headerEnd);
+    header.m_FieldStart = new int[header.m_Buffer.length + 1];
+    header.m_FieldEnd = new int[header.m_Buffer.length + 1];
+    if ((header.m_Buffer.length == 0)
+      || (header.nextRow(0, header.m_Buffer.length) < 0)) {
+      return null;
+    }
+    if (header.m_NumFields == 0) {
+      return null;
+    }
+    ArrayList<Attribute> atts = new ArrayList<Attribute>();
+    for (int i = 0; i < header.m_NumFields; i++) {
+      if (header.m_FieldStart[i] == header.m_FieldEnd[i]) {
+        return null;
+      }
+      String name =
+        m_Loader.m_noHeaderRow ? "att" + (i + 1) : header.string(i);
+      atts.add(new Attribute(name, (List<String>) null));
+    }
+    m_Loader.initStructure(atts);
+    m_NumAttributes = atts.size();
+    m_Types = m_Loader.m_types;
+    m_TrimBefore = new long[m_NumAttributes];
+    Arrays.fill(m_TrimBefore, -1);
+    long dataStart = m_Loader.m_noHeaderRow ? 0 : Math.min(headerEnd + 1, size);
+
+    // Infer the types from a sample
+    int sampleSize = (int) Math.min(SAMPLE_SIZE, size - dataStart);
+    Chunk sample = new Chunk(dataStart, dataStart + sampleSize);
+    sample.m_Buffer = readBytes(channel, dataStart, sampleSize);
+    int sampleEnd = sample.m_Buffer.length;
+    if (dataStart + sampleSize < size) {
+      while ((sampleEnd > 0) && !isLineEnd(sample.m_Buffer[sampleEnd - 1])) {
+        sampleEnd--;
+      }
+    }
+    if (!sample.inferTypes(sampleEnd)) {
+      return null;
+    }
+
+    // Split the data into chunks of whole lines
+    List<Chunk> chunks = new ArrayList<Chunk>();
+    long start = dataStart;
+    while (start < size) {
+      long end =
+        (size - start <= m_ChunkSize) ? size : findLineEnd(channel, start
+          + m_ChunkSize - 1, size) + 1;
+      end = Math.min(end, size);
+      if (end - start > Integer.MAX_VALUE) {
+        return null;
+      }
+      chunks.add(new Chunk(start, end));
+      start = end;
+    }
+
+    ExecutorService pool =
+      (m_NumThreads == 1) ? null : Executors.newFixedThreadPool(m_NumThreads);
+    try {
+      // Parse, and again if the chunks changed the types
+      if (!parseAll(pool, channel, chunks)) {
+        return null;
+      }
+      if (resolveTypes(chunks)) {
+        for (Chunk chunk : chunks) {
+          chunk.clear();
+        }
+        if (!parseAll(pool, channel, chunks)) {
+          return null;
+        }
+      }
+
+      // Merge the dictionaries and build the instances
+      Instances result = merge(chunks);
+      List<Callable<Instance[]>> builds = new ArrayList<Callable<Instance[]>>();
+      for (final Chunk chunk : chunks) {
+        builds.add(new Callable<Instance[]>() {
+          @Override
+          public Instance[] call() {
+            return chunk.instances();
+          }
+        });
+      }
+      for (Instance[] insts : runAll(pool, builds)) {
+        for (Instance inst : insts) {
+          result.add(inst);
+        }
+      }
+      return result;
+    } finally {
+      if (pool != null) {
+        pool.shutdownNow();
+      }
+    }
+  }
+
+  /**
+   * Parses all chunks with the current types.
+   *
+   * @param pool the pool to use, null for the current thread
+   * @param channel the channel of the file
+   * @param chunks the chunks
+   * @return false if a chunk can't be parsed
+   * @throws IOException if reading fails
+   */
+  protected boolean parseAll(ExecutorService pool, final FileChannel channel,
+    List<Chunk> chunks) throws IOException {
+
+    List<Callable<Boolean>> parses = new ArrayList<Callable<Boolean>>();
+    for (final Chunk chunk : chunks) {
+      parses.add(new Callable<Boolean>() {
+        @Override
+        public Boolean call() throws IOException {
+          chunk.m_Buffer =
+            readBytes(channel, chunk.m_Start,
+              (int) (chunk.m_End - chunk.m_Start));
+          try {
+            return chunk.parse();
+          } finally {
+            chunk.m_Buffer = null;
+          }
+        }
+      });
+    }
+    for (Boolean parsed : runAll(pool, parses)) {
+      if (!parsed) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Runs the given tasks and returns their results in order.
+   *
+   * @param pool the pool to use, null for the current thread
+   * @param tasks the tasks
+   * @return the results
+   * @throws IOException if a task fails
+   */
+  protected static <T> List<T> runAll(ExecutorService pool,
+    List<Callable<T>> tasks) throws IOException {
+
+    List<T> result = new ArrayList<T>();
+    try {
+      if (pool == null) {
+        for (Callable<T> task : tasks) {
+          result.add(task.call());
+        }
+        return result;
+      }
+      List<Future<T>> futures = new ArrayList<Future<T>>();
+      for (Callable<T> task : tasks) {
+        futures.add(pool.submit(task));
+      }
+      for (Future<T> future : futures) {
+        result.add(future.get());
+      }
+      return result;
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof IOException) {
+        throw (IOException) ex.getCause();
+      }
+      throw new IOException(ex.getCause());
+    } catch (IOException ex) {
+      throw ex;
+    } catch (Exception ex) {
+      throw new IOException(ex);
+    }
+  }
+
+  /**
+   * Determines the final types from what the chunks have seen, like the
+   * sequential tokenizer would have determined them going through the file.
+   *
+   * @param chunks the parsed chunks
+   * @return true if a column that was parsed as numbers is nominal or string
+   */
+  protected boolean resolveTypes(List<Chunk> chunks) {
+
+    boolean reparse = false;
+    for (int i = 0; i < m_NumAttributes; i++) {
+      TYPE type = m_Types[i];
+      if ((type != TYPE.NUMERIC) && (type != TYPE.UNDETERMINED)) {
+        continue;
+      }
+      for (Chunk chunk : chunks) {
+        if (type == TYPE.UNDETERMINED) {
+          if (chunk.m_FirstIsNumber[i]) {
+            type = TYPE.NUMERIC;
+          } else if (chunk.m_SawOther[i]) {
+            type = TYPE.NOMINAL;
+            break;
+          }
+        }
+        if ((type == TYPE.NUMERIC) && chunk.m_SawOther[i]) {
+          type = TYPE.STRING;
+          m_TrimBefore[i] = chunk.m_FirstOther[i];
+          break;
+        }
+      }
+      if (type == TYPE.NOMINAL) {
+        m_Loader.m_nominalVals.put(i, new LinkedHashSet<String>());
+      }
+      if ((type == TYPE.NOMINAL) || (type == TYPE.STRING)) {
+        reparse = true;
+      }
+      m_Types[i] = type;
+    }
+    return reparse;
+  }
+
+  /**
+   * Merges the dictionaries of the chunks, in order, into the labels of the
+   * nominal attributes and the values of the string attributes, and creates
+   * the dataset.
+   *
+   * @param chunks the parsed chunks
+   * @return the empty dataset
+   */
+  protected Instances merge(List<Chunk> chunks) {
+
+    for (int i = 0; i < m_NumAttributes; i++) {
+      if (m_Types[i] == TYPE.NOMINAL) {
+        LinkedHashSet<String> labels = m_Loader.m_nominalVals.get(i);
+        for (Chunk chunk : chunks) {
+          for (String label : chunk.m_Dictionaries[i].strings(m_Charset)) {
+            labels.add(label);
+          }
+        }
+      }
+    }
+    m_Loader.makeStructure();
+    Instances result = new Instances(m_Loader.m_structure, 0);
+
+    for (int i = 0; i < m_NumAttributes; i++) {
+      if (m_Types[i] == TYPE.NOMINAL) {
+        Map<String, Integer> index = new HashMap<String, Integer>();
+        for (String label : m_Loader.m_nominalVals.get(i)) {
+          index.put(label, index.size());
+        }
+        for (Chunk chunk : chunks) {
+          String[] labels = chunk.m_Dictionaries[i].strings(m_Charset);
+          chunk.m_GlobalIndex[i] = new int[labels.length];
+          for (int k = 0; k < labels.length; k++) {
+            chunk.m_GlobalIndex[i][k] = index.get(labels[k]);
+          }
+        }
+      } else if (m_Types[i] == TYPE.STRING) {
+        Attribute att = result.attribute(i);
+        for (Chunk chunk : chunks) {
+          String[] values = chunk.m_Dictionaries[i].strings(m_Charset);
+          chunk.m_GlobalIndex[i] = new int[values.length];
+          for (int k = 0; k < values.length; k++) {
+            chunk.m_GlobalIndex[i][k] = att.addStringValue(values[k]);
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns whether a byte ends a line.
+   *
+   * @param b the byte
+   * @return true for CR and LF
+   */
+  protected static boolean isLineEnd(int b) {
+
+    return (b == '\n') || (b == '\r');
+  }
+
+  /**
+   * Returns the position of the first line end at or after the given
+   * position.
+   *
+   * @param channel the channel of the file
+   * @param pos the position to start at
+   * @param size the size of the file
+   * @return the position of the line end, the size if there is none
+   * @throws IOException if reading fails
+   */
+  protected static long findLineEnd(FileChannel channel, long pos, long size)
+    throws IOException {
+
+    while (pos < size) {
+      byte[] block =
+        readBytes(channel, pos, (int) Math.min(BLOCK_SIZE, size - pos));
+      for (int i = 0; i < block.length; i++) {
+        if (isLineEnd(block[i])) {
+          return pos + i;
+        }
+      }
+      pos += block.length;
+    }
+    return size;
+  }
+
+  /**
+   * Reads bytes from the given channel.
+   *
+   * @param channel the channel
+   * @param pos the position to read from
+   * @param length the number of bytes to read
+   * @return the bytes, fewer at the end of the file
+   * @throws IOException if reading fails
+   */
+  protected static byte[] readBytes(FileChannel channel, long pos, int length)
+    throws IOException {
+
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, pos + buffer.position()) < 0) {
+        break;
+      }
+    }
+    return (buffer.position() == length) ? buffer.array() : Arrays.copyOf(
+      buffer.array(), buffer.position());
+  }
+
+  /**
+   * A dictionary of byte sequences, which assigns consecutive indices in the
+   * order the sequences are added.
+   */
+  protected static class ByteDictionary {
+
+    /** the sequences */
+    protected byte[][] m_Keys = new byte[8][];
+
+    /** the hash table of indices + 1, 0 for empty slots */
+    protected int[] m_Table = new int[16];
+
+    /** the number of sequences */
+    protected int m_Size;
+
+    /**
+     * Returns the index of the given sequence, which is added if necessary.
+     *
+     * @param buffer the array holding the sequence
+     * @param start the start of the sequence
+     * @param end the end of the sequence (exclusive)
+     * @return the index
+     */
+    public int indexOf(byte[] buffer, int start, int end) {
+
+      int hash = 0;
+      for (int p = start; p < end; p++) {
+        hash = 31 * hash + buffer[p];
+      }
+      int mask = m_Table.length - 1;
+      int slot = (hash ^ (hash >>> 16)) & mask;
+      int length = end - start;
+      while (m_Table[slot] != 0) {
+        byte[] key = m_Keys[m_Table[slot] - 1];
+        if (key.length == length) {
+          int p = 0;
+          while ((p < length) && (key[p] == buffer[start + p])) {
+            p++;
+          }
+          if (p == length) {
+            return m_Table[slot] - 1;
+          }
+        }
+        slot = (slot + 1) & mask;
+      }
+
+      if (m_Size == m_Keys.length) {
+        m_Keys = Arrays.copyOf(m_Keys, 2 * m_Size);
+      }
+      m_Keys[m_Size] = Arrays.copyOfRange(buffer, start, end);
+      m_Table[slot] = ++m_Size;
+      if (2 * m_Size > m_Table.length) {
+        rehash();
+      }
+      return m_Size - 1;
+    }
+
+    /**
+     * Doubles the size of the hash table.
+     */
+    protected void rehash() {
+
+      m_Table = new int[2 * m_Table.length];
+      int mask = m_Table.length - 1;
+      for (int k = 0; k < m_Size; k++) {
+        int hash = 0;
+        for (byte b : m_Keys[k]) {
+          hash = 31 * hash + b;
+        }
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (m_Table[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        m_Table[slot] = k + 1;
+      }
+    }
+
+    /**
+     * Returns the sequences as strings, in the order of their indices.
+     *
+     * @param charset the character set to decode the sequences with
+     * @return the strings
+     */
+    public String[] strings(Charset charset) {
+
+      String[] result = new String[m_Size];
+      for (int k = 0; k < m_Size; k++) {
+        result[k] = new String(m_Keys[k], charset);
+      }
+      return result;
+    }
+  }
+
+  /**
+   * A range of whole lines of the file and the values parsed from it.
+   */
+  protected class Chunk {
+
+    /** the position of the first byte in the file */
+    protected long m_Start;
+
+    /** the position after the last byte in the file */
+    protected long m_End;
+
+    /** the bytes, while parsing */
+    protected byte[] m_Buffer;
+
+    /** the start of each field of the current row */
+    protected int[] m_FieldStart;
+
+    /** the end of each field of the current row */
+    protected int[] m_FieldEnd;
+
+    /** the number of fields of the current row */
+    protected int m_NumFields;
+
+    /** whether the last number parsed was valid */
+    protected boolean m_IsNumber;
+
+    /** the number of rows */
+    protected int m_NumRows;
+
+    /**
+     * the values of the rows, row by row; indices into the dictionaries for
+     * nominal and string attributes
+     */
+    protected double[] m_Values;
+
+    /** the dictionaries of the nominal and string attributes */
+    protected ByteDictionary[] m_Dictionaries;
+
+    /** the indices of the dictionaries' entries in the final attributes */
+    protected int[][] m_GlobalIndex;
+
+    /** whether the first value of a column is a number */
+    protected boolean[] m_FirstIsNumber;
+
+    /** whether a column has values that are not numbers */
+    protected boolean[] m_SawOther;
+
+    /** the position of the first row with a value that is not a number */
+    protected long[] m_FirstOther;
+
+    /** the date formats of date attributes */
+    protected SimpleDateFormat[] m_DateFormats;
+
+    /**
+     * Creates a chunk for the given range of the file.
+     *
+     * @param start the position of the first byte
+     * @param end the position after the last byte
+     */
+    public Chunk(long start, long end) {
+
+      m_Start = start;
+      m_End = end;
+    }
+
+    /**
+     * Frees the parsed values.
+     */
+    public void clear() {
+
+      m_Values = null;
+      m_Dictionaries = null;
+      m_GlobalIndex = null;
+      m_NumRows = 0;
+    }
+
+    /**
+     * Splits the next non-empty row into its fields, like the sequential
+     * tokenizer does.
+     *
+     * @param pos the position to start at
+     * @param end the end of the bytes to parse
+     * @return the position after the row, end if there are no more rows, -1
+     *         if the row can't be parsed here
+     */
+    protected int nextRow(int pos, int end) {
+
+      byte[] buf = m_Buffer;
+
+      // Skip empty lines and leading white space
+      while ((pos < end) && ((buf[pos] & 0xFF) < ' ')
+        && (buf[pos] != m_Separator)) {
+        pos++;
+      }
+      m_NumFields = 0;
+      if (pos == end) {
+        return end;
+      }
+
+      while (true) {
+        if (m_NumFields == m_FieldStart.length) {
+          return -1;
+        }
+        pos = skipWhiteSpace(pos, end);
+        if ((pos == end) || isLineEnd(buf[pos])) {
+          m_FieldStart[m_NumFields] = pos;
+          m_FieldEnd[m_NumFields++] = pos;
+          break;
+        }
+        int b = buf[pos] & 0xFF;
+        if (b == m_Separator) {
+          m_FieldStart[m_NumFields] = pos;
+          m_FieldEnd[m_NumFields++] = pos;
+          pos++;
+          continue;
+        }
+
+        if ((b < 128) && m_Enclosure[b]) {
+          // Quoted value, without escapes
+          int start = ++pos;
+          while ((pos < end) && (buf[pos] != b) && !isLineEnd(buf[pos])
+            && (buf[pos] != '\\')) {
+            pos++;
+          }
+          if ((pos == end) || (buf[pos] != b)) {
+            return -1;
+          }
+          m_FieldStart[m_NumFields] = start;
+          m_FieldEnd[m_NumFields++] = pos;
+          pos++;
+        } else {
+          int start = pos;
+          while (pos < end) {
+            b = buf[pos] & 0xFF;
+            if ((b < ' ') || (b == m_Separator)
+              || ((b < 128) && m_Enclosure[b])) {
+              break;
+            }
+            pos++;
+          }
+          m_FieldStart[m_NumFields] = start;
+          m_FieldEnd[m_NumFields++] = pos;
+        }
+
+        // A separator or the end of the row has to follow
+        pos = skipWhiteSpace(pos, end);
+        if ((pos == end) || isLineEnd(buf[pos])) {
+          break;
+        }
+        if ((buf[pos] & 0xFF) != m_Separator) {
+          return -1;
+        }
+        pos++;
+      }
+      return (pos == end) ? end : pos + 1;
+    }
+
+    /**
+     * Skips white space within a row.
+     *
+     * @param pos the position to start at
+     * @param end the end of the bytes
+     * @return the position of the first other byte
+     */
+    protected int skipWhiteSpace(int pos, int end) {
+
+      while ((pos < end) && ((m_Buffer[pos] & 0xFF) < ' ')
+        && (m_Buffer[pos] != m_Separator) && !isLineEnd(m_Buffer[pos])) {
+        pos++;
+      }
+      return pos;
+    }
+
+    /**
+     * Returns whether the given field is missing.
+     *
+     * @param field the field of the current row
+     * @return true if it equals the missing value string or is blank
+     */
+    protected boolean isMissing(int field) {
+
+      int start = m_FieldStart[field];
+      int end = m_FieldEnd[field];
+      if (end - start == m_MissingValue.length) {
+        int p = 0;
+        while ((p < m_MissingValue.length)
+          && (m_Buffer[start + p] == m_MissingValue[p])) {
+          p++;
+        }
+        if (p == m_MissingValue.length) {
+          return true;
+        }
+      }
+      for (int p = start; p < end; p++) {
+        if ((m_Buffer[p] & 0xFF) > ' ') {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Returns the given field as string.
+     *
+     * @param field the field of the current row
+     * @return the string
+     */
+    protected String string(int field) {
+
+      return new String(m_Buffer, m_FieldStart[field], m_FieldEnd[field]
+        - m_FieldStart[field], m_Charset);
+    }
+
+    /**
+     * Parses the given field as number like Double.parseDouble() does, using
+     * the bytes directly for plain decimal numbers that can be converted
+     * exactly.
+     *
+     * @param field the field of the current row
+     * @return the number; m_IsNumber is false if it is not a number
+     */
+    protected double parseNumber(int field) {
+
+      byte[] buf = m_Buffer;
+      int start = m_FieldStart[field];
+      int end = m_FieldEnd[field];
+      while ((start < end) && ((buf[start] & 0xFF) <= ' ')) {
+        start++;
+      }
+      while ((end > start) && ((buf[end - 1] & 0xFF) <= ' ')) {
+        end--;
+      }
+      m_IsNumber = true;
+      if (start == end) {
+        m_IsNumber = false;
+        return 0;
+      }
+      int b = buf[start];
+      if (((b < '0') || (b > '9')) && (b != '-') && (b != '+') && (b != '.')
+        && (b != 'N') && (b != 'I')) {
+        m_IsNumber = false;
+        return 0;
+      }
+
+      double value = DoubleParser.parse(buf, start, end);
+      if (!Double.isNaN(value)) {
+        return value;
+      }
+      return parseString(start, end);
+    }
+
+    /**
+     * Parses a number with Double.parseDouble().
+     *
+     * @param start the start of the number
+     * @param end the end of the number
+     * @return the number; m_IsNumber is false if it is not a number
+     */
+    protected double parseString(int start, int end) {
+
+      try {
+        return Double.parseDouble(new String(m_Buffer, start, end - start,
+          m_Charset));
+      } catch (NumberFormatException e) {
+        m_IsNumber = false;
+        return 0;
+      }
+    }
+
+    /**
+     * Infers the types of the columns from the given rows like the sequential
+     * tokenizer does.
+     *
+     * @param end the end of the rows
+     * @return false if the rows can't be parsed here
+     */
+    protected boolean inferTypes(int end) {
+
+      m_FieldStart = new int[m_NumAttributes + 1];
+      m_FieldEnd = new int[m_NumAttributes + 1];
+      int pos = 0;
+      while (pos < end) {
+        int rowStart = pos;
+        pos = nextRow(pos, end);
+        if (pos < 0) {
+          return false;
+        }
+        if (m_NumFields == 0) {
+          break;
+        }
+        if (m_NumFields != m_NumAttributes) {
+          return false;
+        }
+        for (int i = 0; i < m_NumAttributes; i++) {
+          if (((m_Types[i] != TYPE.NUMERIC)
+            && (m_Types[i] != TYPE.UNDETERMINED))
+            || isMissing(i)) {
+            continue;
+          }
+          parseNumber(i);
+          if (m_IsNumber) {
+            m_Types[i] = TYPE.NUMERIC;
+          } else if (m_Types[i] == TYPE.UNDETERMINED) {
+            m_Types[i] = TYPE.NOMINAL;
+            m_Loader.m_nominalVals.put(i, new LinkedHashSet<String>());
+          } else {
+            m_Types[i] = TYPE.STRING;
+            m_TrimBefore[i] = m_Start + rowStart;
+          }
+        }
+      }
+      m_Buffer = null;
+      return true;
+    }
+
+    /**
+     * Parses the rows of the chunk with the current types.
+     *
+     * @return false if the rows can't be parsed here
+     */
+    protected boolean parse() {
+
+      int n = m_NumAttributes;
+      m_FieldStart = new int[n + 1];
+      m_FieldEnd = new int[n + 1];
+      m_Values = new double[16 * n];
+      m_Dictionaries = new ByteDictionary[n];
+      m_GlobalIndex = new int[n][];
+      m_FirstIsNumber = new boolean[n];
+      m_SawOther = new boolean[n];
+      m_FirstOther = new long[n];
+      boolean[] seen = new boolean[n];
+      m_DateFormats = new SimpleDateFormat[n];
+      for (int i = 0; i < n; i++) {
+        if ((m_Types[i] == TYPE.NOMINAL) || (m_Types[i] == TYPE.STRING)) {
+          m_Dictionaries[i] = new ByteDictionary();
+        } else if (m_Types[i] == TYPE.DATE) {
+          m_DateFormats[i] = new SimpleDateFormat(m_Loader.m_dateFormat);
+          m_DateFormats[i].setLenient(false);
+        }
+      }
+
+      int pos = 0;
+      int end = m_Buffer.length;
+      while (pos < end) {
+        long rowStart = m_Start + pos;
+        pos = nextRow(pos, end);
+        if (pos < 0) {
+          return false;
+        }
+        if (m_NumFields == 0) {
+          break;
+        }
+        if (m_NumFields != n) {
+          return false;
+        }
+        if ((m_NumRows + 1) * n > m_Values.length) {
+          m_Values = Arrays.copyOf(m_Values, 2 * m_Values.length);
+        }
+        int offset = m_NumRows * n;
+        for (int i = 0; i < n; i++) {
+          if (isMissing(i)) {
+            m_Values[offset + i] = Utils.missingValue();
+            continue;
+          }
+          switch (m_Types[i]) {
+          case NUMERIC:
+          case UNDETERMINED:
+            double value = parseNumber(i);
+            if (!seen[i]) {
+              seen[i] = true;
+              m_FirstIsNumber[i] = m_IsNumber;
+            }
+            if (m_IsNumber) {
+              m_Values[offset + i] = value;
+            } else {
+              if (!m_SawOther[i]) {
+                m_SawOther[i] = true;
+                m_FirstOther[i] = rowStart;
+              }
+              m_Values[offset + i] = Utils.missingValue();
+            }
+            break;
+          case NOMINAL:
+            m_Values[offset + i] =
+              m_Dictionaries[i].indexOf(m_Buffer, m_FieldStart[i],
+                m_FieldEnd[i]);
+            break;
+          case STRING:
+            int start = m_FieldStart[i];
+            int stop = m_FieldEnd[i];
+            if (rowStart < m_TrimBefore[i]) {
+              while ((m_Buffer[start] & 0xFF) <= ' ') {
+                start++;
+              }
+              while ((m_Buffer[stop - 1] & 0xFF) <= ' ') {
+                stop--;
+              }
+            }
+            m_Values[offset + i] =
+              m_Dictionaries[i].indexOf(m_Buffer, start, stop);
+            break;
+          case DATE:
+            try {
+              m_Values[offset + i] =
+                m_DateFormats[i].parse(string(i)).getTime();
+            } catch (ParseException e) {
+              return false;
+            }
+            break;
+          }
+        }
+        m_NumRows++;
+      }
+      m_FieldStart = null;
+      m_FieldEnd = null;
+      return true;
+    }
+
+    /**
+     * Creates the instances of the chunk, after the dictionaries have been
+     * merged.
+     *
+     * @return the instances
+     */
+    protected Instance[] instances() {
+
+      int n = m_NumAttributes;
+      Instance[] result = new Instance[m_NumRows];
+      for (int r = 0; r < m_NumRows; r++) {
+        double[] vals = Arrays.copyOfRange(m_Values, r * n, (r + 1) * n);
+        for (int i = 0; i < n; i++) {
+          if ((m_GlobalIndex[i] != null) && !Utils.isMissingValue(vals[i])) {
+            vals[i] = m_GlobalIndex[i][(int) vals[i]];
+          }
+        }
+        result[r] = new DenseInstance(1.0, vals);
+      }
+      m_Values = null;
+      return result;
+    }
+  }
+
+  /**
+   * Returns the revision string.
+   *
+   * @return the revision
+   */
+  @Override
+  public String getRevision() {
+    return RevisionUtils.extract("$Revision$");
+  }
+}
@@ -141,7 +141,7 @@ public class JSONInstances {
    * @param data	the data so far (only used for header information)
    * @return		the Instance, null in case of an error
    */
-  protected static Instance toInstance(JSONNode inst, Instances data) {
+  public static Instance toInstance(JSONNode inst, Instances data) {
     Instance	result;
     boolean	sparse;
     double	weight;
@@ -219,35 +219,22 @@ public class JSONInstances {
   }
   
   /**
-   * Turns a JSON object, if possible, into an Instances object.
+   * Turns the header section of a JSON object, if possible, into an empty
+   * Instances object.
    * 
-   * @param json	the JSON object to convert
-   * @param onlyHeader	whether to retrieve only the header
-   * @return		the generated Instances object, null if not possible
+   * @param header	the header section to convert
+   * @param capacity	the initial capacity of the dataset
+   * @return		the generated Instances header object, null if not possible
    */
-  protected static Instances toInstances(JSONNode json, boolean onlyHeader) {
+  public static Instances toHeader(JSONNode header, int capacity) {
     Instances	result;
-    JSONNode	header;
     JSONNode	attributes;
-    JSONNode	data;
     ArrayList<Attribute>	atts;
     Attribute	att;
-    Instance	inst;
     int		i;
     int		classIndex;
     boolean[]	classAtt;
     
-    header = json.getChild(HEADER);
-    if (header == null) {
-      System.err.println("No '" + HEADER + "' section!");
-      return null;
-    }
-    data = json.getChild(DATA);
-    if (data == null) {
-      System.err.println("No '" + DATA + "' section!");
-      return null;
-    }
-    
     // attributes
     attributes = header.getChild(ATTRIBUTES);
     if (attributes == null) {
@@ -270,9 +257,41 @@ public class JSONInstances {
     result = new Instances(
 	header.getChild(RELATION).getValue("unknown").toString(), 
 	atts, 
-	(onlyHeader ? 0 : data.getChildCount()));
+	capacity);
     result.setClassIndex(classIndex);
     
+    return result;
+  }
+  
+  /**
+   * Turns a JSON object, if possible, into an Instances object.
+   * 
+   * @param json	the JSON object to convert
+   * @param onlyHeader	whether to retrieve only the header
+   * @return		the generated Instances object, null if not possible
+   */
+  protected static Instances toInstances(JSONNode json, boolean onlyHeader) {
+    Instances	result;
+    JSONNode	header;
+    JSONNode	data;
+    Instance	inst;
+    int		i;
+    
+    header = json.getChild(HEADER);
+    if (header == null) {
+      System.err.println("No '" + HEADER + "' section!");
+      return null;
+    }
+    data = json.getChild(DATA);
+    if (data == null) {
+      System.err.println("No '" + DATA + "' section!");
+      return null;
+    }
+    
+    result = toHeader(header, (onlyHeader ? 0 : data.getChildCount()));
+    if (result == null)
+      return null;
+    
     // data
     if (!onlyHeader) {
       for (i = 0; i < data.getChildCount(); i++) {
@@ -347,7 +366,7 @@ public class JSONInstances {
    * @param inst	the Instance to convert
    * @return		the JSON object
    */
-  protected static JSONNode toJSON(Instance inst) {
+  public static JSONNode toJSON(Instance inst) {
     JSONNode	result;
     JSONNode	values;
     int		i;
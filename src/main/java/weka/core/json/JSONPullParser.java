@@ -0,0 +1,646 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * JSONPullParser.java
+ * Copyright (C) 2026 lendle
+ */
+
+package weka.core.json;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import weka.core.RevisionHandler;
+import weka.core.RevisionUtils;
+
+/**
+ * Event-based parser for <a href="http://www.json.org/"
+ * target="_blank">JSON</a> documents. Instead of building the complete
+ * {@link JSONNode} tree like {@link JSONNode#read(Reader)}, the document is
+ * read one event at a time with {@link #next()}, so arbitrarily large
+ * documents can be processed with constant memory. Sub-trees of interest can
+ * be turned into {@link JSONNode} objects with {@link #readNode()}.
+ * <p/>
+ * Tokens are recognized exactly like the JFlex scanner used by
+ * {@link JSONNode#read(Reader)} does it, i.e., numbers without a fraction and
+ * sign are returned as Integer, all other numbers as Double, unknown escape
+ * sequences in strings are kept as they are and illegal characters outside of
+ * strings are reported and skipped.
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+public class JSONPullParser implements RevisionHandler {
+
+  /**
+   * The events returned by the parser.
+   */
+  public static enum Event {
+    /** the start of an object. */
+    START_OBJECT, /** the end of an object. */
+    END_OBJECT, /** the start of an array. */
+    START_ARRAY, /** the end of an array. */
+    END_ARRAY, /** a primitive value (including null). */
+    VALUE, /** the end of the document. */
+    END_DOCUMENT
+  }
+
+  /** token: end of input. */
+  protected final static int EOF = -1;
+
+  /** token: null. */
+  protected final static int NULL = -2;
+
+  /** token: true or false. */
+  protected final static int BOOLEAN = -3;
+
+  /** token: integer. */
+  protected final static int INTEGER = -4;
+
+  /** token: floating point number. */
+  protected final static int DOUBLE = -5;
+
+  /** token: string. */
+  protected final static int STRING = -6;
+
+  /** the reader to read the document from. */
+  protected Reader m_Reader;
+
+  /** the character buffer. */
+  protected char[] m_Buffer = new char[8192];
+
+  /** the position of the next character in the buffer. */
+  protected int m_Pos;
+
+  /** the number of valid characters in the buffer. */
+  protected int m_Limit;
+
+  /** the current line number. */
+  protected int m_Line = 1;
+
+  /** for assembling strings and numbers. */
+  protected StringBuilder m_Text = new StringBuilder();
+
+  /** the value of the last token. */
+  protected Object m_TokenValue;
+
+  /** the types of the open containers (true for arrays). */
+  protected boolean[] m_Arrays = new boolean[16];
+
+  /** whether the open containers already have members. */
+  protected boolean[] m_HasMembers = new boolean[16];
+
+  /** the number of open containers. */
+  protected int m_Depth;
+
+  /** whether the document has been started. */
+  protected boolean m_Started;
+
+  /** the last event. */
+  protected Event m_Event;
+
+  /** the name of the current pair, null for array elements. */
+  protected String m_Name;
+
+  /** the current primitive value. */
+  protected Object m_Value;
+
+  /**
+   * Initializes the parser.
+   *
+   * @param reader the reader to read the document from
+   */
+  public JSONPullParser(Reader reader) {
+    super();
+
+    m_Reader = reader;
+  }
+
+  /**
+   * Returns the last event.
+   *
+   * @return the event, null if {@link #next()} hasn't been called yet
+   */
+  public Event getEvent() {
+    return m_Event;
+  }
+
+  /**
+   * Returns the name of the pair that the last {@link Event#START_OBJECT},
+   * {@link Event#START_ARRAY} or {@link Event#VALUE} event belongs to.
+   *
+   * @return the name, null for the root object and array elements
+   */
+  public String getName() {
+    return m_Name;
+  }
+
+  /**
+   * Returns the value of the last {@link Event#VALUE} event.
+   *
+   * @return the value (Boolean, Integer, Double, String or null)
+   */
+  public Object getValue() {
+    return m_Value;
+  }
+
+  /**
+   * Returns the number of currently open objects and arrays.
+   *
+   * @return the depth, 1 for the members of the root object
+   */
+  public int getDepth() {
+    return m_Depth;
+  }
+
+  /**
+   * Returns the current line number.
+   *
+   * @return the line number
+   */
+  public int getLine() {
+    return m_Line;
+  }
+
+  /**
+   * Reads the next event from the document.
+   *
+   * @return the event
+   * @throws IOException if reading fails or the document is malformed
+   */
+  public Event next() throws IOException {
+    int token;
+    boolean array;
+
+    m_Name = null;
+    m_Value = null;
+
+    if (m_Depth == 0) {
+      if (m_Started) {
+        if ((m_Event != Event.END_DOCUMENT) && (nextToken() != EOF)) {
+          throw error("Unexpected data after end of document");
+        }
+        m_Event = Event.END_DOCUMENT;
+        return m_Event;
+      }
+      if (nextToken() != '{') {
+        throw error("Expected '{' at start of document");
+      }
+      m_Started = true;
+      push(false);
+      m_Event = Event.START_OBJECT;
+      return m_Event;
+    }
+
+    array = m_Arrays[m_Depth - 1];
+    token = nextToken();
+    if (token == (array ? ']' : '}')) {
+      m_Depth--;
+      m_Event = array ? Event.END_ARRAY : Event.END_OBJECT;
+      return m_Event;
+    }
+    if (m_HasMembers[m_Depth - 1]) {
+      if (token != ',') {
+        throw error("Expected ',' or '" + (array ? ']' : '}') + "'");
+      }
+      token = nextToken();
+    }
+    m_HasMembers[m_Depth - 1] = true;
+
+    if (!array) {
+      if (token != STRING) {
+        throw error("Expected name of pair");
+      }
+      m_Name = (String) m_TokenValue;
+      if (nextToken() != ':') {
+        throw error("Expected ':' after name '" + m_Name + "'");
+      }
+      token = nextToken();
+    }
+
+    switch (token) {
+    case '{':
+      push(false);
+      m_Event = Event.START_OBJECT;
+      break;
+    case '[':
+      push(true);
+      m_Event = Event.START_ARRAY;
+      break;
+    case NULL:
+    case BOOLEAN:
+    case INTEGER:
+    case DOUBLE:
+    case STRING:
+      m_Value = m_TokenValue;
+      m_Event = Event.VALUE;
+      break;
+    default:
+      throw error("Expected value");
+    }
+
+    return m_Event;
+  }
+
+  /**
+   * Reads the remainder of the object or array that was started by the last
+   * event and returns it as node. The node is created the same way as by
+   * {@link JSONNode#read(Reader)}.
+   *
+   * @return the node with the content of the object or array
+   * @throws IOException if reading fails or the last event didn't start an
+   *           object or array
+   */
+  public JSONNode readNode() throws IOException {
+    JSONNode result;
+    JSONNode current;
+    int depth;
+
+    if ((m_Event != Event.START_OBJECT) && (m_Event != Event.START_ARRAY)) {
+      throw new IOException("No object or array started!");
+    }
+
+    result = new JSONNode(m_Name,
+      (m_Event == Event.START_ARRAY) ? JSONNode.NodeType.ARRAY
+        : JSONNode.NodeType.OBJECT);
+    current = result;
+    depth = m_Depth;
+
+    while (m_Depth >= depth) {
+      switch (next()) {
+      case START_OBJECT:
+        current = current.addObject(m_Name);
+        break;
+      case START_ARRAY:
+        current = current.addArray(m_Name);
+        break;
+      case END_OBJECT:
+      case END_ARRAY:
+        if (m_Depth >= depth) {
+          current = (JSONNode) current.getParent();
+        }
+        break;
+      case VALUE:
+        if (current.isArray()) {
+          current.addArrayElement(m_Value);
+        } else if (m_Value == null) {
+          current.addNull(m_Name);
+        } else if (m_Value instanceof Boolean) {
+          current.addPrimitive(m_Name, (Boolean) m_Value);
+        } else if (m_Value instanceof Integer) {
+          current.addPrimitive(m_Name, (Integer) m_Value);
+        } else if (m_Value instanceof Double) {
+          current.addPrimitive(m_Name, (Double) m_Value);
+        } else {
+          current.addPrimitive(m_Name, (String) m_Value);
+        }
+        break;
+      default:
+        throw error("Unexpected end of document");
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Skips the remainder of the object or array that was started by the last
+   * event. Does nothing for other events.
+   *
+   * @throws IOException if reading fails
+   */
+  public void skip() throws IOException {
+    int depth;
+
+    if ((m_Event != Event.START_OBJECT) && (m_Event != Event.START_ARRAY)) {
+      return;
+    }
+
+    depth = m_Depth;
+    while (m_Depth >= depth) {
+      if (next() == Event.END_DOCUMENT) {
+        throw error("Unexpected end of document");
+      }
+    }
+  }
+
+  /**
+   * Closes the underlying reader.
+   *
+   * @throws IOException if closing fails
+   */
+  public void close() throws IOException {
+    m_Reader.close();
+  }
+
+  /**
+   * Opens a new object or array.
+   *
+   * @param array true for an array, false for an object
+   */
+  protected void push(boolean array) {
+    boolean[] arrays;
+    boolean[] members;
+
+    if (m_Depth == m_Arrays.length) {
+      arrays = new boolean[m_Depth * 2];
+      members = new boolean[m_Depth * 2];
+      System.arraycopy(m_Arrays, 0, arrays, 0, m_Depth);
+      System.arraycopy(m_HasMembers, 0, members, 0, m_Depth);
+      m_Arrays = arrays;
+      m_HasMembers = members;
+    }
+    m_Arrays[m_Depth] = array;
+    m_HasMembers[m_Depth] = false;
+    m_Depth++;
+  }
+
+  /**
+   * Generates an exception for a malformed document.
+   *
+   * @param msg the error message
+   * @return the exception
+   */
+  protected IOException error(String msg) {
+    return new IOException(msg + ", line " + m_Line + "!");
+  }
+
+  /**
+   * Makes sure that at least the specified number of characters are
+   * available in the buffer, if possible.
+   *
+   * @param count the number of characters
+   * @return true if enough characters are available, false if the end of the
+   *         input was reached before
+   * @throws IOException if reading fails
+   */
+  protected boolean ensure(int count) throws IOException {
+    int read;
+
+    if (m_Limit - m_Pos >= count) {
+      return true;
+    }
+
+    System.arraycopy(m_Buffer, m_Pos, m_Buffer, 0, m_Limit - m_Pos);
+    m_Limit -= m_Pos;
+    m_Pos = 0;
+    while (m_Limit < count) {
+      read = m_Reader.read(m_Buffer, m_Limit, m_Buffer.length - m_Limit);
+      if (read == -1) {
+        return false;
+      }
+      m_Limit += read;
+    }
+
+    return true;
+  }
+
+  /**
+   * Checks whether the keyword starts at the current position.
+   *
+   * @param keyword the keyword to look for
+   * @return true if the keyword starts at the current position
+   * @throws IOException if reading fails
+   */
+  protected boolean lookingAt(String keyword) throws IOException {
+    int i;
+
+    if (!ensure(keyword.length())) {
+      return false;
+    }
+    for (i = 0; i < keyword.length(); i++) {
+      if (m_Buffer[m_Pos + i] != keyword.charAt(i)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Reads the next token. Punctuation is returned as the character itself,
+   * everything else as one of the token constants, with the value stored in
+   * m_TokenValue.
+   *
+   * @return the token
+   * @throws IOException if reading fails
+   */
+  protected int nextToken() throws IOException {
+    char c;
+
+    m_TokenValue = null;
+
+    while (ensure(1)) {
+      c = m_Buffer[m_Pos];
+      switch (c) {
+      case '\n':
+        m_Line++;
+        m_Pos++;
+        break;
+      case ' ':
+      case '\r':
+      case '\t':
+      case '\f':
+        m_Pos++;
+        break;
+      case '{':
+      case '}':
+      case '[':
+      case ']':
+      case ',':
+      case ':':
+        m_Pos++;
+        return c;
+      case '"':
+        m_Pos++;
+        readString();
+        return STRING;
+      case 'n':
+        if (lookingAt("null")) {
+          m_Pos += 4;
+          return NULL;
+        }
+        illegal();
+        break;
+      case 't':
+        if (lookingAt("true")) {
+          m_Pos += 4;
+          m_TokenValue = Boolean.TRUE;
+          return BOOLEAN;
+        }
+        illegal();
+        break;
+      case 'f':
+        if (lookingAt("false")) {
+          m_Pos += 5;
+          m_TokenValue = Boolean.FALSE;
+          return BOOLEAN;
+        }
+        illegal();
+        break;
+      default:
+        if ((c >= '0') && (c <= '9')) {
+          return readNumber();
+        }
+        if ((c == '-') && ensure(2) && (m_Buffer[m_Pos + 1] >= '0')
+          && (m_Buffer[m_Pos + 1] <= '9')) {
+          return readNumber();
+        }
+        illegal();
+      }
+    }
+
+    return EOF;
+  }
+
+  /**
+   * Reports and skips the character at the current position.
+   */
+  protected void illegal() {
+    System.err.println("Illegal character: " + m_Buffer[m_Pos]);
+    m_Pos++;
+  }
+
+  /**
+   * Reads a number starting at the current position.
+   *
+   * @return the token type (INTEGER or DOUBLE)
+   * @throws IOException if reading fails
+   */
+  protected int readNumber() throws IOException {
+    boolean integer;
+    char c;
+
+    m_Text.setLength(0);
+    integer = true;
+    if (m_Buffer[m_Pos] == '-') {
+      m_Text.append('-');
+      m_Pos++;
+      integer = false;
+    }
+    while (ensure(1)) {
+      c = m_Buffer[m_Pos];
+      if ((c >= '0') && (c <= '9')) {
+        m_Text.append(c);
+      } else if ((c == '.') && integer) {
+        m_Text.append(c);
+        integer = false;
+      } else if ((c == '.') && (m_Text.indexOf(".") == -1)) {
+        m_Text.append(c);
+      } else {
+        break;
+      }
+      m_Pos++;
+    }
+
+    try {
+      if (integer) {
+        m_TokenValue = Integer.valueOf(m_Text.toString());
+        return INTEGER;
+      } else {
+        m_TokenValue = Double.valueOf(m_Text.toString());
+        return DOUBLE;
+      }
+    } catch (NumberFormatException e) {
+      throw error("Invalid number '" + m_Text + "'");
+    }
+  }
+
+  /**
+   * Reads a string, the opening quote has already been consumed.
+   *
+   * @throws IOException if reading fails or the string is not terminated
+   */
+  protected void readString() throws IOException {
+    int start;
+    char c;
+
+    m_Text.setLength(0);
+    while (true) {
+      if (!ensure(1)) {
+        throw error("Unterminated string");
+      }
+
+      // plain characters
+      start = m_Pos;
+      while (m_Pos < m_Limit) {
+        c = m_Buffer[m_Pos];
+        if ((c == '"') || (c == '\\') || (c == '\n') || (c == '\r')) {
+          break;
+        }
+        m_Pos++;
+      }
+      m_Text.append(m_Buffer, start, m_Pos - start);
+      if (m_Pos == m_Limit) {
+        continue;
+      }
+
+      c = m_Buffer[m_Pos];
+      if (c == '"') {
+        m_Pos++;
+        m_TokenValue = m_Text.toString();
+        return;
+      }
+      if (c != '\\') {
+        throw error("Line break in string");
+      }
+
+      // escape sequences, unknown ones are kept as they are
+      if (!ensure(2)) {
+        throw error("Unterminated string");
+      }
+      m_Pos++;
+      switch (m_Buffer[m_Pos]) {
+      case '"':
+        m_Text.append('"');
+        m_Pos++;
+        break;
+      case 'b':
+        m_Text.append('\b');
+        m_Pos++;
+        break;
+      case 'f':
+        m_Text.append('\f');
+        m_Pos++;
+        break;
+      case 'n':
+        m_Text.append('\n');
+        m_Pos++;
+        break;
+      case 'r':
+        m_Text.append('\r');
+        m_Pos++;
+        break;
+      case 't':
+        m_Text.append('\t');
+        m_Pos++;
+        break;
+      default:
+        m_Text.append('\\');
+      }
+    }
+  }
+
+  /**
+   * Returns the revision string.
+   *
+   * @return the revision
+   */
+  @Override
+  public String getRevision() {
+    return RevisionUtils.extract("$Revision$");
+  }
+}
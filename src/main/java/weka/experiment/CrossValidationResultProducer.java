@@ -31,6 +31,7 @@ import java.util.Vector;
 
 import weka.core.AdditionalMeasureProducer;
 import weka.core.Instances;
+import weka.core.InstancesView;
 import weka.core.Option;
 import weka.core.OptionHandler;
 import weka.core.RevisionHandler;
@@ -371,8 +372,10 @@ public class CrossValidationResultProducer implements ResultProducer,
     if (m_Instances == null) {
       throw new Exception("No Instances set");
     }
-    // Randomize on a copy of the original dataset
-    Instances runInstances = new Instances(m_Instances);
+    // Randomize on a view of the original dataset, the folds handed to the
+    // split evaluator copy an instance only when it is changed
+    Instances runInstances =
+      new InstancesView(m_Instances, 0, m_Instances.numInstances());
     Random random = new Random(run);
     runInstances.randomize(random);
     if (runInstances.classAttribute().isNominal()) {
@@ -387,8 +390,8 @@ public class CrossValidationResultProducer implements ResultProducer,
       key[2] = "" + (fold + 1);
       System.arraycopy(seKey, 0, key, 3, seKey.length);
       if (m_ResultListener.isResultRequired(this, key)) {
-        Instances train = runInstances.trainCV(m_NumFolds, fold, random);
-        Instances test = runInstances.testCV(m_NumFolds, fold);
+        Instances train = runInstances.trainCVView(m_NumFolds, fold, random);
+        Instances test = runInstances.testCVView(m_NumFolds, fold);
         try {
           Object[] seResults = m_SplitEvaluator.getResult(train, test);
           Object[] results = new Object[seResults.length + 1];
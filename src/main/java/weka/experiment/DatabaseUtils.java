@@ -168,6 +168,9 @@ public class DatabaseUtils implements Serializable, RevisionHandler {
   /** the character to mask SQL keywords (by appending this character). */
   protected String m_KeywordsMaskChar = "_";
 
+  /** the number of rows to fetch per round trip, 0 for the driver default. */
+  protected int m_FetchSize = 0;
+
   /**
    * Reads properties and sets up the database drivers.
    * 
@@ -542,6 +545,36 @@ public class DatabaseUtils implements Serializable, RevisionHandler {
     return m_password;
   }
 
+  /**
+   * Returns the tip text for this property.
+   * 
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String fetchSizeTipText() {
+    return "The number of rows the JDBC driver fetches per round trip when "
+      + "reading query results (0 uses the driver's default). Some drivers, "
+      + "e.g., PostgreSQL, only honour it with auto-commit turned off.";
+  }
+
+  /**
+   * Sets the number of rows to fetch per round trip.
+   * 
+   * @param value the fetch size, 0 for the driver's default
+   */
+  public void setFetchSize(int value) {
+    m_FetchSize = value;
+  }
+
+  /**
+   * Returns the number of rows to fetch per round trip.
+   * 
+   * @return the fetch size, 0 for the driver's default
+   */
+  public int getFetchSize() {
+    return m_FetchSize;
+  }
+
   /**
    * Opens a connection to the database.
    * 
@@ -781,6 +814,9 @@ public class DatabaseUtils implements Serializable, RevisionHandler {
         m_Connection.prepareStatement(query, getSupportedCursorScrollType(),
           ResultSet.CONCUR_READ_ONLY);
     }
+    if (m_FetchSize > 0) {
+      m_PreparedStatement.setFetchSize(m_FetchSize);
+    }
 
     return (m_PreparedStatement.execute());
   }
@@ -853,6 +889,9 @@ public class DatabaseUtils implements Serializable, RevisionHandler {
         m_Connection.createStatement(getSupportedCursorScrollType(),
           ResultSet.CONCUR_READ_ONLY);
     }
+    if (m_FetchSize > 0) {
+      statement.setFetchSize(m_FetchSize);
+    }
     ResultSet result = statement.executeQuery(query);
 
     return result;
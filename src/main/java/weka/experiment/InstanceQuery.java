@@ -22,6 +22,7 @@
 package weka.experiment;
 
 import java.io.File;
+import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.Time;
@@ -30,7 +31,13 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.Properties;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import weka.core.Attribute;
 import weka.core.DenseInstance;
@@ -83,6 +90,25 @@ import weka.core.Utils;
  * </pre>
  * 
  * <pre>
+ * -fetch-size &lt;num&gt;
+ *  The number of rows to fetch per round trip.
+ *  (default: 0, i.e., the driver's default)
+ * </pre>
+ * 
+ * <pre>
+ * -partition-column &lt;name&gt;
+ *  The numeric column to split the query on for a parallel read.
+ *  (default: none)
+ * </pre>
+ * 
+ * <pre>
+ * -num-partitions &lt;num&gt;
+ *  The number of partitions to read in parallel, each one
+ *  using its own connection.
+ *  (default: 1)
+ * </pre>
+ * 
+ * <pre>
  * -D
  *  Enables debug output.
  * </pre>
@@ -107,6 +133,12 @@ public class InstanceQuery extends DatabaseUtils implements OptionHandler,
   /** the custom props file to use instead of default one. */
   protected File m_CustomPropsFile = null;
 
+  /** the numeric column to split the query on for a parallel read. */
+  protected String m_PartitionColumn = "";
+
+  /** the number of partitions to read in parallel. */
+  protected int m_NumPartitions = 1;
+
   /**
    * Sets up the database drivers
    * 
@@ -117,6 +149,17 @@ public class InstanceQuery extends DatabaseUtils implements OptionHandler,
     super();
   }
 
+  /**
+   * Uses the specified properties to set up the database drivers.
+   * 
+   * @param props the properties to use, ignored if null
+   * @throws Exception if an error occurs
+   */
+  public InstanceQuery(Properties props) throws Exception {
+
+    super(props);
+  }
+
   /**
    * Returns an enumeration describing the available options
    * <p>
@@ -144,6 +187,21 @@ public class InstanceQuery extends DatabaseUtils implements OptionHandler,
         + "\tcontaining the database parameters.\n" + "\t(default: none)",
       "custom-props", 1, "-custom-props <file>"));
 
+    result.addElement(new Option(
+      "\tThe number of rows to fetch per round trip.\n"
+        + "\t(default: 0, i.e., the driver's default)", "fetch-size", 1,
+      "-fetch-size <num>"));
+
+    result.addElement(new Option(
+      "\tThe numeric column to split the query on for a parallel read.\n"
+        + "\t(default: none)", "partition-column", 1,
+      "-partition-column <name>"));
+
+    result.addElement(new Option(
+      "\tThe number of partitions to read in parallel, each one\n"
+        + "\tusing its own connection.\n" + "\t(default: 1)",
+      "num-partitions", 1, "-num-partitions <num>"));
+
     result.addElement(new Option("\tEnables debug output.", "D", 0, "-D"));
 
     return result.elements();
@@ -176,6 +234,25 @@ public class InstanceQuery extends DatabaseUtils implements OptionHandler,
    * </pre>
    * 
    * <pre>
+   * -fetch-size &lt;num&gt;
+   *  The number of rows to fetch per round trip.
+   *  (default: 0, i.e., the driver's default)
+   * </pre>
+   * 
+   * <pre>
+   * -partition-column &lt;name&gt;
+   *  The numeric column to split the query on for a parallel read.
+   *  (default: none)
+   * </pre>
+   * 
+   * <pre>
+   * -num-partitions &lt;num&gt;
+   *  The number of partitions to read in parallel, each one
+   *  using its own connection.
+   *  (default: 1)
+   * </pre>
+   * 
+   * <pre>
    * -D
    *  Enables debug output.
    * </pre>
@@ -214,6 +291,22 @@ public class InstanceQuery extends DatabaseUtils implements OptionHandler,
       setCustomPropsFile(new File(tmpStr));
     }
 
+    tmpStr = Utils.getOption("fetch-size", options);
+    if (tmpStr.length() != 0) {
+      setFetchSize(Integer.parseInt(tmpStr));
+    } else {
+      setFetchSize(0);
+    }
+
+    setPartitionColumn(Utils.getOption("partition-column", options));
+
+    tmpStr = Utils.getOption("num-partitions", options);
+    if (tmpStr.length() != 0) {
+      setNumPartitions(Integer.parseInt(tmpStr));
+    } else {
+      setNumPartitions(1);
+    }
+
     setDebug(Utils.getFlag('D', options));
   }
 
@@ -304,6 +397,66 @@ public class InstanceQuery extends DatabaseUtils implements OptionHandler,
     return "The custom properties that the user can use to override the default ones.";
   }
 
+  /**
+   * Returns the tip text for this property
+   * 
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String partitionColumnTipText() {
+    return "The numeric column to split the query on for a parallel read "
+      + "(see numPartitions); rows with a missing value end up in the first "
+      + "partition.";
+  }
+
+  /**
+   * Sets the numeric column to split the query on for a parallel read.
+   * 
+   * @param value the name of the column, empty to disable
+   */
+  public void setPartitionColumn(String value) {
+    m_PartitionColumn = (value == null) ? "" : value;
+  }
+
+  /**
+   * Returns the numeric column to split the query on for a parallel read.
+   * 
+   * @return the name of the column, empty if disabled
+   */
+  public String getPartitionColumn() {
+    return m_PartitionColumn;
+  }
+
+  /**
+   * Returns the tip text for this property
+   * 
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String numPartitionsTipText() {
+    return "The number of equal-width ranges of the partition column that are "
+      + "read in parallel, each one using its own connection (1 disables the "
+      + "parallel read). Only works for SELECT queries.";
+  }
+
+  /**
+   * Sets the number of partitions to read in parallel.
+   * 
+   * @param value the number of partitions, 1 to disable
+   */
+  public void setNumPartitions(int value) {
+    m_NumPartitions = value;
+  }
+
+  /**
+   * Returns the number of partitions to read in parallel.
+   * 
+   * @return the number of partitions
+   */
+  public int getNumPartitions() {
+    return m_NumPartitions;
+  }
+
   /**
    * Gets the current settings of InstanceQuery
    * 
@@ -336,6 +489,21 @@ public class InstanceQuery extends DatabaseUtils implements OptionHandler,
       options.add(m_CustomPropsFile.toString());
     }
 
+    if (getFetchSize() > 0) {
+      options.add("-fetch-size");
+      options.add("" + getFetchSize());
+    }
+
+    if (getPartitionColumn().length() != 0) {
+      options.add("-partition-column");
+      options.add(getPartitionColumn());
+    }
+
+    if (getNumPartitions() > 1) {
+      options.add("-num-partitions");
+      options.add("" + getNumPartitions());
+    }
+
     if (getDebug()) {
       options.add("-D");
     }
@@ -367,6 +535,7 @@ public class InstanceQuery extends DatabaseUtils implements OptionHandler,
     // Determine structure of the instances
     int numAttributes = md.getColumnCount();
     int[] attributeTypes = new int[numAttributes];
+    int[] columnTypes = new int[numAttributes];
     @SuppressWarnings("unchecked")
     Hashtable<String, Double>[] nominalIndexes = new Hashtable[numAttributes];
     @SuppressWarnings("unchecked")
@@ -378,7 +547,9 @@ public class InstanceQuery extends DatabaseUtils implements OptionHandler,
        * Types.LONGVARBINARY:
        */
 
-      switch (adapter.translateDBColumnType(md.getColumnTypeName(i))) {
+      columnTypes[i - 1] =
+        adapter.translateDBColumnType(md.getColumnTypeName(i));
+      switch (columnTypes[i - 1]) {
 
       case STRING:
         // System.err.println("String --> nominal");
@@ -469,7 +640,7 @@ public class InstanceQuery extends DatabaseUtils implements OptionHandler,
          * case Types.LONGVARCHAR: case Types.BINARY: case Types.VARBINARY: case
          * Types.LONGVARBINARY:
          */
-        switch (adapter.translateDBColumnType(md.getColumnTypeName(i))) {
+        switch (columnTypes[i - 1]) {
         case STRING:
           String str = rs.getString(i);
 
@@ -493,10 +664,7 @@ public class InstanceQuery extends DatabaseUtils implements OptionHandler,
           } else {
             Double index = nominalIndexes[i - 1].get(txt);
             if (index == null) {
-
-              // Need to add one because first value in
-              // string attribute is dummy value.
-              index = new Double(nominalStrings[i - 1].size()) + 1;
+              index = new Double(nominalStrings[i - 1].size());
               nominalIndexes[i - 1].put(txt, index);
               nominalStrings[i - 1].add(txt);
             }
@@ -622,8 +790,10 @@ public class InstanceQuery extends DatabaseUtils implements OptionHandler,
       case Attribute.STRING:
         Attribute att = new Attribute(attribName, (ArrayList<String>) null);
         attribInfo.add(att);
-        for (int n = 0; n < nominalStrings[i].size(); n++) {
-          att.addStringValue(nominalStrings[i].get(n));
+        if (nominalStrings[i] != null) {
+          for (int n = 0; n < nominalStrings[i].size(); n++) {
+            att.addStringValue(nominalStrings[i].get(n));
+          }
         }
         break;
       case Attribute.DATE:
@@ -652,6 +822,13 @@ public class InstanceQuery extends DatabaseUtils implements OptionHandler,
    */
   public Instances retrieveInstances(String query) throws Exception {
 
+    if ((m_NumPartitions > 1) && (m_PartitionColumn.length() > 0)) {
+      Instances result = retrievePartitioned(query);
+      if (result != null) {
+        return result;
+      }
+    }
+
     if (m_Debug) {
       System.err.println("Executing query: " + query);
     }
@@ -679,6 +856,169 @@ public class InstanceQuery extends DatabaseUtils implements OptionHandler,
     return result;
   }
 
+  /**
+   * Reads the result of the query in parallel: the range of the partition
+   * column is split into equal-width partitions, which are retrieved with
+   * separate connections and merged in order afterwards.
+   * 
+   * @param query the SELECT query to convert to instances
+   * @return the instances, null if the partition column has no range
+   * @throws Exception if an error occurs
+   */
+  protected Instances retrievePartitioned(String query) throws Exception {
+
+    String column = m_PartitionColumn;
+    String source = "(" + query + ") weka_partition";
+
+    connectToDatabase();
+    ResultSet rs =
+      select("SELECT MIN(" + column + "), MAX(" + column + ") FROM " + source);
+    rs.next();
+    double min = rs.getDouble(1);
+    boolean empty = rs.wasNull();
+    double max = rs.getDouble(2);
+    close(rs);
+    if (empty || (min == max)) {
+      return null;
+    }
+
+    // determine the boundaries, integral ones for integral keys
+    int numPartitions = m_NumPartitions;
+    boolean integral = (min == Math.floor(min)) && (max == Math.floor(max));
+    String[] bounds = new String[numPartitions];
+    for (int k = 1; k < numPartitions; k++) {
+      double bound = min + (max - min) * k / numPartitions;
+      if (integral) {
+        bound = Math.floor(bound);
+      }
+      bounds[k] = BigDecimal.valueOf(bound).toPlainString();
+    }
+
+    final String[] queries = new String[numPartitions];
+    for (int k = 0; k < numPartitions; k++) {
+      String condition;
+      if (k == 0) {
+        condition = column + " < " + bounds[1] + " OR " + column + " IS NULL";
+      } else if (k == numPartitions - 1) {
+        condition = column + " >= " + bounds[k];
+      } else {
+        condition = column + " >= " + bounds[k] + " AND " + column + " < "
+          + bounds[k + 1];
+      }
+      queries[k] = "SELECT * FROM " + source + " WHERE " + condition;
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(numPartitions);
+    try {
+      ArrayList<Future<Instances>> futures =
+        new ArrayList<Future<Instances>>();
+      for (int k = 0; k < numPartitions; k++) {
+        final InstanceQuery part = new InstanceQuery(PROPERTIES);
+        part.setDatabaseURL(getDatabaseURL());
+        part.setUsername(getUsername());
+        part.setPassword(getPassword());
+        part.setSparseData(getSparseData());
+        part.setFetchSize(getFetchSize());
+        part.setDebug(getDebug());
+        final String partQuery = queries[k];
+        futures.add(pool.submit(new Callable<Instances>() {
+          @Override
+          public Instances call() throws Exception {
+            try {
+              return part.retrieveInstances(partQuery);
+            } finally {
+              part.disconnectFromDatabase();
+            }
+          }
+        }));
+      }
+      Instances[] parts = new Instances[numPartitions];
+      for (int k = 0; k < numPartitions; k++) {
+        parts[k] = futures.get(k).get();
+      }
+      return mergePartitions(parts);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof Exception) {
+        throw (Exception) e.getCause();
+      }
+      throw e;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Merges the partitions of a parallel read, in order. The labels of nominal
+   * attributes are combined in order of appearance.
+   * 
+   * @param parts the partitions to merge
+   * @return the merged data
+   */
+  protected Instances mergePartitions(Instances[] parts) {
+
+    Instances first = parts[0];
+    int numAttributes = first.numAttributes();
+    int numInstances = 0;
+    for (Instances part : parts) {
+      numInstances += part.numInstances();
+    }
+
+    // combine the labels of nominal attributes
+    int[][][] labelMaps = new int[parts.length][numAttributes][];
+    ArrayList<Attribute> attribInfo = new ArrayList<Attribute>();
+    for (int i = 0; i < numAttributes; i++) {
+      Attribute att = first.attribute(i);
+      if (att.isNominal()) {
+        Hashtable<String, Integer> indexes = new Hashtable<String, Integer>();
+        ArrayList<String> labels = new ArrayList<String>();
+        for (int k = 0; k < parts.length; k++) {
+          Attribute partAtt = parts[k].attribute(i);
+          labelMaps[k][i] = new int[partAtt.numValues()];
+          for (int n = 0; n < partAtt.numValues(); n++) {
+            Integer index = indexes.get(partAtt.value(n));
+            if (index == null) {
+              index = labels.size();
+              indexes.put(partAtt.value(n), index);
+              labels.add(partAtt.value(n));
+            }
+            labelMaps[k][i][n] = index;
+          }
+        }
+        attribInfo.add(new Attribute(att.name(), labels));
+      } else if (att.isString()) {
+        attribInfo.add(new Attribute(att.name(), (ArrayList<String>) null));
+      } else {
+        attribInfo.add((Attribute) att.copy());
+      }
+    }
+
+    Instances result = new Instances("QueryResult", attribInfo, numInstances);
+    for (int k = 0; k < parts.length; k++) {
+      for (int j = 0; j < parts[k].numInstances(); j++) {
+        Instance inst = parts[k].instance(j);
+        double[] vals = inst.toDoubleArray();
+        for (int i = 0; i < numAttributes; i++) {
+          if (Utils.isMissingValue(vals[i])) {
+            continue;
+          }
+          if (labelMaps[k][i] != null) {
+            vals[i] = labelMaps[k][i][(int) vals[i]];
+          } else if (result.attribute(i).isString()) {
+            vals[i] = result.attribute(i).addStringValue(inst.stringValue(i));
+          }
+        }
+        if (getSparseData()) {
+          result.add(new SparseInstance(1.0, vals));
+        } else {
+          result.add(new DenseInstance(1.0, vals));
+        }
+      }
+      parts[k] = null;
+    }
+
+    return result;
+  }
+
   /**
    * Test the class from the command line. The instance query should be
    * specified with -Q sql_query
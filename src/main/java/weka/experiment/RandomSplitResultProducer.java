@@ -30,8 +30,10 @@ import java.util.TimeZone;
 import java.util.Vector;
 
 import weka.core.AdditionalMeasureProducer;
+import weka.core.CopyOnWriteInstancesView;
 import weka.core.Instance;
 import weka.core.Instances;
+import weka.core.InstancesView;
 import weka.core.Option;
 import weka.core.OptionHandler;
 import weka.core.RevisionHandler;
@@ -370,8 +372,11 @@ public class RandomSplitResultProducer implements ResultProducer,
     System.arraycopy(seKey, 0, key, 2, seKey.length);
     if (m_ResultListener.isResultRequired(this, key)) {
 
-      // Randomize on a copy of the original dataset
-      Instances runInstances = new Instances(m_Instances);
+      // Randomize on a view of the original dataset, the training and test
+      // sets handed to the split evaluator copy an instance only when it is
+      // changed
+      Instances runInstances =
+        new InstancesView(m_Instances, 0, m_Instances.numInstances());
 
       Instances train;
       Instances test;
@@ -382,8 +387,8 @@ public class RandomSplitResultProducer implements ResultProducer,
         int trainSize = Utils.round(runInstances.numInstances()
           * m_TrainPercent / 100);
         int testSize = runInstances.numInstances() - trainSize;
-        train = new Instances(runInstances, 0, trainSize);
-        test = new Instances(runInstances, trainSize, testSize);
+        train = new CopyOnWriteInstancesView(runInstances, 0, trainSize);
+        test = new CopyOnWriteInstancesView(runInstances, trainSize, testSize);
       } else {
         Random rand = new Random(run);
         runInstances.randomize(rand);
@@ -393,9 +398,9 @@ public class RandomSplitResultProducer implements ResultProducer,
 
           // create the subset for each classs
           int numClasses = runInstances.numClasses();
-          Instances[] subsets = new Instances[numClasses + 1];
+          InstancesView[] subsets = new InstancesView[numClasses + 1];
           for (int i = 0; i < numClasses + 1; i++) {
-            subsets[i] = new Instances(runInstances, 10);
+            subsets[i] = new InstancesView(runInstances, 10);
           }
 
           // divide instances into subsets
@@ -403,9 +408,9 @@ public class RandomSplitResultProducer implements ResultProducer,
           while (e.hasMoreElements()) {
             Instance inst = e.nextElement();
             if (inst.classIsMissing()) {
-              subsets[numClasses].add(inst);
+              subsets[numClasses].addShared(inst);
             } else {
-              subsets[(int) inst.classValue()].add(inst);
+              subsets[(int) inst.classValue()].addShared(inst);
             }
           }
 
@@ -415,20 +420,24 @@ public class RandomSplitResultProducer implements ResultProducer,
           }
 
           // merge into train and test sets
-          train = new Instances(runInstances, runInstances.numInstances());
-          test = new Instances(runInstances, runInstances.numInstances());
+          InstancesView trainView = new CopyOnWriteInstancesView(runInstances,
+            runInstances.numInstances());
+          InstancesView testView = new CopyOnWriteInstancesView(runInstances,
+            runInstances.numInstances());
           for (int i = 0; i < numClasses + 1; i++) {
             int trainSize = Utils.probRound(subsets[i].numInstances()
               * m_TrainPercent / 100, rand);
             for (int j = 0; j < trainSize; j++) {
-              train.add(subsets[i].instance(j));
+              trainView.addShared(subsets[i].instance(j));
             }
             for (int j = trainSize; j < subsets[i].numInstances(); j++) {
-              test.add(subsets[i].instance(j));
+              testView.addShared(subsets[i].instance(j));
             }
             // free memory
             subsets[i] = null;
           }
+          train = trainView;
+          test = testView;
           train.compactify();
           test.compactify();
 
@@ -441,8 +450,9 @@ public class RandomSplitResultProducer implements ResultProducer,
           int trainSize = Utils.probRound(runInstances.numInstances()
             * m_TrainPercent / 100, rand);
           int testSize = runInstances.numInstances() - trainSize;
-          train = new Instances(runInstances, 0, trainSize);
-          test = new Instances(runInstances, trainSize, testSize);
+          train = new CopyOnWriteInstancesView(runInstances, 0, trainSize);
+          test =
+            new CopyOnWriteInstancesView(runInstances, trainSize, testSize);
         }
       }
       try {
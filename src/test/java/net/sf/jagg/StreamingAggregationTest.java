@@ -0,0 +1,128 @@
+package net.sf.jagg;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+import net.sf.jagg.model.AggregateValue;
+
+/**
+ * Tests the spilling of <code>StreamingAggregation</code>.
+ *
+ * @author lendle
+ */
+public class StreamingAggregationTest extends TestCase
+{
+   private File mySpillDirectory;
+
+   public StreamingAggregationTest(String name)
+   {
+      super(name);
+   }
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+      mySpillDirectory = File.createTempFile("jagg", ".test");
+      mySpillDirectory.delete();
+      mySpillDirectory.mkdir();
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      File[] files = mySpillDirectory.listFiles();
+      if (files != null)
+      {
+         for (File file : files)
+            file.delete();
+      }
+      mySpillDirectory.delete();
+      super.tearDown();
+   }
+
+   /**
+    * Builds the distinct strings made of <code>n</code> blocks of "Aa" and
+    * "BB", which all have the same hash code.
+    * @param n The number of blocks.
+    * @return The <code>2^n</code> strings, sorted.
+    */
+   private static List<String> collidingKeys(int n)
+   {
+      List<String> keys = new ArrayList<String>();
+      for (int bits = 0; bits < (1 << n); bits++)
+      {
+         StringBuilder key = new StringBuilder();
+         for (int b = n - 1; b >= 0; b--)
+            key.append(((bits >> b) & 1) == 0 ? "Aa" : "BB");
+         keys.add(key.toString());
+      }
+      return keys;
+   }
+
+   private StreamingAggregation<String> newAggregation(int maxGroups)
+   {
+      return new StreamingAggregation.Builder()
+         .setAggregators(Arrays.<AggregateFunction>asList(new CountAggregator(Aggregator.PROP_SELF)))
+         .setProperties(Arrays.asList(Aggregator.PROP_SELF))
+         .setMaxGroups(maxGroups)
+         .setSpillDirectory(mySpillDirectory)
+         .build();
+   }
+
+   /**
+    * Counts the <code>i</code>-th key <code>i % 3 + 1</code> times and
+    * checks the results.
+    */
+   private void checkCounts(List<String> keys, int maxGroups)
+   {
+      StreamingAggregation<String> aggregation = newAggregation(maxGroups);
+      for (int i = keys.size() - 1; i >= 0; i--)
+      {
+         for (int j = 0; j <= i % 3; j++)
+            aggregation.add(keys.get(i));
+      }
+      assertTrue("values are spilled", aggregation.isSpilled());
+      List<AggregateValue<String>> results = aggregation.finish();
+      assertEquals(keys.size(), results.size());
+      for (int i = 0; i < keys.size(); i++)
+      {
+         assertEquals(keys.get(i), results.get(i).getObject());
+         assertEquals((long) (i % 3 + 1), ((Number) results.get(i).getAggregateValue(0)).longValue());
+      }
+      assertEquals("spill files are deleted", 0, mySpillDirectory.listFiles().length);
+   }
+
+   public void testSpill()
+   {
+      List<String> keys = new ArrayList<String>();
+      for (int i = 0; i < 200; i++)
+         keys.add(String.format("key%03d", i));
+      checkCounts(keys, 5);
+   }
+
+   public void testCollidingKeys()
+   {
+      assertEquals("Aa".hashCode(), "BB".hashCode());
+      checkCounts(Arrays.asList("Aa", "BB"), 1);
+      // more groups than maxGroups in every spill file, down to the
+      // maximum depth
+      checkCounts(collidingKeys(12), 1);
+   }
+
+   public static Test suite()
+   {
+      return new TestSuite(StreamingAggregationTest.class);
+   }
+
+   public static void main(String[] args)
+   {
+      TestRunner.run(suite());
+   }
+}
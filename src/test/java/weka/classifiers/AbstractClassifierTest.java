@@ -25,6 +25,7 @@ import junit.framework.TestCase;
 import weka.classifiers.evaluation.EvaluationUtils;
 import weka.classifiers.evaluation.Prediction;
 import weka.core.Attribute;
+import weka.core.BatchPredictor;
 import weka.core.CheckGOE;
 import weka.core.CheckOptionHandler;
 import weka.core.CheckScheme.PostProcessor;
@@ -991,6 +992,62 @@ public abstract class AbstractClassifierTest extends TestCase {
     }
   }
 
+  /**
+   * Tests that batch predictions in small blocks give the same distributions
+   * as predictions for single instances, if the classifier implements batch
+   * prediction more efficiently.
+   */
+  public void testBatchPrediction() throws Exception {
+    int i;
+    Instances train;
+    Classifier classifier;
+    double[][] batchPreds;
+    double[] expected;
+
+    // don't bother if not working correctly
+    if (m_Tester.hasClasspathProblems()) {
+      return;
+    }
+
+    for (i = FIRST_CLASSTYPE; i <= LAST_CLASSTYPE; i++) {
+      // does the classifier support this type of class at all?
+      if (!canPredict(i)) {
+        continue;
+      }
+
+      train = m_Tester.makeTestDataset(42, m_Tester.getNumInstances(),
+        m_NominalPredictors[i] ? m_Tester.getNumNominal() : 0,
+        m_NumericPredictors[i] ? m_Tester.getNumNumeric() : 0,
+        m_StringPredictors[i] ? m_Tester.getNumString() : 0,
+        m_DatePredictors[i] ? m_Tester.getNumDate() : 0,
+        m_RelationalPredictors[i] ? m_Tester.getNumRelational() : 0, 2, i,
+        m_multiInstanceHandler);
+
+      classifier = AbstractClassifier.makeCopy(m_Classifier);
+      try {
+        classifier.buildClassifier(train);
+      } catch (Exception e) {
+        continue;
+      }
+      if (!(classifier instanceof BatchPredictor)
+        || !((BatchPredictor) classifier).implementsMoreEfficientBatchPrediction()) {
+        continue;
+      }
+
+      ((BatchPredictor) classifier).setBatchSize("7");
+      batchPreds = ((BatchPredictor) classifier).distributionsForInstances(train);
+      assertEquals(train.numInstances(), batchPreds.length);
+      for (int n = 0; n < train.numInstances(); n++) {
+        expected = classifier.distributionForInstance(train.instance(n));
+        assertEquals(expected.length, batchPreds[n].length);
+        for (int j = 0; j < expected.length; j++) {
+          assertEquals("batch prediction " + n + " differs ("
+            + getClassTypeString(i) + " class)", expected[j], batchPreds[n][j], 1e-10);
+        }
+      }
+    }
+  }
+
   /**
    * tests the listing of the options
    */
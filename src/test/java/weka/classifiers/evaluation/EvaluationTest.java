@@ -21,11 +21,19 @@ package weka.classifiers.evaluation;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.Random;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
+import weka.classifiers.AbstractClassifier;
+import weka.classifiers.Classifier;
+import weka.classifiers.trees.J48;
+import weka.classifiers.trees.REPTree;
+import weka.core.Attribute;
+import weka.core.Instance;
 import weka.core.Instances;
+import weka.core.TestInstances;
 
 /**
  * Tests Evaluation. So far just does a simple regression test for
@@ -80,6 +88,94 @@ public class EvaluationTest extends TestCase {
     }
   }
 
+  /**
+   * Cross-validates with one and with several execution slots and checks that
+   * the results are identical.
+   */
+  protected void checkParallelCrossValidation(Classifier classifier,
+    Instances data) throws Exception {
+    Evaluation sequential = new Evaluation(data);
+    sequential.crossValidateModel(classifier, data, 10, new Random(42));
+
+    Evaluation parallel = new Evaluation(data);
+    parallel.setNumExecutionSlots(4);
+    parallel.crossValidateModel(classifier, data, 10, new Random(42));
+
+    assertEquals(sequential.toSummaryString(), parallel.toSummaryString());
+    if (data.classAttribute().isNominal()) {
+      assertEquals(sequential.toClassDetailsString(),
+        parallel.toClassDetailsString());
+      assertEquals(sequential.toMatrixString(), parallel.toMatrixString());
+    }
+    assertEquals(sequential.predictions().size(), parallel.predictions()
+      .size());
+    for (int i = 0; i < sequential.predictions().size(); i++) {
+      assertEquals(sequential.predictions().get(i).predicted(), parallel
+        .predictions().get(i).predicted());
+    }
+  }
+
+  public void testParallelCrossValidation() throws Exception {
+    TestInstances test = new TestInstances();
+    test.setNumInstances(300);
+    test.setClassType(Attribute.NOMINAL);
+    test.setNumClasses(3);
+    checkParallelCrossValidation(new J48(), test.generate());
+
+    test.setClassType(Attribute.NUMERIC);
+    checkParallelCrossValidation(new REPTree(), test.generate());
+  }
+
+  /**
+   * A classifier that reweights and changes the instances it is trained on.
+   */
+  protected static class ReweightingClassifier extends AbstractClassifier {
+
+    private static final long serialVersionUID = 2514311874290738452L;
+
+    @Override
+    public void buildClassifier(Instances data) throws Exception {
+      for (int i = 0; i < data.numInstances(); i++) {
+        data.instance(i).setWeight(7);
+        data.instance(i).setValue(0, -1);
+      }
+    }
+
+    @Override
+    public double[] distributionForInstance(Instance instance) {
+      double[] dist = new double[instance.numClasses()];
+      dist[0] = 1;
+      return dist;
+    }
+  }
+
+  /**
+   * Tests that a classifier changing its training data during a
+   * cross-validation does not change the data that was passed in.
+   */
+  public void testCrossValidationKeepsData() throws Exception {
+    TestInstances test = new TestInstances();
+    test.setNumInstances(50);
+    test.setNumNominal(0);
+    test.setNumNumeric(2);
+    test.setClassType(Attribute.NOMINAL);
+    Instances data = test.generate();
+    Instances copy = new Instances(data);
+
+    for (int numSlots = 1; numSlots <= 4; numSlots += 3) {
+      Evaluation eval = new Evaluation(data);
+      eval.setNumExecutionSlots(numSlots);
+      eval.crossValidateModel(new ReweightingClassifier(), data, 5,
+        new Random(1));
+      for (int i = 0; i < data.numInstances(); i++) {
+        assertEquals("weight of instance " + i, copy.instance(i).weight(),
+          data.instance(i).weight(), 0);
+        assertEquals("value of instance " + i, copy.instance(i).value(0),
+          data.instance(i).value(0), 0);
+      }
+    }
+  }
+
   public static Test suite() {
     return new TestSuite(weka.classifiers.evaluation.EvaluationTest.class);
   }
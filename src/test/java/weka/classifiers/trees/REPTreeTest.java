@@ -21,6 +21,8 @@ package weka.classifiers.trees;
 
 import weka.classifiers.AbstractClassifierTest;
 import weka.classifiers.Classifier;
+import weka.core.Instances;
+import weka.core.TestInstances;
 
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -41,6 +43,88 @@ public class REPTreeTest extends AbstractClassifierTest {
     return new REPTree();
   }
 
+  /**
+   * Tests that the tree built in parallel is the same as the one built
+   * sequentially.
+   *
+   * @throws Exception	if a tree cannot be built
+   */
+  public void testParallel() throws Exception {
+    TestInstances test = new TestInstances();
+    test.setNumInstances(3000);
+    test.setNumNominal(2);
+    test.setNumNumeric(6);
+    test.setClassIndex(TestInstances.CLASS_IS_LAST);
+    Instances data = test.generate();
+
+    REPTree tree = new REPTree();
+    tree.buildClassifier(data);
+    String expected = tree.toString();
+    tree.setNumExecutionSlots(4);
+    tree.buildClassifier(data);
+    assertEquals(expected, tree.toString());
+  }
+
+  /**
+   * Returns data with nominal and numeric attributes and some missing values.
+   *
+   * @param classType	the type of the class attribute
+   * @return		the data
+   * @throws Exception	if the data cannot be generated
+   */
+  protected Instances getMissingData(int classType) throws Exception {
+    TestInstances test = new TestInstances();
+    test.setNumInstances(300);
+    test.setNumNominal(3);
+    test.setNumNumeric(3);
+    test.setClassType(classType);
+    test.setClassIndex(TestInstances.CLASS_IS_LAST);
+    Instances data = test.generate();
+    for (int i = 0; i < data.numInstances(); i += 7) {
+      data.instance(i).setMissing(i % (data.numAttributes() - 1));
+    }
+    return data;
+  }
+
+  /**
+   * Checks that the compiled tree predicts the same distributions as
+   * before it was compiled.
+   *
+   * @param tree	the tree, not compiled yet
+   * @param data	the data to predict
+   * @throws Exception	if a prediction fails
+   */
+  protected void checkCompiled(REPTree tree, Instances data) throws Exception {
+    double[][] expected = new double[data.numInstances()][];
+    for (int i = 0; i < data.numInstances(); i++) {
+      expected[i] = tree.distributionForInstance(data.instance(i));
+    }
+    tree.compile();
+    for (int i = 0; i < data.numInstances(); i++) {
+      double[] actual = tree.distributionForInstance(data.instance(i));
+      assertEquals("length differs for instance " + i, expected[i].length, actual.length);
+      for (int j = 0; j < actual.length; j++) {
+        assertEquals("instance " + i + " differs", expected[i][j], actual[j], 1e-12);
+      }
+    }
+  }
+
+  /**
+   * Tests that compiling the tree does not change its predictions.
+   *
+   * @throws Exception	if a tree cannot be built
+   */
+  public void testCompile() throws Exception {
+    REPTree tree = new REPTree();
+    Instances data = getMissingData(weka.core.Attribute.NOMINAL);
+    tree.buildClassifier(data);
+    checkCompiled(tree, data);
+
+    data = getMissingData(weka.core.Attribute.NUMERIC);
+    tree.buildClassifier(data);
+    checkCompiled(tree, data);
+  }
+
   public static Test suite() {
     return new TestSuite(REPTreeTest.class);
   }
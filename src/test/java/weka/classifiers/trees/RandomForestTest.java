@@ -21,6 +21,8 @@ package weka.classifiers.trees;
 
 import weka.classifiers.AbstractClassifierTest;
 import weka.classifiers.Classifier;
+import weka.core.Instances;
+import weka.core.TestInstances;
 
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -44,6 +46,75 @@ public class RandomForestTest
     return new RandomForest();
   }
 
+  /**
+   * Returns data with nominal and numeric attributes and some missing values.
+   *
+   * @param classType	the type of the class attribute
+   * @return		the data
+   * @throws Exception	if the data cannot be generated
+   */
+  protected Instances getMissingData(int classType) throws Exception {
+    TestInstances test = new TestInstances();
+    test.setNumInstances(300);
+    test.setNumNominal(3);
+    test.setNumNumeric(3);
+    test.setClassType(classType);
+    test.setClassIndex(TestInstances.CLASS_IS_LAST);
+    Instances data = test.generate();
+    for (int i = 0; i < data.numInstances(); i += 7) {
+      data.instance(i).setMissing(i % (data.numAttributes() - 1));
+    }
+    return data;
+  }
+
+  /**
+   * Checks that the compiled forest predicts the same distributions as
+   * before it was compiled.
+   *
+   * @param forest	the forest, not compiled yet
+   * @param data	the data to predict
+   * @throws Exception	if a prediction fails
+   */
+  protected void checkCompiled(RandomForest forest, Instances data) throws Exception {
+    double[][] expected = new double[data.numInstances()][];
+    for (int i = 0; i < data.numInstances(); i++) {
+      expected[i] = forest.distributionForInstance(data.instance(i));
+    }
+    forest.compile();
+    for (int i = 0; i < data.numInstances(); i++) {
+      double[] actual = forest.distributionForInstance(data.instance(i));
+      assertEquals("length differs for instance " + i, expected[i].length, actual.length);
+      for (int j = 0; j < actual.length; j++) {
+        assertEquals("instance " + i + " differs", expected[i][j], actual[j], 1e-12);
+      }
+    }
+  }
+
+  /**
+   * Tests that compiling the forest does not change its predictions.
+   *
+   * @throws Exception	if a forest cannot be built
+   */
+  public void testCompile() throws Exception {
+    RandomForest forest = new RandomForest();
+    forest.setNumIterations(10);
+    Instances data = getMissingData(weka.core.Attribute.NOMINAL);
+    forest.buildClassifier(data);
+    checkCompiled(forest, data);
+
+    data = getMissingData(weka.core.Attribute.NUMERIC);
+    forest.buildClassifier(data);
+    checkCompiled(forest, data);
+
+    // only the class left: all trees fall back to ZeroR
+    for (int i = data.numAttributes() - 2; i >= 0; i--) {
+      data.deleteAttributeAt(i);
+    }
+    forest.buildClassifier(data);
+    checkCompiled(forest, data);
+    assertNotNull("trees using ZeroR not compiled", forest.m_Compiled);
+  }
+
   public static Test suite() {
     return new TestSuite(RandomForestTest.class);
   }
@@ -21,6 +21,8 @@ package weka.classifiers.trees;
 
 import weka.classifiers.AbstractClassifierTest;
 import weka.classifiers.Classifier;
+import weka.core.Instances;
+import weka.core.TestInstances;
 
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -44,6 +46,131 @@ public class RandomTreeTest
     return new RandomTree();
   }
 
+  /**
+   * Returns data with numeric attributes and some missing values.
+   *
+   * @param classType	the type of the class attribute
+   * @return		the data
+   * @throws Exception	if the data cannot be generated
+   */
+  protected Instances getBinningData(int classType) throws Exception {
+    TestInstances test = new TestInstances();
+    test.setNumInstances(200);
+    test.setNumNominal(1);
+    test.setNumNumeric(5);
+    test.setClassType(classType);
+    test.setClassIndex(TestInstances.CLASS_IS_LAST);
+    Instances data = test.generate();
+    for (int i = 0; i < data.numInstances(); i += 9) {
+      data.instance(i).setMissing(i % (data.numAttributes() - 1));
+    }
+    return data;
+  }
+
+  /**
+   * Tests that binning with at least as many bins as distinct values gives
+   * the same tree, and that fewer bins still give a tree.
+   *
+   * @throws Exception	if a tree cannot be built
+   */
+  public void testBinning() throws Exception {
+    Instances data = getBinningData(weka.core.Attribute.NOMINAL);
+    RandomTree exact = new RandomTree();
+    exact.buildClassifier(data);
+    RandomTree binned = new RandomTree();
+    binned.setNumBins(256);
+    binned.buildClassifier(data);
+    assertEquals(exact.toString(), binned.toString());
+
+    binned.setNumBins(4);
+    binned.buildClassifier(data);
+    assertTrue(binned.numElements() > 1);
+    binned.distributionForInstance(data.instance(0));
+
+    data = getBinningData(weka.core.Attribute.NUMERIC);
+    binned.buildClassifier(data);
+    assertTrue(binned.numElements() > 1);
+    binned.classifyInstance(data.instance(0));
+
+    binned.setNumBins(257);
+    try {
+      binned.buildClassifier(data);
+      fail("invalid number of bins not detected");
+    } catch (Exception e) {
+      // expected
+    }
+  }
+
+  /**
+   * Tests that the tree built in parallel does not depend on the number of
+   * execution slots.
+   *
+   * @throws Exception	if a tree cannot be built
+   */
+  public void testParallel() throws Exception {
+    TestInstances test = new TestInstances();
+    test.setNumInstances(3000);
+    test.setNumNominal(2);
+    test.setNumNumeric(6);
+    test.setClassIndex(TestInstances.CLASS_IS_LAST);
+    Instances data = test.generate();
+
+    RandomTree tree = new RandomTree();
+    tree.setNumExecutionSlots(2);
+    tree.buildClassifier(data);
+    String expected = tree.toString();
+    tree.setNumExecutionSlots(4);
+    tree.buildClassifier(data);
+    assertEquals(expected, tree.toString());
+    tree.setNumExecutionSlots(0);
+    tree.buildClassifier(data);
+    assertEquals(expected, tree.toString());
+  }
+
+  /**
+   * Checks that the compiled tree predicts the same distributions as
+   * before it was compiled.
+   *
+   * @param tree	the tree, not compiled yet
+   * @param data	the data to predict
+   * @throws Exception	if a prediction fails
+   */
+  protected void checkCompiled(RandomTree tree, Instances data) throws Exception {
+    double[][] expected = new double[data.numInstances()][];
+    for (int i = 0; i < data.numInstances(); i++) {
+      expected[i] = tree.distributionForInstance(data.instance(i));
+    }
+    tree.compile();
+    for (int i = 0; i < data.numInstances(); i++) {
+      double[] actual = tree.distributionForInstance(data.instance(i));
+      assertEquals("length differs for instance " + i, expected[i].length, actual.length);
+      for (int j = 0; j < actual.length; j++) {
+        assertEquals("instance " + i + " differs", expected[i][j], actual[j], 1e-12);
+      }
+    }
+  }
+
+  /**
+   * Tests that compiling the tree does not change its predictions.
+   *
+   * @throws Exception	if a tree cannot be built
+   */
+  public void testCompile() throws Exception {
+    RandomTree tree = new RandomTree();
+    Instances data = getBinningData(weka.core.Attribute.NOMINAL);
+    tree.buildClassifier(data);
+    checkCompiled(tree, data);
+
+    tree.setAllowUnclassifiedInstances(true);
+    tree.setMaxDepth(3);
+    tree.buildClassifier(data);
+    checkCompiled(tree, data);
+
+    data = getBinningData(weka.core.Attribute.NUMERIC);
+    tree.buildClassifier(data);
+    checkCompiled(tree, data);
+  }
+
   public static Test suite() {
     return new TestSuite(RandomTreeTest.class);
   }
@@ -0,0 +1,256 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Copyright (C) 2026 lendle
+ */
+
+package weka.core;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+import weka.classifiers.trees.J48;
+import weka.core.converters.ConverterUtils.DataSource;
+
+/**
+ * Tests ColumnarInstances against Instances. Run from the command line
+ * with:<p/>
+ * java weka.core.ColumnarInstancesTest
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+public class ColumnarInstancesTest
+  extends TestCase {
+
+  /** the test instances to work with. */
+  protected Instances m_Instances;
+
+  /**
+   * Constructs the <code>ColumnarInstancesTest</code>.
+   *
+   * @param name 	the name of the test
+   */
+  public ColumnarInstancesTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Called by JUnit before each test method.
+   *
+   * @throws Exception 	if an error occurs
+   */
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    m_Instances = DataSource.read(ClassLoader.getSystemResourceAsStream("weka/core/data/InstancesTest.arff"));
+  }
+
+  /**
+   * Called by JUnit after each test method.
+   *
+   * @throws Exception 	if an error occurs
+   */
+  protected void tearDown() throws Exception {
+    m_Instances = null;
+
+    super.tearDown();
+  }
+
+  /**
+   * Returns the test suite.
+   *
+   * @return		the test suite
+   */
+  public static Test suite() {
+    return new TestSuite(ColumnarInstancesTest.class);
+  }
+
+  /**
+   * Checks that both datasets hold the same instances, in the same order.
+   *
+   * @param expected	the reference dataset
+   * @param actual	the dataset to check
+   */
+  protected void assertSameData(Instances expected, Instances actual) {
+    assertNull(expected.equalHeadersMsg(actual), expected.equalHeadersMsg(actual));
+    assertEquals("numInstances differs", expected.numInstances(), actual.numInstances());
+    for (int i = 0; i < expected.numInstances(); i++) {
+      assertTrue("instance " + i + " differs", Arrays.equals(expected.instance(i).toDoubleArray(), actual.instance(i).toDoubleArray()));
+      assertEquals("weight of instance " + i + " differs", expected.instance(i).weight(), actual.instance(i).weight());
+    }
+  }
+
+  /**
+   * Tests copying a dataset.
+   */
+  public void testCopy() {
+    ColumnarInstances data = new ColumnarInstances(m_Instances);
+
+    assertSameData(m_Instances, data);
+    assertTrue(data.instance(0) instanceof ColumnarInstance);
+    assertSameData(m_Instances, new Instances(data));
+  }
+
+  /**
+   * Tests that changing an instance changes the columns and vice versa.
+   */
+  public void testValuesAreShared() {
+    ColumnarInstances data = new ColumnarInstances(m_Instances);
+
+    data.instance(3).setValue(2, 42.0);
+    assertEquals(42.0, data.doubleColumn(2)[3]);
+    data.doubleColumn(5)[4] = -1.5;
+    assertEquals(-1.5, data.instance(4).value(5));
+
+    Instance copy = (Instance) data.instance(3).copy();
+    copy.setValue(2, 0.0);
+    assertEquals(42.0, data.instance(3).value(2));
+  }
+
+  /**
+   * Tests reordering and removing instances.
+   */
+  public void testReorderAndDelete() {
+    Instances plain = new Instances(m_Instances);
+    ColumnarInstances data = new ColumnarInstances(m_Instances);
+
+    plain.randomize(new Random(1));
+    data.randomize(new Random(1));
+    assertSameData(plain, data);
+
+    plain.delete(2);
+    data.delete(2);
+    plain.instance(0).setWeight(2.5);
+    data.instance(0).setWeight(2.5);
+    plain.add(m_Instances.instance(5));
+    data.add(m_Instances.instance(5));
+    plain.sort(5);
+    data.sort(5);
+    assertSameData(plain, data);
+
+    assertEquals(plain.meanOrMode(2), data.meanOrMode(2), 1e-12);
+    assertEquals(plain.meanOrMode(4), data.meanOrMode(4), 1e-12);
+    assertEquals(plain.variance(5), data.variance(5), 1e-12);
+    double[] expected = plain.attributeToDoubleArray(5);
+    double[] actual = data.attributeToDoubleArray(5);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i], actual[i]);
+    }
+
+    // the columns follow the instances once compactified
+    double[] column = data.doubleColumn(5);
+    for (int i = 0; i < data.numInstances(); i++) {
+      assertEquals(expected[i], column[i]);
+    }
+    assertSameData(plain, data);
+  }
+
+  /**
+   * Tests inserting, deleting and replacing attributes.
+   */
+  public void testAttributeChanges() {
+    Instances plain = new Instances(m_Instances);
+    ColumnarInstances data = new ColumnarInstances(m_Instances);
+
+    plain.insertAttributeAt(new Attribute("new"), 1);
+    data.insertAttributeAt(new Attribute("new"), 1);
+    assertSameData(plain, data);
+
+    plain.instance(2).setValue(1, 3.0);
+    data.instance(2).setValue(1, 3.0);
+    plain.deleteAttributeAt(0);
+    data.deleteAttributeAt(0);
+    assertSameData(plain, data);
+
+    plain.replaceAttributeAt(new Attribute("date", "yyyy-MM-dd"), 0);
+    data.replaceAttributeAt(new Attribute("date", "yyyy-MM-dd"), 0);
+    assertSameData(plain, data);
+
+    try {
+      data.insertAttributeAt(new Attribute("date"), 0);
+      fail("duplicate attribute name not detected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    assertSameData(plain, data);
+  }
+
+  /**
+   * Tests holding the values as floats.
+   */
+  public void testFloats() {
+    ColumnarInstances data = new ColumnarInstances(m_Instances, true);
+
+    assertTrue(data.isFloatColumn(5));
+    assertEquals((float) m_Instances.instance(1).value(5), data.floatColumn(5)[1]);
+    assertTrue(data.instance(12).isMissing(5));
+    try {
+      data.doubleColumn(5);
+      fail("float column returned as doubles");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+
+    data.insertAttributeAt(new Attribute("date", "yyyy-MM-dd"), 0);
+    assertFalse(data.isFloatColumn(0));
+    assertTrue(data.instance(0).isMissing(0));
+  }
+
+  /**
+   * Tests serializing a dataset.
+   *
+   * @throws Exception	if serialization fails
+   */
+  public void testSerialization() throws Exception {
+    ColumnarInstances data = new ColumnarInstances(m_Instances);
+    data.delete(0);
+
+    ColumnarInstances copy = (ColumnarInstances) new SerializedObject(data).getObject();
+    assertSameData(data, copy);
+    copy.instance(0).setValue(2, 100.0);
+    assertEquals(100.0, copy.doubleColumn(2)[0]);
+    assertFalse(data.instance(0).value(2) == 100.0);
+  }
+
+  /**
+   * Tests that a classifier builds the same model from both datasets.
+   *
+   * @throws Exception	if the classifier fails
+   */
+  public void testClassifier() throws Exception {
+    Instances plain = new Instances(m_Instances);
+    plain.deleteStringAttributes();
+    plain.setClassIndex(0);
+    ColumnarInstances data = new ColumnarInstances(plain);
+
+    J48 expected = new J48();
+    expected.setMinNumObj(1);
+    expected.buildClassifier(plain);
+    J48 actual = new J48();
+    actual.setMinNumObj(1);
+    actual.buildClassifier(data);
+    assertEquals(expected.toString(), actual.toString());
+  }
+
+  public static void main(String[] args){
+    TestRunner.run(suite());
+  }
+}
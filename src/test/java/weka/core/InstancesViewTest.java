@@ -0,0 +1,231 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Copyright (C) 2026 lendle
+ */
+
+package weka.core;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+import weka.core.converters.ConverterUtils.DataSource;
+
+/**
+ * Tests InstancesView, CopyOnWriteInstancesView and the fold views of
+ * Instances. Run from the command
+ * line with:<p/>
+ * java weka.core.InstancesViewTest
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+public class InstancesViewTest
+  extends TestCase {
+
+  /** the test instances to work with. */
+  protected Instances m_Instances;
+
+  /**
+   * Constructs the <code>InstancesViewTest</code>.
+   *
+   * @param name 	the name of the test
+   */
+  public InstancesViewTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Called by JUnit before each test method.
+   *
+   * @throws Exception 	if an error occurs
+   */
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    m_Instances = DataSource.read(ClassLoader.getSystemResourceAsStream("weka/core/data/InstancesTest.arff"));
+  }
+
+  /**
+   * Called by JUnit after each test method.
+   *
+   * @throws Exception 	if an error occurs
+   */
+  protected void tearDown() throws Exception {
+    m_Instances = null;
+
+    super.tearDown();
+  }
+
+  /**
+   * Returns the test suite.
+   *
+   * @return		the test suite
+   */
+  public static Test suite() {
+    return new TestSuite(InstancesViewTest.class);
+  }
+
+  /**
+   * Checks that both datasets hold the same values, in the same order.
+   *
+   * @param expected	the reference dataset
+   * @param actual	the dataset to check
+   */
+  protected void assertSameData(Instances expected, Instances actual) {
+    assertNull(expected.equalHeadersMsg(actual), expected.equalHeadersMsg(actual));
+    assertEquals("numInstances differs", expected.numInstances(), actual.numInstances());
+    for (int i = 0; i < expected.numInstances(); i++) {
+      assertTrue("instance " + i + " differs",
+        Arrays.equals(expected.instance(i).toDoubleArray(), actual.instance(i).toDoubleArray()));
+    }
+  }
+
+  /**
+   * Tests that a view holds the instances of the viewed dataset, without
+   * copying them.
+   */
+  public void testShares() {
+    InstancesView view = new InstancesView(m_Instances, 3, 6);
+    view.addShared(m_Instances.instance(0));
+
+    assertEquals(7, view.numInstances());
+    assertTrue(view.isShared());
+    for (int i = 0; i < 6; i++) {
+      assertSame(m_Instances.instance(3 + i), view.instance(i));
+    }
+    assertSame(m_Instances.instance(0), view.instance(6));
+    assertSameData(new Instances(m_Instances, 3, 6), new Instances(view, 0, 6));
+  }
+
+  /**
+   * Tests that the fold views hold the same data as trainCV() and testCV(),
+   * and that their instances read the values of the viewed dataset.
+   */
+  public void testFolds() {
+    for (int numFolds = 2; numFolds <= 4; numFolds++) {
+      for (int fold = 0; fold < numFolds; fold++) {
+        Instances test = m_Instances.testCVView(numFolds, fold);
+        Instances train = m_Instances.trainCVView(numFolds, fold);
+
+        assertSameData(m_Instances.testCV(numFolds, fold), test);
+        assertSameData(m_Instances.trainCV(numFolds, fold), train);
+        assertSameData(m_Instances.trainCV(numFolds, fold, new Random(1)),
+          m_Instances.trainCVView(numFolds, fold, new Random(1)));
+        for (int i = 0; i < train.numInstances(); i++) {
+          assertTrue("instance " + i + " copied",
+            ((SharedInstance) train.instance(i)).isShared());
+          assertSame(train, train.instance(i).dataset());
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that changing the instances of a copy-on-write view does not affect
+   * the viewed dataset or other views of it.
+   */
+  public void testCopyOnWrite() {
+    Instances copy = new Instances(m_Instances);
+    Instances train = m_Instances.trainCVView(3, 0);
+    Instances other = m_Instances.trainCVView(3, 1);
+    Instances nested = new CopyOnWriteInstancesView(train, 0, train.numInstances());
+
+    Instance inst = train.instance(0);
+    inst.setWeight(5);
+    inst.setValue(2, 42);
+    assertFalse(((SharedInstance) inst).isShared());
+    assertEquals(5.0, train.instance(0).weight());
+    assertEquals(42.0, train.instance(0).value(2));
+    for (int i = 0; i < train.numInstances(); i++) {
+      nested.instance(i).setWeight(7);
+      nested.instance(i).setMissing(1);
+    }
+    other.instance(other.numInstances() - 1).setValue(2, 43);
+    train.deleteAttributeAt(0);
+    assertEquals(42.0, train.instance(0).value(1));
+
+    assertSameData(copy, m_Instances);
+    for (int i = 0; i < copy.numInstances(); i++) {
+      assertEquals("weight " + i + " changed", copy.instance(i).weight(), m_Instances.instance(i).weight());
+    }
+    assertEquals(5.0, train.instance(0).weight());
+    assertEquals(copy.numAttributes(), other.numAttributes());
+  }
+
+  /**
+   * Tests that reordering and shrinking a view does not affect the viewed
+   * dataset.
+   */
+  public void testReorder() {
+    Instances copy = new Instances(m_Instances);
+    Instances view = new InstancesView(m_Instances, 0, m_Instances.numInstances());
+
+    view.randomize(new Random(1));
+    view.delete(0);
+    view.sort(2);
+    assertEquals(m_Instances.numInstances() - 1, view.numInstances());
+    assertSameData(copy, m_Instances);
+  }
+
+  /**
+   * Tests that changes of the header copy the instances first.
+   */
+  public void testHeaderChanges() {
+    Instances copy = new Instances(m_Instances);
+    InstancesView view = new InstancesView(m_Instances, 2, 5);
+
+    view.setClassIndex(-1);
+    assertTrue(view.isShared());
+    view.setClassIndex(1);
+    assertFalse(view.isShared());
+    assertNotSame(m_Instances.instance(2), view.instance(0));
+    assertSame(view, view.instance(0).dataset());
+
+    view = new InstancesView(m_Instances, 2, 5);
+    view.insertAttributeAt(new Attribute("new"), 0);
+    assertFalse(view.isShared());
+    assertTrue(view.instance(0).isMissing(0));
+    assertEquals(m_Instances.instance(2).value(2), view.instance(0).value(3));
+    assertSameData(copy, m_Instances);
+  }
+
+  /**
+   * Tests the range checks.
+   */
+  public void testRange() {
+    try {
+      new InstancesView(m_Instances, 5, m_Instances.numInstances());
+      fail("range not checked");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      m_Instances.trainCVView(m_Instances.numInstances() + 1, 0);
+      fail("number of folds not checked");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  public static void main(String[] args){
+    TestRunner.run(suite());
+  }
+}
@@ -0,0 +1,229 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Copyright (C) 2026 lendle
+ */
+
+package weka.core;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+import weka.classifiers.Evaluation;
+import weka.classifiers.trees.J48;
+import weka.core.converters.ArffLoader;
+
+/**
+ * Tests MappedInstances. Run from the command line with:<p/>
+ * java weka.core.MappedInstancesTest
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+public class MappedInstancesTest
+  extends TestCase {
+
+  /** the test instances to work with. */
+  protected Instances m_Instances;
+
+  /** the mapped file. */
+  protected File m_File;
+
+  /**
+   * Constructs the <code>MappedInstancesTest</code>.
+   *
+   * @param name 	the name of the test
+   */
+  public MappedInstancesTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Returns a loader for the test data.
+   *
+   * @return		the loader
+   * @throws Exception	if the data cannot be found
+   */
+  protected ArffLoader getLoader() throws Exception {
+    ArffLoader loader = new ArffLoader();
+    loader.setSource(ClassLoader.getSystemResourceAsStream("weka/core/data/InstancesTest.arff"));
+    return loader;
+  }
+
+  /**
+   * Called by JUnit before each test method.
+   *
+   * @throws Exception 	if an error occurs
+   */
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    m_Instances = getLoader().getDataSet();
+    m_File = File.createTempFile("MappedInstancesTest", MappedInstances.FILE_EXTENSION);
+    MappedInstances.write(getLoader(), m_File);
+  }
+
+  /**
+   * Called by JUnit after each test method.
+   *
+   * @throws Exception 	if an error occurs
+   */
+  protected void tearDown() throws Exception {
+    m_Instances = null;
+    m_File.delete();
+
+    super.tearDown();
+  }
+
+  /**
+   * Returns the test suite.
+   *
+   * @return		the test suite
+   */
+  public static Test suite() {
+    return new TestSuite(MappedInstancesTest.class);
+  }
+
+  /**
+   * Checks that both datasets hold the same instances, in the same order.
+   *
+   * @param expected	the reference dataset
+   * @param actual	the dataset to check
+   */
+  protected void assertSameData(Instances expected, Instances actual) {
+    assertNull(expected.equalHeadersMsg(actual), expected.equalHeadersMsg(actual));
+    assertEquals("numInstances differs", expected.numInstances(), actual.numInstances());
+    for (int i = 0; i < expected.numInstances(); i++) {
+      Instance exp = expected.instance(i);
+      Instance act = actual.instance(i);
+      assertTrue("instance " + i + " differs", Arrays.equals(exp.toDoubleArray(), act.toDoubleArray()));
+      assertEquals("weight of instance " + i + " differs", exp.weight(), act.weight());
+      for (int j = 0; j < exp.numAttributes(); j++) {
+        if (exp.attribute(j).isString() && !exp.isMissing(j)) {
+          assertEquals("string value of instance " + i + " differs", exp.stringValue(j), act.stringValue(j));
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests reading the data back.
+   *
+   * @throws Exception	if an error occurs
+   */
+  public void testRoundTrip() throws Exception {
+    MappedInstances data = new MappedInstances(m_File);
+
+    assertSameData(m_Instances, data);
+    assertTrue(data.instance(0) instanceof MappedInstance);
+  }
+
+  /**
+   * Tests that copies of the dataset stay mapped and that modifications only
+   * affect the modified instance.
+   *
+   * @throws Exception	if an error occurs
+   */
+  public void testCopyOnWrite() throws Exception {
+    MappedInstances data = new MappedInstances(m_File);
+    Instances copy = new Instances(data);
+
+    assertTrue(((MappedInstance) copy.instance(0)).isMapped());
+    copy.instance(0).setValue(2, 42.0);
+    assertFalse(((MappedInstance) copy.instance(0)).isMapped());
+    assertEquals(42.0, copy.instance(0).value(2));
+    assertEquals(m_Instances.instance(0).value(2), data.instance(0).value(2));
+    assertEquals(m_Instances.instance(0).value(2), new MappedInstances(m_File).instance(0).value(2));
+
+    copy.insertAttributeAt(new Attribute("new"), 0);
+    assertTrue(copy.instance(1).isMissing(0));
+    assertEquals(m_Instances.instance(1).value(2), copy.instance(1).value(3));
+    assertSameData(m_Instances, data);
+  }
+
+  /**
+   * Tests serializing a dataset.
+   *
+   * @throws Exception	if serialization fails
+   */
+  public void testSerialization() throws Exception {
+    MappedInstances data = new MappedInstances(m_File);
+
+    assertSameData(m_Instances, (Instances) new SerializedObject(data).getObject());
+  }
+
+  /**
+   * Tests that invalid files are rejected.
+   *
+   * @throws Exception	if an error occurs
+   */
+  public void testInvalidFile() throws Exception {
+    FileOutputStream out = new FileOutputStream(m_File);
+    out.write(new byte[64]);
+    out.close();
+    try {
+      new MappedInstances(m_File);
+      fail("invalid file not detected");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+  /**
+   * Tests that a classifier and a cross-validation give the same results on
+   * both datasets.
+   *
+   * @throws Exception	if the classifier fails
+   */
+  public void testClassifier() throws Exception {
+    Instances plain = new Instances(m_Instances);
+    plain.deleteStringAttributes();
+    plain.setClassIndex(0);
+    File file = File.createTempFile("MappedInstancesTest", MappedInstances.FILE_EXTENSION);
+    try {
+      MappedInstances.write(new weka.core.converters.ConverterUtils.DataSource(plain), file);
+      MappedInstances data = new MappedInstances(file);
+      assertEquals(0, data.classIndex());
+
+      J48 expected = new J48();
+      expected.setMinNumObj(1);
+      expected.buildClassifier(plain);
+      J48 actual = new J48();
+      actual.setMinNumObj(1);
+      actual.buildClassifier(data);
+      assertEquals(expected.toString(), actual.toString());
+
+      Evaluation expectedEval = new Evaluation(plain);
+      expectedEval.crossValidateModel(new J48(), plain, 3, new Random(1));
+      Evaluation actualEval = new Evaluation(data);
+      actualEval.crossValidateModel(new J48(), data, 3, new Random(1));
+      assertEquals(expectedEval.toSummaryString(), actualEval.toSummaryString());
+    } finally {
+      file.delete();
+    }
+  }
+
+  public static void main(String[] args){
+    TestRunner.run(suite());
+  }
+}
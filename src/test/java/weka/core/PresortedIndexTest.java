@@ -0,0 +1,204 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Copyright (C) 2026 lendle
+ */
+
+package weka.core;
+
+import java.util.Arrays;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+/**
+ * Tests PresortedIndex. Run from the command line with:<p/>
+ * java weka.core.PresortedIndexTest
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+public class PresortedIndexTest
+  extends TestCase {
+
+  /** the test instances to work with. */
+  protected Instances m_Instances;
+
+  /**
+   * Constructs the <code>PresortedIndexTest</code>.
+   *
+   * @param name 	the name of the test
+   */
+  public PresortedIndexTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Called by JUnit before each test method.
+   *
+   * @throws Exception 	if an error occurs
+   */
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    TestInstances test = new TestInstances();
+    test.setNumInstances(200);
+    test.setNumNominal(2);
+    test.setNumNumeric(4);
+    test.setNumDate(1);
+    test.setNumString(1);
+    test.setClassIndex(TestInstances.CLASS_IS_LAST);
+    m_Instances = test.generate();
+    // some missing values
+    for (int i = 0; i < m_Instances.numInstances(); i += 7) {
+      m_Instances.instance(i).setMissing(i % (m_Instances.numAttributes() - 1));
+    }
+  }
+
+  /**
+   * Called by JUnit after each test method.
+   *
+   * @throws Exception 	if an error occurs
+   */
+  protected void tearDown() throws Exception {
+    m_Instances = null;
+
+    super.tearDown();
+  }
+
+  /**
+   * Returns the test suite.
+   *
+   * @return		the test suite
+   */
+  public static Test suite() {
+    return new TestSuite(PresortedIndexTest.class);
+  }
+
+  /**
+   * Checks that the index of the given attribute holds the given instances,
+   * sorted, with the missing values last.
+   *
+   * @param index	the index to check
+   * @param att		the attribute's index
+   * @param members	the instances that are expected in the index
+   */
+  protected void checkSorted(PresortedIndex index, int att, boolean[] members) {
+    int[] sorted = index.sortedIndices(att);
+    int expected = 0;
+    for (boolean member : members) {
+      if (member) {
+        expected++;
+      }
+    }
+    assertEquals("numInstances differs", expected, sorted.length);
+    assertEquals(expected, index.numInstances());
+    for (int i = 0; i < sorted.length; i++) {
+      assertTrue("instance " + sorted[i] + " not expected", members[sorted[i]]);
+      boolean missing = m_Instances.instance(sorted[i]).isMissing(att);
+      assertEquals("missing value at " + i, i >= index.numNonMissing(att), missing);
+      if ((i > 0) && !missing) {
+        if (m_Instances.attribute(att).isNumeric()) {
+          assertTrue("not sorted at " + i,
+            m_Instances.instance(sorted[i - 1]).value(att) <= m_Instances.instance(sorted[i]).value(att));
+        } else {
+          assertTrue("order not kept at " + i, sorted[i - 1] < sorted[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests the index of the whole dataset.
+   *
+   * @throws Exception	if an error occurs
+   */
+  public void testSort() throws Exception {
+    PresortedIndex index = new PresortedIndex(m_Instances);
+    boolean[] all = new boolean[m_Instances.numInstances()];
+    Arrays.fill(all, true);
+
+    for (int j = 0; j < m_Instances.numAttributes(); j++) {
+      if (m_Instances.attribute(j).isString() || (j == m_Instances.classIndex())) {
+        assertFalse(index.isIndexed(j));
+        assertNull(index.sortedIndices(j));
+      } else {
+        assertTrue(index.isIndexed(j));
+        checkSorted(index, j, all);
+      }
+    }
+  }
+
+  /**
+   * Tests that sorting in parallel gives the same index.
+   *
+   * @throws Exception	if an error occurs
+   */
+  public void testParallel() throws Exception {
+    PresortedIndex expected = new PresortedIndex(m_Instances);
+    PresortedIndex actual = new PresortedIndex(m_Instances, 3);
+
+    for (int j = 0; j < m_Instances.numAttributes(); j++) {
+      assertTrue("attribute " + j + " differs",
+        Arrays.equals(expected.sortedIndices(j), actual.sortedIndices(j)));
+      assertEquals(expected.numNonMissing(j), actual.numNonMissing(j));
+    }
+  }
+
+  /**
+   * Tests partitioning the index twice.
+   *
+   * @throws Exception	if an error occurs
+   */
+  public void testPartition() throws Exception {
+    PresortedIndex index = new PresortedIndex(m_Instances);
+    int[] subsetOf = new int[m_Instances.numInstances()];
+    for (int i = 0; i < subsetOf.length; i++) {
+      subsetOf[i] = (i % 5 == 0) ? -1 : i % 3;
+    }
+    PresortedIndex[] subsets = index.partition(subsetOf, 3);
+
+    for (int k = 0; k < 3; k++) {
+      boolean[] members = new boolean[subsetOf.length];
+      for (int i = 0; i < subsetOf.length; i++) {
+        members[i] = (subsetOf[i] == k);
+      }
+      for (int j = 0; j < m_Instances.numAttributes(); j++) {
+        if (index.isIndexed(j)) {
+          checkSorted(subsets[k], j, members);
+        }
+      }
+    }
+
+    int[] half = new int[subsetOf.length];
+    for (int i = 0; i < half.length; i++) {
+      half[i] = i % 2;
+    }
+    PresortedIndex[] again = subsets[1].partition(half, 2);
+    boolean[] members = new boolean[subsetOf.length];
+    for (int i = 0; i < subsetOf.length; i++) {
+      members[i] = (subsetOf[i] == 1) && (i % 2 == 0);
+    }
+    checkSorted(again[0], 0, members);
+    checkSorted(again[0], 3, members);
+  }
+
+  public static void main(String[] args){
+    TestRunner.run(suite());
+  }
+}
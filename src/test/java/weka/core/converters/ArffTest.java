@@ -19,8 +19,13 @@
 
 package weka.core.converters;
 
+import java.io.StringReader;
+
 import junit.framework.Test;
 import junit.framework.TestSuite;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.converters.ArffLoader.ArffReader;
 
 /**
  * Tests ArffLoader/ArffSaver. Run from the command line with:<p/>
@@ -59,6 +64,63 @@ public class ArffTest
     return new ArffSaver();
   }
 
+  /**
+   * Reads the data with the tokenizer only and with the line parser, the
+   * latter sequentially and in parallel, and compares the results.
+   *
+   * @param header the header of the dataset
+   * @param data the data section
+   * @throws Exception if reading fails
+   */
+  protected void checkLineParsing(String header, String data)
+    throws Exception {
+
+    ArffReader reader = new ArffReader(new StringReader(header + data), 1);
+    Instances structure = reader.getStructure();
+    Instances expected = new Instances(structure, 0);
+    Instance inst;
+    while ((inst = reader.readInstance(structure, false)) != null) {
+      expected.add(inst);
+    }
+
+    for (int numThreads : new int[] { 1, 3 }) {
+      reader = new ArffReader(new StringReader(header + data), 1);
+      structure = reader.getStructure();
+      Instances result = new Instances(structure, 0);
+      reader.readInstances(structure, result, numThreads);
+      assertEquals(numThreads + " thread(s)", expected.toString(),
+        result.toString());
+    }
+  }
+
+  /**
+   * tests that the line parser yields the same data as the tokenizer.
+   */
+  public void testLineParsing() {
+    String numeric =
+      "@relation test\n" + "@attribute a numeric\n"
+        + "@attribute b {red,'light blue',\"x,y\"}\n" + "@data\n";
+    String mixed =
+      "@relation test\n" + "@attribute a numeric\n"
+        + "@attribute b {red,'light blue'}\n" + "@attribute c string\n"
+        + "@data % comment\n";
+    try {
+      checkLineParsing(numeric, "1,red\n" + " 2.5 , 'light blue' \r\n"
+        + "\n% comment\n" + "-3e2,\"x,y\" % trailing\r" + "?,?\n"
+        + "{0 4, 1 red}\n" + "{}\n" + "1e-320,red\n"
+        + "12345678901234567890,'x,y'\n" + "0.1,red");
+      checkLineParsing(mixed, "1,red,'it\\'s'\n" + "2,?,\"tab\\there\"\n"
+        + "3,'light blue','\\101\\7'\n" + "4,red,'%no comment'\n"
+        + "5,red,'multi\\\nline'\n" + "6,red,done\r\n"
+        + "7,red,'again\\\r\n" + "8,red,end\n");
+      checkLineParsing(numeric.replace("red,", "red,'x\\ny',"), "1,red\n"
+        + "2,'x\\\ny'\n" + "3,red\n");
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Line parsing failed: " + e);
+    }
+  }
+
   /**
    * returns a test suite
    * 
@@ -19,8 +19,14 @@
 
 package weka.core.converters;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+
 import junit.framework.Test;
 import junit.framework.TestSuite;
+import weka.core.Instances;
 
 /**
  * Tests CSVLoader/CSVSaver. Run from the command line with:<p/>
@@ -72,6 +78,74 @@ public class CSVTest
     m_CompareValuesAsString = true;
   }
 
+  /**
+   * Loads the given CSV content with the sequential tokenizer and in
+   * parallel chunks, and checks that both produce the same data.
+   *
+   * @param content the CSV content
+   * @param options the options of the loader
+   * @throws Exception if loading fails
+   */
+  protected void checkParallelRead(String content, String[] options)
+    throws Exception {
+
+    File file = File.createTempFile("weka_core_converters", ".csv");
+    file.deleteOnExit();
+    OutputStream out = new FileOutputStream(file);
+    out.write(content.getBytes("UTF-8"));
+    out.close();
+
+    CSVLoader loader = new CSVLoader();
+    loader.setOptions(options.clone());
+    loader.setSource(new ByteArrayInputStream(content.getBytes("UTF-8")));
+    Instances expected = loader.getDataSet();
+    expected.setRelationName(file.getName());
+
+    for (int chunkSize : new int[] { 1, 7, 64, 1000 }) {
+      loader = new CSVLoader();
+      loader.setOptions(options.clone());
+      loader.setSource(file);
+      ParallelCSVReader reader = new ParallelCSVReader(loader, file, 3);
+      reader.setChunkSize(chunkSize);
+      Instances data = reader.read();
+      assertNotNull("parallel read fell back, chunk size " + chunkSize, data);
+      data.setRelationName(file.getName());
+      assertEquals("chunk size " + chunkSize, expected.toString(),
+        data.toString());
+    }
+
+    loader = new CSVLoader();
+    loader.setOptions(options.clone());
+    loader.setNumExecutionSlots(2);
+    loader.setSource(file);
+    Instances data = loader.getDataSet();
+    data.setRelationName(file.getName());
+    assertEquals(expected.toString(), data.toString());
+
+    file.delete();
+  }
+
+  /**
+   * tests that reading a file in parallel chunks yields the same data as
+   * the sequential tokenizer, also when later rows change the types.
+   */
+  public void testParallelRead() {
+    try {
+      checkParallelRead("num,nom,str,und\n" + "1,red,5,?\n"
+        + " 2.5 ,\"green\",6,?\r\n" + "\n" + "-3e2,'red',\"a, b\",x\n"
+        + "?,blue, 7 ,y\n" + ",,,\n" + "0.1,red,abc,x\n", new String[0]);
+      checkParallelRead("a,b,c\n" + "1,x,2016-01-31\n" + "2,y,2016-02-29\n"
+        + "3,x,2016-03-01\n", new String[] { "-S", "2", "-D", "3", "-format",
+        "yyyy-MM-dd" });
+      checkParallelRead("1,2,3\n4,5,6\n7,8,9", new String[] { "-H", "-N",
+        "last", "-R", "1" });
+      checkParallelRead("a;b\n1;2\n3;4\n", new String[] { "-F", ";" });
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Parallel read failed: " + e);
+    }
+  }
+
   /**
    * returns a test suite.
    * 
@@ -0,0 +1,161 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Copyright (C) 2026 lendle
+ */
+
+package weka.core.converters;
+
+import java.io.File;
+import java.io.StringReader;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import weka.core.Instances;
+import weka.core.TestInstances;
+
+/**
+ * Tests ColumnarInstancesLoader/ColumnarInstancesSaver. Run from the command
+ * line with:<p/>
+ * java weka.core.converters.ColumnarInstancesTest
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+public class ColumnarInstancesTest
+  extends AbstractFileConverterTest {
+
+  /**
+   * Constructs the <code>ColumnarInstancesTest</code>.
+   *
+   * @param name the name of the test class
+   */
+  public ColumnarInstancesTest(String name) {
+    super(name);
+  }
+
+  /**
+   * returns the loader used in the tests.
+   *
+   * @return the configured loader
+   */
+  public AbstractLoader getLoader() {
+    return new ColumnarInstancesLoader();
+  }
+
+  /**
+   * returns the saver used in the tests.
+   *
+   * @return the configured saver
+   */
+  public AbstractSaver getSaver() {
+    return new ColumnarInstancesSaver();
+  }
+
+  /**
+   * returns the test data generator.
+   *
+   * @return the configured test data generator
+   */
+  protected TestInstances getTestInstances() {
+    return TestInstances.forCapabilities(
+      new ColumnarInstancesSaver().getCapabilities());
+  }
+
+  /**
+   * Saves the data in chunks and checks that reading it in batch, incremental
+   * and random access mode yields the same data.
+   *
+   * @param data the data to save
+   * @param compress whether to compress the chunks
+   * @throws Exception if saving or loading fails
+   */
+  protected void checkChunks(Instances data, boolean compress)
+    throws Exception {
+
+    ColumnarInstancesSaver saver = new ColumnarInstancesSaver();
+    saver.setChunkSize(3);
+    saver.setCompressOutput(compress);
+    saver.setInstances(data);
+    saver.setFile(new File(m_ExportFilename));
+    saver.writeBatch();
+
+    ColumnarInstancesLoader loader = new ColumnarInstancesLoader();
+    loader.setFile(new File(m_ExportFilename));
+    assertEquals(data.toString(), loader.getDataSet().toString());
+    assertEquals(data.classIndex(), loader.getStructure().classIndex());
+
+    loader = new ColumnarInstancesLoader();
+    loader.setFile(new File(m_ExportFilename));
+    Instances incremental = loader.getStructure();
+    for (int i = 0; i < data.numInstances(); i++) {
+      incremental.add(loader.getNextInstance(incremental));
+    }
+    assertNull(loader.getNextInstance(incremental));
+    assertEquals(data.toString(), incremental.toString());
+
+    assertEquals((data.numInstances() + 2) / 3, loader.getNumChunks());
+    for (int i = loader.getNumChunks() - 1; i >= 0; i--) {
+      Instances chunk = loader.getChunk(i);
+      assertEquals(chunk.numInstances(), loader.getChunkSize(i));
+      for (int j = 0; j < chunk.numInstances(); j++) {
+        assertEquals(data.instance(3 * i + j).toString(), chunk.instance(j)
+          .toString());
+      }
+    }
+  }
+
+  /**
+   * tests chunks with missing values, weights, sparse instances and strings.
+   */
+  public void testChunks() {
+    try {
+      Instances data = new Instances(new StringReader("@relation test\n"
+        + "@attribute num numeric\n" + "@attribute nom {a,b,'c d'}\n"
+        + "@attribute str string\n"
+        + "@attribute date date yyyy-MM-dd\n" + "@data\n"
+        + "1,a,'one',2016-01-31\n" + "2.5,?,'two',?\n"
+        + "?,'c d','one',2016-02-29\n" + "-7,b,?,2016-03-01,{2}\n"
+        + "{1 b, 2 'three'}\n" + "1e300,a,'\u00e4\u00f6\u00fc',2016-04-01\n"
+        + "-0,b,'',2016-05-01\n"));
+      data.setClassIndex(1);
+      checkChunks(data, false);
+      checkChunks(data, true);
+      checkChunks(new Instances(data, 0), true);
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Chunk test failed: " + e);
+    }
+  }
+
+  /**
+   * returns a test suite.
+   *
+   * @return the test suite
+   */
+  public static Test suite() {
+    return new TestSuite(ColumnarInstancesTest.class);
+  }
+
+  /**
+   * for running the test from commandline.
+   *
+   * @param args the commandline arguments - ignored
+   */
+  public static void main(String[] args){
+    junit.textui.TestRunner.run(suite());
+  }
+}
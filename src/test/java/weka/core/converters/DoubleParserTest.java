@@ -0,0 +1,158 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Copyright (C) 2026 lendle
+ */
+
+package weka.core.converters;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+/**
+ * Tests DoubleParser, which the ARFF and the parallel CSV reader use to
+ * convert numbers. Run from the command line with:<p/>
+ * java weka.core.converters.DoubleParserTest
+ *
+ * @author lendle
+ * @version $Revision$
+ */
+public class DoubleParserTest
+  extends TestCase {
+
+  /**
+   * Constructs the <code>DoubleParserTest</code>.
+   *
+   * @param name 	the name of the test
+   */
+  public DoubleParserTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Parses the string from characters and bytes, padded so that the number
+   * doesn't start at 0.
+   *
+   * @param s 		the number
+   * @return 		the results for the characters and the bytes
+   */
+  protected double[] parse(String s) {
+    String padded = " [" + s + "] ";
+    char[] chars = padded.toCharArray();
+    byte[] bytes = padded.getBytes(StandardCharsets.ISO_8859_1);
+    return new double[] {
+      DoubleParser.parse(chars, 2, 2 + s.length()),
+      DoubleParser.parse(bytes, 2, 2 + s.length()) };
+  }
+
+  /**
+   * Checks that both overloads either give Double.valueOf()'s result
+   * exactly, or leave the number to it.
+   *
+   * @param s 		the number
+   * @param fast 	whether the number has to be converted directly
+   */
+  protected void check(String s, boolean fast) {
+    double[] values = parse(s);
+    for (double value : values) {
+      if (Double.isNaN(value)) {
+        assertFalse(s + " should be converted directly", fast);
+      } else {
+        assertEquals(s, Double.doubleToLongBits(Double.valueOf(s)),
+          Double.doubleToLongBits(value));
+      }
+    }
+    assertEquals(s, Double.doubleToLongBits(values[0]),
+      Double.doubleToLongBits(values[1]));
+  }
+
+  /**
+   * Tests numbers that are converted directly.
+   */
+  public void testPlainNumbers() {
+    String[] numbers = { "0", "-0", "+0", "0.0", "1", "-1", "+17", "3.25",
+      ".5", "5.", "-.125", "0.1", "123456789012345", "1234567890.12345",
+      "000000000000000000001.5", "0.000000000000000000001", "1e22", "1e-22",
+      "-2.5E+3", "7e0", "0e500" };
+    for (String s : numbers) {
+      check(s, true);
+    }
+    assertEquals(Double.doubleToLongBits(-0.0),
+      Double.doubleToLongBits(parse("-0")[0]));
+  }
+
+  /**
+   * Tests numbers that are left to Double.valueOf().
+   */
+  public void testFallback() {
+    String[] numbers = { "1234567890123456", "0.1234567890123456",
+      "1.000000000000000", "0.30000000000000004", "1e23", "1e-23", "1.5e308",
+      "4.9e-324", "NaN", "-Infinity", "0x1p3", "1f", "1d", "", "-", ".", "e5",
+      "1e", "1e+", "1..2", "1-2", "1 " };
+    for (String s : numbers) {
+      double[] values = parse(s);
+      assertTrue(s, Double.isNaN(values[0]));
+      assertTrue(s, Double.isNaN(values[1]));
+    }
+  }
+
+  /**
+   * Compares random numbers with Double.valueOf().
+   */
+  public void testRandomNumbers() {
+    Random random = new Random(42);
+    for (int i = 0; i < 100000; i++) {
+      StringBuilder s = new StringBuilder();
+      if (random.nextInt(4) == 0) {
+        s.append('-');
+      }
+      int intDigits = random.nextInt(10);
+      for (int j = 0; j < intDigits; j++) {
+        s.append((char) ('0' + random.nextInt(10)));
+      }
+      s.append('.');
+      int fracDigits = random.nextInt(10);
+      for (int j = 0; j < fracDigits; j++) {
+        s.append((char) ('0' + random.nextInt(10)));
+      }
+      if ((intDigits + fracDigits) == 0) {
+        s.append('0');
+      }
+      if (random.nextBoolean()) {
+        s.append('e').append(random.nextInt(40) - 20);
+      }
+      check(s.toString(), false);
+    }
+  }
+
+  /**
+   * Returns a test suite.
+   *
+   * @return 		test suite
+   */
+  public static Test suite() {
+    return new TestSuite(DoubleParserTest.class);
+  }
+
+  public static void main(String[] args){
+    TestRunner.run(suite());
+  }
+}
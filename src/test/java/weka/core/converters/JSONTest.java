@@ -19,8 +19,16 @@
 
 package weka.core.converters;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.Arrays;
+
 import junit.framework.Test;
 import junit.framework.TestSuite;
+import weka.core.Instance;
+import weka.core.Instances;
 
 /**
  * Tests JSONLoader/JSONSaver. Run from the command line with:<p/>
@@ -71,6 +79,83 @@ public class JSONTest
     m_CompareValuesAsString = true;
   }
 
+  /**
+   * tests whether saving incrementally generates the same file as saving in
+   * batch mode.
+   */
+  public void testIncrementalSaverOutput() {
+    File	file;
+    byte[]	batch;
+    JSONSaver	saver;
+    int		i;
+
+    try {
+      file  = new File(m_ExportFilename);
+      saver = new JSONSaver();
+      saver.setInstances(m_Instances);
+      saver.setFile(file);
+      saver.writeBatch();
+      batch = Files.readAllBytes(file.toPath());
+
+      saver = new JSONSaver();
+      saver.setFile(file);
+      saver.setRetrieval(AbstractSaver.INCREMENTAL);
+      saver.setStructure(new Instances(m_Instances, 0));
+      for (i = 0; i < m_Instances.numInstances(); i++)
+	saver.writeIncremental(m_Instances.instance(i));
+      saver.writeIncremental(null);
+
+      assertTrue("Incremental output differs from batch output", 
+	  Arrays.equals(batch, Files.readAllBytes(file.toPath())));
+    }
+    catch (Exception e) {
+      e.printStackTrace();
+      fail("Incremental save failed: " + e);
+    }
+  }
+
+  /**
+   * tests reading a document that lists the data before the header and
+   * contains additional pairs.
+   */
+  public void testDataBeforeHeader() {
+    String	json;
+    Instances	data;
+    Instances	structure;
+    Instance	inst;
+    JSONLoader	loader;
+
+    json = "{\"comment\": [1, {\"a\": null}], "
+      + "\"data\": ["
+      + "{\"sparse\": false, \"weight\": 1.0, \"values\": [\"1.5\", \"x\"]}, "
+      + "{\"sparse\": false, \"weight\": 2.0, \"values\": [\"?\", \"y\"]}], "
+      + "\"header\": {\"relation\": \"test\", \"attributes\": ["
+      + "{\"name\": \"num\", \"type\": \"numeric\", \"class\": false, \"weight\": 1.0}, "
+      + "{\"name\": \"nom\", \"type\": \"nominal\", \"class\": false, \"weight\": 1.0, "
+      + "\"labels\": [\"x\", \"y\"]}]}}";
+
+    try {
+      data = new Instances(new StringReader(
+	  "@relation test\n@attribute num numeric\n@attribute nom {x,y}\n"
+	  + "@data\n1.5,x\n?,y,{2}\n"));
+
+      loader = new JSONLoader();
+      loader.setSource(new ByteArrayInputStream(json.getBytes("UTF-8")));
+      assertEquals(data.toString(), loader.getDataSet().toString());
+
+      loader = new JSONLoader();
+      loader.setSource(new ByteArrayInputStream(json.getBytes("UTF-8")));
+      structure = loader.getStructure();
+      while ((inst = loader.getNextInstance(structure)) != null)
+	structure.add(inst);
+      assertEquals(data.toString(), structure.toString());
+    }
+    catch (Exception e) {
+      e.printStackTrace();
+      fail("Loading failed: " + e);
+    }
+  }
+
   /**
    * returns a test suite.
    * 